@@ -0,0 +1,111 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.core.api.JournalEntry;
+import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.journal.Journal;
+import io.journalkeeper.core.journal.JournalSnapshot;
+import io.journalkeeper.persistence.BufferPool;
+import io.journalkeeper.persistence.PersistenceFactory;
+import io.journalkeeper.utils.spi.ServiceSupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * 基准测试公用的工具方法
+ */
+class BenchmarkSupport {
+
+    static Path createTempDir(String prefix) throws IOException {
+        return Files.createTempDirectory("journalkeeper-benchmark-" + prefix);
+    }
+
+    static void destroyDir(Path path) {
+        if (null != path) {
+            destroyDir(path.toFile());
+        }
+    }
+
+    private static void destroyDir(File file) {
+        File[] children = file.listFiles();
+        if (null != children) {
+            for (File child : children) {
+                destroyDir(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    static List<JournalEntry> createEntries(JournalEntryParser journalEntryParser, int entrySize, int count, int partition) {
+        List<JournalEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            JournalEntry entry = journalEntryParser.createJournalEntry(randomBytes(entrySize));
+            entry.setTerm(1);
+            entry.setPartition(partition);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    static Journal createJournal(Path path, Set<Integer> partitions, JournalEntryParser journalEntryParser) throws IOException {
+        PersistenceFactory persistenceFactory = ServiceSupport.load(PersistenceFactory.class);
+        BufferPool bufferPool = ServiceSupport.load(BufferPool.class);
+        Journal journal = new Journal(persistenceFactory, bufferPool, journalEntryParser);
+        journal.recover(path, 0L, new EmptyJournalSnapshot(partitions), new Properties());
+        return journal;
+    }
+
+    private static class EmptyJournalSnapshot implements JournalSnapshot {
+        private final Map<Integer, Long> partitionMinIndices;
+
+        EmptyJournalSnapshot(Set<Integer> partitions) {
+            partitionMinIndices = Collections.unmodifiableMap(
+                    partitions.stream().collect(Collectors.toMap(partition -> partition, partition -> 0L)));
+        }
+
+        @Override
+        public long minIndex() {
+            return 0L;
+        }
+
+        @Override
+        public long minOffset() {
+            return 0L;
+        }
+
+        @Override
+        public Map<Integer, Long> partitionMinIndices() {
+            return partitionMinIndices;
+        }
+    }
+}
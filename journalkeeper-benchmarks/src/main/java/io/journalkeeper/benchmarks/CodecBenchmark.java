@@ -0,0 +1,131 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.core.api.ResponseConfig;
+import io.journalkeeper.core.api.UpdateRequest;
+import io.journalkeeper.rpc.client.UpdateClusterStateRequest;
+import io.journalkeeper.rpc.codec.AsyncAppendEntriesRequestCodec;
+import io.journalkeeper.rpc.codec.RpcTypes;
+import io.journalkeeper.rpc.codec.UpdateClusterStateRequestCodec;
+import io.journalkeeper.rpc.header.JournalKeeperHeader;
+import io.journalkeeper.rpc.payload.GenericPayload;
+import io.journalkeeper.rpc.remoting.transport.command.Direction;
+import io.journalkeeper.rpc.server.AsyncAppendEntriesRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RPC编解码的基准测试，覆盖复制和写入两个最频繁的请求。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+    private static final URI LEADER = URI.create("jk://localhost:30001");
+
+    @Param({"256", "1024"})
+    public int entrySize;
+
+    @Param({"1", "64"})
+    public int entryCount;
+
+    private final AsyncAppendEntriesRequestCodec asyncAppendEntriesRequestCodec = new AsyncAppendEntriesRequestCodec();
+    private final UpdateClusterStateRequestCodec updateClusterStateRequestCodec = new UpdateClusterStateRequestCodec();
+    private final JournalKeeperHeader asyncAppendEntriesHeader =
+            new JournalKeeperHeader(JournalKeeperHeader.DEFAULT_VERSION, Direction.REQUEST, RpcTypes.ASYNC_APPEND_ENTRIES_REQUEST, LEADER);
+    private final JournalKeeperHeader updateClusterStateHeader =
+            new JournalKeeperHeader(JournalKeeperHeader.DEFAULT_VERSION, Direction.REQUEST, RpcTypes.UPDATE_CLUSTER_STATE_REQUEST, LEADER);
+
+    private GenericPayload<AsyncAppendEntriesRequest> asyncAppendEntriesRequest;
+    private GenericPayload<UpdateClusterStateRequest> updateClusterStateRequest;
+    private ByteBuf encodeBuffer;
+    private ByteBuf asyncAppendEntriesBuffer;
+    private ByteBuf updateClusterStateBuffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<byte[]> entries = new ArrayList<>(entryCount);
+        List<UpdateRequest> updateRequests = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            byte[] entry = BenchmarkSupport.randomBytes(entrySize);
+            entries.add(entry);
+            updateRequests.add(new UpdateRequest(entry, 0, 1));
+        }
+        asyncAppendEntriesRequest = new GenericPayload<>(
+                new AsyncAppendEntriesRequest(8, LEADER, 1024L, 8, entries, 1000L, 1024L + entryCount));
+        updateClusterStateRequest = new GenericPayload<>(
+                new UpdateClusterStateRequest(updateRequests, false, ResponseConfig.REPLICATION));
+
+        encodeBuffer = PooledByteBufAllocator.DEFAULT.buffer();
+        asyncAppendEntriesBuffer = PooledByteBufAllocator.DEFAULT.buffer();
+        asyncAppendEntriesRequestCodec.encode(asyncAppendEntriesRequest, asyncAppendEntriesBuffer, asyncAppendEntriesHeader);
+        updateClusterStateBuffer = PooledByteBufAllocator.DEFAULT.buffer();
+        updateClusterStateRequestCodec.encode(updateClusterStateRequest, updateClusterStateBuffer, updateClusterStateHeader);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encodeBuffer.release();
+        asyncAppendEntriesBuffer.release();
+        updateClusterStateBuffer.release();
+    }
+
+    @Benchmark
+    public int encodeAsyncAppendEntriesRequest() throws Exception {
+        encodeBuffer.clear();
+        asyncAppendEntriesRequestCodec.encode(asyncAppendEntriesRequest, encodeBuffer, asyncAppendEntriesHeader);
+        return encodeBuffer.writerIndex();
+    }
+
+    @Benchmark
+    public Object decodeAsyncAppendEntriesRequest() throws Exception {
+        asyncAppendEntriesBuffer.readerIndex(0);
+        return asyncAppendEntriesRequestCodec.decode(asyncAppendEntriesHeader, asyncAppendEntriesBuffer);
+    }
+
+    @Benchmark
+    public int encodeUpdateClusterStateRequest() throws Exception {
+        encodeBuffer.clear();
+        updateClusterStateRequestCodec.encode(updateClusterStateRequest, encodeBuffer, updateClusterStateHeader);
+        return encodeBuffer.writerIndex();
+    }
+
+    @Benchmark
+    public Object decodeUpdateClusterStateRequest() throws Exception {
+        updateClusterStateBuffer.readerIndex(0);
+        return updateClusterStateRequestCodec.decode(updateClusterStateHeader, updateClusterStateBuffer);
+    }
+}
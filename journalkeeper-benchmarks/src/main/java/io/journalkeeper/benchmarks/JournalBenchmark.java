@@ -0,0 +1,160 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.core.api.JournalEntry;
+import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.core.journal.Journal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal写入、提交和读取的基准测试。
+ *
+ * 写入的数据落盘，为了限制占用的磁盘空间，写入测试每轮迭代都重新创建一个空的Journal。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+    private static final int PARTITION = 0;
+    // 读取测试预先写入的日志条数
+    private static final int READ_ENTRIES = 100000;
+
+    @Param({"256", "1024"})
+    public int entrySize;
+
+    @Param({"1", "64"})
+    public int batchSize;
+
+    /**
+     * 写入测试用的空Journal和待写入的日志
+     */
+    @State(Scope.Benchmark)
+    public static class WriteState {
+        private final JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+        private List<JournalEntry> entries;
+        private Path path;
+        private Journal journal;
+        private Thread flushThread;
+        private volatile boolean flushing;
+
+        @Setup(Level.Iteration)
+        public void setup(JournalBenchmark benchmark) throws IOException {
+            entries = BenchmarkSupport.createEntries(journalEntryParser, benchmark.entrySize, benchmark.batchSize, PARTITION);
+            path = BenchmarkSupport.createTempDir("journal");
+            journal = BenchmarkSupport.createJournal(path, Collections.singleton(PARTITION), journalEntryParser);
+            // 刷盘线程不能被中断，否则中断会关闭正在刷盘的文件
+            flushing = true;
+            flushThread = new Thread(() -> {
+                while (flushing) {
+                    journal.flush();
+                    try {
+                        Thread.sleep(10L);
+                    } catch (InterruptedException ignored) {
+                        return;
+                    }
+                }
+            }, "FlushJournalThread");
+            flushThread.setDaemon(true);
+            flushThread.start();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException, InterruptedException {
+            flushing = false;
+            flushThread.join();
+            journal.close();
+            BenchmarkSupport.destroyDir(path);
+        }
+    }
+
+    /**
+     * 批量写入batchSize条日志
+     */
+    @Benchmark
+    public List<Long> append(WriteState state) {
+        return state.journal.append(state.entries);
+    }
+
+    /**
+     * 批量写入batchSize条日志并提交，提交时维护分区索引
+     */
+    @Benchmark
+    public long appendAndCommit(WriteState state) throws IOException {
+        state.journal.append(state.entries);
+        long maxIndex = state.journal.maxIndex();
+        state.journal.commit(maxIndex);
+        return maxIndex;
+    }
+
+    /**
+     * 读取测试用的Journal，预先写入并提交了READ_ENTRIES条日志
+     */
+    @State(Scope.Benchmark)
+    public static class ReadState {
+        private final JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+        private Path path;
+        private Journal journal;
+
+        @Setup(Level.Trial)
+        public void setup(JournalBenchmark benchmark) throws IOException {
+            path = BenchmarkSupport.createTempDir("journal-read");
+            journal = BenchmarkSupport.createJournal(path, Collections.singleton(PARTITION), journalEntryParser);
+            List<JournalEntry> entries = BenchmarkSupport.createEntries(journalEntryParser, benchmark.entrySize, 1000, PARTITION);
+            for (int i = 0; i < READ_ENTRIES / entries.size(); i++) {
+                journal.append(entries);
+            }
+            journal.commit(journal.maxIndex());
+            journal.flush();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            journal.close();
+            BenchmarkSupport.destroyDir(path);
+        }
+    }
+
+    /**
+     * 随机读取batchSize条日志
+     */
+    @Benchmark
+    public List<byte[]> readRaw(ReadState state) {
+        long index = ThreadLocalRandom.current().nextLong(state.journal.maxIndex() - batchSize);
+        return state.journal.readRaw(index, batchSize);
+    }
+}
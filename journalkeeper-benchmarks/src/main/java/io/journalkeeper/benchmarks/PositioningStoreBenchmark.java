@@ -0,0 +1,149 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.persistence.local.journal.PositioningStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PositioningStore写入、读取和刷盘的基准测试。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PositioningStoreBenchmark {
+    // 读取测试预先写入的数据大小
+    private static final long READ_STORE_SIZE = 256L * 1024 * 1024;
+    // 写入测试允许的最大脏数据，超过后由写入线程刷盘
+    private static final long MAX_DIRTY_SIZE = 64L * 1024 * 1024;
+
+    @Param({"1024", "65536"})
+    public int writeSize;
+
+    private static PositioningStore createStore(Path path) throws IOException {
+        PositioningStore store = new PositioningStore();
+        store.recover(path, 0L, new Properties());
+        return store;
+    }
+
+    private static void flushAll(PositioningStore store) throws IOException {
+        while (store.flushed() < store.max()) {
+            store.flush();
+        }
+    }
+
+    /**
+     * 写入测试用的空存储，每轮迭代重新创建
+     */
+    @State(Scope.Benchmark)
+    public static class WriteState {
+        private byte[] bytes;
+        private Path path;
+        private PositioningStore store;
+
+        @Setup(Level.Iteration)
+        public void setup(PositioningStoreBenchmark benchmark) throws IOException {
+            bytes = BenchmarkSupport.randomBytes(benchmark.writeSize);
+            path = BenchmarkSupport.createTempDir("store");
+            store = createStore(path);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            store.close();
+            BenchmarkSupport.destroyDir(path);
+        }
+    }
+
+    /**
+     * 只写入，不刷盘，脏数据超过MAX_DIRTY_SIZE之后由写入线程刷盘
+     */
+    @Benchmark
+    public long append(WriteState state) throws IOException {
+        long position = state.store.append(state.bytes);
+        if (position - state.store.flushed() > MAX_DIRTY_SIZE) {
+            flushAll(state.store);
+        }
+        return position;
+    }
+
+    /**
+     * 每次写入后立即刷盘
+     */
+    @Benchmark
+    public long appendAndFlush(WriteState state) throws IOException {
+        long position = state.store.append(state.bytes);
+        flushAll(state.store);
+        return position;
+    }
+
+    /**
+     * 读取测试用的存储，预先写入READ_STORE_SIZE字节并刷盘
+     */
+    @State(Scope.Benchmark)
+    public static class ReadState {
+        private Path path;
+        private PositioningStore store;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            path = BenchmarkSupport.createTempDir("store-read");
+            store = createStore(path);
+            byte[] bytes = BenchmarkSupport.randomBytes(1024 * 1024);
+            while (store.max() < READ_STORE_SIZE) {
+                store.append(bytes);
+                if (store.max() - store.flushed() > MAX_DIRTY_SIZE) {
+                    flushAll(store);
+                }
+            }
+            flushAll(store);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            store.close();
+            BenchmarkSupport.destroyDir(path);
+        }
+    }
+
+    /**
+     * 随机位置读取writeSize字节
+     */
+    @Benchmark
+    public byte[] read(ReadState state) throws IOException {
+        long position = ThreadLocalRandom.current().nextLong(state.store.max() - writeSize);
+        return state.store.read(position, writeSize);
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.benchmarks;
+
+import io.journalkeeper.core.api.ResponseConfig;
+import io.journalkeeper.journalstore.JournalStoreClient;
+import io.journalkeeper.journalstore.JournalStoreServer;
+import io.journalkeeper.utils.net.NetworkingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 同一个进程内3个节点集群的复制基准测试。
+ *
+ * 客户端使用LEADER节点的本地客户端（LocalClientRpc）写入，节点之间通过本机网络复制，
+ * 测量一次写入从提交到多数节点复制完成（或者刷盘完成）的吞吐量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class ReplicationBenchmark {
+    private static final int NODES = 3;
+    private static final int PARTITION = 0;
+    private static final long LEADER_ELECTION_TIMEOUT_MS = 30000L;
+
+    @Param({"1024"})
+    public int entrySize;
+
+    @Param({"REPLICATION", "ALL"})
+    public ResponseConfig responseConfig;
+
+    private Path path;
+    private final List<JournalStoreServer> servers = new ArrayList<>(NODES);
+    private JournalStoreClient client;
+    private byte[] entry;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        entry = BenchmarkSupport.randomBytes(entrySize);
+        path = BenchmarkSupport.createTempDir("replication");
+        List<URI> uris = new ArrayList<>(NODES);
+        for (int i = 0; i < NODES; i++) {
+            uris.add(URI.create("jk://localhost:" + NetworkingUtils.findRandomOpenPortOnAllLocalInterfaces()));
+        }
+        URI leaderUri = uris.get(0);
+        for (int i = 0; i < NODES; i++) {
+            Properties properties = new Properties();
+            properties.setProperty("working_dir", path.resolve("server" + i).toString());
+            properties.setProperty("disable_logo", "true");
+            JournalStoreServer server = new JournalStoreServer(properties);
+            server.init(uris.get(i), uris, Collections.singleton(PARTITION), leaderUri);
+            server.recover();
+            server.start();
+            servers.add(server);
+        }
+        waitForLeader(leaderUri);
+        client = servers.get(0).createLocalClient();
+        client.waitForClusterReady();
+    }
+
+    private void waitForLeader(URI leaderUri) throws Exception {
+        long deadline = System.currentTimeMillis() + LEADER_ELECTION_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            URI leader = servers.get(0).getLocalAdminClient().getClusterConfiguration().get().getLeader();
+            if (leaderUri.equals(leader)) {
+                return;
+            }
+            Thread.sleep(100L);
+        }
+        throw new TimeoutException("Wait for leader " + leaderUri + " timeout!");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (JournalStoreServer server : servers) {
+            server.stop();
+        }
+        servers.clear();
+        BenchmarkSupport.destroyDir(path);
+    }
+
+    @Benchmark
+    public long append() throws Exception {
+        return client.append(PARTITION, 1, entry, responseConfig).get();
+    }
+}
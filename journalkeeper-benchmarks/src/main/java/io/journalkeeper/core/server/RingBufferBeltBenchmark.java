@@ -0,0 +1,115 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import io.journalkeeper.core.api.ResponseConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LEADER上写入回调队列{@link RingBufferBelt}的基准测试。
+ *
+ * RingBufferBelt和Callback都是包内可见的，所以这个基准测试放在同一个包下。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RingBufferBeltBenchmark {
+    private static final long TIMEOUT_MS = 60000L;
+    private static final byte[] RESULT = new byte[0];
+
+    /**
+     * 单线程写入回调，并按位置逐条完成复制回调
+     */
+    @State(Scope.Thread)
+    public static class ReplicationState {
+        @Param({"1", "64"})
+        public int batchSize;
+        private RingBufferBelt belt;
+        private long position = 0L;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            belt = new RingBufferBelt(TIMEOUT_MS, 1024);
+        }
+    }
+
+    @Benchmark
+    public long putAndCallback(ReplicationState state) throws InterruptedException {
+        long start = state.position;
+        for (int i = 0; i < state.batchSize; i++) {
+            state.belt.put(new Callback(state.position++, new ResponseFuture(ResponseConfig.REPLICATION, 1)));
+        }
+        for (long position = start; position < state.position; position++) {
+            state.belt.callback(position, RESULT);
+        }
+        return state.position;
+    }
+
+    /**
+     * 一个线程写入回调，另一个线程批量完成刷盘回调，和LEADER上写入线程、刷盘线程的用法相同
+     */
+    @State(Scope.Group)
+    public static class FlushState {
+        private RingBufferBelt belt;
+        private long nextPosition = 0L;
+        private volatile long maxPosition = -1L;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            belt = new RingBufferBelt(TIMEOUT_MS, 1024);
+            nextPosition = 0L;
+            maxPosition = -1L;
+        }
+    }
+
+    @Benchmark
+    @Group("flush")
+    @GroupThreads(1)
+    public boolean put(FlushState state) throws InterruptedException {
+        // 队列满时不等待，避免迭代结束时完成回调的线程已经退出，写入线程一直等待
+        if (state.belt.full()) {
+            return false;
+        }
+        long position = state.nextPosition++;
+        state.belt.put(new Callback(position, new ResponseFuture(ResponseConfig.PERSISTENCE, 1)));
+        state.maxPosition = position;
+        return true;
+    }
+
+    @Benchmark
+    @Group("flush")
+    @GroupThreads(1)
+    public long callbackBefore(FlushState state) {
+        long position = state.maxPosition;
+        state.belt.callbackBefore(position);
+        return position;
+    }
+}
@@ -14,18 +14,21 @@
 package io.journalkeeper.coordinating.client;
 
 import io.journalkeeper.coordinating.client.exception.CoordinatingClientException;
+import io.journalkeeper.coordinating.state.config.CoordinatingConfigs;
 import io.journalkeeper.coordinating.state.domain.ReadRequest;
 import io.journalkeeper.coordinating.state.domain.ReadResponse;
 import io.journalkeeper.coordinating.state.domain.StateCodes;
 import io.journalkeeper.coordinating.state.domain.StateTypes;
 import io.journalkeeper.coordinating.state.domain.WriteRequest;
 import io.journalkeeper.coordinating.state.domain.WriteResponse;
+import io.journalkeeper.core.api.QueryConsistency;
 import io.journalkeeper.core.serialize.WrappedRaftClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
@@ -46,6 +49,7 @@ public class CoordinatingClient {
     private List<URI> servers;
     private Properties config;
     private WrappedRaftClient<WriteRequest, WriteResponse, ReadRequest, ReadResponse> client;
+    private QueryConsistency queryConsistency;
 
     public CoordinatingClient(List<URI> servers,
                               Properties config,
@@ -53,6 +57,7 @@ public class CoordinatingClient {
         this.servers = servers;
         this.config = config;
         this.client = client;
+        this.queryConsistency = QueryConsistency.valueOf(config.getProperty(CoordinatingConfigs.CONSISTENCY, CoordinatingConfigs.DEFAULT_CONSISTENCY));
     }
 
     public CompletableFuture<WriteResponse> set(byte[] key, byte[] value) {
@@ -85,6 +90,59 @@ public class CoordinatingClient {
                 });
     }
 
+    /**
+     * 按key的字节序分页遍历[startKey, endKey)范围内的数据
+     * @param startKey 起始key（包含），为null时从第一个key开始，翻页时传入上一页的 {@link ScanResult#getNextKey()}
+     * @param endKey 结束key（不包含），为null时遍历到最后一个key
+     * @param limit 每页最多返回的条数
+     * @return 一页数据
+     */
+    public CompletableFuture<ScanResult> scan(byte[] startKey, byte[] endKey, int limit) {
+        return doQuery(new ReadRequest(StateTypes.SCAN.getType(), startKey, endKey, limit))
+                .exceptionally(cause -> {
+                    throw convertException(cause);
+                })
+                .thenApply(response -> new ScanResult(response.getKeys(), response.getValues(), response.getNextKey()));
+    }
+
+    /**
+     * 分页遍历以prefix开头的所有key
+     * @param prefix key前缀
+     * @param limit 每页最多返回的条数
+     * @return 第一页数据，翻页时使用 {@link #scanPrefix(byte[], byte[], int)}
+     */
+    public CompletableFuture<ScanResult> scanPrefix(byte[] prefix, int limit) {
+        return scanPrefix(prefix, prefix, limit);
+    }
+
+    public CompletableFuture<ScanResult> scanPrefix(byte[] prefix, byte[] startKey, int limit) {
+        return scan(startKey, prefixEnd(prefix), limit);
+    }
+
+    // 大于所有以prefix开头的key的最小key，prefix全部是0xFF时没有上界
+    private static byte[] prefixEnd(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xFF) {
+                byte[] end = Arrays.copyOf(prefix, i + 1);
+                end[i]++;
+                return end;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 批量写入，所有操作作为一条日志提交，原子执行
+     * @param batch 批量写入的操作
+     * @return 执行结果，其中compareAndSet不满足时msg为false，所有操作都不执行
+     */
+    public CompletableFuture<WriteResponse> batch(WriteBatch batch) {
+        return doUpdate(new WriteRequest(StateTypes.BATCH.getType(), batch.getRequests()))
+                .exceptionally(cause -> {
+                    throw convertException(cause);
+                });
+    }
+
     public CompletableFuture<WriteResponse> remove(byte[] key) {
         return doUpdate(new WriteRequest(StateTypes.REMOVE.getType(), key))
                 .exceptionally(cause -> {
@@ -117,6 +175,14 @@ public class CoordinatingClient {
         client.unWatch(new EventWatcherAdapter(key, listener));
     }
 
+    public void watchPrefix(byte[] prefix, CoordinatingEventListener listener) {
+        client.watch(new EventWatcherAdapter(prefix, true, listener));
+    }
+
+    public void unwatchPrefix(byte[] prefix, CoordinatingEventListener listener) {
+        client.unWatch(new EventWatcherAdapter(prefix, true, listener));
+    }
+
     public void waitClusterReady(Long maxWaitMs) throws InterruptedException, TimeoutException {
         this.client.waitForClusterReady(maxWaitMs);
     }
@@ -139,7 +205,7 @@ public class CoordinatingClient {
     }
 
     protected CompletableFuture<ReadResponse> doQuery(ReadRequest request) {
-        return client.query(request)
+        return client.query(request, queryConsistency)
                 .exceptionally(t -> {
                     throw new CoordinatingClientException(t.getCause());
                 }).thenApply(response -> {
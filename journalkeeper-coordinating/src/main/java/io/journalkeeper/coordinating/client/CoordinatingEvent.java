@@ -26,6 +26,8 @@ public class CoordinatingEvent {
     private StateTypes type;
     private byte[] key;
     private byte[] value;
+    // 产生事件的写操作对应的Raft日志索引序号，单调递增
+    private long revision = -1L;
 
     public CoordinatingEvent() {
 
@@ -65,4 +67,12 @@ public class CoordinatingEvent {
     public void setValue(byte[] value) {
         this.value = value;
     }
-}
\ No newline at end of file
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+}
@@ -13,12 +13,13 @@
  */
 package io.journalkeeper.coordinating.client;
 
+import io.journalkeeper.coordinating.state.domain.CoordinatingEventData;
 import io.journalkeeper.coordinating.state.domain.StateTypes;
 import io.journalkeeper.utils.event.Event;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventType;
 import io.journalkeeper.utils.event.EventWatcher;
 
-import java.nio.charset.Charset;
 import java.util.Map;
 import java.util.Objects;
 
@@ -31,15 +32,35 @@ import java.util.Objects;
 public class EventWatcherAdapter implements EventWatcher {
 
     private byte[] key;
+    private boolean prefix;
     private CoordinatingEventListener listener;
+    private EventFilter eventFilter;
 
     public EventWatcherAdapter(CoordinatingEventListener listener) {
         this.listener = listener;
+        this.eventFilter = CoordinatingEventData.allKeysFilter();
     }
 
     public EventWatcherAdapter(byte[] key, CoordinatingEventListener listener) {
+        this(key, false, listener);
+    }
+
+    /**
+     * @param key 监听的key或者key前缀
+     * @param prefix 为true时监听所有以key开头的key
+     * @param listener 监听器
+     */
+    public EventWatcherAdapter(byte[] key, boolean prefix, CoordinatingEventListener listener) {
         this.key = key;
+        this.prefix = prefix;
         this.listener = listener;
+        // 过滤条件会发送给服务端，服务端只推送符合条件的事件
+        this.eventFilter = prefix ? CoordinatingEventData.prefixFilter(key) : CoordinatingEventData.keyFilter(key);
+    }
+
+    @Override
+    public EventFilter eventFilter() {
+        return eventFilter;
     }
 
     @Override
@@ -49,28 +70,32 @@ public class EventWatcherAdapter implements EventWatcher {
         }
 
         Map<String, String> eventData = event.getEventData();
-        if (eventData == null || eventData.isEmpty()) {
+        if (eventData == null || eventData.get(CoordinatingEventData.TYPE) == null || !eventFilter.accept(event)) {
             return;
         }
 
         CoordinatingEvent coordinatingEvent = null;
-        StateTypes type = StateTypes.valueOf(Integer.valueOf(eventData.get("type")));
-        String key = eventData.get("key");
-        String value = eventData.get("value");
+        StateTypes type = StateTypes.valueOf(Integer.valueOf(eventData.get(CoordinatingEventData.TYPE)));
+        byte[] key = CoordinatingEventData.decode(eventData.get(CoordinatingEventData.KEY));
+        String value = eventData.get(CoordinatingEventData.VALUE);
 
         switch (type) {
             case SET:
             case COMPARE_AND_SET: {
-                coordinatingEvent = new CoordinatingEvent(type, key.getBytes(Charset.forName("UTF-8")), value.getBytes(Charset.forName("UTF-8")));
+                coordinatingEvent = new CoordinatingEvent(type, key, CoordinatingEventData.decode(value));
                 break;
             }
             case REMOVE: {
-                coordinatingEvent = new CoordinatingEvent(type, key.getBytes(Charset.forName("UTF-8")));
+                coordinatingEvent = new CoordinatingEvent(type, key);
                 break;
             }
         }
 
-        if (coordinatingEvent != null && (this.key == null || Objects.deepEquals(this.key, coordinatingEvent.getKey()))) {
+        if (coordinatingEvent != null) {
+            String revision = eventData.get(CoordinatingEventData.REVISION);
+            if (revision != null) {
+                coordinatingEvent.setRevision(Long.parseLong(revision));
+            }
             listener.onEvent(coordinatingEvent);
         }
     }
@@ -87,6 +112,7 @@ public class EventWatcherAdapter implements EventWatcher {
         }
 
         return ((EventWatcherAdapter) obj).getListener().equals(listener) &&
+                ((EventWatcherAdapter) obj).isPrefix() == prefix &&
                 (key == null && ((EventWatcherAdapter) obj).getKey() == null || Objects.deepEquals(((EventWatcherAdapter) obj).getKey(), key));
     }
 
@@ -94,7 +120,11 @@ public class EventWatcherAdapter implements EventWatcher {
         return key;
     }
 
+    public boolean isPrefix() {
+        return prefix;
+    }
+
     public CoordinatingEventListener getListener() {
         return listener;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.coordinating.client;
+
+import java.util.List;
+
+/**
+ * 范围遍历的一页结果
+ */
+public class ScanResult {
+
+    private final List<byte[]> keys;
+    private final List<byte[]> values;
+    private final byte[] nextKey;
+
+    public ScanResult(List<byte[]> keys, List<byte[]> values, byte[] nextKey) {
+        this.keys = keys;
+        this.values = values;
+        this.nextKey = nextKey;
+    }
+
+    public List<byte[]> getKeys() {
+        return keys;
+    }
+
+    public List<byte[]> getValues() {
+        return values;
+    }
+
+    /**
+     * 下一页的起始key，作为下次遍历的startKey
+     * @return 没有更多数据时返回null
+     */
+    public byte[] getNextKey() {
+        return nextKey;
+    }
+
+    public boolean hasMore() {
+        return nextKey != null;
+    }
+}
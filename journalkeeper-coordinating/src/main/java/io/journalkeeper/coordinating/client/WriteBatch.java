@@ -0,0 +1,52 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.coordinating.client;
+
+import io.journalkeeper.coordinating.state.domain.StateTypes;
+import io.journalkeeper.coordinating.state.domain.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写入，通过 {@link CoordinatingClient#batch(WriteBatch)} 作为一条日志提交，在状态机中原子执行。
+ * 其中的compareAndSet作为前置条件，任何一个不满足时所有操作都不执行。
+ */
+public class WriteBatch {
+
+    private final List<WriteRequest> requests = new ArrayList<>();
+
+    public WriteBatch set(byte[] key, byte[] value) {
+        requests.add(new WriteRequest(StateTypes.SET.getType(), key, value));
+        return this;
+    }
+
+    public WriteBatch remove(byte[] key) {
+        requests.add(new WriteRequest(StateTypes.REMOVE.getType(), key));
+        return this;
+    }
+
+    public WriteBatch compareAndSet(byte[] key, byte[] expect, byte[] value) {
+        requests.add(new WriteRequest(StateTypes.COMPARE_AND_SET.getType(), key, expect, value));
+        return this;
+    }
+
+    public List<WriteRequest> getRequests() {
+        return requests;
+    }
+
+    public int size() {
+        return requests.size();
+    }
+}
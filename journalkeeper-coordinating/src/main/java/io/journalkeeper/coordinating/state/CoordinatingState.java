@@ -14,19 +14,24 @@
 package io.journalkeeper.coordinating.state;
 
 import io.journalkeeper.coordinating.state.config.CoordinatingConfigs;
+import io.journalkeeper.coordinating.state.domain.CoordinatingEventData;
 import io.journalkeeper.coordinating.state.domain.ReadRequest;
 import io.journalkeeper.coordinating.state.domain.ReadResponse;
 import io.journalkeeper.coordinating.state.domain.StateCodes;
+import io.journalkeeper.coordinating.state.domain.StateTypes;
 import io.journalkeeper.coordinating.state.domain.WriteRequest;
 import io.journalkeeper.coordinating.state.domain.WriteResponse;
 import io.journalkeeper.coordinating.state.store.KVStore;
 import io.journalkeeper.coordinating.state.store.KVStoreManager;
+import io.journalkeeper.core.api.Checkpointable;
 import io.journalkeeper.core.serialize.WrappedState;
 import io.journalkeeper.core.serialize.WrappedStateResult;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -36,7 +41,7 @@ import java.util.Properties;
  *
  * date: 2019/5/30
  */
-public class CoordinatingState implements WrappedState<WriteRequest, WriteResponse, ReadRequest, ReadResponse> {
+public class CoordinatingState implements WrappedState<WriteRequest, WriteResponse, ReadRequest, ReadResponse>, Checkpointable {
 
     private Properties properties;
     private KVStore kvStore;
@@ -55,13 +60,28 @@ public class CoordinatingState implements WrappedState<WriteRequest, WriteRespon
         if (response.getCode() != StateCodes.SUCCESS.getCode()) {
             return new WrappedStateResult<>(response, null);
         }
-        Map<String, String> events = new HashMap<>(3);
-        events.put("type", String.valueOf(request.getType()));
-        events.put("key", new String(request.getKey(), StandardCharsets.UTF_8));
+        if (request.getType() == StateTypes.BATCH.getType()) {
+            // 批量写入的每个操作触发一个事件，监听单个key的客户端也能收到变更
+            if (!Boolean.parseBoolean(response.getMsg()) || request.getRequests().isEmpty()) {
+                return new WrappedStateResult<>(response, null);
+            }
+            List<Map<String, String>> events = new ArrayList<>(request.getRequests().size());
+            for (WriteRequest batchRequest : request.getRequests()) {
+                events.add(toEventData(batchRequest));
+            }
+            return new WrappedStateResult<>(response, events.get(0), events.subList(1, events.size()));
+        }
+        return new WrappedStateResult<>(response, toEventData(request));
+    }
+
+    protected Map<String, String> toEventData(WriteRequest request) {
+        Map<String, String> events = new HashMap<>(4);
+        events.put(CoordinatingEventData.TYPE, String.valueOf(request.getType()));
+        events.put(CoordinatingEventData.KEY, CoordinatingEventData.encode(request.getKey()));
         if (request.getValue() != null) {
-            events.put("value", new String(request.getValue(), StandardCharsets.UTF_8));
+            events.put(CoordinatingEventData.VALUE, CoordinatingEventData.encode(request.getValue()));
         }
-        return new WrappedStateResult<>(response, events);
+        return events;
     }
 
     @Override
@@ -74,6 +94,16 @@ public class CoordinatingState implements WrappedState<WriteRequest, WriteRespon
         return handler.handle(request);
     }
 
+    @Override
+    public boolean isImmutable(Path file) {
+        return kvStore.isImmutable(file);
+    }
+
+    @Override
+    public boolean checkpoint(Path destPath) throws IOException {
+        return kvStore.checkpoint(destPath);
+    }
+
     @Override
     public void close() {
         kvStore.close();
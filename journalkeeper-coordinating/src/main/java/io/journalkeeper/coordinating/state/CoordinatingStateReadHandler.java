@@ -17,6 +17,7 @@ import io.journalkeeper.coordinating.state.domain.ReadRequest;
 import io.journalkeeper.coordinating.state.domain.ReadResponse;
 import io.journalkeeper.coordinating.state.domain.StateCodes;
 import io.journalkeeper.coordinating.state.domain.StateTypes;
+import io.journalkeeper.coordinating.state.store.KVEntry;
 import io.journalkeeper.coordinating.state.store.KVStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +36,9 @@ public class CoordinatingStateReadHandler {
 
     protected static final Logger logger = LoggerFactory.getLogger(CoordinatingStateReadHandler.class);
 
+    public static final int DEFAULT_SCAN_LIMIT = 1000;
+    public static final int MAX_SCAN_LIMIT = 10000;
+
     private Properties properties;
     private KVStore kvStore;
 
@@ -56,6 +60,9 @@ public class CoordinatingStateReadHandler {
                 case LIST: {
                     return doList(request.getKeys());
                 }
+                case SCAN: {
+                    return doScan(request.getKey(), request.getEndKey(), request.getLimit());
+                }
                 default: {
                     logger.warn("unsupported type, type: {}, request: {}", type, request);
                     return null;
@@ -81,4 +88,29 @@ public class CoordinatingStateReadHandler {
         List<byte[]> values = kvStore.multiGet(keys);
         return new ReadResponse(StateCodes.SUCCESS.getCode(), new ArrayList<>(values));
     }
+
+    protected ReadResponse doScan(byte[] startKey, byte[] endKey, int limit) {
+        if (limit <= 0) {
+            limit = DEFAULT_SCAN_LIMIT;
+        }
+        limit = Math.min(limit, MAX_SCAN_LIMIT);
+
+        // 多取一条，用于判断是否还有下一页
+        List<KVEntry> entries = kvStore.scan(startKey, endKey, limit + 1);
+        byte[] nextKey = null;
+        if (entries.size() > limit) {
+            nextKey = entries.remove(limit).getKey();
+        }
+
+        List<byte[]> keys = new ArrayList<>(entries.size());
+        List<byte[]> values = new ArrayList<>(entries.size());
+        for (KVEntry entry : entries) {
+            keys.add(entry.getKey());
+            values.add(entry.getValue());
+        }
+        ReadResponse response = new ReadResponse(StateCodes.SUCCESS.getCode(), values);
+        response.setKeys(keys);
+        response.setNextKey(nextKey);
+        return response;
+    }
 }
\ No newline at end of file
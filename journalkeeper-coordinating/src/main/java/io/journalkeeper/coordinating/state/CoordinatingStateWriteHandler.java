@@ -17,10 +17,17 @@ import io.journalkeeper.coordinating.state.domain.StateCodes;
 import io.journalkeeper.coordinating.state.domain.StateTypes;
 import io.journalkeeper.coordinating.state.domain.WriteRequest;
 import io.journalkeeper.coordinating.state.domain.WriteResponse;
+import io.journalkeeper.coordinating.state.store.KVEntry;
 import io.journalkeeper.coordinating.state.store.KVStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 
 /**
@@ -54,6 +61,9 @@ public class CoordinatingStateWriteHandler {
                 case COMPARE_AND_SET: {
                     return doCompareAndSet(request.getKey(), request.getExpect(), request.getValue());
                 }
+                case BATCH: {
+                    return doBatch(request.getRequests());
+                }
                 default: {
                     logger.warn("unsupported type, type: {}, request: {}", type, request);
                     return new WriteResponse(StateCodes.ERROR.getCode(), "unsupported type");
@@ -79,4 +89,46 @@ public class CoordinatingStateWriteHandler {
         boolean result = kvStore.compareAndSet(key, expect, update);
         return new WriteResponse(StateCodes.SUCCESS.getCode(), String.valueOf(result));
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量写入，所有操作在一个WriteBatch中原子执行。
+     * 其中的COMPARE_AND_SET操作作为前置条件，任何一个不满足时所有操作都不执行，返回false。
+     * COMPARE_AND_SET比较的是执行到这个操作时的值，包括同一批次中之前的操作写入的值。
+     */
+    protected WriteResponse doBatch(List<WriteRequest> requests) {
+        List<KVEntry> entries = new ArrayList<>(requests.size());
+        // 批次中尚未写入的值，value为null表示删除
+        Map<ByteBuffer, byte[]> pending = new HashMap<>();
+        for (WriteRequest request : requests) {
+            StateTypes type = StateTypes.valueOf(request.getType());
+            switch (type) {
+                case SET: {
+                    entries.add(new KVEntry(request.getKey(), request.getValue()));
+                    pending.put(ByteBuffer.wrap(request.getKey()), request.getValue());
+                    break;
+                }
+                case REMOVE: {
+                    entries.add(new KVEntry(request.getKey(), null));
+                    pending.put(ByteBuffer.wrap(request.getKey()), null);
+                    break;
+                }
+                case COMPARE_AND_SET: {
+                    ByteBuffer pendingKey = ByteBuffer.wrap(request.getKey());
+                    byte[] current = pending.containsKey(pendingKey) ? pending.get(pendingKey) : kvStore.get(request.getKey());
+                    if (current != null && !Objects.deepEquals(current, request.getExpect())) {
+                        return new WriteResponse(StateCodes.SUCCESS.getCode(), String.valueOf(false));
+                    }
+                    entries.add(new KVEntry(request.getKey(), request.getValue()));
+                    pending.put(pendingKey, request.getValue());
+                    break;
+                }
+                default: {
+                    logger.warn("unsupported type in batch, type: {}, request: {}", type, request);
+                    return new WriteResponse(StateCodes.ERROR.getCode(), "unsupported type in batch");
+                }
+            }
+        }
+        kvStore.writeBatch(entries);
+        return new WriteResponse(StateCodes.SUCCESS.getCode(), String.valueOf(true));
+    }
+}
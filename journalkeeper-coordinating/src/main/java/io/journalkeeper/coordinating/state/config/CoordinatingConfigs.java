@@ -22,4 +22,7 @@ package io.journalkeeper.coordinating.state.config;
 public class CoordinatingConfigs {
 
     public static final String STATE_STORE = "coordinating.state.store";
+
+    public static final String CONSISTENCY = "coordinating.consistency";
+    public static final String DEFAULT_CONSISTENCY = "STRICT";
 }
\ No newline at end of file
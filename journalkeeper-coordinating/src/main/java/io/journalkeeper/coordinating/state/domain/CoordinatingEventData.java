@@ -0,0 +1,79 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.coordinating.state.domain;
+
+import io.journalkeeper.utils.event.Event;
+import io.journalkeeper.utils.event.EventFilter;
+import io.journalkeeper.utils.event.EventType;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * 协调服务状态变更事件的数据格式。
+ * 事件数据是字符串Map，key和value按UTF-8编码，和旧版本的客户端保持兼容。
+ * 服务端按字符串前缀过滤key，前缀需要是完整的UTF-8字符序列。
+ */
+public final class CoordinatingEventData {
+
+    public static final String TYPE = "type";
+    public static final String KEY = "key";
+    public static final String VALUE = "value";
+    /**
+     * 事件对应的Raft日志索引序号，由服务端在触发事件时写入，单调递增，可以作为事件的版本号。
+     */
+    public static final String REVISION = Event.LAST_APPLIED;
+
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private CoordinatingEventData() {
+    }
+
+    public static String encode(byte[] bytes) {
+        return new String(bytes, CHARSET);
+    }
+
+    public static byte[] decode(String str) {
+        return str.getBytes(CHARSET);
+    }
+
+    /**
+     * 监听所有key的变更
+     * @return 事件过滤器
+     */
+    public static EventFilter allKeysFilter() {
+        return EventFilter.ofEventTypes(EventType.ON_STATE_CHANGE);
+    }
+
+    /**
+     * 只监听指定key的变更
+     * @param key key
+     * @return 事件过滤器
+     */
+    public static EventFilter keyFilter(byte[] key) {
+        return new EventFilter(Collections.singleton(EventType.ON_STATE_CHANGE),
+                Collections.singletonMap(KEY, Collections.singleton(encode(key))), null);
+    }
+
+    /**
+     * 监听指定前缀的所有key的变更
+     * @param prefix key前缀
+     * @return 事件过滤器
+     */
+    public static EventFilter prefixFilter(byte[] prefix) {
+        return new EventFilter(Collections.singleton(EventType.ON_STATE_CHANGE),
+                null, Collections.singletonMap(KEY, Collections.singleton(encode(prefix))));
+    }
+}
@@ -24,8 +24,13 @@ import java.util.List;
  */
 public class ReadRequest extends StateRequest {
 
+    // 新增字段之前计算出的值，保持和旧版本兼容
+    private static final long serialVersionUID = -2220773232768103865L;
+
     private byte[] key;
     private List<byte[]> keys;
+    private byte[] endKey;
+    private int limit;
 
     public ReadRequest() {
 
@@ -41,6 +46,13 @@ public class ReadRequest extends StateRequest {
         this.keys = keys;
     }
 
+    public ReadRequest(int type, byte[] key, byte[] endKey, int limit) {
+        super(type);
+        this.key = key;
+        this.endKey = endKey;
+        this.limit = limit;
+    }
+
     public byte[] getKey() {
         return key;
     }
@@ -57,12 +69,30 @@ public class ReadRequest extends StateRequest {
         this.keys = keys;
     }
 
+    public byte[] getEndKey() {
+        return endKey;
+    }
+
+    public void setEndKey(byte[] endKey) {
+        this.endKey = endKey;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
     @Override
     public String toString() {
         return "ReadRequest{" +
                 "type=" + getType() +
                 "key=" + Arrays.toString(key) +
                 ", keys=" + keys +
+                ", endKey=" + Arrays.toString(endKey) +
+                ", limit=" + limit +
                 '}';
     }
 }
\ No newline at end of file
@@ -25,10 +25,15 @@ import java.util.List;
  */
 public class ReadResponse implements Serializable {
 
+    // 新增字段之前计算出的值，保持和旧版本兼容
+    private static final long serialVersionUID = 9162211808499912302L;
+
     private int code;
     private String msg;
     private byte[] value;
     private List<byte[]> values;
+    private List<byte[]> keys;
+    private byte[] nextKey;
 
     public ReadResponse() {
 
@@ -97,6 +102,22 @@ public class ReadResponse implements Serializable {
         this.values = values;
     }
 
+    public List<byte[]> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(List<byte[]> keys) {
+        this.keys = keys;
+    }
+
+    public byte[] getNextKey() {
+        return nextKey;
+    }
+
+    public void setNextKey(byte[] nextKey) {
+        this.nextKey = nextKey;
+    }
+
     @Override
     public String toString() {
         return "ReadResponse{" +
@@ -104,6 +125,8 @@ public class ReadResponse implements Serializable {
                 ", msg='" + msg + '\'' +
                 ", value=" + Arrays.toString(value) +
                 ", values=" + values +
+                ", keys=" + keys +
+                ", nextKey=" + Arrays.toString(nextKey) +
                 '}';
     }
 }
\ No newline at end of file
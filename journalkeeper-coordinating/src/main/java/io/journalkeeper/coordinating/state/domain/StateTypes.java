@@ -32,6 +32,12 @@ public enum StateTypes {
 
     LIST(5),
 
+    // 按key范围分页遍历
+    SCAN(6),
+
+    // 批量写入，原子执行
+    BATCH(7),
+
     ;
 
     private int type;
@@ -54,6 +60,10 @@ public enum StateTypes {
                 return COMPARE_AND_SET;
             case 5:
                 return LIST;
+            case 6:
+                return SCAN;
+            case 7:
+                return BATCH;
             default:
                 throw new UnsupportedOperationException(String.valueOf(type));
         }
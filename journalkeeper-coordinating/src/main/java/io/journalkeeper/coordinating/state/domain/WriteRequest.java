@@ -14,6 +14,7 @@
 package io.journalkeeper.coordinating.state.domain;
 
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * WriteRequest
@@ -23,9 +24,13 @@ import java.util.Arrays;
  */
 public class WriteRequest extends StateRequest {
 
+    // 新增字段之前计算出的值，保持和旧版本兼容
+    private static final long serialVersionUID = 1527392187506729848L;
+
     private byte[] key;
     private byte[] expect;
     private byte[] value;
+    private List<WriteRequest> requests;
 
     public WriteRequest() {
 
@@ -49,6 +54,11 @@ public class WriteRequest extends StateRequest {
         this.value = value;
     }
 
+    public WriteRequest(int type, List<WriteRequest> requests) {
+        super(type);
+        this.requests = requests;
+    }
+
     public byte[] getKey() {
         return key;
     }
@@ -73,6 +83,14 @@ public class WriteRequest extends StateRequest {
         this.value = value;
     }
 
+    public List<WriteRequest> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<WriteRequest> requests) {
+        this.requests = requests;
+    }
+
     @Override
     public String toString() {
         return "WriteRequest{" +
@@ -80,6 +98,7 @@ public class WriteRequest extends StateRequest {
                 "key=" + Arrays.toString(key) +
                 ", expect=" + Arrays.toString(expect) +
                 ", value=" + Arrays.toString(value) +
+                ", requests=" + requests +
                 '}';
     }
 }
\ No newline at end of file
@@ -13,6 +13,8 @@
  */
 package io.journalkeeper.coordinating.state.store;
 
+import io.journalkeeper.core.api.Checkpointable;
+
 import java.util.List;
 
 /**
@@ -21,7 +23,7 @@ import java.util.List;
  *
  * date: 2019/5/30
  */
-public interface KVStore {
+public interface KVStore extends Checkpointable {
 
     boolean set(byte[] key, byte[] value);
 
@@ -35,6 +37,21 @@ public interface KVStore {
 
     boolean compareAndSet(byte[] key, byte[] expect, byte[] update);
 
+    /**
+     * 按key的字节序遍历[startKey, endKey)范围内的数据
+     * @param startKey 起始key（包含），为null时从第一个key开始
+     * @param endKey 结束key（不包含），为null时遍历到最后一个key
+     * @param limit 最多返回的条数
+     * @return 按key有序的数据
+     */
+    List<KVEntry> scan(byte[] startKey, byte[] endKey, int limit);
+
+    /**
+     * 原子的批量写入，要么全部成功，要么全部失败
+     * @param entries 写入的数据，value为null的表示删除
+     */
+    void writeBatch(List<KVEntry> entries);
+
     void close();
 
     void flush();
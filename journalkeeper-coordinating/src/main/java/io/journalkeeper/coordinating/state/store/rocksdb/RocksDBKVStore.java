@@ -15,15 +15,24 @@ package io.journalkeeper.coordinating.state.store.rocksdb;
 
 import io.journalkeeper.coordinating.exception.CoordinatingException;
 import io.journalkeeper.coordinating.state.exception.CoordinatingStateException;
+import io.journalkeeper.coordinating.state.store.KVEntry;
 import io.journalkeeper.coordinating.state.store.KVStore;
+import org.rocksdb.Checkpoint;
 import org.rocksdb.FlushOptions;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
@@ -126,6 +135,89 @@ public class RocksDBKVStore implements KVStore {
         }
     }
 
+    @Override
+    public List<KVEntry> scan(byte[] startKey, byte[] endKey, int limit) {
+        List<KVEntry> entries = new ArrayList<>(Math.min(limit, 1024));
+        // 迭代器基于隐式快照，遍历过程中不会看到并发的写入
+        try (RocksIterator iterator = rocksDB.newIterator()) {
+            if (startKey == null) {
+                iterator.seekToFirst();
+            } else {
+                iterator.seek(startKey);
+            }
+            while (iterator.isValid() && entries.size() < limit) {
+                byte[] key = iterator.key();
+                if (endKey != null && compareKey(key, endKey) >= 0) {
+                    break;
+                }
+                entries.add(new KVEntry(key, iterator.value()));
+                iterator.next();
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void writeBatch(List<KVEntry> entries) {
+        try (WriteBatch writeBatch = new WriteBatch();
+             WriteOptions writeOptions = new WriteOptions()) {
+            for (KVEntry entry : entries) {
+                if (entry.getValue() == null) {
+                    writeBatch.delete(entry.getKey());
+                } else {
+                    writeBatch.put(entry.getKey(), entry.getValue());
+                }
+            }
+            rocksDB.write(writeOptions, writeBatch);
+        } catch (RocksDBException e) {
+            throw new CoordinatingStateException(e);
+        }
+    }
+
+    // 和RocksDB默认的BytewiseComparator一致，按无符号字节比较
+    private static int compareKey(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int result = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * SST文件写入后不会被修改，创建快照时可以使用硬链接
+     */
+    @Override
+    public boolean isImmutable(Path file) {
+        return file.getFileName().toString().endsWith(".sst");
+    }
+
+    /**
+     * 使用RocksDB Checkpoint生成检查点，SST文件使用硬链接，只复制MANIFEST等少量文件
+     */
+    @Override
+    public boolean checkpoint(Path destPath) throws IOException {
+        // Checkpoint要求目标目录不存在
+        File destDir = destPath.toFile();
+        if (destDir.exists()) {
+            String[] files = destDir.list();
+            if (null != files && files.length > 0) {
+                throw new IOException(String.format("Checkpoint path %s is not empty!", destPath));
+            }
+            Files.delete(destPath);
+        } else if (null != destPath.getParent()) {
+            Files.createDirectories(destPath.getParent());
+        }
+        try (Checkpoint checkpoint = Checkpoint.create(rocksDB)) {
+            checkpoint.createCheckpoint(destPath.toString());
+            return true;
+        } catch (RocksDBException e) {
+            throw new IOException(e);
+        }
+    }
+
     @Override
     public void close() {
         rocksDB.close();
@@ -46,4 +46,14 @@ import java.io.IOException;
  */
 public interface Replicable {
     ReplicableIterator iterator() throws IOException;
+
+    /**
+     * 按照指定的trunk大小迭代
+     * @param maxTrunkSize 每个trunk的最大长度
+     * @return 迭代器
+     * @throws IOException 发生IO异常时抛出
+     */
+    default ReplicableIterator iterator(int maxTrunkSize) throws IOException {
+        return iterator();
+    }
 }
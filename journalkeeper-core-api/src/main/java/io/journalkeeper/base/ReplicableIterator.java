@@ -38,13 +38,14 @@
  */
 package io.journalkeeper.base;
 
+import java.io.Closeable;
 import java.io.IOException;
 
 /**
  * @author LiYue
  * Date: 2019/11/21
  */
-public interface ReplicableIterator {
+public interface ReplicableIterator extends Closeable {
     long lastIncludedIndex();
 
     int lastIncludedTerm();
@@ -54,4 +55,12 @@ public interface ReplicableIterator {
     byte[] nextTrunk() throws IOException;
 
     boolean hasMoreTrunks();
+
+    /**
+     * 释放迭代过程中打开的资源
+     * @throws IOException 发生IO异常时抛出
+     */
+    @Override
+    default void close() throws IOException {
+    }
 }
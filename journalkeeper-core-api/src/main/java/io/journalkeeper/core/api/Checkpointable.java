@@ -0,0 +1,49 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 状态机可选实现的接口，用于降低创建快照的开销。
+ *
+ * 默认情况下，创建快照时会复制整个状态目录。实现这个接口的状态机可以：
+ * <ul>
+ *     <li>声明哪些文件是不可变的，例如RocksDB的SST文件，这些文件使用硬链接代替复制；</li>
+ *     <li>自己生成检查点，例如使用RocksDB Checkpoint。</li>
+ * </ul>
+ * 这样创建快照的开销只和变化的文件相关，而不是和状态的大小相关。
+ */
+public interface Checkpointable {
+    /**
+     * 判断状态目录中的文件是否不可变。
+     * 不可变的文件写入完成后不会被原地修改，只会被删除，创建快照时使用硬链接代替复制。
+     * @param file 相对于状态目录的文件路径
+     * @return 不可变返回true，否则返回false
+     */
+    default boolean isImmutable(Path file) {
+        return false;
+    }
+
+    /**
+     * 将当前状态的检查点写入destPath，调用时JournalKeeper保证不会并发执行命令。
+     * @param destPath 检查点目录
+     * @return 已经写入检查点返回true；返回false时由JournalKeeper复制状态目录，不可变的文件使用硬链接。
+     * @throws IOException 发生IO异常时抛出
+     */
+    default boolean checkpoint(Path destPath) throws IOException {
+        return false;
+    }
+}
@@ -42,4 +42,27 @@ public interface JournalEntry {
 
     long getTimestamp();
 
+    /**
+     * Header的长度，不同版本的entry的Header长度可能不同。
+     * @return Header长度
+     */
+    default int getHeaderLength() {
+        return getLength() - getPayload().getLength();
+    }
+
+    /**
+     * 根据当前序列化后的内容计算并写入校验和。
+     * 在写入Journal之前，所有Header属性都已确定后调用。
+     */
+    default void updateChecksum() {
+    }
+
+    /**
+     * 校验序列化后的内容与校验和是否一致。
+     * @return 一致或者没有校验和时返回true，否则返回false。
+     */
+    default boolean verifyChecksum() {
+        return true;
+    }
+
 }
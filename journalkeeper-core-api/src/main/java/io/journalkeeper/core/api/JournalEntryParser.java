@@ -20,6 +20,14 @@ package io.journalkeeper.core.api;
 public interface JournalEntryParser {
     int headerLength();
 
+    /**
+     * 所有可读版本中最短的Header长度，不小于这个长度的数据才可能是一条完整的entry。
+     * @return 最短的Header长度
+     */
+    default int minHeaderLength() {
+        return headerLength();
+    }
+
     JournalEntry parse(byte[] bytes);
 
     default JournalEntry parseHeader(byte[] headerBytes) {
@@ -0,0 +1,36 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.api;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 状态机可选实现的接口，用于支持长轮询查询。
+ *
+ * 执行查询之前，JournalKeeper先调用{@link #awaitQueryable(byte[], RaftJournal)}，
+ * 如果当前状态还不能满足查询（例如消费者已经读到了分区的末尾），服务端挂起这个查询，
+ * 直到返回的future完成或者等待超时（max_query_wait_ms）之后再执行查询。
+ * 这样消费者不需要反复轮询，新数据写入后查询立即返回。
+ */
+public interface LongPollState {
+    /**
+     * 判断查询是否需要等待。这个方法可能和命令的执行并发调用。
+     * 返回的future一般在执行命令时完成，JournalKeeper不会在状态机的线程中执行后续的查询。
+     * 等待超时后，JournalKeeper会取消返回的future，实现需要在取消时释放这个等待。
+     * @param query 查询条件
+     * @param journal 当前的journal
+     * @return 需要等待时，返回在状态满足查询时完成的future，否则返回null
+     */
+    CompletableFuture<Void> awaitQueryable(byte[] query, RaftJournal journal);
+}
@@ -155,6 +155,23 @@ public interface PartitionedJournalStore extends Watchable {
      */
     CompletableFuture<List<JournalEntry>> get(int partition, long index, int size);
 
+    /**
+     * 长轮询查询日志。
+     * 和{@link #get(int, long, int)}一样查询日志，区别是如果index位置还没有日志，
+     * 服务端不会立即返回，而是等到有新的日志写入或者等待超时后再返回。
+     * 适用于消费者从分区末尾持续读取日志，避免反复轮询。
+     * @param partition 分区
+     * @param index 查询起始位置。
+     * @param size 查询条数。
+     *
+     * @return 读到的日志，等待超时仍没有新日志时返回空列表。
+     * @throws IndexOverflowException 等待超时仍没有新日志，并且参数index大于当前maxIndex。
+     * @throws IndexUnderflowException 参数index不能小于当前minIndex。
+     */
+    default CompletableFuture<List<JournalEntry>> poll(int partition, long index, int size) {
+        return get(partition, index, size);
+    }
+
     /**
      * 查询每个分区当前最小已提交日志索引序号。
      * @return 每个分区当前最小已提交日志索引序号。
@@ -13,10 +13,13 @@
  */
 package io.journalkeeper.core.api;
 
+import io.journalkeeper.exceptions.StateBatchExecutionException;
 import io.journalkeeper.exceptions.StateExecutionException;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -26,6 +29,8 @@ import java.util.concurrent.Future;
  *
  * 可选实现：
  * {@link java.io.Flushable}：将状态机中未持久化的输入写入磁盘；
+ * {@link Checkpointable}：创建快照时使用硬链接或者自定义的检查点代替复制整个状态目录；
+ * {@link LongPollState}：支持长轮询查询；
  *
  * @author LiYue
  * Date: 2019-03-20
@@ -71,6 +76,32 @@ public interface State {
         }
     }
 
+    /**
+     * 按顺序批量执行一组连续的命令，JournalKeeper保证执行期间不会并发执行其它命令或查询。
+     * 需要保证每条命令的原子性和幂等性，要求同{@link #execute(EntryFuture, int, long, int, RaftJournal)}。
+     * 可以重写这个方法，例如把一批命令放在同一个写批次或事务中执行。
+     * 默认实现逐条调用{@link #execute(EntryFuture, int, long, int, RaftJournal)}。
+     *
+     * 执行失败时，如果所有命令都没有生效（例如写批次整体回滚），可以抛出任意异常；
+     * 如果前面的部分命令已经生效，必须抛出{@link StateBatchExecutionException}，带上这些命令的执行结果，
+     * 重试时只会从失败的命令开始执行。
+     *
+     * @param entries 待执行的命令，按索引序号连续排列
+     * @param journal 当前的journal
+     * @return 每条命令的执行结果，与entries一一对应。See {@link StateResult}
+     */
+    default List<StateResult> executeBatch(List<StateEntry> entries, RaftJournal journal) {
+        List<StateResult> results = new ArrayList<>(entries.size());
+        for (StateEntry entry : entries) {
+            try {
+                results.add(execute(entry.getEntryFuture(), entry.getPartition(), entry.getIndex(), entry.getBatchSize(), journal));
+            } catch (Throwable t) {
+                throw new StateBatchExecutionException(results, t);
+            }
+        }
+        return results;
+    }
+
     /**
      * 查询
      * @param query 查询条件
@@ -0,0 +1,48 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.api;
+
+/**
+ * 批量执行时，状态机待执行的一条命令。
+ * 参数含义与{@link State#execute(EntryFuture, int, long, int, RaftJournal)}相同。
+ */
+public class StateEntry {
+    private final EntryFuture entryFuture;
+    private final int partition;
+    private final long index;
+    private final int batchSize;
+
+    public StateEntry(EntryFuture entryFuture, int partition, long index, int batchSize) {
+        this.entryFuture = entryFuture;
+        this.partition = partition;
+        this.index = index;
+        this.batchSize = batchSize;
+    }
+
+    public EntryFuture getEntryFuture() {
+        return entryFuture;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -38,7 +38,9 @@
  */
 package io.journalkeeper.core.api;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -48,6 +50,8 @@ import java.util.Map;
 public class StateResult {
     private final byte[] userResult;
     private final Map<String, String> eventData;
+    // 同一次执行触发的其余事件，和eventData一起按顺序触发
+    private final List<Map<String, String>> extraEventData = new ArrayList<>(0);
     private long lastApplied;
 
     public StateResult(byte[] userResult) {
@@ -71,6 +75,14 @@ public class StateResult {
         return eventData.put(key, value);
     }
 
+    public List<Map<String, String>> getExtraEventData() {
+        return extraEventData;
+    }
+
+    public void addExtraEventData(Map<String, String> eventData) {
+        extraEventData.add(eventData);
+    }
+
     public long getLastApplied() {
         return lastApplied;
     }
@@ -0,0 +1,40 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.exceptions;
+
+import io.journalkeeper.core.api.StateResult;
+
+import java.util.List;
+
+/**
+ * 批量执行命令时，前面的部分命令已经执行成功，之后的命令执行失败时抛出。
+ * 带有已经执行成功的命令的执行结果，调用方据此记录执行进度，重试时从失败的命令开始执行，
+ * 已经执行成功的命令不会被重复执行。
+ */
+public class StateBatchExecutionException extends StateExecutionException {
+    private final List<StateResult> results;
+
+    public StateBatchExecutionException(List<StateResult> results, Throwable throwable) {
+        super(throwable);
+        this.results = results;
+    }
+
+    /**
+     * 已经执行成功的命令的执行结果，与批量执行的命令从头开始一一对应。
+     * @return 执行结果
+     */
+    public List<StateResult> getResults() {
+        return results;
+    }
+}
@@ -110,7 +110,7 @@ public class BootStrap implements ClusterAccessPoint {
      */
     public BootStrap(RaftServer.Roll roll, StateFactory stateFactory,
                      Properties properties) {
-        this(roll, null, stateFactory, new DefaultJournalEntryParser(), null, null, null, null,
+        this(roll, null, stateFactory, new DefaultJournalEntryParser(properties), null, null, null, null,
                 properties);
     }
 
@@ -316,4 +316,8 @@ public class BootStrap implements ClusterAccessPoint {
     public JournalEntryParser getJournalEntryParser() {
         return this.journalEntryParser;
     }
+
+    public Properties getProperties() {
+        return properties;
+    }
 }
@@ -33,6 +33,11 @@ public interface ClientRpc extends ServerConfigAware, Watchable {
 
     <O extends BaseResponse> CompletableFuture<O> invokeClientLeaderRpc(CompletableRetry.RpcInvoke<O, ClientServerRpc> invoke);
 
+    /**
+     * 发送请求给任意一个VOTER（可能是LEADER，也可能是FOLLOWER），不会发给OBSERVER。
+     */
+    <O extends BaseResponse> CompletableFuture<O> invokeClientVoterRpc(CompletableRetry.RpcInvoke<O, ClientServerRpc> invoke);
+
     URI getPreferredServer();
 
     void setPreferredServer(URI preferredServer);
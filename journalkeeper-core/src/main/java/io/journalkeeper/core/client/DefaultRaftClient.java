@@ -21,6 +21,7 @@ import io.journalkeeper.core.api.transaction.JournalKeeperTransactionContext;
 import io.journalkeeper.core.api.transaction.TransactionContext;
 import io.journalkeeper.core.api.transaction.TransactionId;
 import io.journalkeeper.core.api.transaction.UUIDTransactionId;
+import io.journalkeeper.core.entry.JournalEntryParseSupport;
 import io.journalkeeper.rpc.client.ClientServerRpc;
 import io.journalkeeper.rpc.client.CompleteTransactionRequest;
 import io.journalkeeper.rpc.client.CreateTransactionRequest;
@@ -29,6 +30,7 @@ import io.journalkeeper.rpc.client.QueryStateRequest;
 import io.journalkeeper.rpc.client.QueryStateResponse;
 import io.journalkeeper.rpc.client.UpdateClusterStateRequest;
 import io.journalkeeper.rpc.client.UpdateClusterStateResponse;
+import io.journalkeeper.utils.threads.NamedThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,6 +39,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -47,14 +51,66 @@ import java.util.stream.Collectors;
  */
 public class DefaultRaftClient extends AbstractClient implements RaftClient {
     private static final Logger logger = LoggerFactory.getLogger(DefaultRaftClient.class);
+    /**
+     * 开启后，强一致读请求可以发给任意一个VOTER，FOLLOWER使用ReadIndex在本地执行查询。
+     * 服务端也需要开启同名配置，否则FOLLOWER会返回NOT_LEADER，客户端重试。
+     */
+    public final static String READ_INDEX_ENABLED_KEY = "read_index_enabled";
+    public final static boolean DEFAULT_READ_INDEX_ENABLED = false;
+    /**
+     * 写请求在客户端累加等待的最长时间，大于0时开启客户端合并写请求，参见{@link UpdateAccumulator}。
+     */
+    public final static String UPDATE_LINGER_MS_KEY = "client_update_linger_ms";
+    public final static long DEFAULT_UPDATE_LINGER_MS = 0L;
+    /**
+     * 合并后一个写请求的最大字节数
+     */
+    public final static String UPDATE_BATCH_BYTES_KEY = "client_update_batch_bytes";
+    public final static int DEFAULT_UPDATE_BATCH_BYTES = 1024 * 1024;
+    /**
+     * 合并后一个写请求的最大条数，不能超过服务端一个索引文件能容纳的条数（默认16384条）
+     */
+    public final static String UPDATE_BATCH_SIZE_KEY = "client_update_batch_size";
+    public final static int DEFAULT_UPDATE_BATCH_SIZE = 4096;
+    /**
+     * 合并写请求时，最大在途的RPC数量
+     */
+    public final static String UPDATE_MAX_IN_FLIGHT_KEY = "client_update_max_in_flight";
+    public final static int DEFAULT_UPDATE_MAX_IN_FLIGHT = 16;
     private final AtomicLong lastApplied = new AtomicLong(-1L);
+    private final boolean readIndexEnabled;
+    private final ScheduledExecutorService accumulatorScheduledExecutor;
+    private final UpdateAccumulator updateAccumulator;
     public DefaultRaftClient(ClientRpc clientRpc,
                              Properties properties) {
         super(clientRpc);
+        this.readIndexEnabled = Boolean.parseBoolean(
+                properties.getProperty(READ_INDEX_ENABLED_KEY, String.valueOf(DEFAULT_READ_INDEX_ENABLED)));
+        long lingerMs = Long.parseLong(
+                properties.getProperty(UPDATE_LINGER_MS_KEY, String.valueOf(DEFAULT_UPDATE_LINGER_MS)));
+        if (lingerMs > 0) {
+            this.accumulatorScheduledExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new NamedThreadFactory("JournalKeeper-Client-Update-Accumulator", true));
+            this.updateAccumulator = new UpdateAccumulator(this::doUpdate, accumulatorScheduledExecutor, lingerMs,
+                    Integer.parseInt(properties.getProperty(UPDATE_BATCH_BYTES_KEY, String.valueOf(DEFAULT_UPDATE_BATCH_BYTES))),
+                    Integer.parseInt(properties.getProperty(UPDATE_BATCH_SIZE_KEY, String.valueOf(DEFAULT_UPDATE_BATCH_SIZE))),
+                    JournalEntryParseSupport.getHeaderLength(),
+                    Integer.parseInt(properties.getProperty(UPDATE_MAX_IN_FLIGHT_KEY, String.valueOf(DEFAULT_UPDATE_MAX_IN_FLIGHT))));
+        } else {
+            this.accumulatorScheduledExecutor = null;
+            this.updateAccumulator = null;
+        }
     }
 
     @Override
     public CompletableFuture<List<byte[]>> update(List<UpdateRequest> entries, boolean includeHeader, ResponseConfig responseConfig) {
+        if (null != updateAccumulator) {
+            return updateAccumulator.add(entries, includeHeader, responseConfig);
+        }
+        return doUpdate(entries, includeHeader, responseConfig);
+    }
+
+    private CompletableFuture<List<byte[]>> doUpdate(List<UpdateRequest> entries, boolean includeHeader, ResponseConfig responseConfig) {
         return
                 clientRpc.invokeClientLeaderRpc(rpc -> rpc.updateClusterState(new UpdateClusterStateRequest(entries, includeHeader, responseConfig)))
                         .thenApply(this::checkResponse)
@@ -90,7 +146,9 @@ public class DefaultRaftClient extends AbstractClient implements RaftClient {
     @Override
     public CompletableFuture<byte[]> query(byte[] query) {
 
-        return clientRpc.invokeClientLeaderRpc(leaderRpc -> leaderRpc.queryClusterState(new QueryStateRequest(query)))
+        return (readIndexEnabled ?
+                clientRpc.invokeClientVoterRpc(rpc -> rpc.queryClusterState(new QueryStateRequest(query))) :
+                clientRpc.invokeClientLeaderRpc(leaderRpc -> leaderRpc.queryClusterState(new QueryStateRequest(query))))
                 .thenApply(super::checkResponse)
                 .thenApply(response -> {
                     maybeUpdateLastApplied(response.getLastApplied());
@@ -140,6 +198,15 @@ public class DefaultRaftClient extends AbstractClient implements RaftClient {
                         });
     }
 
+    @Override
+    public void stop() {
+        if (null != updateAccumulator) {
+            updateAccumulator.flush();
+            accumulatorScheduledExecutor.shutdown();
+        }
+        super.stop();
+    }
+
     private void maybeUpdateLastApplied(long index) {
         for (;;) {
             long finalLastApplied = lastApplied.get();
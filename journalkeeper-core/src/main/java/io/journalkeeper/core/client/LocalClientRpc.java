@@ -76,6 +76,11 @@ public class LocalClientRpc implements ClientRpc {
         return invokeClientServerRpc(invoke);
     }
 
+    @Override
+    public <O extends BaseResponse> CompletableFuture<O> invokeClientVoterRpc(CompletableRetry.RpcInvoke<O, ClientServerRpc> invoke) {
+        return invokeClientServerRpc(invoke);
+    }
+
     @Override
     public URI getPreferredServer() {
         return localServer.serverUri();
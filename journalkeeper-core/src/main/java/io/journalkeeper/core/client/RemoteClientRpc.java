@@ -42,6 +42,7 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author LiYue
@@ -56,6 +57,7 @@ public class RemoteClientRpc implements ClientRpc {
     private final Executor executor;
     private final ScheduledExecutorService scheduledExecutor;
     private URI leaderUri = null;
+    private List<URI> voters = null;
     private URI preferredServer = null;
 
     public RemoteClientRpc(List<URI> servers, ClientServerRpcAccessPoint clientServerRpcAccessPoint, RetryPolicy retryPolicy, Executor executor, ScheduledExecutorService scheduledExecutor) {
@@ -89,6 +91,57 @@ public class RemoteClientRpc implements ClientRpc {
     }
 
 
+    @Override
+    public <O extends BaseResponse> CompletableFuture<O> invokeClientVoterRpc(CompletableRetry.RpcInvoke<O, ClientServerRpc> invoke) {
+        return invokeClientServerRpc(rpc ->
+                unSetVotersWhenVoterRpcFailed(getCachedVoterRpc(rpc).thenCompose(invoke::invoke))
+        );
+    }
+
+    private <O extends BaseResponse> CompletableFuture<O> unSetVotersWhenVoterRpcFailed(CompletableFuture<O> future) {
+        return future
+                .exceptionally(e -> {
+                    this.voters = null;
+                    throw new CompletionException(e);
+                }).thenApply(response -> {
+                    if (!response.success()) {
+                        this.voters = null;
+                    }
+                    return response;
+                });
+    }
+
+    /**
+     * 从缓存的VOTER列表中选择一个VOTER，优先选择preferredServer
+     */
+    private CompletableFuture<ClientServerRpc> getCachedVoterRpc(ClientServerRpc clientServerRpc) {
+        CompletableFuture<URI> voterUriFuture = new CompletableFuture<>();
+        List<URI> finalVoters = this.voters;
+        if (null == finalVoters || finalVoters.isEmpty()) {
+            try {
+                GetServersResponse getServersResponse = clientServerRpc.getServers().get();
+                if (getServersResponse.success() && null != getServersResponse.getClusterConfiguration()) {
+                    finalVoters = getServersResponse.getClusterConfiguration().getVoters();
+                    this.voters = finalVoters;
+                }
+            } catch (Throwable e) {
+                Throwable ex = e instanceof ExecutionException ? e.getCause() : e;
+                voterUriFuture.completeExceptionally(ex);
+            }
+        }
+
+        if (null != finalVoters && !finalVoters.isEmpty()) {
+            if (null != preferredServer && finalVoters.contains(preferredServer)) {
+                voterUriFuture.complete(preferredServer);
+            } else {
+                voterUriFuture.complete(finalVoters.get(ThreadLocalRandom.current().nextInt(finalVoters.size())));
+            }
+        } else if (!voterUriFuture.isDone()) {
+            voterUriFuture.completeExceptionally(new NoLeaderException());
+        }
+        return voterUriFuture.thenApply(clientServerRpcAccessPoint::getClintServerRpc);
+    }
+
     private <O extends BaseResponse> CompletableFuture<O> unSetLeaderUriWhenLeaderRpcFailed(CompletableFuture<O> future) {
         return future
                 .exceptionally(e -> {
@@ -149,6 +202,7 @@ public class RemoteClientRpc implements ClientRpc {
     @Override
     public void updateServers(List<URI> servers) {
         uriSelector.setAllDestinations(servers);
+        this.voters = null;
     }
 
     @Override
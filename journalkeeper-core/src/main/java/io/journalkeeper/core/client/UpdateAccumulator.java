@@ -0,0 +1,188 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.client;
+
+import io.journalkeeper.core.api.ResponseConfig;
+import io.journalkeeper.core.api.UpdateRequest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端写请求累加器。
+ * 把并发的多次update调用中，includeHeader和responseConfig都相同的请求合并成一个RPC发送，
+ * 收到响应后按照每次调用的请求数量拆分执行结果，分别完成每次调用的future。
+ *
+ * 一批请求在以下任一条件满足时发送：
+ * <ul>
+ *     <li>第一个请求加入后等待了lingerMs；</li>
+ *     <li>这批请求的总字节数（包括服务端添加的Header）达到batchBytes；</li>
+ *     <li>这批请求的条数达到batchSize。</li>
+ * </ul>
+ * 加入一次调用的请求会超过batchBytes或者batchSize时，先发送当前批次，这次调用的请求放入新的批次，
+ * 合并后的请求不会超过限制，避免一次超长的写入导致合并在一起的所有调用都失败。
+ * 单次调用的请求本身超过限制时单独发送。
+ * 在途的RPC达到maxInFlight时，已经满足发送条件的批次排队等待，在途RPC返回后再发送。
+ */
+class UpdateAccumulator {
+
+    /**
+     * 发送合并后的请求，返回每条请求的执行结果
+     */
+    interface BatchSender {
+        CompletableFuture<List<byte[]>> send(List<UpdateRequest> entries, boolean includeHeader, ResponseConfig responseConfig);
+    }
+
+    private final BatchSender sender;
+    private final ScheduledExecutorService scheduledExecutor;
+    private final long lingerMs;
+    private final int batchBytes;
+    private final int batchSize;
+    // includeHeader为false时，服务端给每条请求添加的Header长度
+    private final int headerLength;
+    private final int maxInFlight;
+    // 每种includeHeader和responseConfig组合一个正在累加的批次
+    private final Batch[] accumulatingBatches = new Batch[ResponseConfig.values().length * 2];
+    // 已经满足发送条件，等待发送的批次
+    private final Deque<Batch> readyBatches = new ArrayDeque<>();
+    private int inFlight = 0;
+
+    UpdateAccumulator(BatchSender sender, ScheduledExecutorService scheduledExecutor, long lingerMs,
+                      int batchBytes, int batchSize, int headerLength, int maxInFlight) {
+        this.sender = sender;
+        this.scheduledExecutor = scheduledExecutor;
+        this.lingerMs = lingerMs;
+        this.batchBytes = batchBytes;
+        this.batchSize = Math.max(1, batchSize);
+        this.headerLength = headerLength;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    CompletableFuture<List<byte[]>> add(List<UpdateRequest> entries, boolean includeHeader, ResponseConfig responseConfig) {
+        CompletableFuture<List<byte[]>> future = new CompletableFuture<>();
+        synchronized (this) {
+            int slot = responseConfig.ordinal() * 2 + (includeHeader ? 1 : 0);
+            long bytes = 0L;
+            for (UpdateRequest entry : entries) {
+                bytes += entry.getEntry().length + (includeHeader ? 0 : headerLength);
+            }
+            Batch batch = accumulatingBatches[slot];
+            if (null != batch && (batch.bytes + bytes > batchBytes || batch.entries.size() + entries.size() > batchSize)) {
+                // 加入后会超过限制，先发送当前批次
+                ready(batch);
+                batch = null;
+            }
+            if (null == batch) {
+                batch = new Batch(slot, includeHeader, responseConfig);
+                accumulatingBatches[slot] = batch;
+                Batch lingerBatch = batch;
+                scheduledExecutor.schedule(() -> ready(lingerBatch), lingerMs, TimeUnit.MILLISECONDS);
+            }
+            batch.add(entries, bytes, future);
+            if (batch.bytes >= batchBytes || batch.entries.size() >= batchSize) {
+                ready(batch);
+            }
+        }
+        return future;
+    }
+
+    private synchronized void ready(Batch batch) {
+        if (accumulatingBatches[batch.slot] == batch) {
+            accumulatingBatches[batch.slot] = null;
+            readyBatches.addLast(batch);
+            sendReadyBatches();
+        }
+    }
+
+    private synchronized void sendReadyBatches() {
+        Batch batch;
+        while (inFlight < maxInFlight && null != (batch = readyBatches.pollFirst())) {
+            inFlight++;
+            Batch sendingBatch = batch;
+            CompletableFuture<List<byte[]>> responseFuture;
+            try {
+                responseFuture = sender.send(batch.entries, batch.includeHeader, batch.responseConfig);
+            } catch (Throwable t) {
+                responseFuture = new CompletableFuture<>();
+                responseFuture.completeExceptionally(t);
+            }
+            responseFuture.whenComplete((results, throwable) -> {
+                onBatchCompleted();
+                sendingBatch.complete(results, throwable);
+            });
+        }
+    }
+
+    private synchronized void onBatchCompleted() {
+        inFlight--;
+        sendReadyBatches();
+    }
+
+    /**
+     * 立即发送所有正在累加的批次
+     */
+    synchronized void flush() {
+        for (Batch batch : accumulatingBatches) {
+            if (null != batch) {
+                ready(batch);
+            }
+        }
+    }
+
+    private static class Batch {
+        private final int slot;
+        private final boolean includeHeader;
+        private final ResponseConfig responseConfig;
+        private final List<UpdateRequest> entries = new ArrayList<>();
+        // 每次调用的future和它的请求数量，按照加入的顺序排列
+        private final List<CompletableFuture<List<byte[]>>> futures = new ArrayList<>();
+        private final List<Integer> sizes = new ArrayList<>();
+        private long bytes = 0L;
+
+        Batch(int slot, boolean includeHeader, ResponseConfig responseConfig) {
+            this.slot = slot;
+            this.includeHeader = includeHeader;
+            this.responseConfig = responseConfig;
+        }
+
+        void add(List<UpdateRequest> requests, long requestBytes, CompletableFuture<List<byte[]>> future) {
+            entries.addAll(requests);
+            futures.add(future);
+            sizes.add(requests.size());
+            bytes += requestBytes;
+        }
+
+        void complete(List<byte[]> results, Throwable throwable) {
+            if (null != throwable) {
+                futures.forEach(future -> future.completeExceptionally(throwable));
+                return;
+            }
+            // 部分responseConfig（例如PERSISTENCE）不返回执行结果
+            boolean hasResults = null != results && results.size() == entries.size();
+            int offset = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                int size = sizes.get(i);
+                futures.get(i).complete(hasResults ?
+                        new ArrayList<>(results.subList(offset, offset + size)) : Collections.emptyList());
+                offset += size;
+            }
+        }
+    }
+}
@@ -19,13 +19,23 @@ import io.journalkeeper.core.journal.ParseJournalException;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.zip.CRC32;
 
 /**
  * @author LiYue
  * Date: 2019/10/12
  */
 public class DefaultJournalEntry implements JournalEntry {
+    /**
+     * 版本0的MAGIC，Header中没有CHECKSUM属性。
+     */
     public final static short MAGIC_CODE = ByteBuffer.wrap(new byte[]{(byte) 0XF4, (byte) 0X3C}).getShort();
+    /**
+     * 版本1的MAGIC，Header中包含CHECKSUM属性，参见{@link DefaultJournalEntryParser#ENTRY_HEADER_VERSION_KEY}。
+     */
+    public final static short MAGIC_CODE_V1 = ByteBuffer.wrap(new byte[]{(byte) 0XF4, (byte) 0X3D}).getShort();
+    // 每个线程复用一个CRC32实例，避免每条entry都分配
+    private final static ThreadLocal<CRC32> CRC32_CACHE = ThreadLocal.withInitial(CRC32::new);
 
     // 包含Header和Payload
     private final byte[] serializedBytes;
@@ -56,10 +66,10 @@ public class DefaultJournalEntry implements JournalEntry {
     }
 
     private void checkMagic() {
-        short magic = JournalEntryParseSupport.getShort(serializedBuffer(), JournalEntryParseSupport.MAGIC);
-        if (magicCode() != magic) {
-            throw new ParseJournalException(String.format("Check magic failed, magic: %s, current: %s, content: %s",
-                    magicCode(), magic, new String(serializedBytes)));
+        short magic = magic();
+        if (MAGIC_CODE != magic && MAGIC_CODE_V1 != magic) {
+            throw new ParseJournalException(String.format("Check magic failed, magic: %s or %s, current: %s, content: %s",
+                    MAGIC_CODE, MAGIC_CODE_V1, magic, new String(serializedBytes)));
         }
     }
 
@@ -99,12 +109,26 @@ public class DefaultJournalEntry implements JournalEntry {
         JournalEntryParseSupport.setInt(serializedBuffer(), JournalEntryParseSupport.TERM, term);
     }
 
+    private short magic() {
+        return JournalEntryParseSupport.getShort(serializedBuffer(), JournalEntryParseSupport.MAGIC);
+    }
+
+    private boolean isV0() {
+        return magic() == MAGIC_CODE;
+    }
+
+    @Override
+    public int getHeaderLength() {
+        return isV0() ? JournalEntryParseSupport.getHeaderLengthV0() : JournalEntryParseSupport.getHeaderLength();
+    }
+
     @Override
     public BytesFragment getPayload() {
+        int headerLength = getHeaderLength();
         return new BytesFragment(
                 serializedBytes,
-                JournalEntryParseSupport.getHeaderLength(),
-                serializedBytes.length - JournalEntryParseSupport.getHeaderLength());
+                headerLength,
+                serializedBytes.length - headerLength);
     }
 
     @Override
@@ -126,6 +150,40 @@ public class DefaultJournalEntry implements JournalEntry {
         return JournalEntryParseSupport.getLong(serializedBuffer(), JournalEntryParseSupport.TIMESTAMP);
     }
 
+    private int getChecksum() {
+        return JournalEntryParseSupport.getInt(serializedBuffer(), JournalEntryParseSupport.CHECKSUM);
+    }
+
+    @Override
+    public void updateChecksum() {
+        // 版本0的entry没有校验和
+        if (!isV0()) {
+            JournalEntryParseSupport.setInt(serializedBuffer(), JournalEntryParseSupport.CHECKSUM, calculateChecksum());
+        }
+    }
+
+    @Override
+    public boolean verifyChecksum() {
+        if (isV0()) {
+            return true;
+        }
+        int checksum = getChecksum();
+        return checksum == 0 || checksum == calculateChecksum();
+    }
+
+    /**
+     * 计算除CHECKSUM属性之外所有内容的CRC32
+     */
+    private int calculateChecksum() {
+        CRC32 crc32 = CRC32_CACHE.get();
+        crc32.reset();
+        int checksumOffset = JournalEntryParseSupport.CHECKSUM;
+        crc32.update(serializedBytes, 0, checksumOffset);
+        int from = checksumOffset + Integer.BYTES;
+        crc32.update(serializedBytes, from, serializedBytes.length - from);
+        return (int) crc32.getValue();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -138,8 +196,4 @@ public class DefaultJournalEntry implements JournalEntry {
     public int hashCode() {
         return Arrays.hashCode(serializedBytes);
     }
-
-    private short magicCode() {
-        return MAGIC_CODE;
-    }
 }
@@ -17,15 +17,48 @@ import io.journalkeeper.core.api.JournalEntry;
 import io.journalkeeper.core.api.JournalEntryParser;
 
 import java.nio.ByteBuffer;
+import java.util.Properties;
 
 /**
  * @author LiYue
  * Date: 2019/10/12
  */
 public class DefaultJournalEntryParser implements JournalEntryParser {
+    /**
+     * 写入entry使用的Header版本：
+     * 0：旧版本的Header，没有CHECKSUM属性，所有版本的Server和Client都可以读取；
+     * 1：Header中包含CHECKSUM属性，只有升级之后的Server和Client才能读取。
+     * 滚动升级时保持默认的版本0，所有节点和Client都升级之后再切换到版本1。
+     */
+    public static final String ENTRY_HEADER_VERSION_KEY = "journal_entry_header_version";
+    public static final int DEFAULT_ENTRY_HEADER_VERSION = 0;
+
+    private final int headerVersion;
+
+    public DefaultJournalEntryParser() {
+        this(DEFAULT_ENTRY_HEADER_VERSION);
+    }
+
+    public DefaultJournalEntryParser(Properties properties) {
+        this(Integer.parseInt(properties.getProperty(ENTRY_HEADER_VERSION_KEY,
+                String.valueOf(DEFAULT_ENTRY_HEADER_VERSION))));
+    }
+
+    public DefaultJournalEntryParser(int headerVersion) {
+        if (headerVersion != 0 && headerVersion != 1) {
+            throw new IllegalArgumentException(String.format("Unsupported journal entry header version: %d!", headerVersion));
+        }
+        this.headerVersion = headerVersion;
+    }
+
     @Override
     public int headerLength() {
-        return JournalEntryParseSupport.getHeaderLength();
+        return headerVersion == 0 ? JournalEntryParseSupport.getHeaderLengthV0() : JournalEntryParseSupport.getHeaderLength();
+    }
+
+    @Override
+    public int minHeaderLength() {
+        return JournalEntryParseSupport.getHeaderLengthV0();
     }
 
     @Override
@@ -45,7 +78,8 @@ public class DefaultJournalEntryParser implements JournalEntryParser {
         byte[] rawEntry = new byte[headerLength + payload.length];
         ByteBuffer buffer = ByteBuffer.wrap(rawEntry);
         JournalEntryParseSupport.setInt(buffer, JournalEntryParseSupport.LENGTH, rawEntry.length);
-        JournalEntryParseSupport.setShort(buffer, JournalEntryParseSupport.MAGIC, DefaultJournalEntry.MAGIC_CODE);
+        JournalEntryParseSupport.setShort(buffer, JournalEntryParseSupport.MAGIC, 
+                headerVersion == 0 ? DefaultJournalEntry.MAGIC_CODE : DefaultJournalEntry.MAGIC_CODE_V1);
         JournalEntryParseSupport.setLong(buffer, JournalEntryParseSupport.TIMESTAMP, System.currentTimeMillis());
 
 
@@ -42,6 +42,8 @@ public class JournalEntryParseSupport extends EntryParser {
     final static int MAGIC = createAttribute("MAGIC", FIXED_LENGTH_2);
     final static int BATCH_SIZE = createAttribute("BATCH_SIZE", FIXED_LENGTH_2);
     public final static int TIMESTAMP = createAttribute("TIMESTAMP", FIXED_LENGTH_8);
+    // CRC32校验和，0表示没有校验和
+    final static int CHECKSUM = createAttribute("CHECKSUM", FIXED_LENGTH_4);
     final static int ENTRY = createAttribute("ENTRY", VARIABLE_LENGTH);
 
 
@@ -49,6 +51,14 @@ public class JournalEntryParseSupport extends EntryParser {
         return firstVarOffset;
     }
 
+    /**
+     * 版本0的Header没有CHECKSUM属性，其它属性的位置和当前版本一样。
+     * @return 版本0的Header长度
+     */
+    public static int getHeaderLengthV0() {
+        return CHECKSUM;
+    }
+
     /**
      * 定长消息直接返回offset
      * 变长消息返回属性相对于第一个变长属性的索引值的偏移量的负值：第一个变长属性在attributes中的索引值 - 属性在attributes中的索引值
@@ -29,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -58,31 +59,45 @@ import java.util.stream.Stream;
  */
 public class Journal implements RaftJournal, Flushable, Closeable {
     public static final int INDEX_STORAGE_SIZE = Long.BYTES;
+    // 一次提交最多处理的entry数量，限制一次读取的全局索引和累积的分区索引占用的内存
+    private static final int COMMIT_BATCH_SIZE = 1024;
     private static final Logger logger = LoggerFactory.getLogger(Journal.class);
     private static final String PARTITION_PATH = "index";
     private static final String INDEX_PATH = "index/all";
     private static final String JOURNAL_PROPERTIES_PATTERN = "^persistence\\.journal\\.(.*)$";
     private static final String INDEX_PROPERTIES_PATTERN = "^persistence\\.index\\.(.*)$";
+    private static final String TIME_INDEX_PATH = "time";
+    private static final String TIME_INDEX_PROPERTIES_PATTERN = "^persistence\\.time_index\\.(.*)$";
+    public static final String TIME_INDEX_INTERVAL_MS_KEY = "time_index_interval_ms";
+    public static final long DEFAULT_TIME_INDEX_INTERVAL_MS = 1000L;
+    // 按位置读取entry时是否校验校验和，只校验带有校验和的entry
+    public static final String VERIFY_CHECKSUM_ON_READ_KEY = "verify_checksum_on_read";
+    public static final boolean DEFAULT_VERIFY_CHECKSUM_ON_READ = true;
+    private static final int VERIFY_BATCH_SIZE = 1024;
+    private static final String FILE_DATA_SIZE_KEY = "file_data_size";
     private static final Properties DEFAULT_JOURNAL_PROPERTIES = new Properties();
     private static final Properties DEFAULT_INDEX_PROPERTIES = new Properties();
+    private static final Properties DEFAULT_TIME_INDEX_PROPERTIES = new Properties();
 
     static {
-        DEFAULT_JOURNAL_PROPERTIES.put("file_data_size", String.valueOf(32 * 1024 * 1024));
+        DEFAULT_JOURNAL_PROPERTIES.put(FILE_DATA_SIZE_KEY, String.valueOf(32 * 1024 * 1024));
         DEFAULT_JOURNAL_PROPERTIES.put("cached_file_core_count", String.valueOf(3));
         DEFAULT_JOURNAL_PROPERTIES.put("cached_file_max_count", String.valueOf(10));
         DEFAULT_JOURNAL_PROPERTIES.put("max_dirty_size", String.valueOf(128 * 1024 * 1024));
-        DEFAULT_INDEX_PROPERTIES.put("file_data_size", String.valueOf(128 * 1024));
+        DEFAULT_INDEX_PROPERTIES.put(FILE_DATA_SIZE_KEY, String.valueOf(128 * 1024));
         DEFAULT_INDEX_PROPERTIES.put("cached_file_core_count", String.valueOf(12));
         DEFAULT_INDEX_PROPERTIES.put("cached_file_max_count", String.valueOf(40));
+        DEFAULT_TIME_INDEX_PROPERTIES.put(FILE_DATA_SIZE_KEY, String.valueOf(PartitionTimeIndex.ENTRY_SIZE * 8 * 1024));
     }
 
     private final AtomicLong commitIndex = new AtomicLong(0L);
+    // 已经可靠写入磁盘的最大全局索引序号（不含）
+    private final AtomicLong flushedIndex = new AtomicLong(0L);
     // 写入index时转换用的缓存
     private final byte[] indexBytes = new byte[INDEX_STORAGE_SIZE];
     private final ByteBuffer indexBuffer = ByteBuffer.wrap(indexBytes);
-    // 写入index时转换用的缓存
-    private final byte[] commitIndexBytes = new byte[INDEX_STORAGE_SIZE];
-    private final ByteBuffer commitIndexBuffer = ByteBuffer.wrap(commitIndexBytes);
+    // 提交时按分区累积的分区索引，只在提交时使用，同时作为提交的锁
+    private final Map<Integer, PartitionIndexBatch> commitBatches = new HashMap<>();
     private final JournalPersistence indexPersistence;
     private final JournalPersistence journalPersistence;
     private final Map<Integer, JournalPersistence> partitionMap;
@@ -92,6 +107,13 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     private Path basePath = null;
     private Properties indexProperties;
     private Properties journalProperties;
+    private Properties timeIndexProperties;
+    private long timeIndexIntervalMs = DEFAULT_TIME_INDEX_INTERVAL_MS;
+    private boolean verifyChecksumOnRead = DEFAULT_VERIFY_CHECKSUM_ON_READ;
+    // 每个分区的稀疏时间索引，按需加载
+    private final Map<Integer, PartitionTimeIndex> timeIndexMap = new ConcurrentHashMap<>();
+    // 每个线程复用的读取Entry header的buffer
+    private final ThreadLocal<ByteBuffer> headerBuffers;
 
     // Journal 读写锁。
     // 所有对Journal的Read、Append、Flush操作加读锁
@@ -103,6 +125,8 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         this.journalPersistence = persistenceFactory.createJournalPersistenceInstance();
         this.persistenceFactory = persistenceFactory;
         this.journalEntryParser = journalEntryParser;
+        // 只读取所有版本共有的Header属性，避免读取较短的旧版本entry时越界
+        this.headerBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(journalEntryParser.minHeaderLength()));
         this.partitionMap = new ConcurrentHashMap<>();
         this.bufferPool = bufferPool;
     }
@@ -164,10 +188,12 @@ public class Journal implements RaftJournal, Flushable, Closeable {
                 if (partitionMinIndices.containsKey(partition)) {
                     long minPartitionIndices = partitionMinIndices.get(entry.getKey());
                     partitionPersistence.compact(minPartitionIndices * INDEX_STORAGE_SIZE);
+                    getTimeIndex(partition).compact(minPartitionIndices);
                 } else {
                     partitionPersistence.close();
                     partitionPersistence.delete();
                     iterator.remove();
+                    removeTimeIndex(partition);
                 }
 
             }
@@ -203,6 +229,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
         // 记录当前最大位置，也是写入的Journal的offset
         long offset = journalPersistence.max();
+        entry.updateChecksum();
         byte[] serializedEntry = entry.getSerializedBytes();
         withReadLock(() -> {
             // 写入Journal header
@@ -236,6 +263,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
                 partitionPersistence.close();
                 partitionPersistence.delete();
                 iterator.remove();
+                removeTimeIndex(entry.getKey());
             }
 
             for (Map.Entry<Integer, Long> entry : partitionMinIndices.entrySet()) {
@@ -258,6 +286,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         indexPersistence.close();
         indexPersistence.delete();
         journalPersistence.recover(basePath, snapshot.minOffset(), journalProperties);
+        flushedIndex.set(snapshot.minIndex());
 
     }
 
@@ -265,12 +294,14 @@ public class Journal implements RaftJournal, Flushable, Closeable {
      * 批量追加写入StorageEntry
      * @param entries 待写入的批量entry
      * @return 每条entry写入后当前最大全局索引序号
+     * @throws TooManyBytesException entry数量超过{@link #maxAppendEntries()}或者总长度超过{@link #maxAppendBytes()}时抛出，不写入任何数据
      */
     public List<Long> append(List<JournalEntry> entries) {
 
 
         // 记录当前最大位置，也是写入的Journal的offset
-        long offset = journalPersistence.max();
+        long startOffset = journalPersistence.max();
+        long offset = startOffset;
         long index = maxIndex();
         ByteBuffer indicesBuffer = ByteBuffer.wrap(new byte[entries.size() * INDEX_STORAGE_SIZE]);
         List<byte[]> entryBuffers = new ArrayList<>(entries.size());
@@ -278,6 +309,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         List<Long> indices = new ArrayList<>(entries.size());
         for (JournalEntry entry : entries) {
 
+            entry.updateChecksum();
             entryBuffers.add(entry.getSerializedBytes());
 
             indicesBuffer.putLong(offset);
@@ -285,6 +317,15 @@ public class Journal implements RaftJournal, Flushable, Closeable {
             indices.add(++index);
         }
 
+        // 写入之前检查，避免Journal写入成功之后索引写入失败，留下没有索引的数据
+        if (entries.size() > maxAppendEntries()) {
+            throw new TooManyBytesException(indicesBuffer.capacity(), maxAppendEntries() * INDEX_STORAGE_SIZE, basePath);
+        }
+        long appendBytes = offset - startOffset;
+        if (appendBytes > maxAppendBytes()) {
+            throw new TooManyBytesException((int) Math.min(Integer.MAX_VALUE, appendBytes), maxAppendBytes(), basePath);
+        }
+
         try {
             // 写入Journal header
             journalPersistence.append(entryBuffers);
@@ -299,34 +340,112 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         return indices;
     }
 
-    // Not thread safe !
-
     /**
      * 提交journal，已提交的journal不可变。
+     * 一次处理新提交的所有entry：批量读取全局索引，按分区累积分区索引，
+     * 每个分区的索引合并成一次写入，全部写入之后再更新commitIndex。
+     * 如果部分分区写入失败，回滚这一批已经写入的分区索引后抛出异常，
+     * commitIndex不变，下次提交时重新写入，分区索引不会重复。
      * @param index 提交全局索引序号
      * @throws IOException 发生IO异常时抛出
      */
     public void commit(long index) throws IOException {
-        long finalCommitIndex;
-        while ((finalCommitIndex = commitIndex.get()) < index &&
-                finalCommitIndex < maxIndex() &&
-                commitIndex.compareAndSet(finalCommitIndex, finalCommitIndex + 1)) {
-            long offset = readOffset(finalCommitIndex);
-
-            JournalEntry header = readEntryHeaderByOffset(offset);
-            commitIndexBuffer.clear();
-            commitIndexBuffer.putLong(offset);
-            appendPartitionIndex(commitIndexBytes, header.getPartition(), header.getBatchSize());
+        synchronized (commitBatches) {
+            long start;
+            long end;
+            while ((start = commitIndex.get()) < (end = Math.min(index, maxIndex()))) {
+                int count = (int) Math.min(COMMIT_BATCH_SIZE, end - start);
+                try {
+                    long[] offsets = readOffsets(start, count);
+                    for (long offset : offsets) {
+                        JournalEntry header = readReusableEntryHeader(offset);
+                        commitBatches.computeIfAbsent(header.getPartition(), PartitionIndexBatch::new)
+                                .add(offset, header.getBatchSize(), header.getTimestamp());
+                    }
+                    for (PartitionIndexBatch batch : commitBatches.values()) {
+                        if (!batch.isEmpty()) {
+                            appendPartitionIndices(batch);
+                        }
+                    }
+                } catch (Throwable t) {
+                    try {
+                        rollbackPartitionIndices();
+                    } catch (Throwable rollbackException) {
+                        t.addSuppressed(rollbackException);
+                    }
+                    throw t;
+                } finally {
+                    commitBatches.values().forEach(PartitionIndexBatch::clear);
+                }
+                commitIndex.set(start + count);
+            }
+        }
+    }
+
+    private void appendPartitionIndices(PartitionIndexBatch batch) throws IOException {
+        int partition = batch.partition();
+        // Create partition which not exists
+        if (!partitionMap.containsKey(partition)) {
+            addPartition(partition, 0L);
+        }
+        JournalPersistence partitionPersistence = getPartitionPersistence(partition);
+        long partitionIndex = partitionPersistence.max() / INDEX_STORAGE_SIZE;
+        batch.startPartitionIndex(partitionIndex);
+        byte[] bytes = batch.indexBytes();
+        withReadLock(() -> {
+            try {
+                partitionPersistence.append(bytes);
+            } catch (TooManyBytesException e) {
+                // 如果批量写入超长，改为逐条entry写入
+                for (int i = 0; i < batch.entryCount(); i++) {
+                    partitionPersistence.append(batch.entryIndexBytes(i));
+                }
+            }
+        });
+        PartitionTimeIndex timeIndex = getTimeIndex(partition);
+        for (int i = 0; i < batch.entryCount(); i++) {
+            timeIndex.append(partitionIndex + batch.entryPosition(i), batch.entryTimestamp(i));
+        }
+    }
+
+    /**
+     * 把这一批写入过的分区索引和时间索引截断到写入之前的位置
+     */
+    private void rollbackPartitionIndices() throws IOException {
+        for (PartitionIndexBatch batch : commitBatches.values()) {
+            long startPartitionIndex = batch.startPartitionIndex();
+            if (startPartitionIndex >= 0) {
+                JournalPersistence partitionPersistence = getPartitionPersistence(batch.partition());
+                if (partitionPersistence.max() > startPartitionIndex * INDEX_STORAGE_SIZE) {
+                    logger.warn("Commit failed, rollback partition indices, partition: {}, from index: {}, path: {}.",
+                            batch.partition(), startPartitionIndex, basePath.toAbsolutePath().toString());
+                    withReadLock(() -> partitionPersistence.truncate(startPartitionIndex * INDEX_STORAGE_SIZE));
+                }
+                getTimeIndex(batch.partition()).truncate(startPartitionIndex);
+            }
         }
     }
 
     public JournalEntry readEntryHeaderByOffset(long offset) {
         return withReadLock(() -> {
-            byte[] headerBytes = journalPersistence.read(offset, journalEntryParser.headerLength());
+            byte[] headerBytes = journalPersistence.read(offset, journalEntryParser.minHeaderLength());
             return journalEntryParser.parseHeader(headerBytes);
         });
     }
 
+    /**
+     * 读取Entry header到当前线程复用的buffer中，不分配新的内存。
+     * 返回的header在当前线程下一次调用本方法之前有效，只能用于立即读取header中的属性。
+     */
+    private JournalEntry readReusableEntryHeader(long offset) {
+        ByteBuffer headerBuffer = headerBuffers.get();
+        return withReadLock(() -> {
+            headerBuffer.clear();
+            journalPersistence.read(offset, headerBuffer);
+            return journalEntryParser.parseHeader(headerBuffer.array());
+        });
+    }
+
     /**
      * 获取当前提交的全局索引序号
      * @return 当前提交的全局索引序号
@@ -335,7 +454,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         return commitIndex.get();
     }
 
-    private void appendPartitionIndex(byte[] offset, int partition, int batchSize) throws IOException {
+    private void appendPartitionIndex(byte[] offset, int partition, int batchSize, long timestamp) throws IOException {
         // Create partition which not exists
         if (!partitionMap.containsKey(partition)) {
             addPartition(partition, 0L);
@@ -358,7 +477,9 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         }
 
         JournalPersistence partitionPersistence = getPartitionPersistence(partition);
+        long partitionIndex = partitionPersistence.max() / INDEX_STORAGE_SIZE;
         withReadLock(() -> partitionPersistence.append(bytes));
+        getTimeIndex(partition).append(partitionIndex, timestamp);
     }
 
 
@@ -436,10 +557,22 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     @Override
     public List<JournalEntry> batchReadByPartition(int partition, long startPartitionIndex, int maxSize) {
         List<JournalEntry> list = new LinkedList<>();
+        JournalPersistence pp = getPartitionPersistence(partition);
+        // 一次读出所有需要的分区索引
+        int indexCount = (int) Math.max(0L, Math.min(maxSize, pp.max() / INDEX_STORAGE_SIZE - startPartitionIndex));
+        long[] offsets = indexCount > 0 ?
+                withReadLock(() -> pp.readLongs(startPartitionIndex * INDEX_STORAGE_SIZE, indexCount)) : new long[0];
         int size = 0;
         long index = startPartitionIndex;
         while (size < maxSize) {
-            JournalEntry batchEntry = readByPartition(partition, index);
+            JournalEntry batchEntry;
+            int i = (int) (index - startPartitionIndex);
+            if (i < offsets.length && offsets[i] >= 0) {
+                batchEntry = readByOffset(offsets[i]);
+                batchEntry.setOffset(0);
+            } else {
+                batchEntry = readByPartition(partition, index);
+            }
             int count = batchEntry.getBatchSize() - batchEntry.getOffset();
             size += count;
             index += count;
@@ -453,8 +586,46 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         return journalEntryParser.parse(readRaw(index));
     }
 
+    /**
+     * 按位置读取entry，开启{@link #VERIFY_CHECKSUM_ON_READ_KEY}时校验校验和。
+     * @param offset entry的全局偏移量
+     * @return entry
+     * @throws ParseJournalException 校验和不匹配时抛出
+     */
     public JournalEntry readByOffset(long offset) {
-        return journalEntryParser.parse(readRawByOffset(offset));
+        JournalEntry entry = journalEntryParser.parse(readRawByOffset(offset));
+        if (verifyChecksumOnRead) {
+            checkChecksum(entry, offset);
+        }
+        return entry;
+    }
+
+    /**
+     * 只读取entry的payload。
+     * header读取到当前线程复用的buffer中，payload直接读取到返回的数组中，每条entry只分配一次内存。
+     * 开启{@link #VERIFY_CHECKSUM_ON_READ_KEY}时，带有校验和的entry需要读出整条entry进行校验。
+     * @param offset entry的全局偏移量
+     * @return payload
+     * @throws ParseJournalException 校验和不匹配时抛出
+     */
+    public byte[] readPayloadByOffset(long offset) {
+        if (verifyChecksumOnRead && readReusableEntryHeader(offset).getHeaderLength() > journalEntryParser.minHeaderLength()) {
+            return readByOffset(offset).getPayload().getBytes();
+        }
+        return withReadLock(() -> {
+            JournalEntry header = readReusableEntryHeader(offset);
+            int headerLength = header.getHeaderLength();
+            byte[] payload = new byte[header.getLength() - headerLength];
+            journalPersistence.read(offset + headerLength, ByteBuffer.wrap(payload));
+            return payload;
+        });
+    }
+
+    private void checkChecksum(JournalEntry entry, long offset) {
+        if (!entry.verifyChecksum()) {
+            throw new ParseJournalException(
+                    String.format("Journal entry checksum mismatch, offset: %d, path: %s.", offset, basePath));
+        }
     }
 
     private byte[] readRaw(long index) {
@@ -472,30 +643,54 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     }
 
     private int readEntryLengthByOffset(long offset) {
-        return readEntryHeaderByOffset(offset).getLength();
+        return readReusableEntryHeader(offset).getLength();
     }
 
     public long readOffset(long index) {
         return readOffset(indexPersistence, index);
     }
 
+    /**
+     * 读取分区中一条entry的全局偏移量，批量entry返回这个批量entry的偏移量。
+     * @param partition 分区
+     * @param index 分区索引序号
+     * @return entry的全局偏移量
+     */
+    public long readOffsetByPartition(int partition, long index) {
+        JournalPersistence pp = getPartitionPersistence(partition);
+        long offset = readOffset(pp, index);
+        return offset < 0 ? readOffset(pp, index + offset) : offset;
+    }
+
+    /**
+     * 一次读取从index开始的连续size条entry的offset
+     * @param index 起始全局索引序号
+     * @param size 条数
+     * @return offset数组
+     */
+    public long[] readOffsets(long index, int size) {
+        checkIndex(index);
+        return withReadLock(() -> indexPersistence.readLongs(index * INDEX_STORAGE_SIZE, size));
+    }
+
     private long readOffset(JournalPersistence indexPersistence, long index) {
         return withReadLock(() -> indexPersistence.readLong(index * INDEX_STORAGE_SIZE));
     }
 
     public List<JournalEntry> batchRead(long index, int size) {
-        checkIndex(index);
-        List<JournalEntry> list = new ArrayList<>(size);
-        long i = index;
-        while (list.size() < size && i < maxIndex()) {
-            list.add(read(i++));
+        List<byte[]> rawEntries = readRaw(index, size);
+        List<JournalEntry> list = new ArrayList<>(rawEntries.size());
+        for (byte[] rawEntry : rawEntries) {
+            list.add(journalEntryParser.parse(rawEntry));
         }
         return list;
     }
 
 
     /**
-     * 批量读取StorageEntry
+     * 批量读取StorageEntry。
+     * 一次读出所有entry的offset，再按照这些offset一次读出所有entry，
+     * 避免逐条读取时，每条entry都需要分别读取索引、header和数据。
      * @param index 起始索引位置
      * @param size 期望读取的条数
      * @return 未反序列化的StorageEntry列表。
@@ -504,12 +699,21 @@ public class Journal implements RaftJournal, Flushable, Closeable {
      */
     public List<byte[]> readRaw(long index, int size) {
         checkIndex(index);
-        List<byte[]> list = new ArrayList<>(size);
-        long i = index;
-        while (list.size() < size && i < maxIndex()) {
-            list.add(readRaw(i++));
+        int count = (int) Math.min(size, maxIndex() - index);
+        // 没有需要读取的entry时直接返回，不读取索引，也不计算长度
+        if (count <= 0) {
+            return new ArrayList<>(0);
         }
-        return list;
+        return withReadLock(() -> {
+            long[] offsets = indexPersistence.readLongs(index * INDEX_STORAGE_SIZE, count);
+            int[] lengths = new int[count];
+            for (int i = 0; i < count - 1; i++) {
+                lengths[i] = (int) (offsets[i + 1] - offsets[i]);
+            }
+            // 最后一条entry的长度需要从header中读取
+            lengths[count - 1] = readEntryLengthByOffset(offsets[count - 1]);
+            return journalPersistence.readBatch(offsets[0], lengths);
+        });
     }
 
     /**
@@ -523,7 +727,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         if (index == -1) return -1;
         checkIndex(index);
         long offset = readOffset(index);
-        return readEntryHeaderByOffset(offset).getTerm();
+        return readReusableEntryHeader(offset).getTerm();
     }
 
 
@@ -565,6 +769,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
             truncatePartitions(journalOffset);
             indexPersistence.truncate(index * INDEX_STORAGE_SIZE);
             journalPersistence.truncate(journalOffset);
+            flushedIndex.accumulateAndGet(index, Math::min);
         });
 
         // 安全更新commitIndex
@@ -588,6 +793,9 @@ public class Journal implements RaftJournal, Flushable, Closeable {
             }
             partitionPersistence.truncate(position <= partitionPersistence.min() ? 0L : position + INDEX_STORAGE_SIZE);
         }
+        for (Map.Entry<Integer, JournalPersistence> entry : partitionMap.entrySet()) {
+            getTimeIndex(entry.getKey()).truncate(entry.getValue().max() / INDEX_STORAGE_SIZE);
+        }
     }
 
     /**
@@ -613,6 +821,12 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         indexProperties = replacePropertiesNames(properties,
                 INDEX_PROPERTIES_PATTERN, DEFAULT_INDEX_PROPERTIES);
         indexPersistence.recover(indexPath, journalSnapshot.minIndex() * INDEX_STORAGE_SIZE, indexProperties);
+        timeIndexProperties = replacePropertiesNames(properties,
+                TIME_INDEX_PROPERTIES_PATTERN, DEFAULT_TIME_INDEX_PROPERTIES);
+        timeIndexIntervalMs = Long.parseLong(properties.getProperty(TIME_INDEX_INTERVAL_MS_KEY,
+                String.valueOf(DEFAULT_TIME_INDEX_INTERVAL_MS)));
+        verifyChecksumOnRead = Boolean.parseBoolean(properties.getProperty(VERIFY_CHECKSUM_ON_READ_KEY,
+                String.valueOf(DEFAULT_VERIFY_CHECKSUM_ON_READ)));
         // 截掉末尾半条数据
         indexPersistence.truncate(indexPersistence.max() - indexPersistence.max() % INDEX_STORAGE_SIZE);
 
@@ -627,7 +841,12 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         // 恢复分区索引
         recoverPartitions(partitionPath, journalSnapshot.partitionMinIndices(), indexProperties);
 
+        // 校验未提交的entry，截掉第一条校验失败的entry及其之后的数据
+        truncateCorruptedUncommittedEntries();
+
         flush();
+        // 恢复出来的Journal都已经在磁盘上，不需要等到下一次刷盘
+        flushedIndex.set(maxIndex());
         logger.debug("Journal recovered, minIndex: {}, maxIndex: {}, partitions: {}, path: {}.",
                 minIndex(), maxIndex(), partitionMap.keySet(), path.toAbsolutePath().toString());
     }
@@ -645,8 +864,11 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         }
     }
 
-    private void recoverPartitions(Path partitionPath, Map<Integer, Long> partitionIndices, Properties properties) throws IOException {
+    private void recoverPartitions(Path partitionPath, Map<Integer, Long> snapshotPartitionIndices, Properties properties) throws IOException {
 
+        // 快照之后动态创建的保留分区（例如事务分区）不在快照中，从磁盘上的目录恢复
+        Map<Integer, Long> partitionIndices = new HashMap<>(snapshotPartitionIndices);
+        partitionIndices.putAll(findReservedPartitions(partitionPath, snapshotPartitionIndices.keySet()));
 
         Map<Integer, Long> lastIndexedOffsetMap = new HashMap<>(partitionIndices.size());
         for (Map.Entry<Integer, Long> entry : partitionIndices.entrySet()) {
@@ -660,6 +882,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
             partitionMap.put(partition, pp);
             lastIndexedOffsetMap.put(partition, getLastIndexedOffset(pp));
+            recoverTimeIndex(partition, pp);
         }
 
         // 重建缺失的分区索引
@@ -671,12 +894,12 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
         // 创建缺失的索引
         while (offset < commitOffset) {
-            JournalEntry header = readEntryHeaderByOffset(offset);
-            int length = readEntryLengthByOffset(offset);
-            if (offset > lastIndexedOffsetMap.get(header.getPartition())) {
+            JournalEntry header = readReusableEntryHeader(offset);
+            int length = header.getLength();
+            if (offset > lastIndexedOffsetMap.getOrDefault(header.getPartition(), -1L)) {
                 indexBuffer.clear();
                 indexBuffer.putLong(offset);
-                appendPartitionIndex(indexBytes, header.getPartition(), header.getBatchSize());
+                appendPartitionIndex(indexBytes, header.getPartition(), header.getBatchSize(), header.getTimestamp());
             }
             offset += length;
         }
@@ -696,9 +919,59 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
             partitionIndex += 1;
             partitionPersistence.truncate(partitionIndex * INDEX_STORAGE_SIZE);
+            getTimeIndex(partition).truncate(partitionIndex);
+
+        }
+
+    }
+
+    /**
+     * 恢复分区的时间索引：删除多余的时间索引，并根据分区索引补齐缺失的时间索引。
+     */
+    private void recoverTimeIndex(int partition, JournalPersistence pp) throws IOException {
+        PartitionTimeIndex timeIndex = getTimeIndex(partition);
+        long maxPartitionIndex = pp.max() / INDEX_STORAGE_SIZE;
+        timeIndex.truncate(maxPartitionIndex);
+
+        long index = Math.max(timeIndex.lastIndex() + 1, pp.min() / INDEX_STORAGE_SIZE);
+        while (index < maxPartitionIndex) {
+            int count = (int) Math.min(1024L, maxPartitionIndex - index);
+            long[] offsets = pp.readLongs(index * INDEX_STORAGE_SIZE, count);
+            for (int i = 0; i < count; i++) {
+                // 批消息只有第一条索引是Journal offset
+                if (offsets[i] >= 0) {
+                    timeIndex.append(index + i, readReusableEntryHeader(offsets[i]).getTimestamp());
+                }
+            }
+            index += count;
+        }
+    }
 
+    private PartitionTimeIndex getTimeIndex(int partition) throws IOException {
+        PartitionTimeIndex timeIndex = timeIndexMap.get(partition);
+        if (null == timeIndex) {
+            synchronized (timeIndexMap) {
+                timeIndex = timeIndexMap.get(partition);
+                if (null == timeIndex) {
+                    timeIndex = new PartitionTimeIndex(persistenceFactory.createJournalPersistenceInstance(), timeIndexIntervalMs);
+                    timeIndex.recover(basePath.resolve(TIME_INDEX_PATH).resolve(String.valueOf(partition)), timeIndexProperties);
+                    timeIndexMap.put(partition, timeIndex);
+                }
+            }
         }
+        return timeIndex;
+    }
 
+    private void removeTimeIndex(int partition) throws IOException {
+        synchronized (timeIndexMap) {
+            PartitionTimeIndex timeIndex = timeIndexMap.remove(partition);
+            if (null == timeIndex) {
+                // 没有加载过的时间索引也需要从磁盘上删除
+                timeIndex = new PartitionTimeIndex(persistenceFactory.createJournalPersistenceInstance(), timeIndexIntervalMs);
+                timeIndex.recover(basePath.resolve(TIME_INDEX_PATH).resolve(String.valueOf(partition)), timeIndexProperties);
+            }
+            timeIndex.delete();
+        }
     }
 
     private long getLastIndexedOffset(JournalPersistence pp) {
@@ -719,6 +992,24 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         return lastIndexedOffset;
     }
 
+    private Map<Integer, Long> findReservedPartitions(Path partitionPath, Set<Integer> knownPartitions) {
+        Map<Integer, Long> partitions = new HashMap<>();
+        File[] files = partitionPath.toFile().listFiles(File::isDirectory);
+        if (null != files) {
+            for (File file : files) {
+                try {
+                    int partition = Integer.parseInt(file.getName());
+                    if (partition >= RESERVED_PARTITIONS_START && !knownPartitions.contains(partition)) {
+                        partitions.put(partition, 0L);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // 不是分区索引的目录
+                }
+            }
+        }
+        return partitions;
+    }
+
     private void truncateTailPartialBatchIndices(JournalPersistence pp) throws IOException {
         if (pp.max() > pp.min()) {
             // 如果最后一条索引是批消息的索引，需要检查其完整性
@@ -736,7 +1027,35 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         }
     }
 
-    private Properties replacePropertiesNames(Properties properties, String fromNameRegex, Properties defaultProperties) {
+    /**
+     * 一次 {@link #append(List)} 最多写入的字节数（包含entry header），不能超过一个journal文件的大小。
+     * @param properties 配置属性
+     * @return 最大字节数
+     */
+    public static int maxAppendBytes(Properties properties) {
+        return Integer.parseInt(replacePropertiesNames(properties,
+                JOURNAL_PROPERTIES_PATTERN, DEFAULT_JOURNAL_PROPERTIES).getProperty(FILE_DATA_SIZE_KEY));
+    }
+
+    /**
+     * 一次 {@link #append(List)} 最多写入的entry数量，不能超过一个索引文件能容纳的索引数。
+     * @param properties 配置属性
+     * @return 最大entry数量
+     */
+    public static int maxAppendEntries(Properties properties) {
+        return Integer.parseInt(replacePropertiesNames(properties,
+                INDEX_PROPERTIES_PATTERN, DEFAULT_INDEX_PROPERTIES).getProperty(FILE_DATA_SIZE_KEY)) / INDEX_STORAGE_SIZE;
+    }
+
+    public int maxAppendBytes() {
+        return Integer.parseInt(journalProperties.getProperty(FILE_DATA_SIZE_KEY));
+    }
+
+    public int maxAppendEntries() {
+        return Integer.parseInt(indexProperties.getProperty(FILE_DATA_SIZE_KEY)) / INDEX_STORAGE_SIZE;
+    }
+
+    private static Properties replacePropertiesNames(Properties properties, String fromNameRegex, Properties defaultProperties) {
         Properties jp = new Properties(defaultProperties);
         properties.stringPropertyNames().forEach(k -> {
             String name = k.replaceAll(fromNameRegex, "$1");
@@ -786,12 +1105,13 @@ public class Journal implements RaftJournal, Flushable, Closeable {
 
         // 找最后的连续2条记录
 
-        long position = journalPersistence.max() - journalEntryParser.headerLength();
+        long position = journalPersistence.max() - journalEntryParser.minHeaderLength();
         long lastEntryPosition = -1; // 最后连续2条记录中后面那条的位置
         JournalEntry lastEntryHeader = null;
         while (position >= journalPersistence.min()) {
             try {
-                JournalEntry header = readByOffset(position);
+                // 只检查entry的结构，不校验校验和
+                JournalEntry header = journalEntryParser.parse(readRawByOffset(position));
                 // 找到一条记录的开头位置
                 if (lastEntryPosition < 0) { // 之前是否已经找到一条？
                     // 这是倒数第一条，记录之
@@ -822,6 +1142,44 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         journalPersistence.truncate(journalPersistence.min());
     }
 
+    private void truncateCorruptedUncommittedEntries() {
+        long index = Math.max(commitIndex(), minIndex());
+        if (index < maxIndex()) {
+            long corruptedIndex = verify(index, (int) Math.min(Integer.MAX_VALUE, maxIndex() - index));
+            if (corruptedIndex >= 0) {
+                logger.warn("Journal entry checksum mismatch, truncate journal from index: {}, maxIndex: {}, path: {}.",
+                        corruptedIndex, maxIndex(), basePath);
+                truncate(corruptedIndex);
+            }
+        }
+    }
+
+    /**
+     * 校验从index开始的最多size条entry的校验和。
+     * @param index 起始全局索引序号
+     * @param size 最多校验的条数
+     * @return 第一条校验失败的全局索引序号，全部校验通过返回-1
+     * @throws IndexUnderflowException 如果 index 小于 minIndex()
+     * @throws IndexOverflowException 如果index 不小于 maxIndex()
+     */
+    public long verify(long index, int size) {
+        long i = index;
+        while (i < index + size && i < maxIndex()) {
+            List<byte[]> rawEntries = readRaw(i, (int) Math.min(VERIFY_BATCH_SIZE, index + size - i));
+            for (byte[] rawEntry : rawEntries) {
+                try {
+                    if (!journalEntryParser.parse(rawEntry).verifyChecksum()) {
+                        return i;
+                    }
+                } catch (ParseJournalException e) {
+                    return i;
+                }
+                i++;
+            }
+        }
+        return -1L;
+    }
+
     private void truncatePartialEntry(long lastEntryPosition, JournalEntry lastEntryHeader) throws IOException {
         // 判断最后一条是否完整
         if (lastEntryPosition + lastEntryHeader.getLength() <= journalPersistence.max()) {
@@ -842,7 +1200,11 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         do {
             if(readWriteLock.readLock().tryLock()) {
                 try {
-                    flushed = Stream.concat(Stream.of(journalPersistence, indexPersistence), partitionMap.values().stream())
+                    // 先记录索引位置，再记录Journal位置，保证这些索引对应的Journal都在journalMax之前
+                    long indexMax = maxIndex();
+                    long journalMax = journalPersistence.max();
+                    flushed = Stream.concat(Stream.concat(Stream.of(journalPersistence, indexPersistence), partitionMap.values().stream()),
+                            timeIndexMap.values().stream().map(PartitionTimeIndex::getPersistence))
                             .filter(p -> p.flushed() < p.max())
                             .peek(p -> {
                                 try {
@@ -852,6 +1214,11 @@ public class Journal implements RaftJournal, Flushable, Closeable {
                                     throw new JournalException(e);
                                 }
                             }).count();
+                    // 本轮刷盘之前写入的Journal和索引都已经刷盘，更新flushedIndex
+                    if (journalPersistence.flushed() >= journalMax &&
+                            indexPersistence.flushed() >= indexMax * INDEX_STORAGE_SIZE) {
+                        flushedIndex.accumulateAndGet(indexMax, Math::max);
+                    }
                 } finally {
                     readWriteLock.readLock().unlock();
                 }
@@ -909,10 +1276,30 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         try {
             if (partitionMap.containsKey(partition)) {
                 JournalPersistence indexStore = partitionMap.get(partition);
-                long searchedIndex = binarySearchByTimestamp(timestamp, indexStore, indexStore.min() / INDEX_STORAGE_SIZE, indexStore.max() / INDEX_STORAGE_SIZE - 1);
+                long minIndex = indexStore.min() / INDEX_STORAGE_SIZE;
+                long leftIndex = minIndex;
+                long rightIndex = indexStore.max() / INDEX_STORAGE_SIZE - 1;
+
+                // 先用稀疏时间索引确定查找范围，再在这个范围内折半查找。
+                // 时间索引在写入时才创建，查询时不创建，没有时间索引就在整个分区内查找
+                PartitionTimeIndex timeIndex = timeIndexMap.get(partition);
+                long[] range = null == timeIndex ? new long[]{-1L, -1L} : timeIndex.range(timestamp);
+                boolean narrowed = false;
+                if (range[0] > leftIndex && leftIndex < rightIndex) {
+                    leftIndex = Math.min(range[0], rightIndex);
+                    narrowed = true;
+                }
+                if (range[1] >= leftIndex && range[1] < rightIndex) {
+                    rightIndex = range[1];
+                    narrowed = true;
+                }
+
+                // 范围缩小到只有一条时，就是这一条
+                long searchedIndex = narrowed && leftIndex == rightIndex ? leftIndex :
+                        binarySearchByTimestamp(timestamp, indexStore, leftIndex, rightIndex);
 
                 // 考虑到有可能出现连续n条消息时间相同，找到这n条消息的第一条
-                while (searchedIndex - 1 >= indexStore.min() && timestamp <= getStorageTimestamp(indexStore, searchedIndex - 1)) {
+                while (searchedIndex - 1 >= minIndex && timestamp <= getStorageTimestamp(indexStore, searchedIndex - 1)) {
                     searchedIndex--;
                 }
                 return searchedIndex;
@@ -960,8 +1347,12 @@ public class Journal implements RaftJournal, Flushable, Closeable {
     private long getStorageTimestamp(
             JournalPersistence indexStore,
             long index) {
-        JournalEntry header = readEntryHeaderByOffset(readOffset(indexStore, index));
-        return header.getTimestamp();
+        long offset = readOffset(indexStore, index);
+        if (offset < 0) {
+            // 批消息中的索引，读取这一批消息第一条的时间
+            offset = readOffset(indexStore, index + offset);
+        }
+        return readReusableEntryHeader(offset).getTimestamp();
     }
 
     @Override
@@ -993,6 +1384,7 @@ public class Journal implements RaftJournal, Flushable, Closeable {
                 logger.info("Partition removed: {}, journal: {}.", partition, basePath.toAbsolutePath().toString());
                 removedPersistence.close();
                 removedPersistence.delete();
+                removeTimeIndex(partition);
             }
         }
     }
@@ -1002,17 +1394,25 @@ public class Journal implements RaftJournal, Flushable, Closeable {
         for (JournalPersistence persistence : partitionMap.values()) {
             persistence.close();
         }
+        for (PartitionTimeIndex timeIndex : timeIndexMap.values()) {
+            timeIndex.close();
+        }
         indexPersistence.close();
         journalPersistence.close();
 
     }
 
-    // For monitor only
-
+    /**
+     * 已经可靠写入磁盘的最大全局索引序号（不含）。
+     * 在这个位置之前的Journal和索引都已经刷盘，服务器宕机后不会丢失。
+     * @return 已刷盘的最大全局索引序号
+     */
     public long flushedIndex() {
-        return indexPersistence.flushed() / INDEX_STORAGE_SIZE;
+        return flushedIndex.get();
     }
 
+    // For monitor only
+
     public JournalPersistence getJournalPersistence() {
         return journalPersistence;
     }
@@ -0,0 +1,125 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.journal;
+
+import java.util.Arrays;
+
+import static io.journalkeeper.core.journal.Journal.INDEX_STORAGE_SIZE;
+
+/**
+ * 提交时一个分区中待写入的分区索引。
+ * {@link Journal#commit(long)}把一次提交的所有entry按分区累积到这里，
+ * 每个分区的索引合并成一个buffer一次写入，不再逐条写入8个字节。
+ * 只在提交线程中使用，非线程安全，写入后调用{@link #clear()}复用。
+ */
+class PartitionIndexBatch {
+    private final int partition;
+    private byte[] indexBytes = new byte[INDEX_STORAGE_SIZE * 64];
+    private int indexCount = 0;
+    // 每条entry第一条分区索引的相对位置和存储时间，用于写入时间索引
+    private int[] entryPositions = new int[64];
+    private long[] entryTimestamps = new long[64];
+    private int entryCount = 0;
+    // 写入前分区的最大索引序号，提交失败时回滚到这个位置，-1表示还没有写入
+    private long startPartitionIndex = -1L;
+
+    PartitionIndexBatch(int partition) {
+        this.partition = partition;
+    }
+
+    int partition() {
+        return partition;
+    }
+
+    /**
+     * 添加一条entry的分区索引。批消息占用batchSize条分区索引，
+     * 第一条是Journal offset，其余的是相对第一条的负偏移量。
+     * @param offset entry在Journal中的offset
+     * @param batchSize 批消息的消息条数
+     * @param timestamp entry的存储时间
+     */
+    void add(long offset, int batchSize, long timestamp) {
+        if (entryCount == entryPositions.length) {
+            entryPositions = Arrays.copyOf(entryPositions, entryCount << 1);
+            entryTimestamps = Arrays.copyOf(entryTimestamps, entryCount << 1);
+        }
+        entryPositions[entryCount] = indexCount;
+        entryTimestamps[entryCount] = timestamp;
+        entryCount++;
+
+        int size = Math.max(1, batchSize);
+        int required = (indexCount + size) * INDEX_STORAGE_SIZE;
+        if (required > indexBytes.length) {
+            indexBytes = Arrays.copyOf(indexBytes, Math.max(indexBytes.length << 1, required));
+        }
+        putLong(indexCount++, offset);
+        for (int j = 1; j < size; j++) {
+            putLong(indexCount++, -1L * j);
+        }
+    }
+
+    private void putLong(int position, long value) {
+        int i = position * INDEX_STORAGE_SIZE;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            indexBytes[i++] = (byte) (value >>> shift);
+        }
+    }
+
+    boolean isEmpty() {
+        return indexCount == 0;
+    }
+
+    /**
+     * 待写入的分区索引，长度正好是所有索引的字节数
+     */
+    byte[] indexBytes() {
+        int length = indexCount * INDEX_STORAGE_SIZE;
+        return length == indexBytes.length ? indexBytes : Arrays.copyOf(indexBytes, length);
+    }
+
+    /**
+     * 一条entry的分区索引
+     * @param entry entry在这批中的序号
+     */
+    byte[] entryIndexBytes(int entry) {
+        int end = entry + 1 < entryCount ? entryPositions[entry + 1] : indexCount;
+        return Arrays.copyOfRange(indexBytes, entryPositions[entry] * INDEX_STORAGE_SIZE, end * INDEX_STORAGE_SIZE);
+    }
+
+    int entryCount() {
+        return entryCount;
+    }
+
+    int entryPosition(int entry) {
+        return entryPositions[entry];
+    }
+
+    long entryTimestamp(int entry) {
+        return entryTimestamps[entry];
+    }
+
+    long startPartitionIndex() {
+        return startPartitionIndex;
+    }
+
+    void startPartitionIndex(long startPartitionIndex) {
+        this.startPartitionIndex = startPartitionIndex;
+    }
+
+    void clear() {
+        indexCount = 0;
+        entryCount = 0;
+        startPartitionIndex = -1L;
+    }
+}
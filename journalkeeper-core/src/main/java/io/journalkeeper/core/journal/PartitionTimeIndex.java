@@ -0,0 +1,199 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.journal;
+
+import io.journalkeeper.persistence.JournalPersistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * 分区的稀疏时间索引。
+ * 每隔intervalMs记录一条：时间戳(8 bytes) + 分区索引序号(8 bytes)，
+ * 按时间查询时先在时间索引中确定分区索引的范围，再在这个范围内查找，
+ * 避免在整个分区上折半查找时读取大量冷数据。
+ *
+ * 时间索引只是查询加速用的，丢失或者不完整时可以从分区索引重建。
+ */
+class PartitionTimeIndex implements Closeable {
+    static final int ENTRY_SIZE = 2 * Long.BYTES;
+    private final JournalPersistence persistence;
+    private final long intervalMs;
+    // 最后一条时间索引的时间戳
+    private long lastTimestamp = Long.MIN_VALUE;
+    // 最后一条时间索引对应的分区索引序号，-1表示没有时间索引
+    private long lastIndex = -1L;
+    private final byte[] entryBytes = new byte[ENTRY_SIZE];
+    private final ByteBuffer entryBuffer = ByteBuffer.wrap(entryBytes);
+
+    PartitionTimeIndex(JournalPersistence persistence, long intervalMs) {
+        this.persistence = persistence;
+        this.intervalMs = intervalMs;
+    }
+
+    synchronized void recover(Path path, Properties properties) throws IOException {
+        persistence.recover(path, properties);
+        // 截掉末尾半条数据
+        persistence.truncate(persistence.max() - (persistence.max() - persistence.min()) % ENTRY_SIZE);
+        loadLastEntry();
+    }
+
+    /**
+     * 追加一条分区索引的时间，距离上一条时间索引不足intervalMs时忽略。
+     * @param partitionIndex 分区索引序号
+     * @param timestamp 这条分区索引对应JournalEntry的存储时间
+     * @throws IOException 发生IO异常时抛出
+     */
+    synchronized void append(long partitionIndex, long timestamp) throws IOException {
+        if (partitionIndex > lastIndex && (lastIndex < 0 || timestamp - lastTimestamp >= intervalMs)) {
+            entryBuffer.clear();
+            entryBuffer.putLong(timestamp);
+            entryBuffer.putLong(partitionIndex);
+            persistence.append(entryBytes);
+            lastTimestamp = timestamp;
+            lastIndex = partitionIndex;
+        }
+    }
+
+    /**
+     * 最后一条时间索引对应的分区索引序号
+     * @return 分区索引序号，没有时间索引时返回-1
+     */
+    synchronized long lastIndex() {
+        return lastIndex;
+    }
+
+    /**
+     * 查询给定时间所在的分区索引范围。
+     * @param timestamp 查询时间
+     * @return 长度为2的数组：[0]为最后一条时间小于timestamp的分区索引序号，没有时为-1；
+     * [1]为第一条时间大于timestamp的分区索引序号，没有时为-1。
+     * @throws IOException 发生IO异常时抛出
+     */
+    long[] range(long timestamp) throws IOException {
+        long left = persistence.min() / ENTRY_SIZE;
+        long right = persistence.max() / ENTRY_SIZE - 1;
+        long[] range = new long[]{-1L, -1L};
+        if (right < left) {
+            return range;
+        }
+
+        // 最后一条时间小于timestamp的时间索引
+        long lo = left, hi = right, found = -1L;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long[] entry = readEntry(mid);
+            if (entry[0] < timestamp) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (found >= 0) {
+            range[0] = readEntry(found)[1];
+        }
+
+        // 第一条时间大于timestamp的时间索引
+        lo = found >= 0 ? found + 1 : left;
+        hi = right;
+        found = -1L;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long[] entry = readEntry(mid);
+            if (entry[0] > timestamp) {
+                found = mid;
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        if (found >= 0) {
+            range[1] = readEntry(found)[1];
+        }
+        return range;
+    }
+
+    /**
+     * 删除分区索引序号不小于partitionIndex的时间索引
+     * @param partitionIndex 分区索引序号
+     * @throws IOException 发生IO异常时抛出
+     */
+    synchronized void truncate(long partitionIndex) throws IOException {
+        long position = persistence.max();
+        while (position - ENTRY_SIZE >= persistence.min() &&
+                readEntry((position - ENTRY_SIZE) / ENTRY_SIZE)[1] >= partitionIndex) {
+            position -= ENTRY_SIZE;
+        }
+        if (position < persistence.max()) {
+            persistence.truncate(position);
+            loadLastEntry();
+        }
+    }
+
+    /**
+     * 删除分区索引序号小于partitionIndex的时间索引，保留最后一条，用于确定查询的左边界。
+     * @param partitionIndex 分区最小索引序号
+     * @throws IOException 发生IO异常时抛出
+     */
+    synchronized void compact(long partitionIndex) throws IOException {
+        long left = persistence.min() / ENTRY_SIZE;
+        long right = Math.min(persistence.max(), persistence.flushed()) / ENTRY_SIZE - 1;
+        long found = -1L;
+        while (left <= right) {
+            long mid = (left + right) >>> 1;
+            if (readEntry(mid)[1] <= partitionIndex) {
+                found = mid;
+                left = mid + 1;
+            } else {
+                right = mid - 1;
+            }
+        }
+        if (found >= 0) {
+            persistence.compact(found * ENTRY_SIZE);
+        }
+    }
+
+    JournalPersistence getPersistence() {
+        return persistence;
+    }
+
+    void delete() throws IOException {
+        persistence.close();
+        persistence.delete();
+    }
+
+    @Override
+    public void close() throws IOException {
+        persistence.close();
+    }
+
+    private void loadLastEntry() throws IOException {
+        if (persistence.max() - ENTRY_SIZE >= persistence.min()) {
+            long[] entry = readEntry(persistence.max() / ENTRY_SIZE - 1);
+            lastTimestamp = entry[0];
+            lastIndex = entry[1];
+        } else {
+            lastTimestamp = Long.MIN_VALUE;
+            lastIndex = -1L;
+        }
+    }
+
+    private long[] readEntry(long entryIndex) throws IOException {
+        return persistence.readLongs(entryIndex * ENTRY_SIZE, 2);
+    }
+}
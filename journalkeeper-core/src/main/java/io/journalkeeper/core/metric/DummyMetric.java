@@ -48,6 +48,21 @@ public class DummyMetric implements JMetric {
 
     }
 
+    @Override
+    public long startToken() {
+        return 0L;
+    }
+
+    @Override
+    public void end(long startToken, long traffic) {
+
+    }
+
+    @Override
+    public void end(long startToken, MetricCollector<Long> trafficCollector) {
+
+    }
+
     @Override
     public void reset() {
 
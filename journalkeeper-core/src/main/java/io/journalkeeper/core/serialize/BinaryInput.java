@@ -0,0 +1,155 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.serialize;
+
+import io.journalkeeper.exceptions.SerializeException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@link BinarySerializeExtensionPoint}的输入，直接从字节数组中读取，不复制数据。
+ * 注册类型的{@link BinarySerializeExtensionPoint.Codec}使用这个类读取对象的字段。
+ */
+public class BinaryInput {
+    private final BinarySerializeExtensionPoint serializer;
+    private final byte[] buffer;
+    private int position;
+    private final int limit;
+
+    BinaryInput(BinarySerializeExtensionPoint serializer, byte[] buffer, int offset, int length) {
+        this.serializer = serializer;
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    private void require(int size) {
+        if (position + size > limit) {
+            throw new SerializeException("Unexpected end of the input!");
+        }
+    }
+
+    int position() {
+        return position;
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    void skip(int size) {
+        require(size);
+        position += size;
+    }
+
+    public int read() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    public boolean readBoolean() {
+        return read() != 0;
+    }
+
+    public byte readByte() {
+        return (byte) read();
+    }
+
+    public short readShort() {
+        require(2);
+        return (short) (((buffer[position++] & 0xFF) << 8) | (buffer[position++] & 0xFF));
+    }
+
+    public char readChar() {
+        return (char) readShort();
+    }
+
+    public int readInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat(readFixedInt());
+    }
+
+    public double readDouble() {
+        long high = readFixedInt() & 0xFFFFFFFFL;
+        long low = readFixedInt() & 0xFFFFFFFFL;
+        return Double.longBitsToDouble((high << 32) | low);
+    }
+
+    private int readFixedInt() {
+        require(4);
+        return ((buffer[position++] & 0xFF) << 24) |
+                ((buffer[position++] & 0xFF) << 16) |
+                ((buffer[position++] & 0xFF) << 8) |
+                (buffer[position++] & 0xFF);
+    }
+
+    int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = read();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializeException("Malformed variable length int!");
+    }
+
+    private long readVarLong() {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = read();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializeException("Malformed variable length long!");
+    }
+
+    public byte[] readBytes() {
+        int length = readVarInt();
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    public String readString() {
+        int length = readVarInt();
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * 读取{@link BinaryOutput#writeObject(Object)}写入的对象
+     * @param <T> 对象类型
+     * @return 对象，可能为null
+     */
+    public <T> T readObject() {
+        return serializer.readObject(this);
+    }
+}
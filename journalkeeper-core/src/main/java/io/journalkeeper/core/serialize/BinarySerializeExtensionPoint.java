@@ -0,0 +1,378 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.serialize;
+
+import io.journalkeeper.exceptions.SerializeException;
+import io.journalkeeper.utils.buffer.ThreadLocalBuffer;
+import io.journalkeeper.utils.spi.Singleton;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 使用紧凑的二进制格式代替Java序列化的序列化实现。
+ *
+ * 每个值以一个字节的类型标识开头，支持：
+ * <ul>
+ *     <li>null、String、byte[]和基本类型的包装类；</li>
+ *     <li>ArrayList、HashMap、LinkedHashMap、HashSet和LinkedHashSet，元素可以是任意支持的类型；</li>
+ *     <li>通过{@link #register(Class, int, Codec)}注册的类型；</li>
+ *     <li>其它实现了{@link java.io.Serializable}的对象，使用Java序列化，作为兜底。</li>
+ * </ul>
+ *
+ * 序列化使用线程内复用的缓冲区，反序列化直接读取字节数组，都不需要创建流对象。
+ * Java序列化的数据以0xACED开头，反序列化时识别出来之后仍然使用Java序列化，
+ * 因此可以读取之前使用{@link JavaSerializeExtensionPoint}写入的数据。
+ *
+ * 默认不启用，需要在配置中把serializer设置为本类的全类名。
+ * 这个类是单例，需要注册自定义类型时，在创建WrappedBootStrap之前调用：
+ * <pre>
+ * BinarySerializeExtensionPoint serializer =
+ *         ServiceSupport.load(SerializeExtensionPoint.class, BinarySerializeExtensionPoint.class);
+ * serializer.register(MyType.class, 1, new MyTypeCodec());
+ * </pre>
+ */
+@Singleton
+public class BinarySerializeExtensionPoint implements SerializeExtensionPoint {
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_BYTES = 2;
+    private static final byte TAG_BOOLEAN = 3;
+    private static final byte TAG_BYTE = 4;
+    private static final byte TAG_SHORT = 5;
+    private static final byte TAG_INT = 6;
+    private static final byte TAG_LONG = 7;
+    private static final byte TAG_FLOAT = 8;
+    private static final byte TAG_DOUBLE = 9;
+    private static final byte TAG_CHAR = 10;
+    private static final byte TAG_ARRAY_LIST = 11;
+    private static final byte TAG_HASH_MAP = 12;
+    private static final byte TAG_LINKED_HASH_MAP = 13;
+    private static final byte TAG_HASH_SET = 14;
+    private static final byte TAG_LINKED_HASH_SET = 15;
+    private static final byte TAG_REGISTERED = 16;
+    private static final byte TAG_JAVA = 17;
+
+    // Java序列化流的魔数 0xACED
+    private static final byte JAVA_MAGIC_0 = (byte) 0xAC;
+    private static final byte JAVA_MAGIC_1 = (byte) 0xED;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final Map<Class<?>, Byte> BUILTIN_TAGS = new HashMap<>();
+
+    static {
+        BUILTIN_TAGS.put(String.class, TAG_STRING);
+        BUILTIN_TAGS.put(byte[].class, TAG_BYTES);
+        BUILTIN_TAGS.put(Boolean.class, TAG_BOOLEAN);
+        BUILTIN_TAGS.put(Byte.class, TAG_BYTE);
+        BUILTIN_TAGS.put(Short.class, TAG_SHORT);
+        BUILTIN_TAGS.put(Integer.class, TAG_INT);
+        BUILTIN_TAGS.put(Long.class, TAG_LONG);
+        BUILTIN_TAGS.put(Float.class, TAG_FLOAT);
+        BUILTIN_TAGS.put(Double.class, TAG_DOUBLE);
+        BUILTIN_TAGS.put(Character.class, TAG_CHAR);
+        BUILTIN_TAGS.put(ArrayList.class, TAG_ARRAY_LIST);
+        BUILTIN_TAGS.put(HashMap.class, TAG_HASH_MAP);
+        BUILTIN_TAGS.put(LinkedHashMap.class, TAG_LINKED_HASH_MAP);
+        BUILTIN_TAGS.put(HashSet.class, TAG_HASH_SET);
+        BUILTIN_TAGS.put(LinkedHashSet.class, TAG_LINKED_HASH_SET);
+    }
+
+    private final Map<Class<?>, Registration<?>> registrationsByClass = new ConcurrentHashMap<>();
+    private final Map<Integer, Registration<?>> registrationsById = new ConcurrentHashMap<>();
+    private final ThreadLocalBuffer<BinaryOutput> outputs;
+    private final ThreadLocal<Boolean> outputInUse = ThreadLocal.withInitial(() -> false);
+
+    public BinarySerializeExtensionPoint() {
+        outputs = new ThreadLocalBuffer<>(() -> new BinaryOutput(this, INITIAL_BUFFER_SIZE), BinaryOutput::capacity);
+    }
+
+    /**
+     * 注册自定义类型的编解码器，注册后这个类型的对象不再使用Java序列化。
+     * 序列化和反序列化两端必须使用相同的注册信息。
+     *
+     * @param type 类型，只匹配这个类本身，不包括子类
+     * @param id 类型ID，写入序列化的数据中，不能重复
+     * @param codec 编解码器
+     * @param <T> 类型
+     * @throws IllegalArgumentException 类型或者ID已经注册过
+     */
+    public synchronized <T> void register(Class<T> type, int id, Codec<T> codec) {
+        if (registrationsByClass.containsKey(type)) {
+            throw new IllegalArgumentException(String.format("Class %s is already registered!", type.getName()));
+        }
+        if (registrationsById.containsKey(id)) {
+            throw new IllegalArgumentException(String.format("Id %d is already registered!", id));
+        }
+        Registration<T> registration = new Registration<>(id, codec);
+        registrationsById.put(id, registration);
+        registrationsByClass.put(type, registration);
+    }
+
+    @Override
+    public <E> E parse(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return null;
+        }
+        if (length >= 2 && bytes[offset] == JAVA_MAGIC_0 && bytes[offset + 1] == JAVA_MAGIC_1) {
+            return javaDeserialize(bytes, offset, length);
+        }
+        BinaryInput input = new BinaryInput(this, bytes, offset, length);
+        return readObject(input);
+    }
+
+    @Override
+    public <E> byte[] serialize(E entry) {
+        if (null == entry) {
+            return new byte[0];
+        }
+        if (!isBinarySupported(entry)) {
+            return javaSerialize(entry);
+        }
+        // 编解码器内部再次调用serialize时，不能复用正在使用的缓冲区
+        if (outputInUse.get()) {
+            BinaryOutput output = new BinaryOutput(this, INITIAL_BUFFER_SIZE);
+            writeObject(output, entry);
+            return output.toByteArray();
+        }
+        BinaryOutput output = outputs.get();
+        outputInUse.set(true);
+        try {
+            output.reset();
+            writeObject(output, entry);
+            return output.toByteArray();
+        } finally {
+            outputInUse.set(false);
+            outputs.release(output);
+        }
+    }
+
+    private boolean isBinarySupported(Object value) {
+        return BUILTIN_TAGS.containsKey(value.getClass()) || registrationsByClass.containsKey(value.getClass());
+    }
+
+    @SuppressWarnings("unchecked")
+    void writeObject(BinaryOutput output, Object value) {
+        if (null == value) {
+            output.write(TAG_NULL);
+            return;
+        }
+        Byte tag = BUILTIN_TAGS.get(value.getClass());
+        if (null == tag) {
+            Registration<Object> registration = (Registration<Object>) registrationsByClass.get(value.getClass());
+            if (null != registration) {
+                output.write(TAG_REGISTERED);
+                output.writeVarInt(registration.id);
+                registration.codec.write(output, value);
+            } else {
+                output.write(TAG_JAVA);
+                output.writeBytes(javaSerialize(value));
+            }
+            return;
+        }
+        output.write(tag);
+        switch (tag) {
+            case TAG_STRING:
+                output.writeString((String) value);
+                break;
+            case TAG_BYTES:
+                output.writeBytes((byte[]) value);
+                break;
+            case TAG_BOOLEAN:
+                output.writeBoolean((Boolean) value);
+                break;
+            case TAG_BYTE:
+                output.writeByte((Byte) value);
+                break;
+            case TAG_SHORT:
+                output.writeShort((Short) value);
+                break;
+            case TAG_INT:
+                output.writeInt((Integer) value);
+                break;
+            case TAG_LONG:
+                output.writeLong((Long) value);
+                break;
+            case TAG_FLOAT:
+                output.writeFloat((Float) value);
+                break;
+            case TAG_DOUBLE:
+                output.writeDouble((Double) value);
+                break;
+            case TAG_CHAR:
+                output.writeChar((Character) value);
+                break;
+            case TAG_ARRAY_LIST:
+            case TAG_HASH_SET:
+            case TAG_LINKED_HASH_SET:
+                Collection<?> collection = (Collection<?>) value;
+                output.writeVarInt(collection.size());
+                for (Object element : collection) {
+                    writeObject(output, element);
+                }
+                break;
+            case TAG_HASH_MAP:
+            case TAG_LINKED_HASH_MAP:
+                Map<?, ?> map = (Map<?, ?>) value;
+                output.writeVarInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeObject(output, entry.getKey());
+                    writeObject(output, entry.getValue());
+                }
+                break;
+            default:
+                throw new SerializeException(String.format("Unsupported tag %d!", tag));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <E> E readObject(BinaryInput input) {
+        int tag = input.read();
+        int size;
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return (E) input.readString();
+            case TAG_BYTES:
+                return (E) input.readBytes();
+            case TAG_BOOLEAN:
+                return (E) Boolean.valueOf(input.readBoolean());
+            case TAG_BYTE:
+                return (E) Byte.valueOf(input.readByte());
+            case TAG_SHORT:
+                return (E) Short.valueOf(input.readShort());
+            case TAG_INT:
+                return (E) Integer.valueOf(input.readInt());
+            case TAG_LONG:
+                return (E) Long.valueOf(input.readLong());
+            case TAG_FLOAT:
+                return (E) Float.valueOf(input.readFloat());
+            case TAG_DOUBLE:
+                return (E) Double.valueOf(input.readDouble());
+            case TAG_CHAR:
+                return (E) Character.valueOf(input.readChar());
+            case TAG_ARRAY_LIST:
+                size = input.readVarInt();
+                return (E) readElements(input, size, new ArrayList<>(size));
+            case TAG_HASH_SET:
+                size = input.readVarInt();
+                return (E) readElements(input, size, new HashSet<>(capacity(size)));
+            case TAG_LINKED_HASH_SET:
+                size = input.readVarInt();
+                return (E) readElements(input, size, new LinkedHashSet<>(capacity(size)));
+            case TAG_HASH_MAP:
+                size = input.readVarInt();
+                return (E) readEntries(input, size, new HashMap<>(capacity(size)));
+            case TAG_LINKED_HASH_MAP:
+                size = input.readVarInt();
+                return (E) readEntries(input, size, new LinkedHashMap<>(capacity(size)));
+            case TAG_REGISTERED:
+                int id = input.readVarInt();
+                Registration<?> registration = registrationsById.get(id);
+                if (null == registration) {
+                    throw new SerializeException(String.format("Unregistered class id %d!", id));
+                }
+                return (E) registration.codec.read(input);
+            case TAG_JAVA:
+                int length = input.readVarInt();
+                int offset = input.position();
+                input.skip(length);
+                return javaDeserialize(input.buffer(), offset, length);
+            default:
+                throw new SerializeException(String.format("Unknown tag %d!", tag));
+        }
+    }
+
+    private static int capacity(int size) {
+        return Math.max((int) (size / .75f) + 1, 16);
+    }
+
+    private <C extends Collection<Object>> C readElements(BinaryInput input, int size, C collection) {
+        for (int i = 0; i < size; i++) {
+            collection.add(readObject(input));
+        }
+        return collection;
+    }
+
+    private <M extends Map<Object, Object>> M readEntries(BinaryInput input, int size, M map) {
+        for (int i = 0; i < size; i++) {
+            Object key = readObject(input);
+            map.put(key, readObject(input));
+        }
+        return map;
+    }
+
+    private byte[] javaSerialize(Object value) {
+        BinaryOutput output = new BinaryOutput(this, INITIAL_BUFFER_SIZE);
+        try (ObjectOutputStream out = new ObjectOutputStream(output)) {
+            out.writeObject(value);
+        } catch (IOException ioe) {
+            throw new SerializeException(ioe);
+        }
+        return output.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E> E javaDeserialize(byte[] bytes, int offset, int length) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+            return (E) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SerializeException(e);
+        }
+    }
+
+    /**
+     * 自定义类型的编解码器
+     * @param <T> 类型
+     */
+    public interface Codec<T> {
+        /**
+         * 写入对象
+         * @param output 输出
+         * @param value 对象，不为null
+         */
+        void write(BinaryOutput output, T value);
+
+        /**
+         * 读取对象
+         * @param input 输入
+         * @return 对象
+         */
+        T read(BinaryInput input);
+    }
+
+    private static class Registration<T> {
+        private final int id;
+        private final Codec<T> codec;
+
+        Registration(int id, Codec<T> codec) {
+            this.id = id;
+            this.codec = codec;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package io.journalkeeper.core.serialize;
 
+import io.journalkeeper.core.api.Checkpointable;
 import io.journalkeeper.core.api.RaftJournal;
 import io.journalkeeper.core.api.State;
 import io.journalkeeper.core.api.StateResult;
@@ -13,10 +14,11 @@ import java.util.Properties;
  * @author LiYue
  * Date: 2020/2/18
  */
-public class StateWrapper<E, ER, Q, QR> implements State, Flushable {
+public class StateWrapper<E, ER, Q, QR> implements State, Flushable, Checkpointable {
     private final SerializeExtensionPoint serializeExtensionPoint;
     private final WrappedState<E, ER, Q, QR> wrappedState;
     private final Flushable flushable;
+    private final Checkpointable checkpointable;
 
     public StateWrapper(WrappedState<E, ER, Q, QR> wrappedState, SerializeExtensionPoint serializeExtensionPoint) {
         this.serializeExtensionPoint = serializeExtensionPoint;
@@ -26,6 +28,11 @@ public class StateWrapper<E, ER, Q, QR> implements State, Flushable {
         } else {
             flushable = null;
         }
+        if (wrappedState instanceof Checkpointable) {
+            checkpointable = (Checkpointable) wrappedState;
+        } else {
+            checkpointable = null;
+        }
     }
 
     @Override
@@ -33,9 +40,13 @@ public class StateWrapper<E, ER, Q, QR> implements State, Flushable {
         WrappedStateResult<ER> wrappedStateResult = wrappedState.executeAndNotify(
                 serializeExtensionPoint.parse(entry)
         );
-        return new StateResult(
+        StateResult stateResult = new StateResult(
                 serializeExtensionPoint.serialize(wrappedStateResult.getResult()),
                 wrappedStateResult.getEventData());
+        if (null != wrappedStateResult.getExtraEventData()) {
+            wrappedStateResult.getExtraEventData().forEach(stateResult::addExtraEventData);
+        }
+        return stateResult;
     }
 
     @Override
@@ -64,4 +75,14 @@ public class StateWrapper<E, ER, Q, QR> implements State, Flushable {
         }
     }
 
+    @Override
+    public boolean isImmutable(Path file) {
+        return null != checkpointable && checkpointable.isImmutable(file);
+    }
+
+    @Override
+    public boolean checkpoint(Path destPath) throws IOException {
+        return null != checkpointable && checkpointable.checkpoint(destPath);
+    }
+
 }
@@ -58,11 +58,15 @@ public class WrappedBootStrap<E, ER, Q, QR> {
                 , properties);
     }
 
-    private SerializeExtensionPoint loadSerializer(String serializer) {
+    static SerializeExtensionPoint loadSerializer(String serializer) {
         if (serializer != null && !serializer.isEmpty()) {
             return ServiceSupport.load(SerializeExtensionPoint.class, serializer);
         } else {
-            return ServiceSupport.tryLoad(SerializeExtensionPoint.class).orElse(new JavaSerializeExtensionPoint());
+            // BinarySerializeExtensionPoint和Java序列化的数据格式不同，只有显式配置时才使用
+            return ServiceSupport.loadAll(SerializeExtensionPoint.class).stream()
+                    .filter(extensionPoint -> !(extensionPoint instanceof BinarySerializeExtensionPoint))
+                    .findFirst()
+                    .orElse(new JavaSerializeExtensionPoint());
         }
     }
 
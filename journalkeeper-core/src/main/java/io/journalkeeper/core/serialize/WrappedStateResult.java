@@ -1,5 +1,7 @@
 package io.journalkeeper.core.serialize;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -9,10 +11,22 @@ import java.util.Map;
 public class WrappedStateResult<ER> {
     private final ER result;
     private final Map<String, String> eventData;
+    private final List<Map<String, String>> extraEventData;
 
     public WrappedStateResult(ER result, Map<String, String> eventData) {
+        this(result, eventData, Collections.emptyList());
+    }
+
+    /**
+     * 一次执行触发多个事件时使用。
+     * @param result 执行结果
+     * @param eventData 第一个事件的数据
+     * @param extraEventData 其余事件的数据，按顺序触发。
+     */
+    public WrappedStateResult(ER result, Map<String, String> eventData, List<Map<String, String>> extraEventData) {
         this.result = result;
         this.eventData = eventData;
+        this.extraEventData = extraEventData;
     }
 
     public ER getResult() {
@@ -22,4 +36,8 @@ public class WrappedStateResult<ER> {
     public Map<String, String> getEventData() {
         return eventData;
     }
+
+    public List<Map<String, String>> getExtraEventData() {
+        return extraEventData;
+    }
 }
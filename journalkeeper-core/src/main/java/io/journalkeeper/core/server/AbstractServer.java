@@ -16,6 +16,7 @@ package io.journalkeeper.core.server;
 import io.journalkeeper.base.ReplicableIterator;
 import io.journalkeeper.core.Logo;
 import io.journalkeeper.core.api.ClusterConfiguration;
+import io.journalkeeper.core.api.EntryFuture;
 import io.journalkeeper.core.api.JournalEntry;
 import io.journalkeeper.core.api.JournalEntryParser;
 import io.journalkeeper.core.api.RaftServer;
@@ -44,6 +45,7 @@ import io.journalkeeper.core.strategy.JournalCompactionStrategy;
 import io.journalkeeper.exceptions.IndexOverflowException;
 import io.journalkeeper.exceptions.IndexUnderflowException;
 import io.journalkeeper.exceptions.NoSuchSnapshotException;
+import io.journalkeeper.exceptions.StateBatchExecutionException;
 import io.journalkeeper.metric.JMetric;
 import io.journalkeeper.metric.JMetricFactory;
 import io.journalkeeper.metric.JMetricSupport;
@@ -52,6 +54,7 @@ import io.journalkeeper.persistence.LockablePersistence;
 import io.journalkeeper.persistence.MetadataPersistence;
 import io.journalkeeper.persistence.PersistenceFactory;
 import io.journalkeeper.persistence.ServerMetadata;
+import io.journalkeeper.rpc.client.AddPullWatchRequest;
 import io.journalkeeper.rpc.client.AddPullWatchResponse;
 import io.journalkeeper.rpc.client.ConvertRollRequest;
 import io.journalkeeper.rpc.client.ConvertRollResponse;
@@ -71,6 +74,7 @@ import io.journalkeeper.rpc.server.ServerRpcAccessPoint;
 import io.journalkeeper.utils.ThreadSafeFormat;
 import io.journalkeeper.utils.event.Event;
 import io.journalkeeper.utils.event.EventBus;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventType;
 import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.files.FileUtils;
@@ -123,6 +127,7 @@ import static io.journalkeeper.core.api.RaftJournal.RESERVED_PARTITIONS_START;
 import static io.journalkeeper.core.journal.Journal.INDEX_STORAGE_SIZE;
 import static io.journalkeeper.core.server.ThreadNames.FLUSH_JOURNAL_THREAD;
 import static io.journalkeeper.core.server.ThreadNames.PRINT_METRIC_THREAD;
+import static io.journalkeeper.core.server.ThreadNames.SCRUB_JOURNAL_THREAD;
 import static io.journalkeeper.core.server.ThreadNames.STATE_MACHINE_THREAD;
 import static io.journalkeeper.core.transaction.JournalTransactionManager.TRANSACTION_PARTITION_COUNT;
 import static io.journalkeeper.core.transaction.JournalTransactionManager.TRANSACTION_PARTITION_START;
@@ -146,6 +151,7 @@ public abstract class AbstractServer
     private static final String LOCK_FILE = "lock";
     private static final String PARTIAL_SNAPSHOT_PATH = "partial_snapshot";
     private static final int COMPACT_PERIOD_SEC = 60;
+    private static final int SCRUB_BATCH_SIZE = 1024;
     private final static JMetric DUMMY_METRIC = new DummyMetric();
     private final static String METRIC_APPLY_ENTRIES = "APPLY_ENTRIES";
     /**
@@ -172,6 +178,10 @@ public abstract class AbstractServer
     private  Map<String, JMetric> metricMap;
     private final JMetric applyEntriesMetric;
     private final AtomicInteger nextSnapshotIteratorId = new AtomicInteger();
+    /**
+     * 等待状态机执行到指定位置的请求
+     */
+    private final AppliedWaiters appliedWaiters;
     private LockablePersistence lockablePersistence;
     /**
      * 当前Server URI
@@ -211,6 +221,8 @@ public abstract class AbstractServer
     private ScheduledFuture flushStateFuture;
     private ScheduledFuture compactJournalFuture;
     private JournalCompactionStrategy journalCompactionStrategy;
+    // 后台校验线程下一次校验的全局索引序号
+    private long scrubIndex = -1L;
     protected AbstractServer(StateFactory stateFactory,
                              JournalEntryParser journalEntryParser, ScheduledExecutorService scheduledExecutor,
                              ExecutorService asyncExecutor, ServerRpcAccessPoint serverRpcAccessPoint, Properties properties) {
@@ -250,7 +262,7 @@ public abstract class AbstractServer
         applyEntriesMetric = getMetric(METRIC_APPLY_ENTRIES);
 
 
-        this.eventBus = new EventBus(config.getRpcTimeoutMs());
+        this.eventBus = new EventBus(config.getRpcTimeoutMs(), config.getEventLogCapacity());
         persistenceFactory = ServiceSupport.load(PersistenceFactory.class);
         metadataPersistence = persistenceFactory.createMetadataPersistenceInstance();
         bufferPool = ServiceSupport.load(BufferPool.class);
@@ -258,6 +270,7 @@ public abstract class AbstractServer
                 persistenceFactory,
                 bufferPool, journalEntryParser);
         this.state = new JournalKeeperState(stateFactory, metadataPersistence);
+        this.appliedWaiters = new AppliedWaiters(state::lastApplied, scheduledExecutor);
 
         this.partialSnapshot = new PartialSnapshot(partialSnapshotPath());
         state.addInterceptor(InternalEntryType.TYPE_SCALE_PARTITIONS, this::scalePartitions);
@@ -303,6 +316,16 @@ public abstract class AbstractServer
                 .build();
     }
 
+    private AsyncLoopThread buildScrubJournalThread() {
+        return ThreadBuilder.builder()
+                .name(threadName(SCRUB_JOURNAL_THREAD))
+                .doWork(this::scrubJournal)
+                .sleepTime(config.getScrubIntervalMs(), config.getScrubIntervalMs())
+                .onException(new DefaultExceptionListener(SCRUB_JOURNAL_THREAD))
+                .daemon(true)
+                .build();
+    }
+
     private AsyncLoopThread buildPrintMetricThread() {
         return ThreadBuilder.builder()
                 .name(threadName(PRINT_METRIC_THREAD))
@@ -423,21 +446,93 @@ public abstract class AbstractServer
      * 1. 如果需要，复制当前状态为新的快照保存到属性snapshots, 索引值为lastApplied。
      * 2. lastApplied自增，将log[lastApplied]应用到状态机，更新当前状态state；
      *
+     * 每次最多批量执行applyBatchSize条entry，内部entry可能会变更状态机，总是单独执行。
      */
     private void applyEntries() {
         while (state.lastApplied() < journal.commitIndex()) {
-            applyEntriesMetric.start();
-            long offset = journal.readOffset(state.lastApplied());
-            JournalEntry entryHeader = journal.readEntryHeaderByOffset(offset);
-            StateResult stateResult = state.applyEntry(entryHeader, new EntryFutureImpl(journal, offset), journal);
-            afterStateChanged(stateResult.getUserResult());
-
-            if(config.isEnableEvents()) {
-                stateResult.putEventData("lastApplied", String.valueOf(state.lastApplied()));
+            long metricToken = applyEntriesMetric.startToken();
+            long index = state.lastApplied();
+            int size = (int) Math.min(config.getApplyBatchSize(), journal.commitIndex() - index);
+            long[] offsets = journal.readOffsets(index, size);
+            List<JournalEntry> entryHeaders = new ArrayList<>(size);
+            List<EntryFuture> entryFutures = new ArrayList<>(size);
+            long length = 0L;
+            for (long offset : offsets) {
+                JournalEntry entryHeader = journal.readEntryHeaderByOffset(offset);
+                boolean internal = entryHeader.getPartition() == INTERNAL_PARTITION;
+                if (internal && !entryHeaders.isEmpty()) {
+                    break;
+                }
+                entryHeaders.add(entryHeader);
+                entryFutures.add(new EntryFutureImpl(journal, offset));
+                length += entryHeader.getLength();
+                if (internal) {
+                    break;
+                }
+            }
+
+            List<StateResult> stateResults;
+            try {
+                stateResults = state.applyEntries(entryHeaders, entryFutures, journal);
+            } catch (StateBatchExecutionException e) {
+                // 部分entry已经执行成功，先处理这些entry的执行结果，失败的entry稍后重试
+                afterEntriesApplied(e.getResults());
+                throw e;
+            }
+            afterEntriesApplied(stateResults);
+            long appliedLength = length;
+            applyEntriesMetric.end(metricToken, () -> appliedLength);
+        }
+    }
+
+    private void afterEntriesApplied(List<StateResult> stateResults) {
+        for (StateResult stateResult : stateResults) {
+            afterStateChanged(stateResult.getLastApplied(), stateResult.getUserResult());
+
+            if (config.isEnableEvents()) {
+                stateResult.putEventData(Event.LAST_APPLIED, String.valueOf(stateResult.getLastApplied()));
                 fireEvent(EventType.ON_STATE_CHANGE, stateResult.getEventData());
+                for (Map<String, String> eventData : stateResult.getExtraEventData()) {
+                    eventData.put(Event.LAST_APPLIED, String.valueOf(stateResult.getLastApplied()));
+                    fireEvent(EventType.ON_STATE_CHANGE, eventData);
+                }
             }
-            applyEntriesMetric.end(() -> (long) entryHeader.getLength());
         }
+        appliedWaiters.onApplied();
+    }
+
+    /**
+     * 等待状态机执行到指定位置，超过rpcTimeoutMs仍未执行到这个位置时，返回的future以{@link TimeoutException}结束。
+     * 返回的future可能在状态机线程中完成，后续操作需要切换到其它线程中执行。
+     * @param index 需要等待的lastApplied
+     * @return 状态机的lastApplied不小于index时完成的future
+     */
+    protected CompletableFuture<Void> waitForApplied(long index) {
+        return appliedWaiters.waitFor(index, config.getRpcTimeoutMs());
+    }
+
+    /**
+     * 长轮询：如果状态机还不能满足查询，最多等待maxQueryWaitMs，超时后照常执行查询。
+     * 参见{@link io.journalkeeper.core.api.LongPollState}。
+     * @param query 查询条件
+     * @return 可以执行查询时完成的future
+     */
+    protected CompletableFuture<Void> awaitQueryable(byte[] query) {
+        CompletableFuture<Void> queryableFuture = state.awaitQueryable(query, journal);
+        if (null == queryableFuture || queryableFuture.isDone() || config.getMaxQueryWaitMs() <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ScheduledFuture<?> timeoutFuture = scheduledExecutor.schedule(() -> {
+            // 等待超时，取消状态机中的等待
+            queryableFuture.cancel(false);
+            future.complete(null);
+        }, config.getMaxQueryWaitMs(), TimeUnit.MILLISECONDS);
+        queryableFuture.whenComplete((v, t) -> {
+            timeoutFuture.cancel(false);
+            future.complete(null);
+        });
+        return future;
     }
 
     private void fireOnLeaderChangeEvent(int term, URI leaderUri) {
@@ -492,29 +587,29 @@ public abstract class AbstractServer
 
     /**
      * 当状态变化后触发事件
+     * @param lastApplied 执行这条entry之后的lastApplied
      * @param updateResult 状态机执行结果
      */
-    protected void afterStateChanged(byte[] updateResult) {
+    protected void afterStateChanged(long lastApplied, byte[] updateResult) {
     }
 
     /**
      * 如果需要，保存一次快照
      */
 
+    /**
+     * 如果请求中带有索引位置，并且状态机还没有执行到这个位置，
+     * 先等待状态机执行到这个位置再查询，超时后返回失败，参见{@link #waitForApplied(long)}。
+     */
     @Override
     public CompletableFuture<QueryStateResponse> queryServerState(QueryStateRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (request.getIndex() > 0 && state.lastApplied() < request.getIndex()) {
-                    return new QueryStateResponse(new IllegalStateException());
-                } else {
+        return (request.getIndex() > 0 ? waitForApplied(request.getIndex()) : CompletableFuture.<Void>completedFuture(null))
+                .thenCompose(aVoid -> awaitQueryable(request.getQuery()))
+                .thenApplyAsync(aVoid -> {
                     StateQueryResult queryResult = state.query(request.getQuery(), journal);
                     return new QueryStateResponse(queryResult.getResult(), queryResult.getLastApplied());
-                }
-            } catch (Throwable throwable) {
-                return new QueryStateResponse(throwable);
-            }
-        }, asyncExecutor);
+                }, asyncExecutor)
+                .exceptionally(QueryStateResponse::new);
     }
 
     /**
@@ -624,6 +719,10 @@ public abstract class AbstractServer
                 properties.getProperty(
                         Config.FLUSH_INTERVAL_MS_KEY,
                         String.valueOf(Config.DEFAULT_FLUSH_INTERVAL_MS))));
+        config.setFlushBatchSize(Integer.parseInt(
+                properties.getProperty(
+                        Config.FLUSH_BATCH_SIZE_KEY,
+                        String.valueOf(Config.DEFAULT_FLUSH_BATCH_SIZE))));
 
         config.setWorkingDir(Paths.get(
                 properties.getProperty(Config.WORKING_DIR_KEY,
@@ -654,6 +753,31 @@ public abstract class AbstractServer
                         Config.ENABLE_EVENTS_KEY,
                         String.valueOf(Config.DEFAULT_ENABLE_EVENTS))));
 
+        config.setApplyBatchSize(Integer.parseInt(
+                properties.getProperty(
+                        Config.APPLY_BATCH_SIZE_KEY,
+                        String.valueOf(Config.DEFAULT_APPLY_BATCH_SIZE))));
+
+        config.setMaxQueryWaitMs(Long.parseLong(
+                properties.getProperty(
+                        Config.MAX_QUERY_WAIT_MS_KEY,
+                        String.valueOf(Config.DEFAULT_MAX_QUERY_WAIT_MS))));
+
+        config.setSnapshotTrunkSize(Integer.parseInt(
+                properties.getProperty(
+                        Config.SNAPSHOT_TRUNK_SIZE_KEY,
+                        String.valueOf(Config.DEFAULT_SNAPSHOT_TRUNK_SIZE))));
+
+        config.setScrubIntervalMs(Long.parseLong(
+                properties.getProperty(
+                        Config.SCRUB_INTERVAL_MS_KEY,
+                        String.valueOf(Config.DEFAULT_SCRUB_INTERVAL_MS))));
+
+        config.setEventLogCapacity(Integer.parseInt(
+                properties.getProperty(
+                        Config.EVENT_LOG_CAPACITY_KEY,
+                        String.valueOf(Config.DEFAULT_EVENT_LOG_CAPACITY))));
+
         return config;
     }
 
@@ -669,9 +793,30 @@ public abstract class AbstractServer
     }
 
     @Override
-    public CompletableFuture<AddPullWatchResponse> addPullWatch() {
-        return CompletableFuture.supplyAsync(() ->
-                new AddPullWatchResponse(eventBus.addPullWatch(), eventBus.pullIntervalMs()), asyncExecutor);
+    public CompletableFuture<AddPullWatchResponse> addPullWatch(AddPullWatchRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (null == request) {
+                return new AddPullWatchResponse(eventBus.addPullWatch(), eventBus.pullIntervalMs());
+            }
+            EventFilter eventFilter = request.getEventFilter();
+            long pullWatchId;
+            if (request.getPullWatchId() >= 0) {
+                pullWatchId = request.getPullWatchId();
+                if (!eventBus.updatePullWatch(pullWatchId, eventFilter)) {
+                    return new AddPullWatchResponse(new IllegalStateException(
+                            String.format("Pull watch %d not exists!", pullWatchId)));
+                }
+            } else if (request.getFromRevision() >= 0) {
+                long fromRevision = request.getFromRevision();
+                pullWatchId = eventBus.addPullWatch(eventFilter, event -> {
+                    String lastApplied = null == event.getEventData() ? null : event.getEventData().get(Event.LAST_APPLIED);
+                    return null != lastApplied && Long.parseLong(lastApplied) > fromRevision;
+                });
+            } else {
+                pullWatchId = eventBus.addPullWatch(eventFilter);
+            }
+            return new AddPullWatchResponse(pullWatchId, eventBus.pullIntervalMs());
+        }, asyncExecutor);
     }
 
     @Override
@@ -734,20 +879,32 @@ public abstract class AbstractServer
                     long snapshotIndex = request.getLastIncludedIndex() + 1;
                     Snapshot snapshot = snapshots.get(snapshotIndex);
                     if (null != snapshot) {
-                        ReplicableIterator iterator = snapshot.iterator();
+                        ReplicableIterator iterator = snapshot.iterator(config.getSnapshotTrunkSize());
                         iteratorId = nextSnapshotIteratorId.getAndIncrement();
                         snapshotIteratorMap.put(iteratorId, iterator);
-                        scheduledExecutor.schedule(() -> snapshotIteratorMap.remove(iteratorId), 1, TimeUnit.MINUTES);
+                        scheduledExecutor.schedule(() -> removeSnapshotIterator(iteratorId), 1, TimeUnit.MINUTES);
                     } else {
                         throw new NoSuchSnapshotException();
                     }
                 }
                 ReplicableIterator iterator = snapshotIteratorMap.get(iteratorId);
                 if (null != iterator) {
-                    return new GetServerStateResponse(
-                            iterator.lastIncludedIndex(), iterator.lastIncludedTerm(),
-                            iterator.offset(), iterator.nextTrunk(), !iterator.hasMoreTrunks(), iteratorId
-                    );
+                    // 同一个迭代器可能会被并发拉取多个trunk
+                    synchronized (iterator) {
+                        if (!iterator.hasMoreTrunks()) {
+                            throw new NoSuchSnapshotException();
+                        }
+                        long offset = iterator.offset();
+                        byte[] trunk = iterator.nextTrunk();
+                        boolean done = !iterator.hasMoreTrunks();
+                        if (done) {
+                            removeSnapshotIterator(iteratorId);
+                        }
+                        return new GetServerStateResponse(
+                                iterator.lastIncludedIndex(), iterator.lastIncludedTerm(),
+                                offset, trunk, done, iteratorId
+                        );
+                    }
                 } else {
                     throw new NoSuchSnapshotException();
                 }
@@ -758,6 +915,17 @@ public abstract class AbstractServer
         }, asyncExecutor).exceptionally(GetServerStateResponse::new);
     }
 
+    private void removeSnapshotIterator(int iteratorId) {
+        ReplicableIterator iterator = snapshotIteratorMap.remove(iteratorId);
+        if (null != iterator) {
+            try {
+                iterator.close();
+            } catch (IOException e) {
+                logger.warn("Close snapshot iterator exception!", e);
+            }
+        }
+    }
+
     @Override
     public final void start() {
         if (this.serverState != ServerState.CREATED) {
@@ -776,6 +944,11 @@ public abstract class AbstractServer
             threads.startThread(threadName(PRINT_METRIC_THREAD));
         }
 
+        if (config.getScrubIntervalMs() > 0) {
+            this.threads.createThread(buildScrubJournalThread());
+            threads.startThread(threadName(SCRUB_JOURNAL_THREAD));
+        }
+
         flushStateFuture = scheduledExecutor.scheduleAtFixedRate(this::flushState,
                 ThreadLocalRandom.current().nextLong(10L, 50L),
                 config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
@@ -807,6 +980,32 @@ public abstract class AbstractServer
     protected void onJournalFlushed() {
     }
 
+    /**
+     * 每次校验已提交的一批entry的校验和，校验到commitIndex后再从头开始。
+     * 发现校验失败的entry只记录日志，由运维决定是否重新同步数据。
+     */
+    private void scrubJournal() {
+        long index = Math.max(scrubIndex, journal.minIndex());
+        long commitIndex = journal.commitIndex();
+        if (index >= commitIndex) {
+            scrubIndex = journal.minIndex();
+            return;
+        }
+        int size = (int) Math.min(SCRUB_BATCH_SIZE, commitIndex - index);
+        try {
+            long corruptedIndex = journal.verify(index, size);
+            if (corruptedIndex >= 0) {
+                logger.error("Journal entry checksum mismatch, index: {}, server: {}!", corruptedIndex, uri);
+                scrubIndex = corruptedIndex + 1;
+            } else {
+                scrubIndex = index + size;
+            }
+        } catch (IndexUnderflowException e) {
+            // 校验过程中journal被压缩了，从新的minIndex重新开始
+            scrubIndex = journal.minIndex();
+        }
+    }
+
     private void flushState() {
         try {
             state.flush();
@@ -840,6 +1039,9 @@ public abstract class AbstractServer
                 if (threads.exists(threadName(PRINT_METRIC_THREAD))) {
                     threads.stopThread(threadName(PRINT_METRIC_THREAD));
                 }
+                if (threads.exists(threadName(SCRUB_JOURNAL_THREAD))) {
+                    threads.stopThread(threadName(SCRUB_JOURNAL_THREAD));
+                }
 
                 stopAndWaitScheduledFeature(compactJournalFuture, 1000L);
                 stopAndWaitScheduledFeature(flushStateFuture, 1000L);
@@ -1164,7 +1366,11 @@ public abstract class AbstractServer
         return journal;
     }
 
-    void installSnapshot(long offset, long lastIncludedIndex, int lastIncludedTerm, byte[] data, boolean isDone) throws IOException, TimeoutException {
+    /**
+     * 安装快照的一个trunk，所有trunk都写入后，用新安装的快照替换当前状态。
+     * @return 快照全部安装完成返回true，还有trunk没有收到返回false
+     */
+    boolean installSnapshot(long offset, long lastIncludedIndex, int lastIncludedTerm, byte[] data, boolean isDone) throws IOException, TimeoutException {
         synchronized (partialSnapshot) {
             logger.info("Install snapshot, offset: {}, lastIncludedIndex: {}, lastIncludedTerm: {}, data length: {}, isDone: {}... " +
                             "journal minIndex: {}, maxIndex: {}, commitIndex: {}...",
@@ -1181,9 +1387,8 @@ public abstract class AbstractServer
             Snapshot snapshot;
             long lastApplied = lastIncludedIndex + 1;
             Path snapshotPath = snapshotsPath().resolve(String.valueOf(lastApplied));
-            partialSnapshot.installTrunk(offset, data, snapshotPath);
-
-            if (isDone) {
+            // 快照的trunk可能乱序到达，所有trunk都写入后才完成安装
+            if (partialSnapshot.installTrunk(offset, data, snapshotPath, isDone)) {
                 logger.info("All snapshot files received, discard any existing snapshot with a same or smaller index...");
                 // discard any existing snapshot with a same or smaller index
                 NavigableMap<Long, Snapshot> headMap = snapshots.headMap(lastApplied, true);
@@ -1232,6 +1437,7 @@ public abstract class AbstractServer
                     state.clear();
                     snapshot.dump(statePath());
                     state.recover(statePath(), properties);
+                    appliedWaiters.onApplied();
                 } finally {
                     threads.startThread(threadName(ThreadNames.STATE_MACHINE_THREAD));
                     flushStateFuture = scheduledExecutor.scheduleAtFixedRate(this::flushState,
@@ -1239,7 +1445,9 @@ public abstract class AbstractServer
                             config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
                 }
                 logger.info("Install snapshot successfully!");
+                return true;
             }
+            return false;
         }
     }
 
@@ -1257,15 +1465,22 @@ public abstract class AbstractServer
         public final static int DEFAULT_SNAPSHOT_INTERVAL_SEC = 0;
         public final static long DEFAULT_RPC_TIMEOUT_MS = 1000L;
         public final static long DEFAULT_FLUSH_INTERVAL_MS = 50L;
+        public final static int DEFAULT_FLUSH_BATCH_SIZE = 1;
         public final static int DEFAULT_GET_STATE_BATCH_SIZE = 1024 * 1024;
         public final static boolean DEFAULT_ENABLE_METRIC = false;
         public final static boolean DEFAULT_DISABLE_LOGO = false;
         public final static int DEFAULT_PRINT_METRIC_INTERVAL_SEC = 0;
         public final static int DEFAULT_JOURNAL_RETENTION_MIN = 0;
         public final static boolean DEFAULT_ENABLE_EVENTS = true;
+        public final static long DEFAULT_SCRUB_INTERVAL_MS = 0L;
+        public final static int DEFAULT_APPLY_BATCH_SIZE = 128;
+        public final static int DEFAULT_SNAPSHOT_TRUNK_SIZE = Snapshot.MAX_TRUNK_SIZE;
+        public final static long DEFAULT_MAX_QUERY_WAIT_MS = 500L;
+        public final static int DEFAULT_EVENT_LOG_CAPACITY = EventBus.DEFAULT_EVENT_LOG_CAPACITY;
         public final static String SNAPSHOT_INTERVAL_SEC_KEY = "snapshot_interval_sec";
         public final static String RPC_TIMEOUT_MS_KEY = "rpc_timeout_ms";
         public final static String FLUSH_INTERVAL_MS_KEY = "flush_interval_ms";
+        public final static String FLUSH_BATCH_SIZE_KEY = "flush_batch_size";
         public final static String WORKING_DIR_KEY = "working_dir";
         public final static String GET_STATE_BATCH_SIZE_KEY = "get_state_batch_size";
         public final static String ENABLE_METRIC_KEY = "enable_metric";
@@ -1273,10 +1488,16 @@ public abstract class AbstractServer
         public final static String PRINT_METRIC_INTERVAL_SEC_KEY = "print_metric_interval_sec";
         public final static String JOURNAL_RETENTION_MIN_KEY = "journal_retention_min";
         public final static String ENABLE_EVENTS_KEY = "enable_events";
+        public final static String SCRUB_INTERVAL_MS_KEY = "scrub_interval_ms";
+        public final static String APPLY_BATCH_SIZE_KEY = "apply_batch_size";
+        public final static String SNAPSHOT_TRUNK_SIZE_KEY = "snapshot_trunk_size";
+        public final static String MAX_QUERY_WAIT_MS_KEY = "max_query_wait_ms";
+        public final static String EVENT_LOG_CAPACITY_KEY = "event_log_capacity";
 
         private int snapshotIntervalSec = DEFAULT_SNAPSHOT_INTERVAL_SEC;
         private long rpcTimeoutMs = DEFAULT_RPC_TIMEOUT_MS;
         private long flushIntervalMs = DEFAULT_FLUSH_INTERVAL_MS;
+        private int flushBatchSize = DEFAULT_FLUSH_BATCH_SIZE;
         private Path workingDir = Paths.get(System.getProperty("user.dir")).resolve("journalkeeper");
         private int getStateBatchSize = DEFAULT_GET_STATE_BATCH_SIZE;
         private boolean enableMetric = DEFAULT_ENABLE_METRIC;
@@ -1284,6 +1505,11 @@ public abstract class AbstractServer
         private int printMetricIntervalSec = DEFAULT_PRINT_METRIC_INTERVAL_SEC;
         private int journalRetentionMin = DEFAULT_JOURNAL_RETENTION_MIN;
         private boolean enableEvents = DEFAULT_ENABLE_EVENTS;
+        private long scrubIntervalMs = DEFAULT_SCRUB_INTERVAL_MS;
+        private int applyBatchSize = DEFAULT_APPLY_BATCH_SIZE;
+        private int snapshotTrunkSize = DEFAULT_SNAPSHOT_TRUNK_SIZE;
+        private long maxQueryWaitMs = DEFAULT_MAX_QUERY_WAIT_MS; // 长轮询查询的最长等待时间，需要小于客户端的RPC超时
+        private int eventLogCapacity = DEFAULT_EVENT_LOG_CAPACITY; // pull监听事件缓冲区的容量
         int getSnapshotIntervalSec() {
             return snapshotIntervalSec;
         }
@@ -1308,6 +1534,14 @@ public abstract class AbstractServer
             this.flushIntervalMs = flushIntervalMs;
         }
 
+        public int getFlushBatchSize() {
+            return flushBatchSize;
+        }
+
+        public void setFlushBatchSize(int flushBatchSize) {
+            this.flushBatchSize = flushBatchSize;
+        }
+
         public Path getWorkingDir() {
             return workingDir;
         }
@@ -1363,5 +1597,45 @@ public abstract class AbstractServer
         public void setEnableEvents(boolean enableEvents) {
             this.enableEvents = enableEvents;
         }
+
+        public long getScrubIntervalMs() {
+            return scrubIntervalMs;
+        }
+
+        public void setScrubIntervalMs(long scrubIntervalMs) {
+            this.scrubIntervalMs = scrubIntervalMs;
+        }
+
+        public int getApplyBatchSize() {
+            return applyBatchSize;
+        }
+
+        public void setApplyBatchSize(int applyBatchSize) {
+            this.applyBatchSize = applyBatchSize;
+        }
+
+        public long getMaxQueryWaitMs() {
+            return maxQueryWaitMs;
+        }
+
+        public void setMaxQueryWaitMs(long maxQueryWaitMs) {
+            this.maxQueryWaitMs = maxQueryWaitMs;
+        }
+
+        public int getEventLogCapacity() {
+            return eventLogCapacity;
+        }
+
+        public void setEventLogCapacity(int eventLogCapacity) {
+            this.eventLogCapacity = eventLogCapacity;
+        }
+
+        public int getSnapshotTrunkSize() {
+            return snapshotTrunkSize;
+        }
+
+        public void setSnapshotTrunkSize(int snapshotTrunkSize) {
+            this.snapshotTrunkSize = snapshotTrunkSize;
+        }
     }
 }
@@ -0,0 +1,108 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * 等待状态机执行到指定位置的请求。
+ *
+ * 等待同一个位置的请求共用一个等待项，状态机执行到这个位置时一起唤醒；
+ * 请求超时后引用计数减一，没有请求等待时删除等待项，避免超时的请求一直占用内存。
+ */
+class AppliedWaiters {
+    private final LongSupplier lastApplied;
+    private final ScheduledExecutorService scheduledExecutor;
+    // key为需要等待的lastApplied
+    private final NavigableMap<Long, Waiter> waiters = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param lastApplied 获取状态机当前的lastApplied
+     * @param scheduledExecutor 执行超时任务的线程池
+     */
+    AppliedWaiters(LongSupplier lastApplied, ScheduledExecutorService scheduledExecutor) {
+        this.lastApplied = lastApplied;
+        this.scheduledExecutor = scheduledExecutor;
+    }
+
+    /**
+     * 等待状态机执行到指定位置
+     * @param index 需要等待的lastApplied
+     * @param timeoutMs 超时时间，超时后返回的future以{@link TimeoutException}结束
+     * @return 状态机的lastApplied不小于index时完成的future
+     */
+    CompletableFuture<Void> waitFor(long index, long timeoutMs) {
+        if (lastApplied.getAsLong() >= index) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Waiter waiter;
+        synchronized (this) {
+            waiter = waiters.computeIfAbsent(index, i -> new Waiter());
+            waiter.count++;
+        }
+        // 注册之后再检查一次，避免注册期间状态机已经执行到这个位置，错过通知
+        onApplied();
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ScheduledFuture<?> timeoutFuture = scheduledExecutor.schedule(() -> {
+            release(index, waiter);
+            future.completeExceptionally(new TimeoutException());
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        waiter.future.whenComplete((v, t) -> {
+            timeoutFuture.cancel(false);
+            future.complete(null);
+        });
+        return future;
+    }
+
+    private synchronized void release(long index, Waiter waiter) {
+        if (--waiter.count <= 0) {
+            waiters.remove(index, waiter);
+        }
+    }
+
+    /**
+     * 状态机执行之后调用，唤醒所有已经执行到的等待项
+     */
+    void onApplied() {
+        long applied = lastApplied.getAsLong();
+        Map.Entry<Long, Waiter> entry;
+        while (null != (entry = waiters.firstEntry()) && entry.getKey() <= applied) {
+            if (waiters.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().future.complete(null);
+            }
+        }
+    }
+
+    /**
+     * 正在等待的位置数量
+     */
+    int size() {
+        return waiters.size();
+    }
+
+    private static class Waiter {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        // 等待这个位置的请求数，只在持有AppliedWaiters锁时修改
+        private int count = 0;
+    }
+}
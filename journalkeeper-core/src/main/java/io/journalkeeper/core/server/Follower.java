@@ -18,6 +18,8 @@ import io.journalkeeper.core.journal.Journal;
 import io.journalkeeper.core.state.JournalKeeperState;
 import io.journalkeeper.core.state.Snapshot;
 import io.journalkeeper.exceptions.IndexUnderflowException;
+import io.journalkeeper.exceptions.JournalException;
+import io.journalkeeper.exceptions.ServerBusyException;
 import io.journalkeeper.rpc.server.AsyncAppendEntriesRequest;
 import io.journalkeeper.rpc.server.AsyncAppendEntriesResponse;
 import io.journalkeeper.utils.state.ServerStateMachine;
@@ -30,11 +32,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.Comparator;
 import java.util.NavigableMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static io.journalkeeper.core.server.ThreadNames.STATE_MACHINE_THREAD;
 import static io.journalkeeper.core.server.ThreadNames.VOTER_REPLICATION_REQUESTS_HANDLER_THREAD;
@@ -55,11 +59,27 @@ class Follower extends ServerStateMachine implements StateServer {
     private final VoterConfigManager voterConfigManager;
     private final Threads threads;
     private final NavigableMap<Long, Snapshot> snapshots;
+    /**
+     * 待写入的复制请求。
+     * 网络线程只负责把请求放入队列，由单独的线程按收到的顺序写入日志并异步返回响应，
+     * 避免写盘慢的时候阻塞网络线程上的其它请求（例如心跳和投票）。
+     */
+    private final BlockingQueue<ReplicationRequestResponse> pendingAppendRequests;
+    /**
+     * 写入日志和提交时持有，保证复制请求处理线程和网络线程不会同时修改日志
+     */
+    private final Lock journalLock = new ReentrantLock();
+    /**
+     * 心跳中收到的，还没有提交的LEADER commitIndex
+     */
+    private final AtomicLong pendingLeaderCommit = new AtomicLong(-1L);
 
     /**
      * Leader 日志当前的最大位置
      */
-    private long leaderMaxIndex = -1L;
+    private final AtomicLong leaderMaxIndex = new AtomicLong(-1L);
+
+    private volatile boolean stopped = false;
 
 
     private boolean readyForStartPreferredLeaderElection = false;
@@ -73,6 +93,17 @@ class Follower extends ServerStateMachine implements StateServer {
         this.journal = journal;
         this.serverUri = serverUri;
         this.currentTerm = currentTerm;
+        this.pendingAppendRequests = new LinkedBlockingQueue<>(cachedRequests);
+    }
+
+    private AsyncLoopThread buildReplicationRequestsHandlerThread() {
+        return ThreadBuilder.builder()
+                .name(threadName(VOTER_REPLICATION_REQUESTS_HANDLER_THREAD))
+                .doWork(this::handleReplicationRequest)
+                .sleepTime(0, 0)
+                .onException(new DefaultExceptionListener(VOTER_REPLICATION_REQUESTS_HANDLER_THREAD))
+                .daemon(true)
+                .build();
     }
 
     private String threadName(String staticThreadName) {
@@ -99,6 +130,90 @@ class Follower extends ServerStateMachine implements StateServer {
     }
 
 
+    /**
+     * 将复制请求放入待处理队列，由复制请求处理线程写入日志后异步返回响应。
+     * 心跳和只更新commitIndex的请求不写日志，不进入队列，直接返回响应，
+     * 避免队列满或者写盘慢的时候丢失心跳。
+     * @param request 复制请求
+     * @return 响应
+     */
+    CompletableFuture<AsyncAppendEntriesResponse> addAppendEntriesRequest(AsyncAppendEntriesRequest request) {
+        if (stopped) {
+            return CompletableFuture.completedFuture(new AsyncAppendEntriesResponse(
+                    new IllegalStateException("Follower stopped!")));
+        }
+        if (null == request.getEntries() || request.getEntries().isEmpty()) {
+            return CompletableFuture.completedFuture(handleHeartbeatRequest(request));
+        }
+        ReplicationRequestResponse requestResponse = new ReplicationRequestResponse(request);
+        if (!pendingAppendRequests.offer(requestResponse)) {
+            // 队列已满，LEADER收到失败响应后会从失败的位置重新复制
+            requestResponse.getResponseFuture().complete(new AsyncAppendEntriesResponse(
+                    new ServerBusyException("Too many pending replication requests!")));
+        } else if (stopped) {
+            // 放入队列的同时Follower停止了，请求可能已经错过了doStop中的清理
+            failAllPendingRequests();
+        }
+        return requestResponse.getResponseFuture();
+    }
+
+    private void handleReplicationRequest() throws InterruptedException {
+        ReplicationRequestResponse rr = pendingAppendRequests.take();
+        AsyncAppendEntriesResponse response;
+        journalLock.lock();
+        try {
+            response = handleAppendEntriesRequest(rr.getRequest());
+        } finally {
+            journalLock.unlock();
+        }
+        rr.getResponseFuture().complete(response);
+        commitPendingLeaderCommit();
+    }
+
+    /**
+     * 处理心跳：记录LEADER的commitIndex，复制请求处理线程空闲时直接提交，
+     * 否则由复制请求处理线程写完当前的请求之后提交。
+     */
+    private AsyncAppendEntriesResponse handleHeartbeatRequest(AsyncAppendEntriesRequest request) {
+        try {
+            leaderMaxIndex.accumulateAndGet(request.getMaxIndex(), Math::max);
+            pendingLeaderCommit.accumulateAndGet(request.getLeaderCommit(), Math::max);
+            commitPendingLeaderCommit();
+            return new AsyncAppendEntriesResponse(true, request.getPrevLogIndex() + 1,
+                    currentTerm, 0);
+        } catch (Throwable t) {
+            logger.warn("Exception when handle heartbeat, term: {}, leader: {}, leaderCommits: {}, {}.",
+                    request.getTerm(), request.getLeader(), request.getLeaderCommit(), voterInfo(), t);
+            return new AsyncAppendEntriesResponse(t);
+        }
+    }
+
+    /**
+     * 拿不到锁说明复制请求处理线程正在写入，它释放锁之后会再次调用这个方法，
+     * 所以这里不需要等待。
+     */
+    private void commitPendingLeaderCommit() {
+        while (pendingLeaderCommit.get() > journal.commitIndex() && journalLock.tryLock()) {
+            try {
+                long leaderCommit = pendingLeaderCommit.get();
+                long commitIndex = journal.commitIndex();
+                if (leaderCommit > commitIndex) {
+                    journal.commit(Math.min(leaderCommit, journal.maxIndex()));
+                    if (journal.commitIndex() > commitIndex) {
+                        threads.wakeupThread(threadName(STATE_MACHINE_THREAD));
+                    } else {
+                        // 本地日志还没有复制到LEADER的commitIndex，等后续的复制请求
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new JournalException(e);
+            } finally {
+                journalLock.unlock();
+            }
+        }
+    }
+
     /**
      * 1. 如果 term < currentTerm返回 false
      * 如果 term > currentTerm且节点当前的状态不是FOLLOWER，将节点当前的状态转换为FOLLOWER；
@@ -147,9 +262,7 @@ class Follower extends ServerStateMachine implements StateServer {
                 threads.wakeupThread(threadName(STATE_MACHINE_THREAD));
             }
 
-            if (leaderMaxIndex < request.getMaxIndex()) {
-                leaderMaxIndex = request.getMaxIndex();
-            }
+            leaderMaxIndex.accumulateAndGet(request.getMaxIndex(), Math::max);
             return new AsyncAppendEntriesResponse(true, request.getPrevLogIndex() + 1,
                     currentTerm, request.getEntries().size());
 
@@ -167,19 +280,34 @@ class Follower extends ServerStateMachine implements StateServer {
     }
 
     long getLeaderMaxIndex() {
-        return leaderMaxIndex;
+        return leaderMaxIndex.get();
     }
 
     @Override
     protected void doStart() {
         super.doStart();
+        threads.createThread(buildReplicationRequestsHandlerThread());
+        threads.startThread(threadName(VOTER_REPLICATION_REQUESTS_HANDLER_THREAD));
     }
 
     @Override
     protected void doStop() {
+        stopped = true;
+        threads.stopThread(threadName(VOTER_REPLICATION_REQUESTS_HANDLER_THREAD));
+        threads.removeThread(threadName(VOTER_REPLICATION_REQUESTS_HANDLER_THREAD));
+        failAllPendingRequests();
         super.doStop();
     }
 
+    // 给所有没来及处理的请求返回失败响应
+    private void failAllPendingRequests() {
+        ReplicationRequestResponse rr;
+        while (null != (rr = pendingAppendRequests.poll())) {
+            rr.getResponseFuture().complete(new AsyncAppendEntriesResponse(
+                    new IllegalStateException("Follower stopped!")));
+        }
+    }
+
     public boolean isReadyForStartPreferredLeaderElection() {
         return readyForStartPreferredLeaderElection;
     }
@@ -188,4 +316,21 @@ class Follower extends ServerStateMachine implements StateServer {
         this.readyForStartPreferredLeaderElection = readyForStartPreferredLeaderElection;
     }
 
+    private static class ReplicationRequestResponse {
+        private final AsyncAppendEntriesRequest request;
+        private final CompletableFuture<AsyncAppendEntriesResponse> responseFuture = new CompletableFuture<>();
+
+        ReplicationRequestResponse(AsyncAppendEntriesRequest request) {
+            this.request = request;
+        }
+
+        AsyncAppendEntriesRequest getRequest() {
+            return request;
+        }
+
+        CompletableFuture<AsyncAppendEntriesResponse> getResponseFuture() {
+            return responseFuture;
+        }
+    }
+
 }
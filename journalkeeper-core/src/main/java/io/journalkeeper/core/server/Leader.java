@@ -54,9 +54,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -73,6 +75,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -116,6 +119,23 @@ class Leader extends ServerStateMachine implements StateServer {
     private final Threads threads;
     private final long heartbeatIntervalMs;
     private final int replicationBatchSize;
+    /**
+     * 每个FOLLOWER最多允许的在途（已发送未收到响应）复制请求数量
+     */
+    private final int replicationParallelism;
+    /**
+     * 一次合并写入Journal的最大请求数量
+     */
+    private final int appendBatchSize;
+    /**
+     * 一次合并写入Journal的最大字节数，单个请求超过这个大小时单独写入
+     */
+    private final int appendBatchBytes;
+    /**
+     * 未刷盘的entry数量达到这个值时，立即唤醒刷盘线程。
+     * 未达到时由刷盘线程按照flush_interval_ms定时刷盘，每次刷盘只做一次fsync。
+     */
+    private final int flushBatchSize;
     private final long rpcTimeoutMs;
     private final Journal journal;
     /**
@@ -137,6 +157,11 @@ class Leader extends ServerStateMachine implements StateServer {
     private final ApplyInternalEntryInterceptor leaderAnnouncementInterceptor;
     private final NavigableMap<Long, Snapshot> snapshots;
     private final int snapshotIntervalSec;
+    private final int snapshotTrunkSize;
+    /**
+     * 安装快照时，每个FOLLOWER最大在途的trunk数量
+     */
+    private final int snapshotInstallWindow;
     private final AtomicBoolean isLeaderAnnouncementApplied = new AtomicBoolean(false);
     private final AtomicLong callbackBarrier = new AtomicLong(0L);
     /**
@@ -152,7 +177,8 @@ class Leader extends ServerStateMachine implements StateServer {
            int currentTerm,
            URI serverUri,
            int cacheRequests, long heartbeatIntervalMs, long rpcTimeoutMs, int replicationBatchSize,
-           int snapshotIntervalSec,
+           int replicationParallelism, int appendBatchSize, int appendBatchBytes, int flushBatchSize, int snapshotIntervalSec,
+           int snapshotTrunkSize, int snapshotInstallWindow,
            Threads threads,
            ServerRpcProvider serverRpcProvider,
            ClientServerRpc server,
@@ -167,10 +193,16 @@ class Leader extends ServerStateMachine implements StateServer {
         this.state = state;
         this.serverUri = serverUri;
         this.replicationBatchSize = replicationBatchSize;
+        this.replicationParallelism = Math.max(1, replicationParallelism);
+        this.appendBatchSize = Math.max(1, appendBatchSize);
+        this.appendBatchBytes = appendBatchBytes;
+        this.flushBatchSize = Math.max(1, flushBatchSize);
         this.rpcTimeoutMs = rpcTimeoutMs;
         this.currentTerm = currentTerm;
         this.immutableSnapshots = immutableSnapshots;
         this.snapshotIntervalSec = snapshotIntervalSec;
+        this.snapshotTrunkSize = snapshotTrunkSize;
+        this.snapshotInstallWindow = Math.max(1, snapshotInstallWindow);
         this.threads = threads;
         this.serverRpcProvider = serverRpcProvider;
         this.scheduledExecutor = scheduledExecutor;
@@ -183,13 +215,14 @@ class Leader extends ServerStateMachine implements StateServer {
         this.appendEntriesRpcMetricMap = new HashMap<>(2);
         this.journal = journal;
         this.heartbeatIntervalMs = heartbeatIntervalMs;
-        this.journalTransactionManager = new JournalTransactionManager(journal, server, scheduledExecutor, transactionTimeoutMs);
-        this.journalTransactionInterceptor = (entryHeader, entryFuture, index) -> journalTransactionManager.applyEntry(entryHeader, entryFuture);
+        this.journalTransactionManager = new JournalTransactionManager(journal, journalEntryParser, server, scheduledExecutor, transactionTimeoutMs);
+        this.journalTransactionInterceptor = (entryHeader, entryFuture, index) -> journalTransactionManager.applyEntry(entryHeader, entryFuture, index);
         this.leaderAnnouncementInterceptor = (type, internalEntry) -> {
             if (type == InternalEntryType.TYPE_LEADER_ANNOUNCEMENT) {
                 LeaderAnnouncementEntry leaderAnnouncementEntry = InternalEntriesSerializeSupport.parse(internalEntry);
                 if (leaderAnnouncementEntry.getTerm() == currentTerm) {
                     logger.info("Leader announcement applied! Leader: {}, term: {}.", serverUri, currentTerm);
+                    journalTransactionManager.recover();
                     isLeaderAnnouncementApplied.compareAndSet(false, true);
                 }
             }
@@ -234,37 +267,132 @@ class Leader extends ServerStateMachine implements StateServer {
     }
 
     /**
-     * 串行写入日志
+     * 串行写入日志。
+     * 每次取出队列中所有等待的请求（不超过appendBatchSize个请求和appendBatchBytes字节，
+     * 并且entry数量不超过一个索引文件的容量），合并成一次Journal写入，写入后只唤醒一次复制和刷盘线程。
+     * 队列中请求少时每批只有一个请求，请求积压时批量自动变大。
+     * 写入失败时，本批中所有还没有写入的请求都以失败结束，不会一直等待。
      */
     private void appendJournalEntry() throws Exception {
 
-        UpdateStateRequestResponse rr = pendingUpdateStateRequests.take();
-        final UpdateClusterStateRequest request = rr.getRequest();
-        final ResponseFuture responseFuture = rr.getResponseFuture();
-        try {
-
-            if (request.getRequests().size() == 1 && voterConfigManager.maybeUpdateLeaderConfig(request.getRequests().get(0),
-                    state.getConfigState(), journal, () -> doAppendJournalEntryCallable(request, responseFuture),
-                    serverUri, this)) {
-                return;
+        List<UpdateStateRequestResponse> batch = new ArrayList<>();
+        batch.add(pendingUpdateStateRequests.take());
+        long batchBytes = requestBytes(batch.get(0).getRequest());
+        int batchEntries = batch.get(0).getRequest().getRequests().size();
+        int maxBatchEntries = journal.maxAppendEntries();
+        UpdateStateRequestResponse next;
+        while (batch.size() < appendBatchSize && (next = pendingUpdateStateRequests.peek()) != null) {
+            long bytes = requestBytes(next.getRequest());
+            int entries = next.getRequest().getRequests().size();
+            if (batchBytes + bytes > appendBatchBytes || batchEntries + entries > maxBatchEntries) {
+                break;
             }
-            doAppendJournalEntry(request, responseFuture);
+            batch.add(pendingUpdateStateRequests.poll());
+            batchBytes += bytes;
+            batchEntries += entries;
+        }
 
+        List<UpdateStateRequestResponse> pendingRequests = new ArrayList<>(batch.size());
+        // batch中[0, handled)的请求已经写入或者已经结束
+        int handled = 0;
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                UpdateStateRequestResponse rr = batch.get(i);
+                final UpdateClusterStateRequest request = rr.getRequest();
+                if (isInternalRequest(request)) {
+                    // 内部请求（例如配置变更）需要单独处理，先写入之前合并的请求，保证顺序不变
+                    doAppendJournalEntries(pendingRequests);
+                    pendingRequests.clear();
+                    handled = i;
+                    if (voterConfigManager.maybeUpdateLeaderConfig(request.getRequests().get(0),
+                            state.getConfigState(), journal, () -> doAppendJournalEntryCallable(rr),
+                            serverUri, this)) {
+                        handled = i + 1;
+                        continue;
+                    }
+                }
+                pendingRequests.add(rr);
+            }
+            doAppendJournalEntries(pendingRequests);
+            handled = batch.size();
         } catch (Throwable t) {
-            responseFuture.getResponseFuture().complete(new UpdateClusterStateResponse(t));
+            for (int i = handled; i < batch.size(); i++) {
+                batch.get(i).getResponseFuture().getResponseFuture().complete(new UpdateClusterStateResponse(t));
+            }
             throw t;
+        } finally {
+            wakeupReplicationThreads();
+            // 未刷盘的entry达到flushBatchSize时立即刷盘，否则等待刷盘线程定时刷盘
+            if (journal.maxIndex() - journal.flushedIndex() >= flushBatchSize) {
+                threads.wakeupThread(threadName(FLUSH_JOURNAL_THREAD));
+            }
+        }
+    }
+
+    private long requestBytes(UpdateClusterStateRequest request) {
+        long bytes = 0L;
+        int headerLength = request.isIncludeHeader() ? 0 : journalEntryParser.headerLength();
+        for (UpdateRequest updateRequest : request.getRequests()) {
+            bytes += updateRequest.getEntry().length + headerLength;
         }
+        return bytes;
+    }
 
+    private boolean isInternalRequest(UpdateClusterStateRequest request) {
+        return request.getRequests().size() == 1 && request.getRequests().get(0).getPartition() == INTERNAL_PARTITION;
     }
 
-    private Void doAppendJournalEntryCallable(UpdateClusterStateRequest request, ResponseFuture responseFuture) throws InterruptedException {
-        doAppendJournalEntry(request, responseFuture);
+    private Void doAppendJournalEntryCallable(UpdateStateRequestResponse rr) throws InterruptedException {
+        doAppendJournalEntries(Collections.singletonList(rr));
         return null;
     }
 
-    private void doAppendJournalEntry(UpdateClusterStateRequest request, ResponseFuture responseFuture) throws InterruptedException {
-        appendJournalMetric.start();
+    /**
+     * 将多个请求的entries合并成一次Journal写入，再分别为每个请求设置回调。
+     * 某个请求解析失败时，只有这个请求失败，不影响其它请求。
+     */
+    private void doAppendJournalEntries(List<UpdateStateRequestResponse> requests) throws InterruptedException {
+        if (requests.isEmpty()) {
+            return;
+        }
+        long metricToken = appendJournalMetric.startToken();
+
+        List<JournalEntry> journalEntries = new ArrayList<>();
+        List<UpdateStateRequestResponse> appendRequests = new ArrayList<>(requests.size());
+        for (UpdateStateRequestResponse rr : requests) {
+            try {
+                journalEntries.addAll(toJournalEntries(rr.getRequest()));
+                appendRequests.add(rr);
+            } catch (Throwable t) {
+                logger.warn("Parse update request failed! server: {}.", serverUri, t);
+                rr.getResponseFuture().getResponseFuture().complete(new UpdateClusterStateResponse(t));
+            }
+        }
+        if (journalEntries.isEmpty()) {
+            return;
+        }
+
+        List<Long> offsets;
+        try {
+            offsets = journal.append(journalEntries);
+        } catch (Throwable t) {
+            for (UpdateStateRequestResponse rr : appendRequests) {
+                rr.getResponseFuture().getResponseFuture().complete(new UpdateClusterStateResponse(t));
+            }
+            throw t;
+        }
+
+        int i = 0;
+        for (UpdateStateRequestResponse rr : appendRequests) {
+            UpdateClusterStateRequest request = rr.getRequest();
+            for (int j = 0; j < request.getRequests().size(); j++) {
+                setCallback(request.getResponseConfig(), rr.getResponseFuture(), offsets.get(i++));
+            }
+        }
+        appendJournalMetric.end(metricToken, () -> journalEntries.stream().mapToLong(JournalEntry::getLength).sum());
+    }
 
+    private List<JournalEntry> toJournalEntries(UpdateClusterStateRequest request) {
         List<JournalEntry> journalEntries = new ArrayList<>(request.getRequests().size());
         for (UpdateRequest serializedUpdateRequest : request.getRequests()) {
             JournalEntry entry;
@@ -284,10 +412,7 @@ class Leader extends ServerStateMachine implements StateServer {
             }
             journalEntries.add(entry);
         }
-        appendAndCallback(journalEntries, request.getResponseConfig(), responseFuture);
-        wakeupReplicationThreads();
-        threads.wakeupThread(threadName(FLUSH_JOURNAL_THREAD));
-        appendJournalMetric.end(() -> journalEntries.stream().mapToLong(JournalEntry::getLength).sum());
+        return journalEntries;
     }
 
     private void wakeupReplicationThreads() {
@@ -431,20 +556,30 @@ class Leader extends ServerStateMachine implements StateServer {
         try {
             logger.info("Install snapshot to {} ...", follower.getUri());
             ServerRpc rpc = serverRpcProvider.getServerRpc(follower.getUri()).get(heartbeatIntervalMs, TimeUnit.MILLISECONDS);
-            int offset = 0;
-            ReplicableIterator iterator = snapshot.iterator();
-            while (iterator.hasMoreTrunks()) {
-                byte[] trunk = iterator.nextTrunk();
-                InstallSnapshotRequest request = new InstallSnapshotRequest(
-                        currentTerm, serverUri, snapshot.lastIncludedIndex(), snapshot.lastIncludedTerm(),
-                        offset, trunk, !iterator.hasMoreTrunks()
-                );
-                InstallSnapshotResponse response = rpc.installSnapshot(request).get();
-                if (!response.success()) {
-                    logger.warn("Install snapshot to {} failed! Cause: {}.", follower.getUri(), response.errorString());
-                    return;
+            try (ReplicableIterator iterator = snapshot.iterator(snapshotTrunkSize)) {
+                // 第一个trunk会让FOLLOWER清理并初始化临时快照，必须先确认成功，之后的trunk在窗口内并发发送，由FOLLOWER按offset排序写入。
+                Deque<CompletableFuture<InstallSnapshotResponse>> inFlights = new ArrayDeque<>(snapshotInstallWindow);
+                boolean first = true;
+                while (iterator.hasMoreTrunks()) {
+                    long offset = iterator.offset();
+                    byte[] trunk = iterator.nextTrunk();
+                    InstallSnapshotRequest request = new InstallSnapshotRequest(
+                            currentTerm, serverUri, snapshot.lastIncludedIndex(), snapshot.lastIncludedTerm(),
+                            offset, trunk, !iterator.hasMoreTrunks()
+                    );
+                    inFlights.addLast(rpc.installSnapshot(request));
+                    if (first || inFlights.size() >= snapshotInstallWindow) {
+                        if (!checkInstallSnapshotResponse(follower, inFlights.removeFirst().get())) {
+                            return;
+                        }
+                        first = false;
+                    }
+                }
+                while (!inFlights.isEmpty()) {
+                    if (!checkInstallSnapshotResponse(follower, inFlights.removeFirst().get())) {
+                        return;
+                    }
                 }
-                offset += trunk.length;
             }
             logger.info("Install snapshot to {} success!", follower.getUri());
         } catch (Throwable t) {
@@ -452,12 +587,20 @@ class Leader extends ServerStateMachine implements StateServer {
         }
     }
 
+    private boolean checkInstallSnapshotResponse(ReplicationDestination follower, InstallSnapshotResponse response) {
+        if (!response.success()) {
+            logger.warn("Install snapshot to {} failed! Cause: {}.", follower.getUri(), response.errorString());
+            return false;
+        }
+        return true;
+    }
+
     private void callback() {
         long callbackIndex = journalFlushIndex.get();
-        if (callbackIndex > callbackBarrier.get()) {
-            flushCallbacks.callbackBefore(callbackBarrier.get());
-        }
+        // 批量写入时，回调是在写入Journal之后逐个注册的，等待期间需要不断回调已注册的请求，
+        // 避免回调队列被占满后，写入线程无法继续注册回调。
         while (callbackIndex > callbackBarrier.get()) {
+            flushCallbacks.callbackBefore(callbackBarrier.get());
             Thread.yield();
         }
         flushCallbacks.callbackBefore(callbackIndex);
@@ -625,7 +768,7 @@ class Leader extends ServerStateMachine implements StateServer {
 
     void onJournalFlushed() {
 
-        journalFlushIndex.set(journal.maxIndex());
+        journalFlushIndex.set(journal.flushedIndex());
         if (serverState() == ServerState.RUNNING) {
             threads.wakeupThread(threadName(LEADER_APPEND_ENTRY_THREAD));
             threads.wakeupThread(threadName(LEADER_CALLBACK_THREAD));
@@ -685,16 +828,17 @@ class Leader extends ServerStateMachine implements StateServer {
         }
     }
 
+    // 事务状态在LEADER_ANNOUNCEMENT执行时恢复，之前不能处理事务请求
     CompletableFuture<JournalKeeperTransactionContext> createTransaction(Map<String, String> context) {
-        return journalTransactionManager.createTransaction(context);
+        return waitLeadership().thenCompose(aVoid -> journalTransactionManager.createTransaction(context));
     }
 
     CompletableFuture<Void> completeTransaction(UUID transactionId, boolean commitOrAbort) {
-        return journalTransactionManager.completeTransaction(transactionId, commitOrAbort);
+        return waitLeadership().thenCompose(aVoid -> journalTransactionManager.completeTransaction(transactionId, commitOrAbort));
     }
 
-    Collection<JournalKeeperTransactionContext> getOpeningTransactions() {
-        return journalTransactionManager.getOpeningTransactions();
+    CompletableFuture<Collection<JournalKeeperTransactionContext>> getOpeningTransactions() {
+        return waitLeadership().thenApply(aVoid -> journalTransactionManager.getOpeningTransactions());
     }
 
     // for monitor only
@@ -754,6 +898,47 @@ class Leader extends ServerStateMachine implements StateServer {
     }
 
 
+    private static class PendingAppendEntriesRequest {
+        private final AsyncAppendEntriesRequest request;
+        private final long startIndex;
+        private final CompletableFuture<AsyncAppendEntriesResponse> responseFuture;
+        private final long sendTime = System.currentTimeMillis();
+        private final long startNs = System.nanoTime();
+
+        PendingAppendEntriesRequest(AsyncAppendEntriesRequest request, long startIndex, CompletableFuture<AsyncAppendEntriesResponse> responseFuture) {
+            this.request = request;
+            this.startIndex = startIndex;
+            this.responseFuture = responseFuture;
+        }
+
+        AsyncAppendEntriesRequest getRequest() {
+            return request;
+        }
+
+        long getStartIndex() {
+            return startIndex;
+        }
+
+        CompletableFuture<AsyncAppendEntriesResponse> getResponseFuture() {
+            return responseFuture;
+        }
+
+        /**
+         * 请求完成后获取响应，请求异常返回null。
+         */
+        AsyncAppendEntriesResponse getResponse() {
+            return responseFuture.isCompletedExceptionally() ? null : responseFuture.getNow(null);
+        }
+
+        long getSendTime() {
+            return sendTime;
+        }
+
+        long getStartNs() {
+            return startNs;
+        }
+    }
+
     class ReplicationDestination {
 
 
@@ -773,10 +958,19 @@ class Leader extends ServerStateMachine implements StateServer {
          */
         private long lastHeartbeatResponseTime;
         private long lastHeartbeatRequestTime = 0L;
+        /**
+         * 上次发送给FOLLOWER的commitIndex
+         */
+        private long lastSentCommitIndex = 0L;
 
         private final String replicationThreadName;
         private final JMetric metric;
 
+        /**
+         * 在途（已发送未处理响应）的复制请求，按照日志索引位置排序，只在复制线程中访问
+         */
+        private final Deque<PendingAppendEntriesRequest> pendingRequests = new ArrayDeque<>();
+
 
         ReplicationDestination(URI uri, long nextIndex) {
             this.uri = uri;
@@ -810,73 +1004,138 @@ class Leader extends ServerStateMachine implements StateServer {
             Leader.this.threads.removeThread(replicationThreadName);
         }
 
+        /**
+         * 流水线复制：每个FOLLOWER最多同时有replicationParallelism个在途的复制请求。
+         * 请求按照日志索引位置顺序发送，响应按照发送顺序处理（参见{@link Leader#commit()}）：
+         * 先返回的后续请求的响应需要等待它之前的请求的响应处理完成后才会被处理；
+         * 任何一个请求失败或者日志不匹配，丢弃所有在途请求，从失败的位置（或者回退之后的位置）重新复制。
+         */
         private void replication() {
-            long maxIndex;
-            while (serverState() == ServerState.RUNNING &&
-                    !Thread.currentThread().isInterrupted() &&
-                    (nextIndex < (maxIndex = journal.maxIndex()) // 还有需要复制的数据
-                    ||
-                    System.currentTimeMillis() - lastHeartbeatRequestTime >= heartbeatIntervalMs) // 距离上次复制/心跳已经超过一个心跳超时了
-            ) {
-                long start = metric == null ? 0L : System.nanoTime();
+            while (serverState() == ServerState.RUNNING && !Thread.currentThread().isInterrupted()) {
 
-                // 如果有必要，先安装第一个快照
-                Map.Entry<Long, Snapshot> fistSnapShotEntry = snapshots.firstEntry();
-                maybeInstallSnapshotFirst(fistSnapShotEntry);
-
-                // 读取需要复制的Entry
-                List<byte[]> entries;
-                if (nextIndex < maxIndex) { // 复制
-                    entries = journal.readRaw(nextIndex, Leader.this.replicationBatchSize);
-                } else { // 心跳
-                    entries = Collections.emptyList();
+                // 按顺序处理已经收到的响应
+                if (!handleResponses()) {
+                    // 没收到响应或者请求失败，等下一个心跳超时之后，再进入这个方法会自动重试
+                    break;
                 }
 
-                // 构建请求并发送
-                AsyncAppendEntriesRequest request =
-                        new AsyncAppendEntriesRequest(Leader.this.currentTerm, Leader.this.serverUri,
-                                nextIndex - 1, Leader.this.getPreLogTerm(nextIndex),
-                                entries, journal.commitIndex(), maxIndex);
-                AsyncAppendEntriesResponse response = null;
-                try {
-                    response = serverRpcProvider.getServerRpc(uri)
-                            .thenCompose(serverRpc -> serverRpc.asyncAppendEntries(request)).get();
-                    lastHeartbeatRequestTime = System.currentTimeMillis();
-                } catch (InterruptedException ie) {
-                    logger.warn("Replication was interrupted, from {} to {}.", Leader.this.serverUri, uri);
-                    Thread.currentThread().interrupt();
+                long maxIndex = journal.maxIndex();
+                if (pendingRequests.size() < replicationParallelism &&
+                        (nextIndex < maxIndex // 还有需要复制的数据
+                                ||
+                                pendingRequests.isEmpty() &&
+                                        (System.currentTimeMillis() - lastHeartbeatRequestTime >= heartbeatIntervalMs // 距离上次复制/心跳已经超过一个心跳超时了
+                                                || lastSentCommitIndex < journal.commitIndex()))) { // 尽快把新的commitIndex通知给FOLLOWER，FOLLOWER上的读请求不用等到下次心跳
+                    if (!sendAppendEntriesRequest(maxIndex)) {
+                        break;
+                    }
+                } else if (!pendingRequests.isEmpty()) {
+                    // 在途请求已满或者没有新的数据，等待最早的请求的响应
+                    if (!waitForResponse(pendingRequests.peekFirst())) {
+                        break;
+                    }
+                } else {
                     break;
-                } catch (ExecutionException e) {
-                    logger.warn("Replication execution exception, from {} to {}, cause: {}.", Leader.this.serverUri, uri, null == e.getCause()? e.getMessage() : e.getCause().getMessage());
-                } catch (Throwable t) {
-                    logger.warn("Replication exception, from {} to {}, cause: {}.", Leader.this.serverUri, uri, t.getMessage());
                 }
+            }
+        }
 
-                // 处理返回的响应
-                if(null != response && response.success()) { // 成功收到响应响应
-                    lastHeartbeatResponseTime = System.currentTimeMillis();
+        private boolean sendAppendEntriesRequest(long maxIndex) {
+            if (pendingRequests.isEmpty()) {
+                // 如果有必要，先安装第一个快照
+                maybeInstallSnapshotFirst(snapshots.firstEntry());
+            }
+
+            // 读取需要复制的Entry
+            List<byte[]> entries;
+            if (nextIndex < maxIndex) { // 复制
+                entries = journal.readRaw(nextIndex, Leader.this.replicationBatchSize);
+            } else { // 心跳
+                entries = Collections.emptyList();
+            }
 
+            // 构建请求并发送
+            long commitIndex = journal.commitIndex();
+            AsyncAppendEntriesRequest request =
+                    new AsyncAppendEntriesRequest(Leader.this.currentTerm, Leader.this.serverUri,
+                            nextIndex - 1, Leader.this.getPreLogTerm(nextIndex),
+                            entries, commitIndex, maxIndex);
+            try {
+                CompletableFuture<AsyncAppendEntriesResponse> responseFuture = serverRpcProvider.getServerRpc(uri)
+                        .thenCompose(serverRpc -> serverRpc.asyncAppendEntries(request));
+                pendingRequests.addLast(new PendingAppendEntriesRequest(request, nextIndex, responseFuture));
+                nextIndex += entries.size();
+                lastHeartbeatRequestTime = System.currentTimeMillis();
+                lastSentCommitIndex = commitIndex;
+                return true;
+            } catch (Throwable t) {
+                logger.warn("Replication exception, from {} to {}, cause: {}.", Leader.this.serverUri, uri, t.getMessage());
+                return false;
+            }
+        }
+
+        private boolean waitForResponse(PendingAppendEntriesRequest pendingRequest) {
+            try {
+                long timeoutMs = pendingRequest.getSendTime() + rpcTimeoutMs - System.currentTimeMillis();
+                pendingRequest.getResponseFuture().get(Math.max(timeoutMs, 0L), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ie) {
+                logger.warn("Replication was interrupted, from {} to {}.", Leader.this.serverUri, uri);
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (TimeoutException e) {
+                logger.warn("Replication timeout, from {} to {}, prevLogIndex: {}, entries: {}.", Leader.this.serverUri, uri,
+                        pendingRequest.getRequest().getPrevLogIndex(), pendingRequest.getRequest().getEntries().size());
+                resetPendingRequests(pendingRequest.getStartIndex());
+                return false;
+            } catch (ExecutionException e) {
+                logger.warn("Replication execution exception, from {} to {}, cause: {}.", Leader.this.serverUri, uri, null == e.getCause() ? e.getMessage() : e.getCause().getMessage());
+            }
+            return true;
+        }
+
+        /**
+         * 按照发送顺序处理所有已经完成的在途请求。
+         * @return 全部成功返回true，请求失败返回false。
+         */
+        private boolean handleResponses() {
+            PendingAppendEntriesRequest pendingRequest;
+            while (null != (pendingRequest = pendingRequests.peekFirst()) && pendingRequest.getResponseFuture().isDone()) {
+                pendingRequests.pollFirst();
+                AsyncAppendEntriesResponse response = pendingRequest.getResponse();
+
+                if (null != response && response.success()) { // 成功收到响应响应
+                    lastHeartbeatResponseTime = System.currentTimeMillis();
+                    AsyncAppendEntriesRequest request = pendingRequest.getRequest();
                     if (response.isSuccess()) { // 复制成功
-                        if (entries.size() > 0) {
-                            nextIndex += entries.size();
-                            matchIndex = nextIndex;
+                        if (request.getEntries().size() > 0) {
+                            matchIndex = pendingRequest.getStartIndex() + request.getEntries().size();
                             isAnyFollowerNextIndexUpdated.compareAndSet(false, true);
                             Leader.this.threads.wakeupThread(Leader.this.threadName(LEADER_COMMIT_THREAD));
                         }
                     } else {
-                        // 不匹配，回退
-                        int rollbackSize = (int) Math.min(replicationBatchSize, nextIndex - fistSnapShotEntry.getKey());
-                        nextIndex -= rollbackSize;
+                        // 不匹配，回退，之后的在途请求必然也会失败，直接丢弃
+                        long startIndex = pendingRequest.getStartIndex();
+                        int rollbackSize = (int) Math.min(replicationBatchSize, startIndex - snapshots.firstKey());
+                        resetPendingRequests(startIndex - rollbackSize);
                     }
                     if (null != metric) {
-                        metric.mark(() -> System.nanoTime() - start, () -> request.getEntries().stream().mapToLong(e -> e.length).sum());
+                        final long startNs = pendingRequest.getStartNs();
+                        metric.mark(() -> System.nanoTime() - startNs, () -> request.getEntries().stream().mapToLong(e -> e.length).sum());
                     }
                 } else { // 没收到响应或者请求失败
-                    // 等下一个心跳超时之后，再进入这个方法会自动重试
-                    break;
+                    if (null != response) {
+                        logger.warn("Replication failed, from {} to {}, cause: {}.", Leader.this.serverUri, uri, response.errorString());
+                    }
+                    resetPendingRequests(pendingRequest.getStartIndex());
+                    return false;
                 }
-
             }
+            return true;
+        }
+
+        private void resetPendingRequests(long nextIndex) {
+            pendingRequests.clear();
+            this.nextIndex = nextIndex;
         }
 
         private void maybeInstallSnapshotFirst(Map.Entry<Long, Snapshot> fistSnapShotEntry) {
@@ -63,8 +63,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
@@ -72,6 +74,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static io.journalkeeper.core.server.MetricNames.METRIC_OBSERVER_REPLICATION;
@@ -108,6 +111,10 @@ class Observer extends AbstractServer {
                 properties.getProperty(
                         Config.PULL_BATCH_SIZE_KEY,
                         String.valueOf(Config.DEFAULT_PULL_BATCH_SIZE))));
+        config.setSnapshotPullWindow(Integer.parseInt(
+                properties.getProperty(
+                        Config.SNAPSHOT_PULL_WINDOW_KEY,
+                        String.valueOf(Config.DEFAULT_SNAPSHOT_PULL_WINDOW))));
 
         String parentsString = properties.getProperty(
                 Config.PARENTS_KEY,
@@ -149,7 +156,7 @@ class Observer extends AbstractServer {
 
     private void pullEntries() throws Throwable {
 
-        replicationMetric.start();
+        long metricToken = replicationMetric.startToken();
         long traffic = 0L;
         if (journal.commitIndex() == 0L) {
             installSnapshot(0L);
@@ -175,7 +182,7 @@ class Observer extends AbstractServer {
         } else if (response.getStatusCode() != StatusCode.INDEX_OVERFLOW) {
             logger.warn("Pull entry failed! {}", response.errorString());
         }
-        replicationMetric.end(() -> response.getEntries().stream().mapToLong(bytes -> bytes.length).sum());
+        replicationMetric.end(metricToken, () -> response.getEntries().stream().mapToLong(bytes -> bytes.length).sum());
 
     }
 
@@ -183,21 +190,47 @@ class Observer extends AbstractServer {
         // Observer的提交位置已经落后目标节点太多，这时需要安装快照：
         // 复制远端服务器的最新状态到当前状态
         long lastIncludedIndex = index - 1;
-        int iteratorId = -1;
-        boolean done;
+        // 快照迭代器只在创建它的节点上有效，后续的请求都发给第一次请求成功的节点
+        AtomicReference<ServerRpc> parentRpc = new AtomicReference<>();
+        GetServerStateResponse r = invokeParentsRpc(
+                rpc -> {
+                    parentRpc.set(rpc);
+                    return rpc.getServerState(new GetServerStateRequest(lastIncludedIndex, -1));
+                }
+        ).get();
+        if (!r.success()) {
+            throw new InstallSnapshotException(r.errorString());
+        }
+        boolean installed = installSnapshot(r.getOffset(), r.getLastIncludedIndex(), r.getLastIncludedTerm(), r.getData(), r.isDone());
+        if (installed) {
+            return;
+        }
+
+        // 之后的trunk在窗口内并发拉取，服务端可能乱序返回，由PartialSnapshot按offset排序写入。
+        int iteratorId = r.getIteratorId();
+        GetServerStateRequest request = new GetServerStateRequest(lastIncludedIndex, iteratorId);
+        Deque<CompletableFuture<GetServerStateResponse>> inFlights = new ArrayDeque<>(config.getSnapshotPullWindow());
+        boolean done = false, failed = false;
+        String error = null;
         do {
-            int finalIteratorId = iteratorId;
-            GetServerStateResponse r = invokeParentsRpc(
-                    rpc -> rpc.getServerState(new GetServerStateRequest(lastIncludedIndex, finalIteratorId))
-            ).get();
+            while (!done && !failed && inFlights.size() < config.getSnapshotPullWindow()) {
+                inFlights.addLast(parentRpc.get().getServerState(request));
+            }
+            r = inFlights.removeFirst().get();
             if (r.success()) {
-                installSnapshot(r.getOffset(), r.getLastIncludedIndex(), r.getLastIncludedTerm(), r.getData(), r.isDone());
-                iteratorId = r.getIteratorId();
-                done = r.isDone();
+                installed = installSnapshot(r.getOffset(), r.getLastIncludedIndex(), r.getLastIncludedTerm(), r.getData(), r.isDone()) || installed;
+                done = done || r.isDone();
             } else {
-                throw new InstallSnapshotException(r.errorString());
+                // 最后一个trunk被取走之后，迭代器会被移除，之后发出的请求会失败，可以忽略；
+                // 如果失败的是中间的trunk，即使之后收到了最后一个trunk，快照也是不完整的。
+                failed = true;
+                error = r.errorString();
             }
-        } while (!done);
+        } while (!inFlights.isEmpty() || !(done || failed));
+        if (!installed) {
+            throw new InstallSnapshotException(null != error ? error :
+                    String.format("Snapshot is incomplete, lastIncludedIndex: %d.", lastIncludedIndex));
+        }
     }
 
     @Override
@@ -310,12 +343,15 @@ class Observer extends AbstractServer {
     private static class Config {
         private final static int DEFAULT_PULL_BATCH_SIZE = 4 * 1024 * 1024;
         private final static String PULL_BATCH_SIZE_KEY = "observer.pull_batch_size";
+        private final static int DEFAULT_SNAPSHOT_PULL_WINDOW = 8;
+        private final static String SNAPSHOT_PULL_WINDOW_KEY = "observer.snapshot_pull_window";
 
         private final static String PARENTS_KEY = "observer.parents";
         // TODO: 动态变更parents
         private List<URI> parents = Collections.emptyList();
 
         private int pullBatchSize = DEFAULT_PULL_BATCH_SIZE;
+        private int snapshotPullWindow = DEFAULT_SNAPSHOT_PULL_WINDOW;
 
         private int getPullBatchSize() {
             return pullBatchSize;
@@ -325,6 +361,14 @@ class Observer extends AbstractServer {
             this.pullBatchSize = pullBatchSize;
         }
 
+        private int getSnapshotPullWindow() {
+            return snapshotPullWindow;
+        }
+
+        private void setSnapshotPullWindow(int snapshotPullWindow) {
+            this.snapshotPullWindow = Math.max(1, snapshotPullWindow);
+        }
+
         public List<URI> getParents() {
             return parents;
         }
@@ -51,6 +51,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 /**
  *
@@ -62,6 +65,10 @@ class PartialSnapshot {
     private final Path partialSnapshotPath;
     private Path snapshotPath = null;
     private long offset = 0;
+    // 先于前面的trunk到达的trunk，按照偏移量排序，等待前面的trunk写入后再写入
+    private final NavigableMap<Long, byte[]> pendingTrunks = new TreeMap<>();
+    // 收到最后一个trunk后，快照数据的总长度，-1表示还没收到最后一个trunk
+    private long endOffset = -1L;
 
     PartialSnapshot(Path partialSnapshotPath) {
         this.partialSnapshotPath = partialSnapshotPath;
@@ -81,12 +88,17 @@ class PartialSnapshot {
      * 状态数据先被安装在{@link #partialSnapshotPath}中，当全部状态数据安装完成后，
      * 再复制到{@link #snapshotPath}中
      * 所有数据都复制完成后，将状态。
+     *
+     * 第一个trunk（offset为0）必须最先安装，之后的trunk可以乱序到达，
+     * 先到达的trunk暂存在内存中，等待前面的trunk都写入后再按顺序写入。
      * @param offset 快照偏移量
      * @param data 快照数据
      * @param snapshotPath 安装路径
+     * @param isDone 是否是最后一个trunk
+     * @return 所有trunk都已写入返回true，否则返回false
      * @throws IOException 发生IO异常时抛出
      */
-    void installTrunk(long offset, byte[] data, Path snapshotPath) throws IOException {
+    boolean installTrunk(long offset, byte[] data, Path snapshotPath, boolean isDone) throws IOException {
 
         if (offset == 0) {
             begin(snapshotPath);
@@ -103,7 +115,7 @@ class PartialSnapshot {
                 );
             }
 
-            if (offset != getOffset()) {
+            if (offset < getOffset() || pendingTrunks.containsKey(offset)) {
                 throw new InstallSnapshotException(
                         String.format("Partial snapshot offset not match! Partial snapshot: %s, request offset: %d.", this, offset)
                 );
@@ -111,6 +123,24 @@ class PartialSnapshot {
 
         }
 
+        if (isDone) {
+            endOffset = offset + data.length;
+        }
+
+        if (offset > getOffset()) {
+            pendingTrunks.put(offset, data);
+        } else {
+            writeTrunk(data);
+            Map.Entry<Long, byte[]> next;
+            while ((next = pendingTrunks.firstEntry()) != null && next.getKey() == getOffset()) {
+                pendingTrunks.remove(next.getKey());
+                writeTrunk(next.getValue());
+            }
+        }
+        return endOffset >= 0 && getOffset() == endOffset;
+    }
+
+    private void writeTrunk(byte[] data) throws IOException {
         ByteBuffer buffer = ByteBuffer.wrap(data);
         int filenameLength = buffer.getInt();
         byte[] filenameBytes = new byte[filenameLength];
@@ -160,9 +190,12 @@ class PartialSnapshot {
 
     void finish() throws IOException {
         FileUtils.deleteFolder(snapshotPath);
-        FileUtils.dump(partialSnapshotPath, snapshotPath);
+        // 安装完成后不会再修改临时目录中的文件，直接使用硬链接
+        FileUtils.dump(partialSnapshotPath, snapshotPath, file -> true);
         snapshotPath = null;
         offset = 0;
+        endOffset = -1L;
+        pendingTrunks.clear();
     }
 
     private void begin(Path path) throws IOException {
@@ -171,6 +204,8 @@ class PartialSnapshot {
         }
         this.snapshotPath = path;
         offset = 0;
+        endOffset = -1L;
+        pendingTrunks.clear();
 
         if (Files.exists(partialSnapshotPath)) {
             FileUtils.deleteFolder(partialSnapshotPath);
@@ -187,6 +222,7 @@ class PartialSnapshot {
         return "PartialSnapshot{" +
                 "path=" + snapshotPath +
                 ", offset=" + offset +
+                ", pendingTrunks=" + pendingTrunks.size() +
                 '}';
     }
 }
@@ -0,0 +1,82 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * FOLLOWER向LEADER请求读取位置（ReadIndex），并发的读请求合并成一次RPC。
+ *
+ * 为了保证线性一致，每个读请求只能使用在它到达之后才发出的RPC的结果：
+ * 如果已经有在途的RPC，新到达的读请求等待下一轮，
+ * 在途的RPC返回后，一次性为这期间到达的所有读请求再发一轮。
+ * 因此任何时刻最多只有一个在途的RPC。
+ */
+class ReadIndexRequester {
+    private final Supplier<CompletableFuture<Long>> readIndexRpc;
+    // 下一轮RPC返回后需要通知的读请求，为null时表示没有等待下一轮的读请求
+    private CompletableFuture<Long> nextRound = null;
+    private boolean inFlight = false;
+
+    /**
+     * @param readIndexRpc 向LEADER请求当前读取位置的RPC
+     */
+    ReadIndexRequester(Supplier<CompletableFuture<Long>> readIndexRpc) {
+        this.readIndexRpc = readIndexRpc;
+    }
+
+    /**
+     * 获取读取位置
+     * @return 读取位置，FOLLOWER的状态机执行到这个位置之后，本地查询的结果满足线性一致。
+     */
+    synchronized CompletableFuture<Long> readIndex() {
+        if (null == nextRound) {
+            nextRound = new CompletableFuture<>();
+        }
+        CompletableFuture<Long> future = nextRound;
+        if (!inFlight) {
+            sendNextRound();
+        }
+        return future;
+    }
+
+    private synchronized void sendNextRound() {
+        CompletableFuture<Long> round = nextRound;
+        nextRound = null;
+        inFlight = true;
+        CompletableFuture<Long> rpcFuture;
+        try {
+            rpcFuture = readIndexRpc.get();
+        } catch (Throwable t) {
+            rpcFuture = new CompletableFuture<>();
+            rpcFuture.completeExceptionally(t);
+        }
+        rpcFuture.whenComplete((index, throwable) -> {
+            if (null == throwable) {
+                round.complete(index);
+            } else {
+                round.completeExceptionally(throwable);
+            }
+            onRoundCompleted();
+        });
+    }
+
+    private synchronized void onRoundCompleted() {
+        inFlight = false;
+        if (null != nextRound) {
+            sendNextRound();
+        }
+    }
+}
@@ -30,6 +30,10 @@ class ThreadNames {
      * 打印Metric线程
      */
     final static String PRINT_METRIC_THREAD = "PrintMetricThread";
+    /**
+     * 后台校验Journal校验和线程
+     */
+    final static String SCRUB_JOURNAL_THREAD = "ScrubJournalThread";
 
     /**
      * Leader接收客户端请求串行写入entries线程
@@ -28,9 +28,11 @@ import io.journalkeeper.core.entry.internal.UpdateVotersS1Entry;
 import io.journalkeeper.exceptions.UpdateConfigurationException;
 import io.journalkeeper.core.journal.Journal;
 import io.journalkeeper.core.state.ConfigState;
+import io.journalkeeper.exceptions.NoLeaderException;
 import io.journalkeeper.exceptions.NotLeaderException;
 import io.journalkeeper.persistence.ServerMetadata;
 import io.journalkeeper.rpc.client.CheckLeadershipResponse;
+import io.journalkeeper.rpc.client.ClientServerRpc;
 import io.journalkeeper.rpc.client.CompleteTransactionRequest;
 import io.journalkeeper.rpc.client.CompleteTransactionResponse;
 import io.journalkeeper.rpc.client.CreateTransactionRequest;
@@ -125,6 +127,7 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
 
     private Leader leader;
     private Follower follower;
+    private final ReadIndexRequester readIndexRequester = new ReadIndexRequester(this::requestReadIndex);
     // 下次发起选举的时间
     private long nextElectionTime = 0L;
 
@@ -183,6 +186,19 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
                 properties.getProperty(
                         Config.REPLICATION_BATCH_SIZE_KEY,
                         String.valueOf(Config.DEFAULT_REPLICATION_BATCH_SIZE))));
+        config.setReplicationParallelism(Integer.parseInt(
+                properties.getProperty(
+                        Config.REPLICATION_PARALLELISM_KEY,
+                        String.valueOf(Config.DEFAULT_REPLICATION_PARALLELISM))));
+        // 一次合并写入不能超过一个索引文件和一个journal文件的容量
+        config.setAppendBatchSize(Math.min(Journal.maxAppendEntries(properties), Integer.parseInt(
+                properties.getProperty(
+                        Config.APPEND_BATCH_SIZE_KEY,
+                        String.valueOf(Config.DEFAULT_APPEND_BATCH_SIZE)))));
+        config.setAppendBatchBytes(Math.min(Journal.maxAppendBytes(properties), Integer.parseInt(
+                properties.getProperty(
+                        Config.APPEND_BATCH_BYTES_KEY,
+                        String.valueOf(Config.DEFAULT_APPEND_BATCH_BYTES)))));
         config.setCacheRequests(Integer.parseInt(
                 properties.getProperty(
                         Config.CACHE_REQUESTS_KEY,
@@ -200,10 +216,26 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
                 properties.getProperty(
                         AbstractServer.Config.FLUSH_INTERVAL_MS_KEY,
                         String.valueOf(AbstractServer.Config.DEFAULT_FLUSH_INTERVAL_MS))));
+        config.setFlushBatchSize(Integer.parseInt(
+                properties.getProperty(
+                        AbstractServer.Config.FLUSH_BATCH_SIZE_KEY,
+                        String.valueOf(AbstractServer.Config.DEFAULT_FLUSH_BATCH_SIZE))));
         config.setPrintStateIntervalSec(Integer.parseInt(
                 properties.getProperty(
                         Config.PRINT_STATE_INTERVAL_SEC_KEY,
                         String.valueOf(Config.DEFAULT_PRINT_STATE_INTERVAL_SEC))));
+        config.setReadIndexEnabled(Boolean.parseBoolean(
+                properties.getProperty(
+                        Config.READ_INDEX_ENABLED_KEY,
+                        String.valueOf(Config.DEFAULT_READ_INDEX_ENABLED))));
+        config.setSnapshotTrunkSize(Integer.parseInt(
+                properties.getProperty(
+                        AbstractServer.Config.SNAPSHOT_TRUNK_SIZE_KEY,
+                        String.valueOf(AbstractServer.Config.DEFAULT_SNAPSHOT_TRUNK_SIZE))));
+        config.setSnapshotInstallWindow(Integer.parseInt(
+                properties.getProperty(
+                        Config.SNAPSHOT_INSTALL_WINDOW_KEY,
+                        String.valueOf(Config.DEFAULT_SNAPSHOT_INSTALL_WINDOW))));
 
         config.setWorkingDir(Paths.get(
                 properties.getProperty(AbstractServer.Config.WORKING_DIR_KEY,
@@ -403,8 +435,9 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
 
             this.leader = new Leader(journal, state, snapshots, currentTerm.get(),
                     uri, config.getCacheRequests(), config.getHeartbeatIntervalMs(), config.getRpcTimeoutMs(),
-                    config.getReplicationBatchSize(),
-                    config.getSnapshotIntervalSec(), threads,
+                    config.getReplicationBatchSize(), config.getReplicationParallelism(),
+                    config.getAppendBatchSize(), config.getAppendBatchBytes(), config.getFlushBatchSize(), config.getSnapshotIntervalSec(),
+                    config.getSnapshotTrunkSize(), config.getSnapshotInstallWindow(), threads,
                     this, this, scheduledExecutor, voterConfigManager, this,
                     this.journalEntryParser, config.getTransactionTimeoutMs(), snapshots);
             leader.start();
@@ -498,7 +531,8 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
             leaderUri = request.getLeader();
         }
 
-        return CompletableFuture.completedFuture(follower.handleAppendEntriesRequest(request));
+        // 日志在单独的线程中写入，不阻塞网络线程；心跳直接处理
+        return follower.addAppendEntriesRequest(request);
     }
 
     /**
@@ -637,9 +671,11 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
 
     @Override
     public CompletableFuture<QueryStateResponse> queryClusterState(QueryStateRequest request) {
-        return waitLeadership()
-                .thenApplyAsync(aVoid -> state.query(request.getQuery(), journal).getResult(), asyncExecutor)
-                .thenApply(QueryStateResponse::new)
+        return (config.isReadIndexEnabled() && voterState() == VoterState.FOLLOWER ? waitReadIndex() : waitLeadership())
+                .thenCompose(aVoid -> awaitQueryable(request.getQuery()))
+                .thenApplyAsync(aVoid -> state.query(request.getQuery(), journal), asyncExecutor)
+                // 带上lastApplied，客户端后续的SEQUENTIAL查询不会读到比这次更旧的状态
+                .thenApply(queryResult -> new QueryStateResponse(queryResult.getResult(), queryResult.getLastApplied()))
                 .exceptionally(exception -> {
                     try {
                         throw exception instanceof CompletionException ? exception.getCause() : exception;
@@ -685,6 +721,32 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
                 });
     }
 
+    /**
+     * ReadIndex：FOLLOWER从LEADER获取读取位置（LEADER上状态机的lastApplied），
+     * 等本地状态机执行到这个位置之后，在本地执行查询，查询结果满足线性一致。
+     * 并发的读请求共用一次RPC，参见{@link ReadIndexRequester}。
+     */
+    private CompletableFuture<Void> waitReadIndex() {
+        return readIndexRequester.readIndex().thenCompose(this::waitForApplied);
+    }
+
+    private CompletableFuture<Long> requestReadIndex() {
+        URI finalLeaderUri = leaderUri;
+        if (null == finalLeaderUri) {
+            CompletableFuture<Long> future = new CompletableFuture<>();
+            future.completeExceptionally(new NoLeaderException());
+            return future;
+        }
+        return getServerRpc(finalLeaderUri)
+                .thenCompose(ClientServerRpc::lastApplied)
+                .thenApply(response -> {
+                    if (!response.success()) {
+                        throw new IllegalStateException("Get read index from leader failed, " + response.errorString());
+                    }
+                    return response.getLastApplied();
+                });
+    }
+
     private CompletableFuture<Void> waitLeadership() {
         Leader finalLeader = leader;
         if (isLeaderAvailable(finalLeader)) {
@@ -776,7 +838,8 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
     public CompletableFuture<CreateTransactionResponse> createTransaction(CreateTransactionRequest request) {
         if (voterState.getState() == VoterState.LEADER && leader != null) {
             return leader.createTransaction(request.getContext())
-                    .thenApply(context -> new CreateTransactionResponse((UUIDTransactionId) context.transactionId(), context.timestamp()));
+                    .thenApply(context -> new CreateTransactionResponse((UUIDTransactionId) context.transactionId(), context.timestamp()))
+                    .exceptionally(CreateTransactionResponse::new);
         } else {
             return CompletableFuture.completedFuture(new CreateTransactionResponse(new NotLeaderException(leaderUri)));
         }
@@ -786,7 +849,8 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
     public CompletableFuture<CompleteTransactionResponse> completeTransaction(CompleteTransactionRequest request) {
         if (voterState.getState() == VoterState.LEADER && leader != null) {
             return leader.completeTransaction(request.getTransactionId(), request.isCommitOrAbort())
-                    .thenApply(aVoid -> new CompleteTransactionResponse());
+                    .thenApply(aVoid -> new CompleteTransactionResponse())
+                    .exceptionally(CompleteTransactionResponse::new);
         } else {
             return CompletableFuture.completedFuture(new CompleteTransactionResponse(new NotLeaderException(leaderUri)));
         }
@@ -795,8 +859,9 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
     @Override
     public CompletableFuture<GetOpeningTransactionsResponse> getOpeningTransactions() {
         if (voterState.getState() == VoterState.LEADER && leader != null) {
-            return CompletableFuture.completedFuture(leader.getOpeningTransactions())
-                    .thenApply(GetOpeningTransactionsResponse::new);
+            return leader.getOpeningTransactions()
+                    .thenApply(GetOpeningTransactionsResponse::new)
+                    .exceptionally(GetOpeningTransactionsResponse::new);
         } else {
             return CompletableFuture.completedFuture(new GetOpeningTransactionsResponse(new NotLeaderException(leaderUri)));
         }
@@ -888,11 +953,11 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
     }
 
     @Override
-    protected void afterStateChanged(byte[] updateResult) {
-        super.afterStateChanged(updateResult);
+    protected void afterStateChanged(long lastApplied, byte[] updateResult) {
+        super.afterStateChanged(lastApplied, updateResult);
         if (null != leader) {
             try {
-                leader.callback(state.lastApplied(), updateResult);
+                leader.callback(lastApplied, updateResult);
             } catch (Throwable e) {
                 logger.warn("Callback exception! {}", voterInfo(), e);
             }
@@ -1034,26 +1099,41 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
         public final static long DEFAULT_HEARTBEAT_INTERVAL_MS = 100L;
         public final static long DEFAULT_ELECTION_TIMEOUT_MS = 300L;
         public final static int DEFAULT_REPLICATION_BATCH_SIZE = 128;
+        public final static int DEFAULT_REPLICATION_PARALLELISM = 1;
+        public final static int DEFAULT_APPEND_BATCH_SIZE = 256;
+        public final static int DEFAULT_APPEND_BATCH_BYTES = 4 * 1024 * 1024;
         public final static int DEFAULT_CACHE_REQUESTS = 1024;
         public final static long DEFAULT_TRANSACTION_TIMEOUT_MS = 10L * 60 * 1000;
         public final static int DEFAULT_PRINT_STATE_INTERVAL_SEC = 0;
         public final static boolean DEFAULT_ENABLE_PRE_VOTE = true;
+        public final static int DEFAULT_SNAPSHOT_INSTALL_WINDOW = 8;
+        public final static boolean DEFAULT_READ_INDEX_ENABLED = true;
 
         public final static String HEARTBEAT_INTERVAL_KEY = "heartbeat_interval_ms";
         public final static String ELECTION_TIMEOUT_KEY = "election_timeout_ms";
         public final static String REPLICATION_BATCH_SIZE_KEY = "replication_batch_size";
+        public final static String REPLICATION_PARALLELISM_KEY = "replication_parallelism";
+        public final static String APPEND_BATCH_SIZE_KEY = "append_batch_size";
+        public final static String APPEND_BATCH_BYTES_KEY = "append_batch_bytes";
         public final static String CACHE_REQUESTS_KEY = "cache_requests";
         public final static String TRANSACTION_TIMEOUT_MS_KEY = "transaction_timeout_ms";
         public final static String PRINT_STATE_INTERVAL_SEC_KEY = "print_state_interval_sec";
         public final static String ENABLE_PRE_VOTE_KEY = "enable_pre_vote";
+        public final static String SNAPSHOT_INSTALL_WINDOW_KEY = "snapshot_install_window";
+        public final static String READ_INDEX_ENABLED_KEY = "read_index_enabled";
 
         private long heartbeatIntervalMs = DEFAULT_HEARTBEAT_INTERVAL_MS;
         private long electionTimeoutMs = DEFAULT_ELECTION_TIMEOUT_MS;  // 最小选举超时
         private int replicationBatchSize = DEFAULT_REPLICATION_BATCH_SIZE;
+        private int replicationParallelism = DEFAULT_REPLICATION_PARALLELISM; // 每个FOLLOWER最大在途复制请求数
+        private int appendBatchSize = DEFAULT_APPEND_BATCH_SIZE; // LEADER一次合并写入的最大请求数
+        private int appendBatchBytes = DEFAULT_APPEND_BATCH_BYTES; // LEADER一次合并写入的最大字节数
         private int cacheRequests = DEFAULT_CACHE_REQUESTS;
         private long transactionTimeoutMs = DEFAULT_TRANSACTION_TIMEOUT_MS;
         private int printStateIntervalSec = DEFAULT_PRINT_STATE_INTERVAL_SEC;
         private boolean enablePreVote = DEFAULT_ENABLE_PRE_VOTE;
+        private int snapshotInstallWindow = DEFAULT_SNAPSHOT_INSTALL_WINDOW; // 安装快照时每个FOLLOWER最大在途trunk数
+        private boolean readIndexEnabled = DEFAULT_READ_INDEX_ENABLED; // FOLLOWER是否使用ReadIndex处理强一致读请求
         public int getReplicationBatchSize() {
             return replicationBatchSize;
         }
@@ -1062,6 +1142,46 @@ class Voter extends AbstractServer implements CheckTermInterceptor {
             this.replicationBatchSize = replicationBatchSize;
         }
 
+        public boolean isReadIndexEnabled() {
+            return readIndexEnabled;
+        }
+
+        public void setReadIndexEnabled(boolean readIndexEnabled) {
+            this.readIndexEnabled = readIndexEnabled;
+        }
+
+        public int getSnapshotInstallWindow() {
+            return snapshotInstallWindow;
+        }
+
+        public void setSnapshotInstallWindow(int snapshotInstallWindow) {
+            this.snapshotInstallWindow = snapshotInstallWindow;
+        }
+
+        public int getReplicationParallelism() {
+            return replicationParallelism;
+        }
+
+        public void setReplicationParallelism(int replicationParallelism) {
+            this.replicationParallelism = replicationParallelism;
+        }
+
+        public int getAppendBatchSize() {
+            return appendBatchSize;
+        }
+
+        public void setAppendBatchSize(int appendBatchSize) {
+            this.appendBatchSize = appendBatchSize;
+        }
+
+        public int getAppendBatchBytes() {
+            return appendBatchBytes;
+        }
+
+        public void setAppendBatchBytes(int appendBatchBytes) {
+            this.appendBatchBytes = appendBatchBytes;
+        }
+
 
         public long getHeartbeatIntervalMs() {
             return heartbeatIntervalMs;
@@ -136,7 +136,7 @@ public class VoterConfigManager {
         for (byte[] rawEntry : entries) {
             JournalEntry entryHeader = journalEntryParser.parseHeader(rawEntry);
             if (entryHeader.getPartition() == INTERNAL_PARTITION) {
-                int headerLength = journalEntryParser.headerLength();
+                int headerLength = entryHeader.getHeaderLength();
                 InternalEntryType entryType = InternalEntriesSerializeSupport.parseEntryType(rawEntry, headerLength, rawEntry.length - headerLength);
                 if (entryType == TYPE_UPDATE_VOTERS_S1) {
                     UpdateVotersS1Entry updateVotersS1Entry = InternalEntriesSerializeSupport.parse(rawEntry, headerLength, rawEntry.length - headerLength);
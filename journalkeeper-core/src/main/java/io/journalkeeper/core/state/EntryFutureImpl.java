@@ -18,6 +18,6 @@ public class EntryFutureImpl implements EntryFuture {
 
     @Override
     public byte[] get() {
-        return journal.readByOffset(offset).getPayload().getBytes();
+        return journal.readPayloadByOffset(offset);
     }
 }
@@ -40,13 +40,14 @@ package io.journalkeeper.core.state;
 
 import io.journalkeeper.base.ReplicableIterator;
 
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -63,6 +64,8 @@ public class FolderTrunkIterator implements ReplicableIterator {
     private int fileIndex = 0;
     private long offsetOfCurrentFile = 0;
     private long offset;
+    // 当前正在读取的文件，读完之前一直保持打开
+    private FileChannel currentFileChannel = null;
 
     // 标记该文件是目录的魔法值
     public static final byte [] DIRECTORY_MAGIC_CODE = "Panda&XiGua".getBytes(StandardCharsets.UTF_8);
@@ -128,11 +131,16 @@ public class FolderTrunkIterator implements ReplicableIterator {
         if(Files.isDirectory(file)) {
             buffer.put(DIRECTORY_MAGIC_CODE);
         } else {
-            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r"); FileChannel fc = raf.getChannel()) {
-                fc.position(offsetOfCurrentFile);
-                while (buffer.hasRemaining()) {
-                    fc.read(buffer);
+            if (null == currentFileChannel) {
+                currentFileChannel = FileChannel.open(file, StandardOpenOption.READ);
+            }
+            long position = offsetOfCurrentFile;
+            while (buffer.hasRemaining()) {
+                int read = currentFileChannel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException(String.format("Unexpected end of file: %s, position: %d!", file, position));
                 }
+                position += read;
             }
         }
 
@@ -141,11 +149,24 @@ public class FolderTrunkIterator implements ReplicableIterator {
         if (offsetOfCurrentFile == fileSize) {
             fileIndex++;
             offsetOfCurrentFile = 0;
+            closeCurrentFile();
         }
         offset += trunk.length;
         return trunk;
     }
 
+    private void closeCurrentFile() throws IOException {
+        if (null != currentFileChannel) {
+            currentFileChannel.close();
+            currentFileChannel = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeCurrentFile();
+    }
+
     @Override
     public boolean hasMoreTrunks() {
         return fileIndex < files.size();
@@ -40,10 +40,13 @@ package io.journalkeeper.core.state;
 
 import io.journalkeeper.base.Replicable;
 import io.journalkeeper.base.ReplicableIterator;
+import io.journalkeeper.core.api.Checkpointable;
+import io.journalkeeper.core.api.LongPollState;
 import io.journalkeeper.core.api.EntryFuture;
 import io.journalkeeper.core.api.JournalEntry;
 import io.journalkeeper.core.api.RaftJournal;
 import io.journalkeeper.core.api.State;
+import io.journalkeeper.core.api.StateEntry;
 import io.journalkeeper.core.api.StateFactory;
 import io.journalkeeper.core.api.StateResult;
 import io.journalkeeper.core.entry.internal.InternalEntriesSerializeSupport;
@@ -51,6 +54,7 @@ import io.journalkeeper.core.entry.internal.InternalEntryType;
 import io.journalkeeper.core.entry.internal.ScalePartitionsEntry;
 import io.journalkeeper.core.entry.internal.SetPreferredLeaderEntry;
 import io.journalkeeper.core.journal.JournalSnapshot;
+import io.journalkeeper.exceptions.StateBatchExecutionException;
 import io.journalkeeper.exceptions.StateRecoverException;
 import io.journalkeeper.persistence.MetadataPersistence;
 import io.journalkeeper.utils.files.FileUtils;
@@ -66,6 +70,7 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -73,10 +78,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
 
 import static io.journalkeeper.core.api.RaftJournal.INTERNAL_PARTITION;
 import static io.journalkeeper.core.api.RaftJournal.RESERVED_PARTITIONS_START;
@@ -236,29 +243,98 @@ public class JournalKeeperState implements Flushable {
     }
 
     public StateResult applyEntry(JournalEntry entryHeader, EntryFuture entryFuture, RaftJournal journal) {
-        int partition = entryHeader.getPartition();
-        int batchSize = entryHeader.getBatchSize();
-
-        StateResult result = new StateResult(null);
         long stamp = stateLock.writeLock();
         try {
-            if (partition < RESERVED_PARTITIONS_START) {
-                result = userState.execute(entryFuture, partition, lastApplied(), batchSize, journal);
-            } else if (partition == INTERNAL_PARTITION) {
-                applyInternalEntry(entryFuture.get());
-            } else {
+            return applyEntryUnsafe(entryHeader, entryFuture, journal);
+        }
+        finally {
+            stateLock.unlockWrite(stamp);
+        }
+    }
 
-                for (ApplyReservedEntryInterceptor reservedEntryInterceptor : reservedEntryInterceptors) {
-                    reservedEntryInterceptor.applyReservedEntry(entryHeader, entryFuture, lastApplied());
+    /**
+     * 批量执行一组连续的entry，只加一次写锁。
+     * 其中连续的用户分区entry通过{@link State#executeBatch(List, RaftJournal)}一次交给状态机执行，
+     * 其它entry逐条执行。
+     * 执行失败时，已经执行成功的entry仍然计入lastApplied，并通过{@link StateBatchExecutionException}返回它们的执行结果，
+     * 重试时从失败的entry开始执行，不会重复执行。
+     * @param entryHeaders 从lastApplied开始连续的entry header
+     * @param entryFutures 与entryHeaders一一对应的entry
+     * @param journal 当前的journal
+     * @return 每条entry的执行结果
+     * @throws StateBatchExecutionException 部分entry执行成功后执行失败
+     */
+    public List<StateResult> applyEntries(List<JournalEntry> entryHeaders, List<EntryFuture> entryFutures, RaftJournal journal) {
+        List<StateResult> results = new ArrayList<>(entryHeaders.size());
+        long stamp = stateLock.writeLock();
+        try {
+            int i = 0;
+            while (i < entryHeaders.size()) {
+                int end = i;
+                while (end < entryHeaders.size() && entryHeaders.get(end).getPartition() < RESERVED_PARTITIONS_START) {
+                    end++;
+                }
+                if (end > i) {
+                    List<StateEntry> stateEntries = new ArrayList<>(end - i);
+                    for (int j = i; j < end; j++) {
+                        JournalEntry entryHeader = entryHeaders.get(j);
+                        stateEntries.add(new StateEntry(entryFutures.get(j), entryHeader.getPartition(),
+                                lastApplied() + j - i, entryHeader.getBatchSize()));
+                    }
+                    List<StateResult> userResults;
+                    try {
+                        userResults = userState.executeBatch(stateEntries, journal);
+                    } catch (StateBatchExecutionException e) {
+                        // 只有前面的部分entry执行成功，记录这些entry的执行进度
+                        appendUserResults(entryHeaders, i, e.getResults(), results);
+                        throw new StateBatchExecutionException(results, e.getCause());
+                    }
+                    appendUserResults(entryHeaders, i, userResults, results);
+                    i = end;
+                } else {
+                    results.add(applyEntryUnsafe(entryHeaders.get(i), entryFutures.get(i), journal));
+                    i++;
                 }
             }
-            internalState.setLastIncludedTerm(entryHeader.getTerm());
+        } catch (RuntimeException | Error t) {
+            if (results.isEmpty() || t instanceof StateBatchExecutionException) {
+                throw t;
+            }
+            throw new StateBatchExecutionException(results, t);
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+        return results;
+    }
+
+    private void appendUserResults(List<JournalEntry> entryHeaders, int from, List<StateResult> userResults, List<StateResult> results) {
+        for (int j = 0; j < userResults.size(); j++) {
+            StateResult result = userResults.get(j);
+            internalState.setLastIncludedTerm(entryHeaders.get(from + j).getTerm());
             internalState.next();
             result.setLastApplied(lastApplied());
+            results.add(result);
         }
-        finally {
-            stateLock.unlockWrite(stamp);
+    }
+
+    private StateResult applyEntryUnsafe(JournalEntry entryHeader, EntryFuture entryFuture, RaftJournal journal) {
+        int partition = entryHeader.getPartition();
+        int batchSize = entryHeader.getBatchSize();
+
+        StateResult result = new StateResult(null);
+        if (partition < RESERVED_PARTITIONS_START) {
+            result = userState.execute(entryFuture, partition, lastApplied(), batchSize, journal);
+        } else if (partition == INTERNAL_PARTITION) {
+            applyInternalEntry(entryFuture.get());
+        } else {
+
+            for (ApplyReservedEntryInterceptor reservedEntryInterceptor : reservedEntryInterceptors) {
+                reservedEntryInterceptor.applyReservedEntry(entryHeader, entryFuture, lastApplied());
+            }
         }
+        internalState.setLastIncludedTerm(entryHeader.getTerm());
+        internalState.next();
+        result.setLastApplied(lastApplied());
         return result;
     }
 
@@ -328,17 +404,56 @@ public class JournalKeeperState implements Flushable {
         return result;
     }
 
+    /**
+     * 长轮询查询时，判断查询是否需要等待，参见{@link LongPollState}。
+     * @param query 查询条件
+     * @param journal 当前的journal
+     * @return 需要等待时返回future，否则返回null
+     */
+    public CompletableFuture<Void> awaitQueryable(byte[] query, RaftJournal journal) {
+        State currentUserState = userState;
+        if (currentUserState instanceof LongPollState) {
+            return ((LongPollState) currentUserState).awaitQueryable(query, journal);
+        }
+        return null;
+    }
+
+    /**
+     * 复制当前状态到destPath。
+     * 如果用户状态机实现了{@link Checkpointable}，优先使用状态机自己生成的检查点，
+     * 否则复制状态目录，其中不可变的文件使用硬链接。
+     * @param destPath 目标目录
+     * @throws IOException 发生IO异常时抛出
+     */
     public void dump(Path destPath) throws IOException {
         flush();
         try {
             stateFilesLock.readLock().lock();
-
-            FileUtils.dump(path, destPath);
+            if (userState instanceof Checkpointable &&
+                    ((Checkpointable) userState).checkpoint(destPath.resolve(USER_STATE_PATH))) {
+                FileUtils.dump(path.resolve(INTERNAL_STATE_PATH), destPath.resolve(INTERNAL_STATE_PATH));
+            } else {
+                FileUtils.dump(path, destPath, immutableUserStateFiles());
+            }
         } finally {
             stateFilesLock.readLock().unlock();
         }
     }
 
+    /**
+     * 用户状态目录中可以使用硬链接复制的不可变文件
+     */
+    Predicate<Path> immutableUserStateFiles() {
+        State currentUserState = userState;
+        Path userStatePath = path.resolve(USER_STATE_PATH);
+        if (currentUserState instanceof Checkpointable) {
+            Checkpointable checkpointable = (Checkpointable) currentUserState;
+            return file -> file.startsWith(userStatePath) && checkpointable.isImmutable(userStatePath.relativize(file));
+        } else {
+            return file -> false;
+        }
+    }
+
     public List<URI> voters() {
         return internalState.getConfigState().voters();
     }
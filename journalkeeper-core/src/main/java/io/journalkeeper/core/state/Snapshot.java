@@ -34,7 +34,7 @@ public class Snapshot extends JournalKeeperState implements Replicable {
 private static final Logger logger = LoggerFactory.getLogger(Snapshot.class);
     private static final String SNAPSHOT_FILE = "snapshot";
     private AtomicBoolean isUserStateAvailable = new AtomicBoolean(false);
-    private static final int MAX_TRUNK_SIZE = 1024 * 1024;
+    public static final int MAX_TRUNK_SIZE = 1024 * 1024;
 
     public Snapshot(StateFactory userStateFactory, MetadataPersistence metadataPersistence) {
         super(userStateFactory, metadataPersistence);
@@ -98,7 +98,7 @@ private static final Logger logger = LoggerFactory.getLogger(Snapshot.class);
 
     public void dumpUserState(Path destPath) throws IOException {
 
-        FileUtils.dump(path.resolve(USER_STATE_PATH), destPath.resolve(USER_STATE_PATH));
+        FileUtils.dump(path.resolve(USER_STATE_PATH), destPath.resolve(USER_STATE_PATH), immutableUserStateFiles());
     }
 
     public static void markComplete(Path path) throws IOException {
@@ -108,7 +108,12 @@ private static final Logger logger = LoggerFactory.getLogger(Snapshot.class);
 
     @Override
     public ReplicableIterator iterator() throws IOException {
-        return new FolderTrunkIterator(path, listAllFiles(path), MAX_TRUNK_SIZE, lastIncludedIndex(), lastIncludedTerm());
+        return iterator(MAX_TRUNK_SIZE);
+    }
+
+    @Override
+    public ReplicableIterator iterator(int maxTrunkSize) throws IOException {
+        return new FolderTrunkIterator(path, listAllFiles(path), maxTrunkSize, lastIncludedIndex(), lastIncludedTerm());
     }
 
     /**
@@ -16,6 +16,7 @@ package io.journalkeeper.core.transaction;
 import io.journalkeeper.core.api.EntryFuture;
 import io.journalkeeper.core.api.JournalEntry;
 import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.api.RaftJournal;
 import io.journalkeeper.core.api.UpdateRequest;
 import io.journalkeeper.core.api.transaction.JournalKeeperTransactionContext;
 import io.journalkeeper.core.api.transaction.UUIDTransactionId;
@@ -39,17 +40,24 @@ import java.util.concurrent.ScheduledExecutorService;
  */
 public class JournalTransactionManager extends ServerStateMachine {
     public static final int TRANSACTION_PARTITION_START = 30000;
+    /**
+     * 初始化时创建的事务分区数量，打开的事务超过这个数量时按需增加事务分区
+     */
     public static final int TRANSACTION_PARTITION_COUNT = 32;
+    /**
+     * 事务分区数量的上限，事务分区使用保留分区中[TRANSACTION_PARTITION_START, INTERNAL_PARTITION)的部分
+     */
+    public static final int TRANSACTION_PARTITION_MAX_COUNT = RaftJournal.INTERNAL_PARTITION - TRANSACTION_PARTITION_START;
 
     private final ClientServerRpc server;
     private final JournalTransactionState transactionState;
     private final Map<UUID, CompletableFuture<Void>> pendingCompleteTransactionFutures = new ConcurrentHashMap<>();
     private final TransactionEntrySerializer transactionEntrySerializer = new TransactionEntrySerializer();
 
-    public JournalTransactionManager(Journal journal, ClientServerRpc server,
+    public JournalTransactionManager(Journal journal, JournalEntryParser journalEntryParser, ClientServerRpc server,
                                      ScheduledExecutorService scheduledExecutor, long transactionTimeoutMs) {
         this.server = server;
-        this.transactionState = new JournalTransactionState(journal, transactionTimeoutMs, server, scheduledExecutor);
+        this.transactionState = new JournalTransactionState(journal, journalEntryParser, transactionTimeoutMs, server, scheduledExecutor);
     }
 
     @Override
@@ -58,6 +66,13 @@ public class JournalTransactionManager extends ServerStateMachine {
         this.transactionState.start();
     }
 
+    /**
+     * 恢复事务状态，在LEADER_ANNOUNCEMENT日志执行时调用
+     */
+    public void recover() {
+        this.transactionState.recover();
+    }
+
     @Override
     protected void doStop() {
         this.transactionState.stop();
@@ -72,6 +87,11 @@ public class JournalTransactionManager extends ServerStateMachine {
         byte[] serializedEntry = transactionEntrySerializer.serialize(entry);
 
         return server.updateClusterState(new UpdateClusterStateRequest(new UpdateRequest(serializedEntry, partition, 1)))
+                .whenComplete((response, throwable) -> {
+                    if (null != throwable || !response.success()) {
+                        transactionState.releasePartition(partition);
+                    }
+                })
                 .thenApply(response -> {
                     if (response.success()) {
                         return new JournalKeeperTransactionContext(
@@ -119,11 +139,11 @@ public class JournalTransactionManager extends ServerStateMachine {
         return transactionState.getOpeningTransactions();
     }
 
-    public void applyEntry(JournalEntry entryHeader, EntryFuture entryFuture) {
+    public void applyEntry(JournalEntry entryHeader, EntryFuture entryFuture, long index) {
         int partition = entryHeader.getPartition();
         if (transactionState.isTransactionPartition(partition)) {
             TransactionEntry transactionEntry = transactionEntrySerializer.parse(entryFuture.get());
-            transactionState.applyEntry(transactionEntry, partition, pendingCompleteTransactionFutures);
+            transactionState.applyEntry(transactionEntry, partition, index, pendingCompleteTransactionFutures);
         }
     }
 }
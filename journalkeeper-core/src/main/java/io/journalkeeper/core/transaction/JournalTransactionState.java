@@ -29,22 +29,22 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static io.journalkeeper.core.transaction.JournalTransactionManager.TRANSACTION_PARTITION_COUNT;
+import static io.journalkeeper.core.transaction.JournalTransactionManager.TRANSACTION_PARTITION_MAX_COUNT;
 import static io.journalkeeper.core.transaction.JournalTransactionManager.TRANSACTION_PARTITION_START;
 
 /**
@@ -57,31 +57,37 @@ class JournalTransactionState extends ServerStateMachine {
     private static final Logger logger = LoggerFactory.getLogger(JournalTransactionState.class);
     private static final long RETRY_COMPLETE_TRANSACTION_INTERVAL_MS = 10000L;
     private final Journal journal;
+    private final JournalEntryParser journalEntryParser;
     private final Map<Integer /* partition */, TransactionEntryType /* last transaction entry type */> partitionStatusMap;
     private final Map<UUID /* transaction id */, TransactionState /* transaction state */> openingTransactionMap;
     private final ClientServerRpc server;
     private final TransactionEntrySerializer transactionEntrySerializer = new TransactionEntrySerializer();
-    private final AtomicInteger nextFreePartition = new AtomicInteger(TRANSACTION_PARTITION_START);
+    // 下次分配事务分区时开始查找的位置，和partitionCount都由partitionStatusMap保护
+    private int nextFreePartition = TRANSACTION_PARTITION_START;
+    // 当前已经使用的事务分区数量，所有分区都被占用时再增加一个分区，最多TRANSACTION_PARTITION_MAX_COUNT个
+    private int partitionCount = TRANSACTION_PARTITION_COUNT;
     private final DelayQueue<CompleteTransactionRetry> retryCompleteTransactions = new DelayQueue<>();
     private final ScheduledExecutorService scheduledExecutor;
     private final long transactionTimeoutMs;
     private ScheduledFuture retryCompleteTransactionScheduledFuture = null;
     private ScheduledFuture checkOutdatedTransactionsScheduledFuture = null;
+    // 恢复事务状态之前，状态机执行的事务日志由恢复过程处理
+    private volatile boolean recovered = false;
 
-    JournalTransactionState(Journal journal, long transactionTimeoutMs, ClientServerRpc server, ScheduledExecutorService scheduledExecutor) {
+    JournalTransactionState(Journal journal, JournalEntryParser journalEntryParser, long transactionTimeoutMs, ClientServerRpc server, ScheduledExecutorService scheduledExecutor) {
         super(false);
         this.journal = journal;
+        this.journalEntryParser = journalEntryParser;
         this.transactionTimeoutMs = transactionTimeoutMs;
         this.server = server;
         this.scheduledExecutor = scheduledExecutor;
-        this.partitionStatusMap = new HashMap<>(TRANSACTION_PARTITION_COUNT);
-        this.openingTransactionMap = new HashMap<>(TRANSACTION_PARTITION_COUNT);
+        this.partitionStatusMap = new ConcurrentHashMap<>(TRANSACTION_PARTITION_COUNT);
+        this.openingTransactionMap = new ConcurrentHashMap<>(TRANSACTION_PARTITION_COUNT);
     }
 
     @Override
     protected void doStart() {
         super.doStart();
-        recoverTransactionState();
         retryCompleteTransactionScheduledFuture = scheduledExecutor.scheduleWithFixedDelay(
                 this::retryCompleteTransactions,
                 RETRY_COMPLETE_TRANSACTION_INTERVAL_MS,
@@ -110,40 +116,101 @@ class JournalTransactionState extends ServerStateMachine {
     private void abortOutdatedTransactions() {
         long currentTimestamp = System.currentTimeMillis();
         openingTransactionMap.forEach((transactionId, state) -> {
-            int partition = state.getPartition();
-            long i = journal.maxIndex(partition);
-            while (--i >= journal.minIndex(partition)) {
-                JournalEntry journalEntry = journal.readByPartition(partition, i);
-                TransactionEntry transactionEntry = transactionEntrySerializer.parse(journalEntry.getPayload().getBytes());
-
-                if (!transactionId.equals(transactionEntry.getTransactionId())) {
-                    break;
-                }
-
-                if (transactionEntry.getType() == TransactionEntryType.TRANSACTION_START) {
-                    long transactionCreateTimestamp = transactionEntry.getTimestamp();
-                    if (transactionCreateTimestamp + transactionTimeoutMs < currentTimestamp) {
-                        logger.info("Abort outdated transaction: {}.", transactionId.toString());
-                        writeTransactionCompleteEntry(transactionId, false, partition);
-                    }
-                    break;
-                }
+            long transactionCreateTimestamp = state.getContext().timestamp();
+            if (transactionCreateTimestamp + transactionTimeoutMs < currentTimestamp) {
+                logger.info("Abort outdated transaction: {}.", transactionId.toString());
+                writeTransactionCompleteEntry(transactionId, false, state.getPartition());
             }
-
         });
     }
 
+    /**
+     * 失败的提交稍后重试，重试时从日志中读取提交进度，跳过已经写入的日志。
+     * 失败之前已经写入的日志可能还没有提交，需要等到提交之后才能读到准确的提交进度。
+     */
     private void retryCompleteTransactions() {
         CompleteTransactionRetry retry;
         while ((retry = retryCompleteTransactions.poll()) != null) {
-            completeTransaction(retry.getTransactionId(), true, retry.getPartition());
+            if (journal.commitIndex() < retry.getCommitIndexBarrier()) {
+                retryCompleteTransactions.put(new CompleteTransactionRetry(
+                        retry.getTransactionId(), retry.getPartition(), retry.getCommitIndexBarrier()));
+                continue;
+            }
+            int committedCount = readCommittedCount(retry.getTransactionId(), retry.getPartition());
+            if (committedCount >= 0) {
+                completeTransaction(retry.getTransactionId(), true, retry.getPartition(), committedCount);
+            }
+        }
+    }
+
+    /**
+     * 从事务分区中读取事务的提交进度。
+     * 找到这个事务最后一条TRANSACTION_COMMIT_CHUNK日志，加上它之前已经写入的日志数量，
+     * 再从它的位置向后数出同一个请求中实际存在的日志数量。
+     * 同一个请求中的日志连续写入并且任期相同，选举之后没有复制完成的日志会被新LEADER的日志覆盖，
+     * 所以遇到任期不同的日志就说明这个请求只写入了一部分。
+     * @return 已经写入的日志数量；事务已经完成返回-1
+     */
+    int readCommittedCount(UUID transactionId, int partition) {
+        long i = journal.maxIndex(partition);
+        long minIndex = journal.minIndex(partition);
+        while (i > minIndex) {
+            TransactionEntry transactionEntry = transactionEntrySerializer.parse(
+                    journal.readByPartition(partition, --i).getPayload().getBytes());
+            if (!transactionId.equals(transactionEntry.getTransactionId())) {
+                break;
+            }
+            switch (transactionEntry.getType()) {
+                case TRANSACTION_COMPLETE:
+                    return -1;
+                case TRANSACTION_COMMIT_CHUNK:
+                    return transactionEntry.getCommittedCount() +
+                            countChunkEntries(partition, i, transactionEntry.getChunkSize());
+                case TRANSACTION_START:
+                case TRANSACTION_PRE_COMPLETE:
+                    return 0;
+                default:
+            }
         }
+        return 0;
+    }
+
+    private int countChunkEntries(int partition, long index, int chunkSize) {
+        long offset = journal.readOffsetByPartition(partition, index);
+        JournalEntry header = journal.readEntryHeaderByOffset(offset);
+        int term = header.getTerm();
+        offset += header.getLength();
+        long maxOffset = journal.maxOffset();
+        int count = 0;
+        while (count < chunkSize && offset < maxOffset) {
+            header = journal.readEntryHeaderByOffset(offset);
+            if (header.getTerm() != term) {
+                break;
+            }
+            offset += header.getLength();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 恢复事务状态，需要在LEADER的第一条日志（LEADER_ANNOUNCEMENT）执行时调用。
+     * 这时之前任期的日志都已经提交，事务分区中的日志是完整的，并且本任期还没有写入任何事务日志。
+     */
+    void recover() {
+        recoverTransactionState();
+        recovered = true;
     }
 
     private void recoverTransactionState() {
-        for (int i = 0; i < TRANSACTION_PARTITION_COUNT; i++) {
-            int partition = TRANSACTION_PARTITION_START + i;
-            if (journal.getPartitions().contains(partition) && journal.maxIndex(partition) > 0) {
+        for (int partition : journal.getPartitions()) {
+            if (!isTransactionPartition(partition)) {
+                continue;
+            }
+            synchronized (partitionStatusMap) {
+                partitionCount = Math.max(partitionCount, partition - TRANSACTION_PARTITION_START + 1);
+            }
+            if (journal.maxIndex(partition) > 0) {
                 logger.info("Recover transaction partition {}...", partition);
                 long index = journal.maxIndex(partition);
                 long minIndexOfPartition = journal.minIndex(partition);
@@ -155,64 +222,84 @@ class JournalTransactionState extends ServerStateMachine {
                         partitionStatusMap.put(partition, transactionEntry.getType());
 
                         // retry pre committed transaction
-                        if (transactionEntry.getType() == TransactionEntryType.TRANSACTION_PRE_COMPLETE) {
+                        if (transactionEntry.getType() == TransactionEntryType.TRANSACTION_PRE_COMPLETE ||
+                                transactionEntry.getType() == TransactionEntryType.TRANSACTION_COMMIT_CHUNK) {
                             retryCompleteTransactions.put(
-                                    new CompleteTransactionRetry(transactionEntry.getTransactionId(), partition)
+                                    new CompleteTransactionRetry(transactionEntry.getTransactionId(), partition, 0L)
                             );
                         }
                         lastEntryOfTheTransaction = false;
                     }
 
                     if (transactionEntry.getType() == TransactionEntryType.TRANSACTION_START) {
+                        // 恢复的事务没有内存中的日志索引，提交时从事务分区中查找
                         openingTransactionMap.put(
                                 transactionEntry.getTransactionId(),
                                 new TransactionState(partition, new JournalKeeperTransactionContext(
                                         new UUIDTransactionId(transactionEntry.getTransactionId()),
                                         transactionEntry.getContext(),
                                         transactionEntry.getTimestamp()
-                                ))
+                                ), false)
                         );
                         break;
                     }
                 }
-            } else {
-                partitionStatusMap.put(partition, TransactionEntryType.TRANSACTION_COMPLETE);
             }
         }
     }
 
+    /**
+     * 分配一个空闲的事务分区，分配出去的分区在事务结束之前不会再分配给其它事务。
+     * 所有分区都被占用时，增加一个新的事务分区。
+     * @return 分配的事务分区
+     * @throws TransactionException 事务分区已经达到上限，并且都被占用
+     */
     int nextFreePartition() {
-        int partition = nextPartition();
-        int start = partition;
         synchronized (partitionStatusMap) {
-            while (partitionStatusMap.getOrDefault(partition, TransactionEntryType.TRANSACTION_COMPLETE) != TransactionEntryType.TRANSACTION_COMPLETE) {
-                partition = nextPartition();
-                if (partition == start) {
-                    throw new TransactionException("No free transaction partition!");
+            for (int i = 0; i < partitionCount; i++) {
+                int partition = nextFreePartition;
+                nextFreePartition = partition + 1 < TRANSACTION_PARTITION_START + partitionCount ? partition + 1 : TRANSACTION_PARTITION_START;
+                if (partitionStatusMap.getOrDefault(partition, TransactionEntryType.TRANSACTION_COMPLETE) == TransactionEntryType.TRANSACTION_COMPLETE) {
+                    partitionStatusMap.put(partition, TransactionEntryType.TRANSACTION_START);
+                    return partition;
                 }
             }
-            return partition;
+            if (partitionCount < TRANSACTION_PARTITION_MAX_COUNT) {
+                int partition = TRANSACTION_PARTITION_START + partitionCount++;
+                logger.info("All {} transaction partitions are in use, add transaction partition {}.", partitionCount - 1, partition);
+                partitionStatusMap.put(partition, TransactionEntryType.TRANSACTION_START);
+                return partition;
+            }
+            throw new TransactionException("No free transaction partition!");
         }
     }
 
-
-    private int nextPartition() {
-        int partition = nextFreePartition.getAndIncrement();
-        nextFreePartition.compareAndSet(
-                TRANSACTION_PARTITION_START + TRANSACTION_PARTITION_COUNT,
-                TRANSACTION_PARTITION_START
-        );
-
-        return partition;
+    /**
+     * 释放分配之后没有成功创建事务的分区
+     * @param partition 事务分区
+     */
+    void releasePartition(int partition) {
+        synchronized (partitionStatusMap) {
+            if (partitionStatusMap.get(partition) == TransactionEntryType.TRANSACTION_START &&
+                    openingTransactionMap.values().stream().noneMatch(state -> state.getPartition() == partition)) {
+                partitionStatusMap.remove(partition);
+            }
+        }
     }
 
-    void applyEntry(TransactionEntry entry, int partition, Map<UUID, CompletableFuture<Void>> pendingCompleteTransactionFutures) {
-        if (partition < TRANSACTION_PARTITION_START || partition >= TRANSACTION_PARTITION_START + TRANSACTION_PARTITION_COUNT) {
+    void applyEntry(TransactionEntry entry, int partition, long index, Map<UUID, CompletableFuture<Void>> pendingCompleteTransactionFutures) {
+        if (!isTransactionPartition(partition)) {
             logger.warn("Ignore transaction entry, cause: partition {} is not a transaction partition.", partition);
             return;
         }
+        if (!recovered) {
+            return;
+        }
 
-        partitionStatusMap.put(partition, entry.getType());
+        synchronized (partitionStatusMap) {
+            partitionStatusMap.put(partition, entry.getType());
+            partitionCount = Math.max(partitionCount, partition - TRANSACTION_PARTITION_START + 1);
+        }
 
         switch (entry.getType()) {
             case TRANSACTION_START:
@@ -222,9 +309,15 @@ class JournalTransactionState extends ServerStateMachine {
                                 new UUIDTransactionId(entry.getTransactionId()),
                                 entry.getContext(),
                                 entry.getTimestamp()
-                        ))
+                        ), true)
                 );
                 break;
+            case TRANSACTION_ENTRY:
+                TransactionState transactionState = openingTransactionMap.get(entry.getTransactionId());
+                if (null != transactionState) {
+                    transactionState.addEntryIndex(index);
+                }
+                break;
             case TRANSACTION_PRE_COMPLETE:
                 completeTransaction(entry.getTransactionId(), entry.isCommitOrAbort(), partition);
                 break;
@@ -245,82 +338,70 @@ class JournalTransactionState extends ServerStateMachine {
      * 执行状态机阶段，针对“TRANSACTION_PRE_COMPLETE”的日志，需要执行：
      * <p>
      * 1. 如果操作是回滚，直接写入TRANSACTION_COMPLETE日志；
-     * 2. 如果操作是提交：
-     * 3. 这个事务中所有消息涉及到的每个分区：读出该分区的所有事务日志，组合成一个BatchEntry写入对应分区。
-     * 4. 上步骤中每条日志都写入成功后，写入TRANSACTION_COMPLETE日志，提交成功。
+     * 2. 如果操作是提交：按照写入的顺序读出这个事务的所有事务日志（优先使用内存中的日志索引，
+     * 没有索引时从后向前查找事务分区），
+     * 把每条日志写入对应的分区，最后加上TRANSACTION_COMPLETE日志，
+     * 这些日志尽量放在同一个请求中一次写入，只需要一次复制和刷盘；
+     * 超过单个日志文件或索引文件容量的大事务拆分成多个请求依次写入，TRANSACTION_COMPLETE日志在最后一个请求中。
+     * 每个请求的第一条日志是写入事务分区的TRANSACTION_COMMIT_CHUNK日志，记录提交进度。
+     * 3. 所有请求执行成功后，事务提交成功；失败或者LEADER变更时，稍后从日志中读取提交进度，跳过已经写入的日志重试。
+     * <p>
+     * 拆分成多个请求的事务，提交过程中每个请求的日志写入后即对读取可见，提交不是原子的。
      *
      * @param transactionId 事务ID。
      * @param commitOrAbort true：提条事务，false：回滚事务。
      */
     private void completeTransaction(UUID transactionId, boolean commitOrAbort, int partition) {
+        completeTransaction(transactionId, commitOrAbort, partition, 0);
+    }
+
+    /**
+     * @param committedCount 之前已经写入的日志数量，重试时跳过这些日志
+     */
+    private void completeTransaction(UUID transactionId, boolean commitOrAbort, int partition, int committedCount) {
 
         if (commitOrAbort) {
-            TransactionEntry transactionEntry;
-            int entryCount = 0;
-            long i = journal.maxIndex(partition);
-            Map<Integer /* partition */, List<TransactionEntry> /* transaction entries */> transactionEntriesByPartition
-                    = new HashMap<>();
-            long minIndex = journal.minIndex(partition);
-            do {
-                JournalEntry journalEntry = journal.readByPartition(partition, --i);
-                transactionEntry = transactionEntrySerializer.parse(journalEntry.getPayload().getBytes());
-
-                if (!transactionId.equals(transactionEntry.getTransactionId()) ||
-                        transactionEntry.getType() == TransactionEntryType.TRANSACTION_START) {
-                    break;
+            LinkedList<UpdateRequest> updateRequests = new LinkedList<>();
+            TransactionState transactionState = openingTransactionMap.get(transactionId);
+            List<Long> entryIndices = null == transactionState ? null : transactionState.getEntryIndices();
+            if (null != entryIndices) {
+                for (long index : entryIndices) {
+                    TransactionEntry transactionEntry = transactionEntrySerializer.parse(journal.read(index).getPayload().getBytes());
+                    updateRequests.addLast(new UpdateRequest(
+                            transactionEntry.getEntry(), transactionEntry.getPartition(), transactionEntry.getBatchSize()));
                 }
-
-                if (transactionEntry.getType() == TransactionEntryType.TRANSACTION_ENTRY) {
-                    entryCount++;
-                    List<TransactionEntry> list =
-                            transactionEntriesByPartition.computeIfAbsent(transactionEntry.getPartition(), p -> new LinkedList<>());
-                    list.add(transactionEntry);
+            } else {
+                long i = journal.maxIndex(partition);
+                long minIndex = journal.minIndex(partition);
+                // 从后向前读取事务分区，直到遇到这个事务的TRANSACTION_START
+                while (i > minIndex) {
+                    JournalEntry journalEntry = journal.readByPartition(partition, --i);
+                    TransactionEntry transactionEntry = transactionEntrySerializer.parse(journalEntry.getPayload().getBytes());
+                    if (!transactionId.equals(transactionEntry.getTransactionId()) ||
+                            transactionEntry.getType() == TransactionEntryType.TRANSACTION_START) {
+                        break;
+                    }
+                    if (transactionEntry.getType() == TransactionEntryType.TRANSACTION_ENTRY) {
+                        updateRequests.addFirst(new UpdateRequest(
+                                transactionEntry.getEntry(), transactionEntry.getPartition(), transactionEntry.getBatchSize()));
+                    }
                 }
+            }
 
-            } while (i > minIndex);
-
-            final AtomicInteger unFinishedRequests = new AtomicInteger(entryCount);
-
-            List<CompletableFuture> futures = new ArrayList<>(entryCount);
-
-            for (Map.Entry<Integer, List<TransactionEntry>> me : transactionEntriesByPartition.entrySet()) {
-                int bizPartition = me.getKey();
-                List<TransactionEntry> transactionEntries = me.getValue();
-
-                for (TransactionEntry te : transactionEntries) {
-                    futures.add(
-                            server
-                                    .updateClusterState(
-                                            new UpdateClusterStateRequest(
-                                                    new UpdateRequest(
-                                                            te.getEntry(), bizPartition, te.getBatchSize()
-                                                    )
-                                            )
-                                    )
-                                    .exceptionally(UpdateClusterStateResponse::new)
-                                    .thenAccept(response -> {
-                                        if (response.success()) {
-                                            unFinishedRequests.decrementAndGet();
-                                        } else {
-                                            logger.warn("Transaction commit {} failed! Cause: {}.",
-                                                    transactionId.toString(),
-                                                    response.errorString());
-                                        }
-                                    })
-                    );
-                }
+            int entryCount = updateRequests.size();
+            updateRequests.addLast(new UpdateRequest(
+                    transactionEntrySerializer.serialize(
+                            new TransactionEntry(transactionId, TransactionEntryType.TRANSACTION_COMPLETE, true)),
+                    partition, 1));
+
+            // 上次提交失败时，跳过已经写入成功的日志
+            for (int j = 0; j < committedCount && !updateRequests.isEmpty(); j++) {
+                updateRequests.removeFirst();
+            }
+            List<List<UpdateRequest>> chunks = splitUpdateRequests(transactionId, updateRequests);
+            if (!chunks.isEmpty()) {
+                commitTransaction(transactionId, partition, chunks, 0, committedCount, entryCount);
             }
-            CompletableFuture
-                    .allOf(futures.toArray(new CompletableFuture[entryCount]))
-                    .thenRun(() -> {
-                        if (unFinishedRequests.get() > 0) {
-                            retryCompleteTransactions.add(
-                                    new CompleteTransactionRetry(transactionId, partition)
-                            );
-                        } else {
-                            writeTransactionCompleteEntry(transactionId, true, partition);
-                        }
-                    });
 
         } else {
             writeTransactionCompleteEntry(transactionId, false, partition);
@@ -328,6 +409,70 @@ class JournalTransactionState extends ServerStateMachine {
 
     }
 
+    /**
+     * 依次写入提交事务的请求，前一个请求成功之后再写入下一个，保证写入的顺序，
+     * TRANSACTION_COMPLETE日志在最后一个请求中。
+     * 失败时稍后重试，重试时从日志中读取提交进度。
+     */
+    private void commitTransaction(UUID transactionId, int partition, List<List<UpdateRequest>> chunks, int chunkIndex,
+                                   int committedCount, int entryCount) {
+        List<UpdateRequest> chunk = chunks.get(chunkIndex);
+        List<UpdateRequest> requests = new ArrayList<>(chunk.size() + 1);
+        requests.add(new UpdateRequest(
+                transactionEntrySerializer.serialize(new TransactionEntry(transactionId, committedCount, chunk.size())),
+                partition, 1));
+        requests.addAll(chunk);
+        server.updateClusterState(new UpdateClusterStateRequest(requests))
+                .exceptionally(UpdateClusterStateResponse::new)
+                .thenAccept(response -> {
+                    if (response.success()) {
+                        if (chunkIndex + 1 < chunks.size()) {
+                            commitTransaction(transactionId, partition, chunks, chunkIndex + 1,
+                                    committedCount + chunk.size(), entryCount);
+                        } else {
+                            logger.info("Transaction {} committed, entries: {}, requests: {}.",
+                                    transactionId.toString(), entryCount, chunks.size());
+                        }
+                    } else {
+                        logger.warn("Transaction commit {} failed! Cause: {}.",
+                                transactionId.toString(),
+                                response.errorString());
+                        retryCompleteTransactions.add(
+                                new CompleteTransactionRetry(transactionId, partition, journal.maxIndex())
+                        );
+                    }
+                });
+    }
+
+    /**
+     * 按照Journal一次写入的限制拆分请求，保证每个请求的日志都能写入一个日志文件和一个索引文件，
+     * 参见{@link Journal#maxAppendEntries()}和{@link Journal#maxAppendBytes()}。
+     * 每个请求预留一条TRANSACTION_COMMIT_CHUNK日志的位置。
+     */
+    private List<List<UpdateRequest>> splitUpdateRequests(UUID transactionId, List<UpdateRequest> updateRequests) {
+        int headerLength = journalEntryParser.headerLength();
+        int maxEntries = journal.maxAppendEntries() - 1;
+        int maxBytes = journal.maxAppendBytes() - headerLength -
+                transactionEntrySerializer.serialize(new TransactionEntry(transactionId, 0, 0)).length;
+        List<List<UpdateRequest>> chunks = new ArrayList<>();
+        List<UpdateRequest> chunk = new ArrayList<>();
+        long chunkBytes = 0L;
+        for (UpdateRequest updateRequest : updateRequests) {
+            long bytes = headerLength + updateRequest.getEntry().length;
+            if (!chunk.isEmpty() && (chunk.size() >= maxEntries || chunkBytes + bytes > maxBytes)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkBytes = 0L;
+            }
+            chunk.add(updateRequest);
+            chunkBytes += bytes;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
     JournalEntry wrapTransactionalEntry(JournalEntry entry, UUID transactionId, JournalEntryParser journalEntryParser) {
         int transactionPartition = getPartition(transactionId);
         if (transactionPartition > 0) {
@@ -389,17 +534,20 @@ class JournalTransactionState extends ServerStateMachine {
     }
 
     boolean isTransactionPartition(int partition) {
-        return partition >= TRANSACTION_PARTITION_START && partition < TRANSACTION_PARTITION_START + TRANSACTION_PARTITION_COUNT;
+        return partition >= TRANSACTION_PARTITION_START && partition < TRANSACTION_PARTITION_START + TRANSACTION_PARTITION_MAX_COUNT;
     }
 
     private static class CompleteTransactionRetry implements Delayed {
         private final UUID transactionId;
         private final int partition;
+        // 等到提交到这个位置之后再重试
+        private final long commitIndexBarrier;
         private final long expireTimeMs;
 
-        CompleteTransactionRetry(UUID transactionId, int partition) {
+        CompleteTransactionRetry(UUID transactionId, int partition, long commitIndexBarrier) {
             this.transactionId = transactionId;
             this.partition = partition;
+            this.commitIndexBarrier = commitIndexBarrier;
             this.expireTimeMs = System.currentTimeMillis() + RETRY_COMPLETE_TRANSACTION_INTERVAL_MS;
         }
 
@@ -411,6 +559,9 @@ class JournalTransactionState extends ServerStateMachine {
             return partition;
         }
 
+        public long getCommitIndexBarrier() {
+            return commitIndexBarrier;
+        }
 
         @Override
         public boolean equals(Object o) {
@@ -444,10 +595,23 @@ class JournalTransactionState extends ServerStateMachine {
     private static class TransactionState {
         private final int partition;
         private final JournalKeeperTransactionContext context;
+        // 事务日志的全局索引序号，按照写入的顺序排列；为null时表示没有索引
+        private final List<Long> entryIndices;
 
-        public TransactionState(int partition, JournalKeeperTransactionContext context) {
+        public TransactionState(int partition, JournalKeeperTransactionContext context, boolean indexed) {
             this.partition = partition;
             this.context = context;
+            this.entryIndices = indexed ? new ArrayList<>() : null;
+        }
+
+        synchronized void addEntryIndex(long index) {
+            if (null != entryIndices) {
+                entryIndices.add(index);
+            }
+        }
+
+        synchronized List<Long> getEntryIndices() {
+            return null == entryIndices ? null : new ArrayList<>(entryIndices);
         }
 
         public int getPartition() {
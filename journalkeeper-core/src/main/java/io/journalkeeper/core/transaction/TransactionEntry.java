@@ -13,6 +13,7 @@
  */
 package io.journalkeeper.core.transaction;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.UUID;
 
@@ -51,6 +52,18 @@ public class TransactionEntry {
         this.entry = entry;
     }
 
+    /**
+     * 提交事务时，每个请求的第一条日志，entry中依次存放之前已经写入的日志数量和这个请求中其余日志的数量。
+     * @param transactionId 事务ID
+     * @param committedCount 之前的请求已经写入的日志数量
+     * @param chunkSize 这个请求中除本条日志之外的日志数量
+     */
+    public TransactionEntry(UUID transactionId, int committedCount, int chunkSize) {
+        this.transactionId = transactionId;
+        this.type = TransactionEntryType.TRANSACTION_COMMIT_CHUNK;
+        this.entry = ByteBuffer.allocate(Integer.BYTES * 2).putInt(committedCount).putInt(chunkSize).array();
+    }
+
     public TransactionEntry(UUID transactionId, long timestamp, TransactionEntryType type, int partition, boolean commitOrAbort, int batchSize, byte[] entry, Map<String, String> context) {
         this.transactionId = transactionId;
         this.timestamp = timestamp;
@@ -94,4 +107,20 @@ public class TransactionEntry {
     public Map<String, String> getContext() {
         return context;
     }
+
+    /**
+     * 只适用于{@link TransactionEntryType#TRANSACTION_COMMIT_CHUNK}
+     * @return 之前的请求已经写入的日志数量
+     */
+    public int getCommittedCount() {
+        return ByteBuffer.wrap(entry).getInt(0);
+    }
+
+    /**
+     * 只适用于{@link TransactionEntryType#TRANSACTION_COMMIT_CHUNK}
+     * @return 这个请求中除本条日志之外的日志数量
+     */
+    public int getChunkSize() {
+        return ByteBuffer.wrap(entry).getInt(Integer.BYTES);
+    }
 }
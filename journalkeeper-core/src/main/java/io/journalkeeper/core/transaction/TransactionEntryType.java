@@ -23,7 +23,9 @@ public enum TransactionEntryType {
     TRANSACTION_START(0),
     TRANSACTION_ENTRY(1),
     TRANSACTION_PRE_COMPLETE(2),
-    TRANSACTION_COMPLETE(3);
+    TRANSACTION_COMPLETE(3),
+    // 提交事务时每个请求的第一条日志，记录提交进度
+    TRANSACTION_COMMIT_CHUNK(4);
 
     private int value;
 
@@ -41,6 +43,8 @@ public enum TransactionEntryType {
                 return TRANSACTION_PRE_COMPLETE;
             case 3:
                 return TRANSACTION_COMPLETE;
+            case 4:
+                return TRANSACTION_COMMIT_CHUNK;
             default:
                 throw new IllegalArgumentException("Illegal TransactionEntryType value!");
         }
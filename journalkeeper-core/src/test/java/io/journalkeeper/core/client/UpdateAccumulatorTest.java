@@ -0,0 +1,128 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.client;
+
+import io.journalkeeper.core.api.ResponseConfig;
+import io.journalkeeper.core.api.UpdateRequest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class UpdateAccumulatorTest {
+    private ScheduledExecutorService scheduledExecutor;
+    private final List<List<UpdateRequest>> sentBatches = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void before() {
+        scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+        sentBatches.clear();
+    }
+
+    @After
+    public void after() {
+        scheduledExecutor.shutdown();
+    }
+
+    // 把每条请求的内容原样作为执行结果返回
+    private CompletableFuture<List<byte[]>> echo(List<UpdateRequest> entries, boolean includeHeader, ResponseConfig responseConfig) {
+        sentBatches.add(entries);
+        return CompletableFuture.completedFuture(
+                entries.stream().map(UpdateRequest::getEntry).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void lingerTest() throws Exception {
+        UpdateAccumulator accumulator = new UpdateAccumulator(this::echo, scheduledExecutor, 50L, 1024 * 1024, 1024, 0, 4);
+        CompletableFuture<List<byte[]>> f1 = accumulator.add(Collections.singletonList(new UpdateRequest(new byte[]{1})), false, ResponseConfig.REPLICATION);
+        CompletableFuture<List<byte[]>> f2 = accumulator.add(Arrays.asList(new UpdateRequest(new byte[]{2}), new UpdateRequest(new byte[]{3})), false, ResponseConfig.REPLICATION);
+        CompletableFuture<List<byte[]>> f3 = accumulator.add(Collections.singletonList(new UpdateRequest(new byte[]{4})), false, ResponseConfig.ALL);
+
+        Assert.assertArrayEquals(new byte[]{1}, f1.get(1, TimeUnit.SECONDS).get(0));
+        List<byte[]> results = f2.get(1, TimeUnit.SECONDS);
+        Assert.assertEquals(2, results.size());
+        Assert.assertArrayEquals(new byte[]{2}, results.get(0));
+        Assert.assertArrayEquals(new byte[]{3}, results.get(1));
+        Assert.assertArrayEquals(new byte[]{4}, f3.get(1, TimeUnit.SECONDS).get(0));
+
+        // 相同responseConfig的请求合并成一批，不同的分开发送
+        Assert.assertEquals(2, sentBatches.size());
+    }
+
+    @Test
+    public void batchBytesTest() throws Exception {
+        UpdateAccumulator accumulator = new UpdateAccumulator(this::echo, scheduledExecutor, 60000L, 2, 1024, 0, 4);
+        CompletableFuture<List<byte[]>> f1 = accumulator.add(Collections.singletonList(new UpdateRequest(new byte[]{1})), false, ResponseConfig.REPLICATION);
+        Assert.assertFalse(f1.isDone());
+        CompletableFuture<List<byte[]>> f2 = accumulator.add(Collections.singletonList(new UpdateRequest(new byte[]{2})), false, ResponseConfig.REPLICATION);
+        Assert.assertArrayEquals(new byte[]{1}, f1.get(1, TimeUnit.SECONDS).get(0));
+        Assert.assertArrayEquals(new byte[]{2}, f2.get(1, TimeUnit.SECONDS).get(0));
+        Assert.assertEquals(1, sentBatches.size());
+    }
+
+    @Test
+    public void manyTinyEntriesTest() throws Exception {
+        int batchSize = 100;
+        int count = 1000;
+        UpdateAccumulator accumulator = new UpdateAccumulator(this::echo, scheduledExecutor, 60000L, 1024 * 1024, batchSize, 26, 4);
+        List<CompletableFuture<List<byte[]>>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(accumulator.add(Collections.singletonList(new UpdateRequest(new byte[]{(byte) i})), false, ResponseConfig.REPLICATION));
+        }
+        for (int i = 0; i < count; i++) {
+            List<byte[]> results = futures.get(i).get(1, TimeUnit.SECONDS);
+            Assert.assertEquals(1, results.size());
+            Assert.assertArrayEquals(new byte[]{(byte) i}, results.get(0));
+        }
+        // 合并后的请求条数不超过batchSize
+        Assert.assertEquals(count / batchSize, sentBatches.size());
+        for (List<UpdateRequest> batch : sentBatches) {
+            Assert.assertEquals(batchSize, batch.size());
+        }
+    }
+
+    @Test
+    public void headerBytesTest() throws Exception {
+        // 每条请求1个字节，加上26个字节的Header，一批最多3条
+        UpdateAccumulator accumulator = new UpdateAccumulator(this::echo, scheduledExecutor, 60000L, 100, 1024, 26, 4);
+        List<CompletableFuture<List<byte[]>>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(accumulator.add(Collections.singletonList(new UpdateRequest(new byte[]{(byte) i})), false, ResponseConfig.REPLICATION));
+        }
+        for (int i = 0; i < 3; i++) {
+            Assert.assertArrayEquals(new byte[]{(byte) i}, futures.get(i).get(1, TimeUnit.SECONDS).get(0));
+        }
+        Assert.assertFalse(futures.get(3).isDone());
+        Assert.assertEquals(1, sentBatches.size());
+        Assert.assertEquals(3, sentBatches.get(0).size());
+
+        // 单次调用超过限制时单独发送，不和其它调用合并
+        CompletableFuture<List<byte[]>> large = accumulator.add(Collections.singletonList(new UpdateRequest(new byte[200])), false, ResponseConfig.REPLICATION);
+        Assert.assertArrayEquals(new byte[]{3}, futures.get(3).get(1, TimeUnit.SECONDS).get(0));
+        Assert.assertEquals(200, large.get(1, TimeUnit.SECONDS).get(0).length);
+        Assert.assertEquals(3, sentBatches.size());
+        Assert.assertEquals(1, sentBatches.get(2).size());
+    }
+}
@@ -15,12 +15,17 @@ package io.journalkeeper.core.journal;
 
 import io.journalkeeper.core.api.JournalEntry;
 import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.entry.DefaultJournalEntry;
 import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.core.entry.JournalEntryParseSupport;
+import io.journalkeeper.exceptions.JournalException;
 import io.journalkeeper.metric.JMetric;
 import io.journalkeeper.metric.JMetricFactory;
 import io.journalkeeper.metric.JMetricSupport;
 import io.journalkeeper.persistence.BufferPool;
+import io.journalkeeper.persistence.JournalPersistence;
 import io.journalkeeper.persistence.PersistenceFactory;
+import io.journalkeeper.persistence.TooManyBytesException;
 import io.journalkeeper.utils.format.Format;
 import io.journalkeeper.utils.spi.ServiceSupport;
 import io.journalkeeper.utils.test.ByteUtils;
@@ -38,6 +43,8 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -56,6 +63,11 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
 /**
  * @author LiYue
  * Date: 2019-04-03
@@ -354,9 +366,16 @@ public class JournalTest {
             JournalEntry readStorageEntry = journal.read(index);
             JournalEntry writeStorageEntry = storageEntries.get((int) index);
             Assert.assertEquals(writeStorageEntry, readStorageEntry);
+            Assert.assertArrayEquals(entries.get((int) index), journal.readPayloadByOffset(journal.readOffset(index)));
             index++;
         }
 
+        List<JournalEntry> batchEntries = journal.batchRead(10, 100);
+        Assert.assertEquals(100, batchEntries.size());
+        for (int i = 0; i < batchEntries.size(); i++) {
+            Assert.assertEquals(storageEntries.get(10 + i), batchEntries.get(i));
+        }
+        Assert.assertEquals(10, journal.batchRead(size - 10, 100).size());
     }
 
     @Test
@@ -441,6 +460,64 @@ public class JournalTest {
         }
     }
 
+    @Test
+    public void queryIndexByTimestampTest() throws IOException, InterruptedException {
+        int partition = 4;
+        int size = 1024;
+        long baseTimestamp = 1000000L;
+        long[] timestamps = new long[size];
+        List<byte[]> entries = ByteUtils.createRandomSizeByteList(128, size);
+        for (int i = 0; i < size; i++) {
+            // 每3条消息时间相同
+            timestamps[i] = baseTimestamp + (i / 3) * 7;
+            JournalEntry entry = journalEntryParser.createJournalEntry(entries.get(i));
+            entry.setPartition(partition);
+            JournalEntryParseSupport.setLong(ByteBuffer.wrap(entry.getSerializedBytes()), JournalEntryParseSupport.TIMESTAMP, timestamps[i]);
+            journal.append(entry);
+        }
+        journal.close();
+        Properties properties = new Properties();
+        properties.setProperty(Journal.TIME_INDEX_INTERVAL_MS_KEY, "50");
+        journal = createJournal(properties);
+        journal.commit(journal.maxIndex());
+        assertQueryIndexByTimestamp(partition, timestamps);
+
+        // 重启后使用已有的时间索引
+        long commitIndex = journal.commitIndex();
+        journal.flush();
+        journal.close();
+        journal = createJournal(commitIndex, properties);
+        assertQueryIndexByTimestamp(partition, timestamps);
+
+        // 删除时间索引后重建
+        journal.close();
+        TestPathUtils.destroyBaseDir(path.resolve("time").toFile());
+        journal = createJournal(commitIndex, properties);
+        assertQueryIndexByTimestamp(partition, timestamps);
+
+        // 查询没有写入过的分区不会创建时间索引
+        int emptyPartition = 9;
+        journal.addPartition(emptyPartition);
+        Assert.assertEquals(-1L, journal.queryIndexByTimestamp(emptyPartition, baseTimestamp));
+        Assert.assertFalse(path.resolve("time").resolve(String.valueOf(emptyPartition)).toFile().exists());
+    }
+
+    private void assertQueryIndexByTimestamp(int partition, long[] timestamps) {
+        for (long timestamp = timestamps[0] - 10; timestamp <= timestamps[timestamps.length - 1] + 10; timestamp++) {
+            // 最后一条时间不大于timestamp的消息，如果有多条时间相同的消息，取第一条
+            int expected = 0;
+            for (int i = 0; i < timestamps.length; i++) {
+                if (timestamps[i] <= timestamp) {
+                    expected = i;
+                }
+            }
+            while (expected > 0 && timestamp <= timestamps[expected - 1]) {
+                expected--;
+            }
+            Assert.assertEquals("timestamp: " + timestamp, expected, journal.queryIndexByTimestamp(partition, timestamp));
+        }
+    }
+
     @Test
     public void batchEntriesTest() throws IOException {
         int maxLength = 1024;
@@ -492,6 +569,7 @@ public class JournalTest {
         Assert.assertEquals(0, journal.minIndex());
         long index = journal.minIndex();
 
+        Assert.assertTrue(journal.readRaw(index, 0).isEmpty());
         List<byte[]> readStorageEntries = journal.readRaw(index, (int) (maxIndex - index));
         Assert.assertEquals(storageEntries.size(), readStorageEntries.size());
         IntStream.range(0, readStorageEntries.size())
@@ -499,6 +577,135 @@ public class JournalTest {
 
     }
 
+    @Test
+    public void checksumTest() throws IOException, InterruptedException {
+        // 版本1的Header才有校验和
+        journal.close();
+        journalEntryParser = new DefaultJournalEntryParser(1);
+        journal = createJournal();
+        int size = 100;
+        int corruptedIndex = 80;
+        List<byte[]> storageEntries = ByteUtils.createRandomSizeByteList(1024, size).stream()
+                .map(entry -> journalEntryParser.createJournalEntry(entry))
+                .peek(entry -> entry.setTerm(8))
+                .peek(entry -> entry.setPartition(0))
+                .peek(JournalEntry::updateChecksum)
+                .map(this::serialize)
+                .collect(Collectors.toList());
+        // 模拟数据损坏：修改一条entry的最后一个字节
+        byte[] corrupted = storageEntries.get(corruptedIndex);
+        corrupted[corrupted.length - 1] ^= 0xFF;
+        journal.appendBatchRaw(storageEntries);
+        journal.commit(corruptedIndex - 10);
+
+        // 按索引读取时不校验
+        Assert.assertTrue(journal.read(corruptedIndex - 1).verifyChecksum());
+        Assert.assertFalse(journal.read(corruptedIndex).verifyChecksum());
+        // 按位置读取时校验
+        long corruptedOffset = journal.readOffset(corruptedIndex);
+        Assert.assertTrue(journal.readByOffset(journal.readOffset(corruptedIndex - 1)).verifyChecksum());
+        try {
+            journal.readByOffset(corruptedOffset);
+            Assert.fail();
+        } catch (ParseJournalException ignored) {
+        }
+        try {
+            journal.readPayloadByOffset(corruptedOffset);
+            Assert.fail();
+        } catch (ParseJournalException ignored) {
+        }
+        Assert.assertEquals(-1L, journal.verify(0, corruptedIndex));
+        Assert.assertEquals(corruptedIndex, journal.verify(0, size));
+
+        // 恢复时截掉未提交部分中校验失败的entry及其之后的数据
+        journal.flush();
+        journal.close();
+        journal = createJournal(corruptedIndex - 10);
+        Assert.assertEquals(corruptedIndex, journal.maxIndex());
+        Assert.assertEquals(-1L, journal.verify(0, corruptedIndex));
+    }
+
+    @Test
+    public void verifyChecksumOnReadDisabledTest() throws IOException, InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty(Journal.VERIFY_CHECKSUM_ON_READ_KEY, "false");
+        journal.close();
+        journalEntryParser = new DefaultJournalEntryParser(1);
+        journal = createJournal(properties);
+
+        JournalEntry entry = journalEntryParser.createJournalEntry(new byte[]{1, 2, 3});
+        entry.updateChecksum();
+        byte[] corrupted = entry.getSerializedBytes();
+        corrupted[corrupted.length - 1] ^= 0xFF;
+        journal.appendBatchRaw(Collections.singletonList(corrupted));
+
+        long offset = journal.readOffset(0);
+        Assert.assertFalse(journal.readByOffset(offset).verifyChecksum());
+        Assert.assertArrayEquals(new byte[]{1, 2, (byte) (3 ^ 0xFF)}, journal.readPayloadByOffset(offset));
+    }
+
+    @Test
+    public void entryHeaderVersionTest() {
+        // 默认写入版本0的Header，旧版本的Server和Client都可以读取
+        JournalEntry entry = new DefaultJournalEntryParser().createJournalEntry(new byte[]{1, 2, 3});
+        Assert.assertEquals(JournalEntryParseSupport.getHeaderLengthV0(), entry.getHeaderLength());
+
+        Properties properties = new Properties();
+        properties.setProperty(DefaultJournalEntryParser.ENTRY_HEADER_VERSION_KEY, "1");
+        entry = new DefaultJournalEntryParser(properties).createJournalEntry(new byte[]{1, 2, 3});
+        Assert.assertEquals(JournalEntryParseSupport.getHeaderLength(), entry.getHeaderLength());
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, entry.getPayload().getBytes());
+    }
+
+    @Test
+    public void readV0EntryTest() throws IOException, InterruptedException {
+        // 版本0的header：LENGTH(4) PARTITION(2) TERM(4) MAGIC(2) BATCH_SIZE(2) TIMESTAMP(8)，没有CHECKSUM
+        int v0HeaderLength = 22;
+        int size = 10;
+        List<byte[]> payloads = ByteUtils.createRandomSizeByteList(128, size);
+        payloads.set(size - 1, new byte[]{1});
+        List<byte[]> rawEntries = new ArrayList<>(size);
+        for (byte[] payload : payloads) {
+            ByteBuffer buffer = ByteBuffer.allocate(v0HeaderLength + payload.length);
+            buffer.putInt(v0HeaderLength + payload.length);
+            buffer.putShort((short) 3);
+            buffer.putInt(8);
+            buffer.putShort(DefaultJournalEntry.MAGIC_CODE);
+            buffer.putShort((short) 1);
+            buffer.putLong(System.currentTimeMillis());
+            buffer.put(payload);
+            rawEntries.add(buffer.array());
+        }
+        // 新数据和旧数据混合写入，最后一条是payload很短的旧版本entry
+        JournalEntry v1Entry = new DefaultJournalEntryParser(1).createJournalEntry(new byte[]{1, 2, 3});
+        v1Entry.setTerm(8);
+        v1Entry.setPartition(3);
+        journal.append(v1Entry);
+        journal.appendBatchRaw(rawEntries);
+        journal.commit(size + 1);
+
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, journal.read(0).getPayload().getBytes());
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, journal.readPayloadByOffset(journal.readOffset(0)));
+        for (int i = 0; i < size; i++) {
+            JournalEntry entry = journal.read(i + 1);
+            Assert.assertEquals(3, entry.getPartition());
+            Assert.assertEquals(8, entry.getTerm());
+            Assert.assertEquals(v0HeaderLength, entry.getHeaderLength());
+            Assert.assertTrue(entry.verifyChecksum());
+            Assert.assertArrayEquals(payloads.get(i), entry.getPayload().getBytes());
+            Assert.assertArrayEquals(payloads.get(i), journal.readPayloadByOffset(journal.readOffset(i + 1)));
+            Assert.assertArrayEquals(payloads.get(i), journal.readByPartition(3, i + 1).getPayload().getBytes());
+        }
+        Assert.assertEquals(-1L, journal.verify(0, size + 1));
+
+        // 恢复时不会把最后一条很短的旧版本entry当作不完整的数据截掉
+        journal.flush();
+        journal.close();
+        journal = createJournal(size + 1);
+        Assert.assertEquals(size + 1, journal.maxIndex());
+        Assert.assertArrayEquals(payloads.get(size - 1), journal.read(size).getPayload().getBytes());
+    }
+
     private byte[] serialize(JournalEntry storageEntry) {
         return storageEntry.getSerializedBytes();
     }
@@ -577,11 +784,14 @@ public class JournalTest {
         Assert.assertEquals(0, journal.minIndex());
         long index = journal.minIndex();
 
+        Assert.assertTrue(journal.flushedIndex() < journal.maxIndex());
         journal.flush();
+        Assert.assertEquals(journal.maxIndex(), journal.flushedIndex());
         journal.close();
 
         journal = createJournal();
         Assert.assertEquals(size, journal.maxIndex());
+        Assert.assertEquals(size, journal.flushedIndex());
         Assert.assertEquals(0, journal.minIndex());
 
         while (index < journal.maxIndex()) {
@@ -591,6 +801,134 @@ public class JournalTest {
 
     }
 
+    /**
+     * 分多次提交，验证批量写入的分区索引和逐条写入的一致，包括批消息和超过索引文件大小时的逐条写入
+     */
+    @Test
+    public void commitBatchTest() throws IOException, InterruptedException {
+        journal.close();
+        Properties properties = new Properties();
+        properties.setProperty("persistence.index.file_data_size", String.valueOf(Long.BYTES * 64));
+        journal = createJournal(properties);
+
+        List<JournalEntry> storageEntries = createPartitionEntries(3000);
+        for (JournalEntry storageEntry : storageEntries) {
+            journal.append(storageEntry);
+        }
+
+        for (long commitIndex : new long[]{1L, 100L, 1500L, journal.maxIndex()}) {
+            journal.commit(commitIndex);
+            Assert.assertEquals(commitIndex, journal.commitIndex());
+        }
+        assertPartitionEntries(storageEntries);
+    }
+
+    /**
+     * 部分分区写入分区索引失败时，回滚已经写入的分区索引，重新提交后分区索引不重复
+     */
+    @Test
+    public void commitFailureTest() throws Exception {
+        List<JournalEntry> storageEntries = createPartitionEntries(100);
+        for (JournalEntry storageEntry : storageEntries) {
+            journal.append(storageEntry);
+        }
+
+        // 分区6最后写入，第一次写入分区索引时失败
+        Field partitionMapField = Journal.class.getDeclaredField("partitionMap");
+        partitionMapField.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Map<Integer, JournalPersistence> partitionMap = (Map<Integer, JournalPersistence>) partitionMapField.get(journal);
+        JournalPersistence partitionPersistence = partitionMap.get(6);
+        JournalPersistence failingPersistence = mock(JournalPersistence.class, delegatesTo(partitionPersistence));
+        doThrow(new IOException("Injected failure"))
+                .doAnswer(invocation -> partitionPersistence.append((byte[]) invocation.getArgument(0)))
+                .when(failingPersistence).append(any(byte[].class));
+        partitionMap.put(6, failingPersistence);
+
+        try {
+            journal.commit(journal.maxIndex());
+            Assert.fail();
+        } catch (JournalException ignored) {
+        }
+        Assert.assertEquals(0L, journal.commitIndex());
+        for (Integer partition : partitions) {
+            Assert.assertEquals(0L, journal.maxIndex(partition));
+        }
+
+        journal.commit(journal.maxIndex());
+        Assert.assertEquals(journal.maxIndex(), journal.commitIndex());
+        assertPartitionEntries(storageEntries);
+    }
+
+    private List<JournalEntry> createPartitionEntries(int size) {
+        List<Integer> partitionList = new ArrayList<>(partitions);
+        List<byte[]> entries = ByteUtils.createRandomSizeByteList(128, size);
+        List<JournalEntry> storageEntries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            JournalEntry entry = journalEntryParser.createJournalEntry(entries.get(i));
+            entry.setPartition(partitionList.get(i % partitionList.size()));
+            // 每7条有一条批消息
+            entry.setBatchSize(i % 7 == 0 ? 3 : 1);
+            storageEntries.add(entry);
+        }
+        return storageEntries;
+    }
+
+    private void assertPartitionEntries(List<JournalEntry> storageEntries) {
+        Map<Integer, Long> partitionIndices = new HashMap<>();
+        for (JournalEntry storageEntry : storageEntries) {
+            int partition = storageEntry.getPartition();
+            long partitionIndex = partitionIndices.getOrDefault(partition, 0L);
+            for (int i = 0; i < storageEntry.getBatchSize(); i++) {
+                JournalEntry readEntry = journal.readByPartition(partition, partitionIndex + i);
+                Assert.assertEquals(i, readEntry.getOffset());
+                Assert.assertEquals(storageEntry.getPayload(), readEntry.getPayload());
+            }
+            partitionIndices.put(partition, partitionIndex + storageEntry.getBatchSize());
+        }
+        for (Map.Entry<Integer, Long> entry : partitionIndices.entrySet()) {
+            Assert.assertEquals((long) entry.getValue(), journal.maxIndex(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void maxAppendTest() throws IOException, InterruptedException {
+        Properties properties = new Properties();
+        Assert.assertEquals(32 * 1024 * 1024, Journal.maxAppendBytes(properties));
+        Assert.assertEquals(16 * 1024, Journal.maxAppendEntries(properties));
+        Assert.assertEquals(Journal.maxAppendBytes(properties), journal.maxAppendBytes());
+        Assert.assertEquals(Journal.maxAppendEntries(properties), journal.maxAppendEntries());
+
+        journal.close();
+        properties.setProperty("persistence.journal.file_data_size", String.valueOf(1024));
+        properties.setProperty("persistence.index.file_data_size", String.valueOf(Long.BYTES * 10));
+        journal = createJournal(properties);
+        Assert.assertEquals(1024, Journal.maxAppendBytes(properties));
+        Assert.assertEquals(10, Journal.maxAppendEntries(properties));
+        Assert.assertEquals(1024, journal.maxAppendBytes());
+        Assert.assertEquals(10, journal.maxAppendEntries());
+
+        // 超过限制时不写入任何数据
+        List<JournalEntry> tooManyEntries = IntStream.range(0, 11)
+                .mapToObj(i -> journalEntryParser.createJournalEntry(new byte[]{(byte) i}))
+                .collect(Collectors.toList());
+        try {
+            journal.append(tooManyEntries);
+            Assert.fail();
+        } catch (TooManyBytesException ignored) {
+        }
+        try {
+            journal.append(Collections.singletonList(journalEntryParser.createJournalEntry(new byte[1024])));
+            Assert.fail();
+        } catch (TooManyBytesException ignored) {
+        }
+        Assert.assertEquals(0L, journal.maxIndex());
+        Assert.assertEquals(0L, journal.maxOffset());
+
+        journal.append(tooManyEntries.subList(0, 10));
+        Assert.assertEquals(10L, journal.maxIndex());
+    }
+
     @Test
     public void recoverTest() throws IOException, InterruptedException {
 
@@ -630,6 +968,7 @@ public class JournalTest {
 
         journal = createJournal(properties);
         Assert.assertEquals(size, journal.maxIndex());
+        Assert.assertEquals(size, journal.flushedIndex());
         Assert.assertEquals(0, journal.minIndex());
         long index = journal.minIndex();
         while (index < journal.maxIndex()) {
@@ -650,6 +989,7 @@ public class JournalTest {
 
         journal = createJournal(properties);
         Assert.assertEquals(size, journal.maxIndex());
+        Assert.assertEquals(size, journal.flushedIndex());
         Assert.assertEquals(0, journal.minIndex());
         index = journal.minIndex();
         while (index < journal.maxIndex()) {
@@ -668,6 +1008,7 @@ public class JournalTest {
 
         journal = createJournal(properties);
         Assert.assertEquals(size, journal.maxIndex());
+        Assert.assertEquals(size, journal.flushedIndex());
         Assert.assertEquals(0, journal.minIndex());
         index = journal.minIndex();
         while (index < journal.maxIndex()) {
@@ -0,0 +1,147 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.serialize;
+
+import io.journalkeeper.utils.spi.ServiceSupport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class BinarySerializeExtensionPointTest {
+
+    @Test
+    public void builtinTypesTest() {
+        BinarySerializeExtensionPoint serializer = new BinarySerializeExtensionPoint();
+        List<Object> values = Arrays.asList("hello", "你好", "", true, (byte) -1, (short) 300, 0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Long.MIN_VALUE, 1234567890123L, 1.5f, -2.25d, 'x');
+        for (Object value : values) {
+            Assert.assertEquals(value, serializer.parse(serializer.serialize(value)));
+        }
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, serializer.parse(serializer.serialize(new byte[]{1, 2, 3})));
+        Assert.assertEquals(0, serializer.serialize(null).length);
+        Assert.assertNull(serializer.parse(new byte[0]));
+    }
+
+    @Test
+    public void collectionsTest() {
+        BinarySerializeExtensionPoint serializer = new BinarySerializeExtensionPoint();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("list", new ArrayList<>(Arrays.asList(1, 2L, "3", null)));
+        map.put("set", new HashSet<>(Arrays.asList("a", "b")));
+        map.put("map", new HashMap<>());
+        map.put("java", new Pojo(1, "java"));
+        Map<String, Object> parsed = serializer.parse(serializer.serialize(map));
+        Assert.assertEquals(map, parsed);
+        Assert.assertEquals(new ArrayList<>(map.keySet()), new ArrayList<>(parsed.keySet()));
+
+        // 带偏移量的反序列化
+        byte[] bytes = serializer.serialize(map);
+        byte[] padded = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, padded, 2, bytes.length);
+        Assert.assertEquals(map, serializer.parse(padded, 2, bytes.length));
+    }
+
+    @Test
+    public void registerTest() {
+        BinarySerializeExtensionPoint serializer = new BinarySerializeExtensionPoint();
+        Pojo pojo = new Pojo(42, "registered");
+        int javaSize = serializer.serialize(pojo).length;
+
+        serializer.register(Pojo.class, 1, new BinarySerializeExtensionPoint.Codec<Pojo>() {
+            @Override
+            public void write(BinaryOutput output, Pojo value) {
+                output.writeInt(value.id);
+                output.writeObject(value.name);
+            }
+
+            @Override
+            public Pojo read(BinaryInput input) {
+                return new Pojo(input.readInt(), input.readObject());
+            }
+        });
+        byte[] bytes = serializer.serialize(pojo);
+        Assert.assertTrue(bytes.length < javaSize);
+        Assert.assertEquals(pojo, serializer.parse(bytes));
+        Assert.assertEquals(Arrays.asList(pojo, pojo), serializer.parse(serializer.serialize(new ArrayList<>(Arrays.asList(pojo, pojo)))));
+
+        try {
+            serializer.register(String.class, 1, null);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void javaSerializeCompatibleTest() {
+        JavaSerializeExtensionPoint javaSerializer = new JavaSerializeExtensionPoint();
+        BinarySerializeExtensionPoint serializer = new BinarySerializeExtensionPoint();
+        Pojo pojo = new Pojo(7, "compatible");
+        Assert.assertEquals(pojo, serializer.parse(javaSerializer.serialize(pojo)));
+        Assert.assertEquals("old string", serializer.parse(javaSerializer.serialize("old string")));
+        // 未注册的类型仍然使用Java序列化
+        Assert.assertEquals(pojo, javaSerializer.parse(serializer.serialize(pojo)));
+    }
+
+    @Test
+    public void largeValueTest() {
+        BinarySerializeExtensionPoint serializer = new BinarySerializeExtensionPoint();
+        byte[] large = new byte[2 * 1024 * 1024];
+        Arrays.fill(large, (byte) 7);
+        Assert.assertArrayEquals(large, serializer.parse(serializer.serialize(large)));
+        Assert.assertEquals("small", serializer.parse(serializer.serialize("small")));
+    }
+
+    @Test
+    public void loadSerializerTest() {
+        // 默认仍然使用Java序列化，只有显式配置时才使用BinarySerializeExtensionPoint
+        Assert.assertTrue(WrappedBootStrap.loadSerializer(null) instanceof JavaSerializeExtensionPoint);
+
+        // 配置的和用于注册类型的是同一个实例
+        BinarySerializeExtensionPoint serializer =
+                ServiceSupport.load(SerializeExtensionPoint.class, BinarySerializeExtensionPoint.class);
+        Assert.assertSame(serializer, WrappedBootStrap.loadSerializer(BinarySerializeExtensionPoint.class.getName()));
+    }
+
+    static class Pojo implements Serializable {
+        private final int id;
+        private final String name;
+
+        Pojo(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Pojo pojo = (Pojo) o;
+            return id == pojo.id && Objects.equals(name, pojo.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AppliedWaitersTest {
+    private final AtomicLong lastApplied = new AtomicLong(0L);
+    private ScheduledExecutorService scheduledExecutor;
+    private AppliedWaiters appliedWaiters;
+
+    @Before
+    public void before() {
+        scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+        appliedWaiters = new AppliedWaiters(lastApplied::get, scheduledExecutor);
+    }
+
+    @After
+    public void after() {
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void wakeUpTest() throws Exception {
+        // 已经执行到的位置直接返回
+        Assert.assertTrue(appliedWaiters.waitFor(0L, 10000L).isDone());
+
+        CompletableFuture<Void> first = appliedWaiters.waitFor(5L, 10000L);
+        CompletableFuture<Void> second = appliedWaiters.waitFor(5L, 10000L);
+        CompletableFuture<Void> third = appliedWaiters.waitFor(8L, 10000L);
+        Assert.assertEquals(2, appliedWaiters.size());
+
+        lastApplied.set(6L);
+        appliedWaiters.onApplied();
+        first.get();
+        second.get();
+        Assert.assertFalse(third.isDone());
+        Assert.assertEquals(1, appliedWaiters.size());
+
+        lastApplied.set(8L);
+        appliedWaiters.onApplied();
+        third.get();
+        Assert.assertEquals(0, appliedWaiters.size());
+    }
+
+    @Test
+    public void timeoutTest() throws Exception {
+        CompletableFuture<Void> timeout = appliedWaiters.waitFor(5L, 50L);
+        CompletableFuture<Void> waiting = appliedWaiters.waitFor(5L, 10000L);
+        assertTimeout(timeout);
+        // 还有其它请求在等待，等待项保留
+        Assert.assertEquals(1, appliedWaiters.size());
+        Assert.assertFalse(waiting.isDone());
+
+        lastApplied.set(5L);
+        appliedWaiters.onApplied();
+        waiting.get();
+        Assert.assertEquals(0, appliedWaiters.size());
+
+        // 所有请求都超时后删除等待项
+        assertTimeout(appliedWaiters.waitFor(10L, 50L));
+        assertTimeout(appliedWaiters.waitFor(11L, 50L));
+        Assert.assertEquals(0, appliedWaiters.size());
+    }
+
+    private static void assertTimeout(CompletableFuture<Void> future) throws InterruptedException {
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import io.journalkeeper.core.api.JournalEntry;
+import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.core.journal.Journal;
+import io.journalkeeper.core.journal.JournalSnapshot;
+import io.journalkeeper.core.state.JournalKeeperState;
+import io.journalkeeper.core.state.Snapshot;
+import io.journalkeeper.persistence.BufferPool;
+import io.journalkeeper.persistence.PersistenceFactory;
+import io.journalkeeper.rpc.server.AsyncAppendEntriesRequest;
+import io.journalkeeper.rpc.server.AsyncAppendEntriesResponse;
+import io.journalkeeper.utils.spi.ServiceSupport;
+import io.journalkeeper.utils.state.StateServer;
+import io.journalkeeper.utils.test.TestPathUtils;
+import io.journalkeeper.utils.threads.ThreadBuilder;
+import io.journalkeeper.utils.threads.Threads;
+import io.journalkeeper.utils.threads.ThreadsFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import static io.journalkeeper.core.server.ThreadNames.STATE_MACHINE_THREAD;
+
+public class FollowerTest {
+    private static final URI SERVER_URI = URI.create("jk://localhost:9999");
+    private static final int TERM = 1;
+    private final JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+    private Journal journal;
+    private Threads threads;
+    private Follower follower;
+
+    @Before
+    public void before() throws IOException {
+        PersistenceFactory persistenceFactory = ServiceSupport.load(PersistenceFactory.class);
+        BufferPool bufferPool = ServiceSupport.load(BufferPool.class);
+        journal = new Journal(persistenceFactory, bufferPool, journalEntryParser);
+        journal.recover(TestPathUtils.prepareBaseDir(), 0L, new JournalSnapshot() {
+            @Override
+            public long minIndex() {
+                return 0L;
+            }
+
+            @Override
+            public long minOffset() {
+                return 0L;
+            }
+
+            @Override
+            public Map<Integer, Long> partitionMinIndices() {
+                return Collections.singletonMap(0, 0L);
+            }
+        }, new Properties());
+    }
+
+    /**
+     * 队列满时拒绝写入日志的请求，心跳不进入队列，不受影响
+     */
+    @Test
+    public void queueFullTest() {
+        startFollower(2, false);
+        CompletableFuture<AsyncAppendEntriesResponse> first = follower.addAppendEntriesRequest(appendRequest(0));
+        CompletableFuture<AsyncAppendEntriesResponse> second = follower.addAppendEntriesRequest(appendRequest(1));
+        CompletableFuture<AsyncAppendEntriesResponse> third = follower.addAppendEntriesRequest(appendRequest(2));
+        Assert.assertFalse(first.isDone());
+        Assert.assertFalse(second.isDone());
+        Assert.assertTrue(third.isDone());
+        Assert.assertFalse(third.join().success());
+        Assert.assertTrue(third.join().errorString().contains("Too many pending replication requests"));
+
+        CompletableFuture<AsyncAppendEntriesResponse> heartbeat = follower.addAppendEntriesRequest(heartbeatRequest(0L));
+        Assert.assertTrue(heartbeat.isDone());
+        Assert.assertTrue(heartbeat.join().success());
+        Assert.assertTrue(heartbeat.join().isSuccess());
+    }
+
+    /**
+     * 日志按收到的顺序写入，心跳中的commitIndex在日志写入之后提交
+     */
+    @Test
+    public void orderingTest() throws Exception {
+        startFollower(1024, true);
+        int count = 100;
+        List<CompletableFuture<AsyncAppendEntriesResponse>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(follower.addAppendEntriesRequest(appendRequest(i)));
+            Assert.assertTrue(follower.addAppendEntriesRequest(heartbeatRequest(i + 1)).get().success());
+        }
+        for (CompletableFuture<AsyncAppendEntriesResponse> future : futures) {
+            AsyncAppendEntriesResponse response = future.get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(response.success());
+            Assert.assertTrue(response.isSuccess());
+        }
+        Assert.assertEquals(count, journal.maxIndex());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, journal.read(i).getPayload().getBytes()[0]);
+        }
+
+        // 最后一个心跳可能在最后一条日志写入之前到达，由复制请求处理线程写完日志之后提交
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (journal.commitIndex() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        Assert.assertEquals(count, journal.commitIndex());
+    }
+
+    /**
+     * 停止时给队列中的请求返回失败响应，停止之后的请求直接返回失败
+     */
+    @Test
+    public void shutdownTest() {
+        startFollower(16, false);
+        CompletableFuture<AsyncAppendEntriesResponse> pending = follower.addAppendEntriesRequest(appendRequest(0));
+        Assert.assertFalse(pending.isDone());
+
+        follower.stop();
+        Assert.assertTrue(pending.isDone());
+        Assert.assertFalse(pending.join().success());
+
+        CompletableFuture<AsyncAppendEntriesResponse> afterStop = follower.addAppendEntriesRequest(appendRequest(0));
+        Assert.assertTrue(afterStop.isDone());
+        Assert.assertFalse(afterStop.join().success());
+        CompletableFuture<AsyncAppendEntriesResponse> heartbeatAfterStop = follower.addAppendEntriesRequest(heartbeatRequest(0L));
+        Assert.assertTrue(heartbeatAfterStop.isDone());
+        Assert.assertFalse(heartbeatAfterStop.join().success());
+    }
+
+    /**
+     * @param runHandler false时不启动复制请求处理线程，请求一直留在队列中
+     */
+    private void startFollower(int cachedRequests, boolean runHandler) {
+        if (runHandler) {
+            threads = ThreadsFactory.create();
+            threads.start();
+            threads.createThread(ThreadBuilder.builder()
+                    .name(SERVER_URI + "-" + STATE_MACHINE_THREAD)
+                    .doWork(() -> {
+                    })
+                    .sleepTime(50, 50)
+                    .daemon(true)
+                    .build());
+        } else {
+            threads = Mockito.mock(Threads.class);
+        }
+        NavigableMap<Long, Snapshot> snapshots = new ConcurrentSkipListMap<>();
+        follower = new Follower(journal, Mockito.mock(JournalKeeperState.class), SERVER_URI, TERM,
+                Mockito.mock(VoterConfigManager.class), threads, snapshots, cachedRequests);
+        follower.start();
+    }
+
+    private AsyncAppendEntriesRequest appendRequest(int index) {
+        JournalEntry entry = journalEntryParser.createJournalEntry(new byte[]{(byte) index});
+        entry.setTerm(TERM);
+        entry.setPartition(0);
+        return new AsyncAppendEntriesRequest(TERM, SERVER_URI, index - 1, index == 0 ? -1 : TERM,
+                Collections.singletonList(entry.getSerializedBytes()), 0L, index + 1);
+    }
+
+    private AsyncAppendEntriesRequest heartbeatRequest(long leaderCommit) {
+        return new AsyncAppendEntriesRequest(TERM, SERVER_URI, 0L, TERM,
+                Collections.emptyList(), leaderCommit, leaderCommit);
+    }
+
+    @After
+    public void after() throws IOException {
+        if (null != follower && follower.serverState() == StateServer.ServerState.RUNNING) {
+            follower.stop();
+        }
+        if (null != threads) {
+            threads.stop();
+        }
+        journal.close();
+        TestPathUtils.destroyBaseDir();
+    }
+}
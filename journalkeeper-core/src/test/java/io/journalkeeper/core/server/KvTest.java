@@ -41,7 +41,10 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
@@ -162,6 +165,110 @@ public class KvTest {
         TestPathUtils.destroyBaseDir(path.toFile());
     }
 
+    /**
+     * 开启流水线复制，验证并发写入的数据被完整的复制到所有节点上
+     */
+    @Test
+    public void pipelinedReplicationTest() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        int nodes = 3;
+        int count = 1000;
+        Path path = TestPathUtils.prepareBaseDir("pipelinedReplicationTest");
+        List<URI> serverURIs = new ArrayList<>(nodes);
+        List<Properties> propertiesList = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            URI uri = URI.create("local://test" + i);
+            serverURIs.add(uri);
+            Path workingDir = path.resolve("server" + i);
+            Properties properties = new Properties();
+            properties.setProperty("working_dir", workingDir.toString());
+            properties.setProperty("persistence.journal.file_data_size", String.valueOf(128 * 1024));
+            properties.setProperty("persistence.index.file_data_size", String.valueOf(16 * 1024));
+            properties.setProperty("disable_logo", "true");
+            properties.setProperty("replication_batch_size", "4");
+            properties.setProperty("replication_parallelism", "8");
+            propertiesList.add(properties);
+        }
+        List<WrappedBootStrap<String, String, String, String>> kvServers = createServers(serverURIs, propertiesList, RaftServer.Roll.VOTER, true);
+        try {
+            WrappedRaftClient<String, String, String, String> kvClient = kvServers.get(0).getClient();
+            List<CompletableFuture<String>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                futures.add(kvClient.update("SET key" + i + " value" + i));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            for (int i = 0; i < count; i += 97) {
+                Assert.assertEquals("value" + i, kvClient.query("GET key" + i).get());
+            }
+
+            AdminClient adminClient = kvServers.get(0).getAdminClient();
+            long deadline = System.currentTimeMillis() + 10000L;
+            Set<Long> maxIndices = new HashSet<>();
+            while (System.currentTimeMillis() < deadline) {
+                maxIndices.clear();
+                for (URI uri : serverURIs) {
+                    maxIndices.add(adminClient.getServerStatus(uri).get().getMaxIndex());
+                }
+                if (maxIndices.size() == 1) {
+                    break;
+                }
+                Thread.sleep(100L);
+            }
+            Assert.assertEquals(1, maxIndices.size());
+        } finally {
+            stopServers(kvServers);
+            TestPathUtils.destroyBaseDir(path.toFile());
+        }
+    }
+
+    /**
+     * 开启ReadIndex，验证FOLLOWER上执行的强一致读能读到LEADER刚刚写入的数据
+     */
+    @Test
+    public void followerReadIndexTest() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        int nodes = 3;
+        int count = 100;
+        Path path = TestPathUtils.prepareBaseDir("followerReadIndexTest");
+        List<URI> serverURIs = new ArrayList<>(nodes);
+        List<Properties> propertiesList = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            URI uri = URI.create("local://test" + i);
+            serverURIs.add(uri);
+            Path workingDir = path.resolve("server" + i);
+            Properties properties = new Properties();
+            properties.setProperty("working_dir", workingDir.toString());
+            properties.setProperty("persistence.journal.file_data_size", String.valueOf(128 * 1024));
+            properties.setProperty("persistence.index.file_data_size", String.valueOf(16 * 1024));
+            properties.setProperty("disable_logo", "true");
+            properties.setProperty("read_index_enabled", "true");
+            propertiesList.add(properties);
+        }
+        List<WrappedBootStrap<String, String, String, String>> kvServers = createServers(serverURIs, propertiesList, RaftServer.Roll.VOTER, true);
+        try {
+            URI leaderUri = kvServers.get(0).getAdminClient().getClusterConfiguration().get().getLeader();
+            WrappedBootStrap<String, String, String, String> leader = kvServers.stream()
+                    .filter(server -> server.getServer().serverUri().equals(leaderUri))
+                    .findAny().orElseThrow(RuntimeException::new);
+            List<WrappedBootStrap<String, String, String, String>> followers = kvServers.stream()
+                    .filter(server -> server != leader)
+                    .collect(Collectors.toList());
+
+            WrappedRaftClient<String, String, String, String> leaderClient = leader.getLocalClient();
+            WrappedRaftClient<String, String, String, String> remoteClient = followers.get(0).getClient();
+            for (int i = 0; i < count; i++) {
+                Assert.assertNull(leaderClient.update("SET key" + i + " value" + i).get());
+                // 本地客户端只访问本节点，查询只能在FOLLOWER上通过ReadIndex执行
+                for (WrappedBootStrap<String, String, String, String> follower : followers) {
+                    Assert.assertEquals("value" + i, follower.getLocalClient().query("GET key" + i).get());
+                }
+                Assert.assertEquals("value" + i, remoteClient.query("GET key" + i).get());
+            }
+        } finally {
+            stopServers(kvServers);
+            TestPathUtils.destroyBaseDir(path.toFile());
+        }
+    }
+
     /**
      * 验证禁用PreVote时，选举是否成功
      */
@@ -0,0 +1,180 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import io.journalkeeper.core.api.JournalEntry;
+import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.api.RaftJournal;
+import io.journalkeeper.core.api.UpdateRequest;
+import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.core.journal.Journal;
+import io.journalkeeper.core.state.ConfigState;
+import io.journalkeeper.core.state.JournalKeeperState;
+import io.journalkeeper.metric.JMetric;
+import io.journalkeeper.rpc.client.ClientServerRpc;
+import io.journalkeeper.rpc.client.UpdateClusterStateRequest;
+import io.journalkeeper.rpc.client.UpdateClusterStateResponse;
+import io.journalkeeper.utils.threads.Threads;
+import io.journalkeeper.utils.threads.ThreadsFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+
+public class LeaderTest {
+    private static final URI SERVER_URI = URI.create("jk://localhost:9999");
+    private static final int TERM = 1;
+    private final JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+    // 每次写入Journal的entry数量
+    private final List<Integer> appendedBatches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstAppending = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstAppend = new CountDownLatch(1);
+    private final AtomicBoolean failAppend = new AtomicBoolean(false);
+    private ScheduledExecutorService scheduledExecutor;
+    private Threads threads;
+    private Leader leader;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        Journal journal = Mockito.mock(Journal.class);
+        Mockito.when(journal.maxAppendEntries()).thenReturn(1024);
+        Mockito.when(journal.append(anyList())).thenAnswer(invocation -> {
+            List<JournalEntry> entries = invocation.getArgument(0);
+            appendedBatches.add(entries.size());
+            if (appendedBatches.size() == 1) {
+                // 第一批写入时阻塞写入线程，让后续的请求在队列中积压
+                firstAppending.countDown();
+                Assert.assertTrue(releaseFirstAppend.await(10, TimeUnit.SECONDS));
+            } else if (failAppend.get()) {
+                throw new RuntimeException("Append failed!");
+            }
+            List<Long> offsets = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                offsets.add(1000L + i);
+            }
+            return offsets;
+        });
+
+        JournalKeeperState state = Mockito.mock(JournalKeeperState.class);
+        Mockito.when(state.getConfigState()).thenReturn(new ConfigState(Collections.singletonList(SERVER_URI)));
+        MetricProvider metricProvider = Mockito.mock(MetricProvider.class);
+        Mockito.when(metricProvider.getMetric(anyString())).thenReturn(Mockito.mock(JMetric.class));
+
+        scheduledExecutor = Executors.newScheduledThreadPool(2);
+        threads = ThreadsFactory.create();
+        threads.start();
+        leader = new Leader(journal, state, new ConcurrentSkipListMap<>(), TERM, SERVER_URI,
+                1024, 100L, 60000L, 128,
+                1, 1024, 1024 * 1024, 1024, 0,
+                1024 * 1024, 1,
+                threads, Mockito.mock(ServerRpcProvider.class), Mockito.mock(ClientServerRpc.class),
+                scheduledExecutor, Mockito.mock(VoterConfigManager.class), metricProvider, journalEntryParser,
+                60000L, new ConcurrentSkipListMap<>());
+        leader.start();
+    }
+
+    @After
+    public void after() {
+        releaseFirstAppend.countDown();
+        leader.stop();
+        threads.stop();
+        scheduledExecutor.shutdownNow();
+    }
+
+    /**
+     * 写入期间积压的请求合并成一次Journal写入
+     */
+    @Test
+    public void coalesceTest() throws Exception {
+        List<CompletableFuture<UpdateClusterStateResponse>> batch = sendBlockedBatch();
+        waitForAppends(2);
+        Assert.assertEquals(Arrays.asList(1, 6), appendedBatches);
+        for (CompletableFuture<UpdateClusterStateResponse> future : batch) {
+            // 等待复制完成，不会因为合并写入而提前结束
+            Assert.assertFalse(future.isDone());
+        }
+    }
+
+    /**
+     * 合并写入失败时，这一批中的每个请求都收到失败响应
+     */
+    @Test
+    public void appendFailureTest() throws Exception {
+        failAppend.set(true);
+        List<CompletableFuture<UpdateClusterStateResponse>> batch = sendBlockedBatch();
+        for (CompletableFuture<UpdateClusterStateResponse> future : batch) {
+            UpdateClusterStateResponse response = future.get(10, TimeUnit.SECONDS);
+            Assert.assertFalse(response.success());
+            Assert.assertTrue(response.errorString().contains("Append failed!"));
+        }
+        Assert.assertEquals(Arrays.asList(1, 6), appendedBatches);
+
+        // 写入失败不影响后续的请求
+        failAppend.set(false);
+        CompletableFuture<UpdateClusterStateResponse> next = leader.updateClusterState(request(new byte[]{9}));
+        waitForAppends(3);
+        Assert.assertEquals(1, (int) appendedBatches.get(2));
+        Assert.assertFalse(next.isDone());
+    }
+
+    /**
+     * 第一个请求写入时阻塞写入线程，期间再发送5个请求（共6条entry），然后放行
+     * @return 后发送的5个请求的响应
+     */
+    private List<CompletableFuture<UpdateClusterStateResponse>> sendBlockedBatch() throws InterruptedException {
+        leader.updateClusterState(request(new byte[]{0}));
+        Assert.assertTrue(firstAppending.await(10, TimeUnit.SECONDS));
+        List<CompletableFuture<UpdateClusterStateResponse>> batch = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            batch.add(i == 3 ?
+                    leader.updateClusterState(new UpdateClusterStateRequest(Arrays.asList(
+                            new UpdateRequest(new byte[]{(byte) i}, RaftJournal.DEFAULT_PARTITION, 1),
+                            new UpdateRequest(new byte[]{(byte) i}, RaftJournal.DEFAULT_PARTITION, 1)))) :
+                    leader.updateClusterState(request(new byte[]{(byte) i})));
+        }
+        releaseFirstAppend.countDown();
+        return batch;
+    }
+
+    private UpdateClusterStateRequest request(byte[] entry) {
+        return new UpdateClusterStateRequest(entry, RaftJournal.DEFAULT_PARTITION, 1);
+    }
+
+    private void waitForAppends(int appends) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (appendedBatches.size() < appends && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        Assert.assertEquals(appends, appendedBatches.size());
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import io.journalkeeper.utils.files.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class PartialSnapshotTest {
+
+    private static final String ROOT = String.format("%s/export/partialSnapshotTest", System.getProperty("java.io.tmpdir"));
+    private static final String FILE_NAME = "data";
+    private Path root;
+    private Path snapshotPath;
+    private PartialSnapshot partialSnapshot;
+
+    @Before
+    public void before() throws Exception {
+        root = new File(ROOT).toPath();
+        FileUtils.deleteFolder(root);
+        snapshotPath = root.resolve("snapshot");
+        partialSnapshot = new PartialSnapshot(root.resolve("partial"));
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteFolder(root);
+    }
+
+    @Test
+    public void outOfOrderTest() throws Exception {
+        byte[] first = trunk(0L, "0123"), second = trunk(4L, "4567"), third = trunk(8L, "89");
+
+        Assert.assertFalse(partialSnapshot.installTrunk(0L, first, snapshotPath, false));
+        Assert.assertFalse(partialSnapshot.installTrunk(first.length + second.length, third, snapshotPath, true));
+        Assert.assertTrue(partialSnapshot.installTrunk(first.length, second, snapshotPath, false));
+
+        partialSnapshot.finish();
+        Assert.assertEquals("0123456789",
+                new String(Files.readAllBytes(snapshotPath.resolve(FILE_NAME)), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void missingTrunkTest() throws Exception {
+        byte[] first = trunk(0L, "0123"), second = trunk(4L, "4567"), third = trunk(8L, "89");
+
+        // 中间的trunk丢失，收到最后一个trunk也不能算安装完成
+        Assert.assertFalse(partialSnapshot.installTrunk(0L, first, snapshotPath, false));
+        Assert.assertFalse(partialSnapshot.installTrunk(first.length + second.length, third, snapshotPath, true));
+        Assert.assertEquals(first.length, partialSnapshot.getOffset());
+    }
+
+    private byte[] trunk(long offsetOfFile, String content) {
+        byte[] filename = FILE_NAME.getBytes(StandardCharsets.UTF_8);
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + filename.length + Long.BYTES + data.length);
+        buffer.putInt(filename.length);
+        buffer.put(filename);
+        buffer.putLong(offsetOfFile);
+        buffer.put(data);
+        return buffer.array();
+    }
+}
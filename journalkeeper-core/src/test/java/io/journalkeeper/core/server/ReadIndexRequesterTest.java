@@ -0,0 +1,56 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class ReadIndexRequesterTest {
+
+    @Test
+    public void batchReadIndexTest() throws Exception {
+        List<CompletableFuture<Long>> rpcFutures = new ArrayList<>();
+        ReadIndexRequester requester = new ReadIndexRequester(() -> {
+            CompletableFuture<Long> future = new CompletableFuture<>();
+            rpcFutures.add(future);
+            return future;
+        });
+
+        CompletableFuture<Long> first = requester.readIndex();
+        Assert.assertEquals(1, rpcFutures.size());
+
+        // 在途RPC返回之前到达的读请求，合并到下一轮
+        CompletableFuture<Long> second = requester.readIndex();
+        CompletableFuture<Long> third = requester.readIndex();
+        Assert.assertEquals(1, rpcFutures.size());
+
+        rpcFutures.get(0).complete(10L);
+        Assert.assertEquals(10L, (long) first.get());
+        Assert.assertFalse(second.isDone());
+        Assert.assertEquals(2, rpcFutures.size());
+
+        rpcFutures.get(1).complete(20L);
+        Assert.assertEquals(20L, (long) second.get());
+        Assert.assertEquals(20L, (long) third.get());
+        Assert.assertEquals(2, rpcFutures.size());
+
+        CompletableFuture<Long> failed = requester.readIndex();
+        rpcFutures.get(2).completeExceptionally(new IllegalStateException());
+        Assert.assertTrue(failed.isCompletedExceptionally());
+    }
+}
@@ -55,6 +55,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -277,6 +278,40 @@ public class VoterTest {
     }
 
 
+    /**
+     * 并发的请求在LEADER上合并写入，每个请求仍然收到自己的结果
+     */
+    @Test
+    public void concurrentUpdateClusterStateTest() throws Exception {
+        Server voter = createVoter();
+        try {
+            while (voter.getServerStatus().get().getServerStatus().getVoterState() != VoterState.LEADER) {
+                Thread.sleep(50L);
+            }
+            int count = 1000;
+            List<List<byte[]>> entries = new ArrayList<>(count);
+            List<CompletableFuture<UpdateClusterStateResponse>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                // 每个请求包含1到3条entry
+                List<byte[]> requestEntries = ByteUtils.createRandomSizeByteList(64, i % 3 + 1);
+                entries.add(requestEntries);
+                futures.add(voter.updateClusterState(new UpdateClusterStateRequest(requestEntries.stream()
+                        .map(bytes -> new UpdateRequest(bytes, RaftJournal.DEFAULT_PARTITION, 1))
+                        .collect(Collectors.toList()))));
+            }
+            for (int i = 0; i < count; i++) {
+                UpdateClusterStateResponse response = futures.get(i).get();
+                Assert.assertTrue(response.success());
+                Assert.assertEquals(entries.get(i).size(), response.getResults().size());
+                for (int j = 0; j < entries.get(i).size(); j++) {
+                    Assert.assertArrayEquals(entries.get(i).get(j), response.getResults().get(j));
+                }
+            }
+        } finally {
+            voter.stop();
+        }
+    }
+
     // Running this test case takes about 4 minutes.
     @Ignore
     @Test
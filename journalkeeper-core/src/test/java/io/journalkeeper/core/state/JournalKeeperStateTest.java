@@ -0,0 +1,304 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.state;
+
+import io.journalkeeper.core.api.Checkpointable;
+import io.journalkeeper.core.api.EntryFuture;
+import io.journalkeeper.core.api.JournalEntry;
+import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.api.RaftJournal;
+import io.journalkeeper.core.api.State;
+import io.journalkeeper.core.api.StateEntry;
+import io.journalkeeper.core.api.StateResult;
+import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.exceptions.StateBatchExecutionException;
+import io.journalkeeper.persistence.PersistenceFactory;
+import io.journalkeeper.utils.spi.ServiceSupport;
+import io.journalkeeper.utils.test.TestPathUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+public class JournalKeeperStateTest {
+    private final JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+    private Path path;
+    private RecordingState userState;
+    private JournalKeeperState state;
+
+    @Before
+    public void before() throws IOException {
+        path = TestPathUtils.prepareBaseDir();
+        userState = new RecordingState();
+        state = createState(path.resolve("recording"), userState);
+    }
+
+    @After
+    public void after() {
+        state.close();
+        TestPathUtils.destroyBaseDir();
+    }
+
+    @Test
+    public void batchApplyTest() {
+        int size = 10;
+        List<StateResult> results = applyEntries(0, size);
+        Assert.assertEquals(size, results.size());
+        for (int i = 0; i < size; i++) {
+            Assert.assertEquals(i + 1, results.get(i).getLastApplied());
+            Assert.assertArrayEquals(new byte[]{(byte) i}, results.get(i).getUserResult());
+        }
+        Assert.assertEquals(size, state.lastApplied());
+        Assert.assertEquals(entryIndices(0, size), userState.executedIndices);
+    }
+
+    @Test
+    public void partialFailureTest() {
+        int size = 10;
+        int failIndex = 4;
+        userState.failIndex = failIndex;
+        try {
+            applyEntries(0, size);
+            Assert.fail();
+        } catch (StateBatchExecutionException e) {
+            // 失败之前的entry已经执行成功，计入lastApplied
+            Assert.assertEquals(failIndex, e.getResults().size());
+            Assert.assertEquals(failIndex, e.getResults().get(failIndex - 1).getLastApplied());
+        }
+        Assert.assertEquals(failIndex, state.lastApplied());
+
+        // 重试时从失败的entry开始执行，每条entry只执行一次
+        List<StateResult> results = applyEntries(state.lastApplied(), size - failIndex);
+        Assert.assertEquals(size - failIndex, results.size());
+        Assert.assertEquals(size, state.lastApplied());
+        Assert.assertEquals(entryIndices(0, size), userState.executedIndices);
+    }
+
+    @Test
+    public void atomicBatchFailureTest() {
+        // 状态机整体回滚一批命令时，不记录任何执行进度
+        userState.atomicBatch = true;
+        userState.failIndex = 4;
+        try {
+            applyEntries(0, 10);
+            Assert.fail();
+        } catch (StateBatchExecutionException e) {
+            Assert.fail();
+        } catch (RuntimeException ignored) {
+        }
+        Assert.assertEquals(0, state.lastApplied());
+        Assert.assertTrue(userState.executedIndices.isEmpty());
+
+        List<StateResult> results = applyEntries(0, 10);
+        Assert.assertEquals(10, results.size());
+        Assert.assertEquals(entryIndices(0, 10), userState.executedIndices);
+    }
+
+    @Test
+    public void dumpWithHardLinkTest() throws IOException {
+        FileState fileState = new FileState();
+        JournalKeeperState fileStateHolder = createState(path.resolve("state"), fileState);
+        Path userPath = path.resolve("state").resolve(JournalKeeperState.USER_STATE_PATH);
+        write(userPath.resolve("sst-1"), "sst-1");
+        write(userPath.resolve("manifest"), "manifest-1");
+
+        Path snapshotPath = path.resolve("snapshot");
+        fileStateHolder.dump(snapshotPath);
+        Path snapshotUserPath = snapshotPath.resolve(JournalKeeperState.USER_STATE_PATH);
+        Assert.assertTrue(Files.isSameFile(userPath.resolve("sst-1"), snapshotUserPath.resolve("sst-1")));
+        Assert.assertFalse(Files.isSameFile(userPath.resolve("manifest"), snapshotUserPath.resolve("manifest")));
+
+        // 创建快照之后状态继续变化：写入新文件，修改可变文件，删除不可变文件
+        write(userPath.resolve("sst-2"), "sst-2");
+        write(userPath.resolve("manifest"), "manifest-2");
+        Files.delete(userPath.resolve("sst-1"));
+        fileStateHolder.close();
+
+        // 从快照恢复的状态和创建快照时一致
+        FileState restored = new FileState();
+        JournalKeeperState restoredHolder = createState(snapshotPath, restored);
+        Assert.assertEquals("sst-1", read(restored.path.resolve("sst-1")));
+        Assert.assertEquals("manifest-1", read(restored.path.resolve("manifest")));
+        Assert.assertFalse(Files.exists(restored.path.resolve("sst-2")));
+        restoredHolder.close();
+    }
+
+    @Test
+    public void checkpointTest() throws IOException {
+        FileState fileState = new FileState();
+        fileState.useCheckpoint = true;
+        JournalKeeperState fileStateHolder = createState(path.resolve("state"), fileState);
+        Path userPath = path.resolve("state").resolve(JournalKeeperState.USER_STATE_PATH);
+        write(userPath.resolve("sst-1"), "sst-1");
+        write(userPath.resolve("manifest"), "manifest-1");
+        write(userPath.resolve("wal"), "not in checkpoint");
+
+        Path snapshotPath = path.resolve("snapshot");
+        fileStateHolder.dump(snapshotPath);
+        // 检查点由状态机自己生成，JournalKeeper只复制内部状态
+        Assert.assertEquals(1, fileState.checkpoints);
+        Assert.assertFalse(Files.exists(snapshotPath.resolve(JournalKeeperState.USER_STATE_PATH).resolve("wal")));
+
+        long lastApplied = fileStateHolder.lastApplied();
+        write(userPath.resolve("sst-2"), "sst-2");
+        write(userPath.resolve("manifest"), "manifest-2");
+        fileStateHolder.close();
+
+        FileState restored = new FileState();
+        JournalKeeperState restoredHolder = createState(snapshotPath, restored);
+        Assert.assertEquals(lastApplied, restoredHolder.lastApplied());
+        Assert.assertEquals("sst-1", read(restored.path.resolve("sst-1")));
+        Assert.assertEquals("manifest-1", read(restored.path.resolve("manifest")));
+        Assert.assertFalse(Files.exists(restored.path.resolve("sst-2")));
+        restoredHolder.close();
+    }
+
+    private JournalKeeperState createState(Path statePath, State userState) throws IOException {
+        JournalKeeperState journalKeeperState = new JournalKeeperState(() -> userState,
+                ServiceSupport.load(PersistenceFactory.class).createMetadataPersistenceInstance());
+        if (!Files.exists(statePath)) {
+            journalKeeperState.init(statePath, Collections.singletonList(URI.create("jk://localhost:8000")),
+                    Collections.singleton(0), null);
+        }
+        journalKeeperState.recover(statePath, new Properties());
+        return journalKeeperState;
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private List<StateResult> applyEntries(long index, int size) {
+        List<JournalEntry> entryHeaders = new ArrayList<>(size);
+        List<EntryFuture> entryFutures = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            byte[] payload = new byte[]{(byte) (index + i)};
+            JournalEntry entry = journalEntryParser.createJournalEntry(payload);
+            entry.setPartition(0);
+            entry.setTerm(1);
+            entryHeaders.add(entry);
+            entryFutures.add(() -> payload);
+        }
+        return state.applyEntries(entryHeaders, entryFutures, null);
+    }
+
+    private List<Long> entryIndices(long from, int size) {
+        List<Long> indices = new ArrayList<>(size);
+        for (long i = from; i < from + size; i++) {
+            indices.add(i);
+        }
+        return indices;
+    }
+
+    /**
+     * 以sst-开头的文件是不可变的，其它文件可变。
+     */
+    private static class FileState implements State, Checkpointable {
+        private Path path;
+        private boolean useCheckpoint = false;
+        private int checkpoints = 0;
+
+        @Override
+        public boolean isImmutable(Path file) {
+            return file.getFileName().toString().startsWith("sst-");
+        }
+
+        @Override
+        public boolean checkpoint(Path destPath) throws IOException {
+            if (!useCheckpoint) {
+                return false;
+            }
+            Files.createDirectories(destPath);
+            Files.createLink(destPath.resolve("sst-1"), path.resolve("sst-1"));
+            Files.copy(path.resolve("manifest"), destPath.resolve("manifest"));
+            checkpoints++;
+            return true;
+        }
+
+        @Override
+        public StateResult execute(byte[] entry, int partition, long index, int batchSize, RaftJournal journal) {
+            return new StateResult(null);
+        }
+
+        @Override
+        public byte[] query(byte[] query, RaftJournal journal) {
+            return new byte[0];
+        }
+
+        @Override
+        public void recover(Path path, Properties properties) {
+            this.path = path;
+        }
+    }
+
+    private static class RecordingState implements State {
+        private final List<Long> executedIndices = new ArrayList<>();
+        private long failIndex = -1L;
+        private boolean atomicBatch = false;
+
+        @Override
+        public StateResult execute(byte[] entry, int partition, long index, int batchSize, RaftJournal journal) {
+            if (index == failIndex) {
+                // 只失败一次
+                failIndex = -1L;
+                throw new IllegalStateException("Execute failed at index " + index + "!");
+            }
+            executedIndices.add(index);
+            return new StateResult(entry);
+        }
+
+        @Override
+        public List<StateResult> executeBatch(List<StateEntry> entries, RaftJournal journal) {
+            if (!atomicBatch) {
+                return State.super.executeBatch(entries, journal);
+            }
+            int executed = executedIndices.size();
+            try {
+                List<StateResult> results = new ArrayList<>(entries.size());
+                for (StateEntry entry : entries) {
+                    results.add(execute(entry.getEntryFuture().get(), entry.getPartition(), entry.getIndex(), entry.getBatchSize(), journal));
+                }
+                return results;
+            } catch (RuntimeException e) {
+                // 回滚整批命令
+                executedIndices.subList(executed, executedIndices.size()).clear();
+                throw e;
+            }
+        }
+
+        @Override
+        public byte[] query(byte[] query, RaftJournal journal) {
+            return new byte[0];
+        }
+
+        @Override
+        public void recover(Path path, Properties properties) {
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.core.transaction;
+
+import io.journalkeeper.core.api.JournalEntry;
+import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.core.journal.Journal;
+import io.journalkeeper.core.journal.JournalSnapshot;
+import io.journalkeeper.persistence.BufferPool;
+import io.journalkeeper.persistence.PersistenceFactory;
+import io.journalkeeper.rpc.client.ClientServerRpc;
+import io.journalkeeper.utils.spi.ServiceSupport;
+import io.journalkeeper.utils.test.TestPathUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static io.journalkeeper.core.transaction.JournalTransactionManager.TRANSACTION_PARTITION_START;
+
+public class JournalTransactionStateTest {
+    private final JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+    private final TransactionEntrySerializer transactionEntrySerializer = new TransactionEntrySerializer();
+    private final ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+    private Path path;
+    private Journal journal;
+
+    @Before
+    public void before() throws IOException {
+        path = TestPathUtils.prepareBaseDir();
+        PersistenceFactory persistenceFactory = ServiceSupport.load(PersistenceFactory.class);
+        BufferPool bufferPool = ServiceSupport.load(BufferPool.class);
+        journal = new Journal(persistenceFactory, bufferPool, journalEntryParser);
+        journal.recover(path, 0L, new JournalSnapshot() {
+            @Override
+            public long minIndex() {
+                return 0L;
+            }
+
+            @Override
+            public long minOffset() {
+                return 0L;
+            }
+
+            @Override
+            public Map<Integer, Long> partitionMinIndices() {
+                return Collections.singletonMap(0, 0L);
+            }
+        }, new Properties());
+    }
+
+    /**
+     * 提交到一半LEADER变更：最后一个请求只复制了一部分，之后是新LEADER的日志，
+     * 提交进度是TRANSACTION_COMMIT_CHUNK日志之前的数量加上实际存在的日志数量。
+     */
+    @Test
+    public void readCommittedCountTest() throws IOException {
+        int committingPartition = TRANSACTION_PARTITION_START;
+        int preCompletedPartition = TRANSACTION_PARTITION_START + 1;
+        int completedPartition = TRANSACTION_PARTITION_START + 2;
+        UUID committing = UUID.randomUUID();
+        UUID preCompleted = UUID.randomUUID();
+        UUID completed = UUID.randomUUID();
+
+        List<JournalEntry> entries = new ArrayList<>();
+        appendTransaction(entries, preCompleted, preCompletedPartition, 1);
+        appendTransaction(entries, completed, completedPartition, 1);
+        entries.add(createEntry(new TransactionEntry(completed, 0, 2), completedPartition, 1));
+        entries.add(createEntry(new byte[]{1}, 0, 1));
+        entries.add(createEntry(new TransactionEntry(completed, TransactionEntryType.TRANSACTION_COMPLETE, true), completedPartition, 1));
+
+        appendTransaction(entries, committing, committingPartition, 1);
+        entries.add(createEntry(new TransactionEntry(committing, 0, 3), committingPartition, 1));
+        for (int i = 0; i < 3; i++) {
+            entries.add(createEntry(new byte[]{(byte) i}, 0, 1));
+        }
+        entries.add(createEntry(new TransactionEntry(committing, 3, 3), committingPartition, 1));
+        // 只复制了一条日志
+        entries.add(createEntry(new byte[]{3}, 0, 1));
+        // 新LEADER的日志
+        entries.add(createEntry(new byte[]{4}, 0, 2));
+        journal.append(entries);
+        journal.commit(journal.maxIndex());
+
+        JournalTransactionState transactionState = new JournalTransactionState(
+                journal, journalEntryParser, 60000L, Mockito.mock(ClientServerRpc.class), scheduledExecutor);
+        Assert.assertEquals(4, transactionState.readCommittedCount(committing, committingPartition));
+        Assert.assertEquals(0, transactionState.readCommittedCount(preCompleted, preCompletedPartition));
+        Assert.assertEquals(-1, transactionState.readCommittedCount(completed, completedPartition));
+    }
+
+    private void appendTransaction(List<JournalEntry> entries, UUID transactionId, int partition, int term) {
+        entries.add(createEntry(new TransactionEntry(transactionId, Collections.emptyMap()), partition, term));
+        for (int i = 0; i < 6; i++) {
+            entries.add(createEntry(new TransactionEntry(transactionId, 0, 1, new byte[]{(byte) i}), partition, term));
+        }
+        entries.add(createEntry(new TransactionEntry(transactionId, TransactionEntryType.TRANSACTION_PRE_COMPLETE, true), partition, term));
+    }
+
+    private JournalEntry createEntry(TransactionEntry transactionEntry, int partition, int term) {
+        return createEntry(transactionEntrySerializer.serialize(transactionEntry), partition, term);
+    }
+
+    private JournalEntry createEntry(byte[] payload, int partition, int term) {
+        JournalEntry entry = journalEntryParser.createJournalEntry(payload);
+        entry.setPartition(partition);
+        entry.setTerm(term);
+        return entry;
+    }
+
+    @After
+    public void after() throws IOException {
+        journal.close();
+        scheduledExecutor.shutdown();
+        TestPathUtils.destroyBaseDir();
+    }
+}
@@ -18,6 +18,7 @@ import io.journalkeeper.core.BootStrap;
 import io.journalkeeper.core.api.JournalEntry;
 import io.journalkeeper.core.api.JournalEntryParser;
 import io.journalkeeper.core.api.PartitionedJournalStore;
+import io.journalkeeper.core.api.QueryConsistency;
 import io.journalkeeper.core.api.RaftClient;
 import io.journalkeeper.core.api.ResponseConfig;
 import io.journalkeeper.core.api.UpdateRequest;
@@ -51,17 +52,26 @@ import java.util.stream.Collectors;
  */
 public class JournalStoreClient implements PartitionedJournalStore, TransactionalJournalStore {
     private static final Logger logger = LoggerFactory.getLogger(JournalStoreClient.class);
+    /**
+     * 是否允许从FOLLOWER和OBSERVER读取日志。
+     * 已提交的日志不会再变化，只要节点已经执行到了查询的位置，任何节点都可以提供读服务。
+     * 开启后，客户端只能读到自己写入或者查询到的位置，其它客户端刚刚写入的日志可能返回{@link IndexOverflowException}，
+     * 需要读到其它客户端写入的日志时，先调用{@link #maxIndices()}。
+     */
+    public static final String READ_FROM_REPLICAS_KEY = "read_from_replicas";
+    public static final boolean DEFAULT_READ_FROM_REPLICAS = false;
     private final RaftClient raftClient;
     private final Serializer<Long> appendResultSerializer;
     private final Serializer<JournalStoreQuery> querySerializer;
     private final Serializer<JournalStoreQueryResult> queryResultSerializer;
+    private final boolean readFromReplicas;
 
-    JournalStoreClient(RaftClient raftClient, JournalEntryParser journalEntryParser) {
+    JournalStoreClient(RaftClient raftClient, JournalEntryParser journalEntryParser, Properties properties) {
         this.raftClient = raftClient;
         this.appendResultSerializer = new LongSerializer();
         this.querySerializer = new JournalStoreQuerySerializer();
         this.queryResultSerializer = new JournalStoreQueryResultSerializer(journalEntryParser);
-
+        this.readFromReplicas = readFromReplicas(properties);
     }
 
     /**
@@ -77,6 +87,7 @@ public class JournalStoreClient implements PartitionedJournalStore, Transactiona
         this.appendResultSerializer = new LongSerializer();
         this.querySerializer = new JournalStoreQuerySerializer();
         this.queryResultSerializer = new JournalStoreQueryResultSerializer(journalEntryParser);
+        this.readFromReplicas = readFromReplicas(properties);
 
         BootStrap bootStrap = new BootStrap(
                 servers,
@@ -89,6 +100,7 @@ public class JournalStoreClient implements PartitionedJournalStore, Transactiona
         this.appendResultSerializer = new LongSerializer();
         this.querySerializer = new JournalStoreQuerySerializer();
         this.queryResultSerializer = new JournalStoreQueryResultSerializer(journalEntryParser);
+        this.readFromReplicas = readFromReplicas(properties);
         BootStrap bootStrap = new BootStrap(
                 servers,
                 asyncExecutor, scheduledExecutor,
@@ -97,6 +109,13 @@ public class JournalStoreClient implements PartitionedJournalStore, Transactiona
         raftClient = bootStrap.getClient();
     }
 
+    private static boolean readFromReplicas(Properties properties) {
+        return Boolean.parseBoolean(
+                properties.getProperty(
+                        READ_FROM_REPLICAS_KEY,
+                        String.valueOf(DEFAULT_READ_FROM_REPLICAS)));
+    }
+
     @Override
     public CompletableFuture<Long> append(UpdateRequest updateRequest, boolean includeHeader, ResponseConfig responseConfig) {
         ReservedPartition.validatePartition(updateRequest.getPartition());
@@ -129,8 +148,32 @@ public class JournalStoreClient implements PartitionedJournalStore, Transactiona
     @Override
     public CompletableFuture<List<JournalEntry>> get(int partition, long index, int size) {
         ReservedPartition.validatePartition(partition);
-        return raftClient.query(querySerializer.serialize(JournalStoreQuery.createQueryEntries(partition, index, size)))
-                .thenApply(queryResultSerializer::parse)
+        return queryEntries(JournalStoreQuery.createQueryEntries(partition, index, size));
+    }
+
+    @Override
+    public CompletableFuture<List<JournalEntry>> poll(int partition, long index, int size) {
+        ReservedPartition.validatePartition(partition);
+        return queryEntries(JournalStoreQuery.createPollEntries(partition, index, size));
+    }
+
+    private CompletableFuture<List<JournalEntry>> queryEntries(JournalStoreQuery query) {
+        byte[] serializedQuery = querySerializer.serialize(query);
+        CompletableFuture<JournalStoreQueryResult> resultFuture;
+        if (readFromReplicas) {
+            // 随机选择一个节点读取，节点会等到执行到这个客户端已知的最新位置之后再查询，
+            // 所以节点返回的OVERFLOW和LEADER返回的一样，直接返回给调用方。
+            // 节点在超时时间内没有追上（或者不可用）时，再去LEADER上查一次。
+            resultFuture = raftClient.query(serializedQuery, QueryConsistency.SEQUENTIAL)
+                    .handle((result, exception) -> null == exception ?
+                            CompletableFuture.completedFuture(result) : raftClient.query(serializedQuery))
+                    .thenCompose(future -> future)
+                    .thenApply(queryResultSerializer::parse);
+        } else {
+            resultFuture = raftClient.query(serializedQuery)
+                    .thenApply(queryResultSerializer::parse);
+        }
+        return resultFuture
                 .thenApply(result -> {
                     if (result.getCode() == JournalStoreQueryResult.CODE_SUCCESS) {
                         return result;
@@ -22,6 +22,10 @@ public class JournalStoreQuery {
     public static final int CMD_QUERY_ENTRIES = 0;
     public static final int CMD_QUERY_PARTITIONS = 1;
     public static final int CMD_QUERY_INDEX = 2;
+    /**
+     * 长轮询查询日志，index位置还没有日志时，服务端等待新的日志写入后再返回
+     */
+    public static final int CMD_POLL_ENTRIES = 3;
     private final int cmd;
     private final int partition;
     private final long index;
@@ -49,6 +53,10 @@ public class JournalStoreQuery {
         return new JournalStoreQuery(CMD_QUERY_ENTRIES, partition, index, size, 0L);
     }
 
+    public static JournalStoreQuery createPollEntries(int partition, long index, int size) {
+        return new JournalStoreQuery(CMD_POLL_ENTRIES, partition, index, size, 0L);
+    }
+
     public static JournalStoreQuery createQueryPartitions() {
         return new JournalStoreQuery(CMD_QUERY_PARTITIONS);
     }
@@ -112,7 +112,8 @@ public class JournalStoreQueryResultSerializer implements Serializer<JournalStor
         byte[] headerBytes = new byte[journalEntryParser.headerLength()];
         for (int i = 0; i < entriesSize; i++) {
             buffer.mark();
-            buffer.get(headerBytes);
+            // 旧版本entry的header更短，剩余数据可能不足一个当前版本的header
+            buffer.get(headerBytes, 0, Math.min(headerBytes.length, buffer.remaining()));
             buffer.reset();
             JournalEntry header = journalEntryParser.parseHeader(headerBytes);
             int length = header.getLength();
@@ -39,7 +39,7 @@ public class JournalStoreServer implements StateServer {
     private final BootStrap bootStrap;
 
     public JournalStoreServer(Properties properties) {
-        this(RaftServer.Roll.VOTER, new DefaultJournalEntryParser(), properties);
+        this(RaftServer.Roll.VOTER, new DefaultJournalEntryParser(properties), properties);
     }
 
     public JournalStoreServer(RaftServer.Roll roll, JournalEntryParser journalEntryParser, Properties properties) {
@@ -108,7 +108,7 @@ public class JournalStoreServer implements StateServer {
     }
 
     public JournalStoreClient createClient() {
-        return new JournalStoreClient(bootStrap.getClient(), bootStrap.getJournalEntryParser());
+        return new JournalStoreClient(bootStrap.getClient(), bootStrap.getJournalEntryParser(), bootStrap.getProperties());
     }
 
     public AdminClient getAdminClient() {
@@ -116,7 +116,7 @@ public class JournalStoreServer implements StateServer {
     }
 
     public JournalStoreClient createLocalClient() {
-        return new JournalStoreClient(bootStrap.getLocalClient(), bootStrap.getJournalEntryParser());
+        return new JournalStoreClient(bootStrap.getLocalClient(), bootStrap.getJournalEntryParser(), bootStrap.getProperties());
     }
 
     public AdminClient getLocalAdminClient() {
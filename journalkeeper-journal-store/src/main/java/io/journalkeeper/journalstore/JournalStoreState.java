@@ -16,6 +16,7 @@ package io.journalkeeper.journalstore;
 import io.journalkeeper.base.Serializer;
 import io.journalkeeper.core.api.EntryFuture;
 import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.api.LongPollState;
 import io.journalkeeper.core.api.RaftJournal;
 import io.journalkeeper.core.api.State;
 import io.journalkeeper.core.api.StateResult;
@@ -27,12 +28,18 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static io.journalkeeper.core.api.RaftJournal.RESERVED_PARTITIONS_START;
+import static io.journalkeeper.journalstore.JournalStoreQuery.CMD_POLL_ENTRIES;
 import static io.journalkeeper.journalstore.JournalStoreQuery.CMD_QUERY_ENTRIES;
 import static io.journalkeeper.journalstore.JournalStoreQuery.CMD_QUERY_INDEX;
 import static io.journalkeeper.journalstore.JournalStoreQuery.CMD_QUERY_PARTITIONS;
@@ -41,7 +48,7 @@ import static io.journalkeeper.journalstore.JournalStoreQuery.CMD_QUERY_PARTITIO
  * @author LiYue
  * Date: 2019-05-09
  */
-public class JournalStoreState implements State, Flushable {
+public class JournalStoreState implements State, Flushable, LongPollState {
     private static final Logger logger = LoggerFactory.getLogger(JournalStoreState.class);
     private final static String STATE_FILE_NAME = "applied_indices";
     private final Serializer<Long> appendResultSerializer;
@@ -49,6 +56,11 @@ public class JournalStoreState implements State, Flushable {
     private final Serializer<JournalStoreQueryResult> queryResultSerializer;
     private AppliedIndicesFile appliedIndices;
     private Path path;
+    /**
+     * 等待新日志的长轮询查询，Key为分区，Value为这个分区上等待的查询，按查询位置排序
+     */
+    private final Map<Integer, NavigableSet<PollWaiter>> pollWaiters = new ConcurrentHashMap<>();
+    private final AtomicLong nextPollWaiterId = new AtomicLong();
 
     JournalStoreState(JournalEntryParser journalEntryParser) {
         this.appendResultSerializer = new LongSerializer();
@@ -94,6 +106,7 @@ public class JournalStoreState implements State, Flushable {
         appliedIndices.put(partition, partitionIndex + batchSize);
         long minIndex = journal.minIndex(partition);
         long maxIndex = appliedIndices.getOrDefault(partition, 0L);
+        wakeupPollWaiters(partition, maxIndex);
         StateResult result = new StateResult(appendResultSerializer.serialize(partitionIndex));
         Map<String, String> eventData = result.getEventData();
         eventData.put("partition", String.valueOf(partition));
@@ -102,6 +115,56 @@ public class JournalStoreState implements State, Flushable {
         return result;
     }
 
+    @Override
+    public CompletableFuture<Void> awaitQueryable(byte[] query, RaftJournal journal) {
+        JournalStoreQuery journalStoreQuery = querySerializer.parse(query);
+        if (journalStoreQuery.getCmd() != CMD_POLL_ENTRIES) {
+            return null;
+        }
+        int partition = journalStoreQuery.getPartition();
+        long index = journalStoreQuery.getIndex();
+        if (index < appliedIndices.getOrDefault(partition, 0L)) {
+            return null;
+        }
+        // 每个查询使用单独的future，一个查询取消等待不影响等待同一位置的其它查询
+        PollWaiter waiter = new PollWaiter(index, nextPollWaiterId.getAndIncrement());
+        NavigableSet<PollWaiter> waiters = pollWaiters.computeIfAbsent(partition, p -> new ConcurrentSkipListSet<>());
+        waiters.add(waiter);
+        // 调用方等待超时后会取消future，这时从等待队列中移除，避免空闲分区上的等待越积越多
+        waiter.future.whenComplete((v, t) -> {
+            if (waiter.future.isCancelled()) {
+                waiters.remove(waiter);
+            }
+        });
+        // 注册之后再检查一次，避免错过注册期间写入的日志
+        wakeupPollWaiters(partition, appliedIndices.getOrDefault(partition, 0L));
+        return waiter.future;
+    }
+
+    /**
+     * 唤醒分区上查询位置小于maxIndex的长轮询查询
+     */
+    private void wakeupPollWaiters(int partition, long maxIndex) {
+        NavigableSet<PollWaiter> waiters = pollWaiters.get(partition);
+        if (null != waiters) {
+            for (PollWaiter waiter : waiters) {
+                if (waiter.index >= maxIndex) {
+                    break;
+                }
+                if (waiters.remove(waiter)) {
+                    waiter.future.complete(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前等待中的长轮询查询数量
+     */
+    int pollWaiterCount() {
+        return pollWaiters.values().stream().mapToInt(Set::size).sum();
+    }
+
     @Override
     public byte[] query(byte[] query, RaftJournal journal) {
         return queryResultSerializer.serialize(query(querySerializer.parse(query), journal));
@@ -111,6 +174,7 @@ public class JournalStoreState implements State, Flushable {
         try {
             switch (query.getCmd()) {
                 case CMD_QUERY_ENTRIES:
+                case CMD_POLL_ENTRIES:
                     return queryEntries(query.getPartition(), query.getIndex(), query.getSize(), journal);
                 case CMD_QUERY_PARTITIONS:
                     return queryPartitions(journal);
@@ -169,8 +233,28 @@ public class JournalStoreState implements State, Flushable {
 
     @Override
     public void close() {
+        // 唤醒所有等待中的长轮询查询，让它们尽快返回
+        pollWaiters.values().forEach(waiters -> waiters.forEach(waiter -> waiter.future.complete(null)));
+        pollWaiters.clear();
         if (null != appliedIndices) {
             appliedIndices.close();
         }
     }
+
+    private static class PollWaiter implements Comparable<PollWaiter> {
+        private final long index;
+        private final long id;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        PollWaiter(long index, long id) {
+            this.index = index;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(PollWaiter o) {
+            int c = Long.compare(index, o.index);
+            return c != 0 ? c : Long.compare(id, o.id);
+        }
+    }
 }
@@ -0,0 +1,103 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.journalstore;
+
+import io.journalkeeper.core.api.JournalEntryParser;
+import io.journalkeeper.core.api.QueryConsistency;
+import io.journalkeeper.core.api.RaftClient;
+import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.exceptions.IndexOverflowException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JournalStoreClientTest {
+    private final JournalEntryParser journalEntryParser = new DefaultJournalEntryParser();
+    private final JournalStoreQueryResultSerializer queryResultSerializer = new JournalStoreQueryResultSerializer(journalEntryParser);
+    private RaftClient raftClient;
+
+    @Before
+    public void before() {
+        raftClient = mock(RaftClient.class);
+        doCallRealMethod().when(raftClient).query(any(byte[].class));
+    }
+
+    @Test
+    public void readFromLeaderByDefaultTest() throws Exception {
+        when(raftClient.query(any(byte[].class), eq(QueryConsistency.STRICT)))
+                .thenReturn(CompletableFuture.completedFuture(emptyResult()));
+        JournalStoreClient client = new JournalStoreClient(raftClient, journalEntryParser, new Properties());
+
+        Assert.assertTrue(client.get(0, 0L, 10).get().isEmpty());
+        verify(raftClient, never()).query(any(byte[].class), eq(QueryConsistency.SEQUENTIAL));
+    }
+
+    @Test
+    public void replicaOverflowTest() throws Exception {
+        when(raftClient.query(any(byte[].class), eq(QueryConsistency.SEQUENTIAL)))
+                .thenReturn(CompletableFuture.completedFuture(overflowResult()));
+        JournalStoreClient client = createReplicaClient();
+
+        try {
+            client.get(0, 100L, 10).get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IndexOverflowException);
+        }
+        // 节点已经执行到客户端已知的位置，OVERFLOW不需要再去LEADER确认
+        verify(raftClient, never()).query(any(byte[].class), eq(QueryConsistency.STRICT));
+    }
+
+    @Test
+    public void staleReplicaFallbackTest() throws Exception {
+        CompletableFuture<byte[]> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("Replica not caught up"));
+        when(raftClient.query(any(byte[].class), eq(QueryConsistency.SEQUENTIAL))).thenReturn(failed);
+        when(raftClient.query(any(byte[].class), eq(QueryConsistency.STRICT)))
+                .thenReturn(CompletableFuture.completedFuture(emptyResult()));
+        JournalStoreClient client = createReplicaClient();
+
+        Assert.assertTrue(client.poll(0, 0L, 10).get().isEmpty());
+        verify(raftClient, times(1)).query(any(byte[].class), eq(QueryConsistency.STRICT));
+    }
+
+    private JournalStoreClient createReplicaClient() {
+        Properties properties = new Properties();
+        properties.setProperty(JournalStoreClient.READ_FROM_REPLICAS_KEY, "true");
+        return new JournalStoreClient(raftClient, journalEntryParser, properties);
+    }
+
+    private byte[] emptyResult() {
+        return queryResultSerializer.serialize(new JournalStoreQueryResult(Collections.emptyList()));
+    }
+
+    private byte[] overflowResult() {
+        return queryResultSerializer.serialize(new JournalStoreQueryResult(null, null,
+                JournalStoreQuery.CMD_QUERY_ENTRIES, 100L, JournalStoreQueryResult.CODE_OVERFLOW));
+    }
+}
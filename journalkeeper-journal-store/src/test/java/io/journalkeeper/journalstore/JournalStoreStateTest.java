@@ -0,0 +1,92 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.journalstore;
+
+import io.journalkeeper.core.api.EntryFuture;
+import io.journalkeeper.core.api.RaftJournal;
+import io.journalkeeper.core.entry.DefaultJournalEntryParser;
+import io.journalkeeper.utils.test.TestPathUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.mock;
+
+public class JournalStoreStateTest {
+    private final JournalStoreQuerySerializer querySerializer = new JournalStoreQuerySerializer();
+    private final RaftJournal journal = mock(RaftJournal.class);
+    private Path path;
+    private JournalStoreState state;
+
+    @Before
+    public void before() throws Exception {
+        path = TestPathUtils.prepareBaseDir("JournalStoreStateTest");
+        state = new JournalStoreState(new DefaultJournalEntryParser());
+        state.recover(path, new Properties());
+    }
+
+    @After
+    public void after() {
+        state.close();
+        TestPathUtils.destroyBaseDir(path.toFile());
+    }
+
+    @Test
+    public void cancelPollTest() {
+        CompletableFuture<Void> first = awaitPoll(0, 0L);
+        CompletableFuture<Void> second = awaitPoll(0, 0L);
+        CompletableFuture<Void> other = awaitPoll(1, 0L);
+        Assert.assertEquals(3, state.pollWaiterCount());
+
+        // 取消一个等待不影响等待同一位置的其它查询
+        first.cancel(false);
+        Assert.assertEquals(2, state.pollWaiterCount());
+        Assert.assertFalse(second.isDone());
+
+        state.execute(mock(EntryFuture.class), 0, 0L, 1, journal);
+        Assert.assertTrue(second.isDone());
+        Assert.assertFalse(second.isCompletedExceptionally());
+        Assert.assertFalse(other.isDone());
+        Assert.assertEquals(1, state.pollWaiterCount());
+
+        other.cancel(false);
+        Assert.assertEquals(0, state.pollWaiterCount());
+    }
+
+    @Test
+    public void pollTest() {
+        state.execute(mock(EntryFuture.class), 0, 0L, 2, journal);
+        // 已经有数据，不需要等待
+        Assert.assertNull(state.awaitQueryable(querySerializer.serialize(JournalStoreQuery.createPollEntries(0, 1L, 10)), journal));
+
+        CompletableFuture<Void> future = awaitPoll(0, 3L);
+        state.execute(mock(EntryFuture.class), 0, 2L, 1, journal);
+        Assert.assertFalse(future.isDone());
+        state.execute(mock(EntryFuture.class), 0, 3L, 1, journal);
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals(0, state.pollWaiterCount());
+    }
+
+    private CompletableFuture<Void> awaitPoll(int partition, long index) {
+        CompletableFuture<Void> future = state.awaitQueryable(
+                querySerializer.serialize(JournalStoreQuery.createPollEntries(partition, index, 10)), journal);
+        Assert.assertNotNull(future);
+        return future;
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.metrics.histogram;
+
+/**
+ * 按对数分桶的直方图，思路同HdrHistogram。
+ *
+ * 小于2 * 2^SUB_BUCKET_BITS的值每个值一个桶，更大的值每个2的幂次区间再均分为2^SUB_BUCKET_BITS个桶，
+ * 因此桶的数量固定，任意数值的相对误差不超过1 / 2^SUB_BUCKET_BITS。
+ * 桶的划分与数值的范围无关，任意两个直方图可以直接按桶合并。
+ *
+ * 这个类不是线程安全的，并发记录使用{@link StripedRecorder}。
+ */
+public class Histogram {
+    static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0L;
+    private long sum = 0L;
+    private long max = 0L;
+
+    static int bucketIndex(long value) {
+        if (value < 0L) {
+            return 0;
+        }
+        if (value < 2 * SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * 桶内数值的代表值，取桶的中间值
+     */
+    static long bucketValue(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowerBound = (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
+        return lowerBound + ((1L << shift) >>> 1);
+    }
+
+    public void record(long value) {
+        record(value, 1L);
+    }
+
+    void record(long value, long count) {
+        counts[bucketIndex(value)] += count;
+        totalCount += count;
+        sum += value * count;
+        max = Math.max(max, value);
+    }
+
+    void addBucket(int index, long count) {
+        counts[index] += count;
+        totalCount += count;
+    }
+
+    void addSum(long sum) {
+        this.sum += sum;
+    }
+
+    void updateMax(long max) {
+        this.max = Math.max(this.max, max);
+    }
+
+    /**
+     * 合并另一个直方图
+     * @param other 另一个直方图
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * 减去另一个直方图的计数，用于计算两次快照之间的区间直方图。
+     * 最大值无法相减，保持不变。
+     * @param other 之前的快照
+     */
+    public void subtract(Histogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] -= other.counts[i];
+        }
+        totalCount -= other.totalCount;
+        sum -= other.sum;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount > 0L ? (double) sum / totalCount : 0D;
+    }
+
+    /**
+     * 读取百分位数值
+     * @param quantile 百分位，取值范围[0, 1]
+     * @return 百分位数值，不超过最大值
+     */
+    public long getValue(double quantile) {
+        if (totalCount <= 0L) {
+            return 0L;
+        }
+        long target = Math.max(1L, (long) Math.ceil(quantile * totalCount));
+        long count = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts[i];
+            if (count >= target) {
+                return Math.min(bucketValue(i), max);
+            }
+        }
+        return max;
+    }
+}
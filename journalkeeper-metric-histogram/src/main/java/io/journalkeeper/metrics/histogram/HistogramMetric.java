@@ -0,0 +1,91 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.metrics.histogram;
+
+import io.journalkeeper.metric.JMetric;
+import io.journalkeeper.metric.JMetricReport;
+
+/**
+ * 基于{@link StripedRecorder}的JMetric实现，可以在多个线程中并发使用。
+ *
+ * 重置时不清空记录器，只记录当前的累计值作为基线，
+ * 读取报告时用累计值减去基线得到这段时间内的统计，因此读取和重置都不会阻塞写入。
+ */
+public class HistogramMetric implements JMetric {
+    private final String name;
+    private final StripedRecorder recorder = new StripedRecorder();
+    // 兼容start()/end()，开始时间按线程保存
+    private final ThreadLocal<long[]> startTime = ThreadLocal.withInitial(() -> new long[1]);
+    private Histogram baseline;
+    private long baselineTraffic;
+    private long startTimeNs;
+
+    public HistogramMetric(String name) {
+        this.name = name;
+        reset();
+    }
+
+    @Override
+    public void start() {
+        startTime.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void end(long traffic) {
+        end(startTime.get()[0], traffic);
+    }
+
+    @Override
+    public void mark(long latencyNs, long traffic) {
+        recorder.record(latencyNs, traffic);
+    }
+
+    @Override
+    public synchronized void reset() {
+        recorder.resetMax();
+        baseline = recorder.snapshot();
+        baselineTraffic = recorder.traffic();
+        startTimeNs = System.nanoTime();
+    }
+
+    @Override
+    public synchronized JMetricReport get() {
+        Histogram latency = recorder.snapshot();
+        latency.subtract(baseline);
+        return new HistogramReport(name, latency, recorder.traffic() - baselineTraffic, startTimeNs, System.nanoTime());
+    }
+
+    @Override
+    public synchronized JMetricReport getAndReset() {
+        long now = System.nanoTime();
+        Histogram current = recorder.snapshot();
+        long traffic = recorder.traffic();
+        recorder.resetMax();
+
+        Histogram latency = new Histogram();
+        latency.add(current);
+        latency.subtract(baseline);
+        JMetricReport report = new HistogramReport(name, latency, traffic - baselineTraffic, startTimeNs, now);
+
+        baseline = current;
+        baselineTraffic = traffic;
+        startTimeNs = now;
+        return report;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+}
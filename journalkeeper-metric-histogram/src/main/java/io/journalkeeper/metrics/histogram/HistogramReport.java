@@ -0,0 +1,82 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.metrics.histogram;
+
+import io.journalkeeper.metric.JMetricReport;
+
+public class HistogramReport implements JMetricReport {
+    private final String name;
+    private final long counter;
+    private final long traffic;
+    private final double[] latency;
+    private final long start, end;
+
+    public HistogramReport(String name, Histogram latency, long traffic, long start, long end) {
+        this.name = name;
+        this.counter = latency.getTotalCount();
+        this.traffic = traffic;
+        this.latency = new double[]{
+                latency.getMean(),
+                latency.getValue(0.5),
+                latency.getValue(0.90),
+                latency.getValue(0.95),
+                latency.getValue(0.99),
+                latency.getValue(0.999),
+                latency.getValue(0.9999),
+                latency.getMax()
+        };
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public long trafficTotal() {
+        return traffic;
+    }
+
+    @Override
+    public long requestsTotal() {
+        return counter;
+    }
+
+    @Override
+    public long trafficPs() {
+        return perSecond(traffic);
+    }
+
+    @Override
+    public long requestsPs() {
+        return perSecond(counter);
+    }
+
+    private long perSecond(long value) {
+        long durationNs = end - start;
+        return durationNs > 0L ? (long) (value * 1000000000D / durationNs) : 0L;
+    }
+
+    @Override
+    public double[] latency() {
+        return latency.clone();
+    }
+
+    @Override
+    public long reportTime() {
+        return end;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.metrics.histogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的直方图记录器。
+ *
+ * 记录器分为多个分段，每个线程按照线程ID固定写入其中一个分段，降低并发写入时的竞争。
+ * 记录时只做原子累加，不分配内存，也不加锁。
+ * 读取快照时逐个分段累加，不会阻塞写入，快照中各个桶的计数不保证是同一时刻的。
+ */
+class StripedRecorder {
+    private static final int MAX_STRIPES = 16;
+    private final Stripe[] stripes;
+    private final int mask;
+
+    StripedRecorder() {
+        int cpus = Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES);
+        int size = Integer.highestOneBit(Math.max(1, cpus * 2 - 1));
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        mask = size - 1;
+    }
+
+    void record(long latencyNs, long traffic) {
+        Stripe stripe = stripes[(int) Thread.currentThread().getId() & mask];
+        stripe.counts.incrementAndGet(Histogram.bucketIndex(latencyNs));
+        stripe.sum.addAndGet(latencyNs);
+        stripe.traffic.addAndGet(traffic);
+        long max;
+        do {
+            max = stripe.max.get();
+        } while (latencyNs > max && !stripe.max.compareAndSet(max, latencyNs));
+    }
+
+    /**
+     * 读取自创建以来的累计直方图，最大值为上次{@link #resetMax()}以来的最大值。
+     * @return 累计直方图
+     */
+    Histogram snapshot() {
+        Histogram histogram = new Histogram();
+        for (Stripe stripe : stripes) {
+            for (int i = 0; i < Histogram.BUCKET_COUNT; i++) {
+                long count = stripe.counts.get(i);
+                if (count > 0L) {
+                    histogram.addBucket(i, count);
+                }
+            }
+            histogram.addSum(stripe.sum.get());
+            histogram.updateMax(stripe.max.get());
+        }
+        return histogram;
+    }
+
+    /**
+     * 读取自创建以来的累计流量
+     * @return 累计流量，单位Byte。
+     */
+    long traffic() {
+        long traffic = 0L;
+        for (Stripe stripe : stripes) {
+            traffic += stripe.traffic.get();
+        }
+        return traffic;
+    }
+
+    void resetMax() {
+        for (Stripe stripe : stripes) {
+            stripe.max.set(0L);
+        }
+    }
+
+    private static class Stripe {
+        private final AtomicLongArray counts = new AtomicLongArray(Histogram.BUCKET_COUNT);
+        private final AtomicLong sum = new AtomicLong(0L);
+        private final AtomicLong traffic = new AtomicLong(0L);
+        private final AtomicLong max = new AtomicLong(0L);
+    }
+}
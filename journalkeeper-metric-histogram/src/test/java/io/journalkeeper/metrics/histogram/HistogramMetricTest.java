@@ -0,0 +1,90 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.metrics.histogram;
+
+import io.journalkeeper.metric.JMetric;
+import io.journalkeeper.metric.JMetricReport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HistogramMetricTest {
+
+    @Test
+    public void bucketTest() {
+        long[] values = new long[]{0L, 1L, 63L, 64L, 65L, 1000L, 123456789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = Histogram.bucketIndex(value);
+            Assert.assertTrue(index < Histogram.BUCKET_COUNT);
+            long bucketValue = Histogram.bucketValue(index);
+            Assert.assertTrue(Math.abs(bucketValue - value) <= value >>> Histogram.SUB_BUCKET_BITS);
+        }
+    }
+
+    @Test
+    public void percentileTest() {
+        Histogram histogram = new Histogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000L);
+        }
+        Assert.assertEquals(10000L, histogram.getTotalCount());
+        Assert.assertEquals(10000000L, histogram.getMax());
+        assertNear(5000000L, histogram.getValue(0.5));
+        assertNear(9900000L, histogram.getValue(0.99));
+        assertNear(5000500D, histogram.getMean());
+
+        Histogram other = new Histogram();
+        other.record(20000000L);
+        histogram.add(other);
+        Assert.assertEquals(10001L, histogram.getTotalCount());
+        Assert.assertEquals(20000000L, histogram.getMax());
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        JMetric metric = new HistogramMetricFactory().create("test");
+        int threadCount = 8, count = 100000;
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < count; j++) {
+                    long token = metric.startToken();
+                    metric.end(token, 10L);
+                    metric.mark(1000L, 1L);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        JMetricReport report = metric.getAndReset();
+        Assert.assertEquals(2L * threadCount * count, report.requestsTotal());
+        Assert.assertEquals(11L * threadCount * count, report.trafficTotal());
+
+        metric.mark(2000L, 5L);
+        report = metric.get();
+        Assert.assertEquals(1L, report.requestsTotal());
+        Assert.assertEquals(5L, report.trafficTotal());
+        Assert.assertEquals(2000D, report.latency()[JMetricReport.TP_MAX], 0D);
+    }
+
+    private void assertNear(double expected, double actual) {
+        Assert.assertEquals(expected, actual, expected / (1 << Histogram.SUB_BUCKET_BITS));
+    }
+}
@@ -27,6 +27,13 @@ package io.journalkeeper.metric;
  *
  * jMetric.end(1024)
  *
+ * start()和end()之间的开始时间保存在JMetric内部，不能在多个线程中并发使用。
+ * 多线程并发时，使用开始标记：
+ *
+ * long token = jMetric.startToken();
+ * ....
+ * jMetric.end(token, 1024);
+ *
  * @author LiYue
  * Date: 2019-08-06
  */
@@ -53,6 +60,27 @@ public interface JMetric {
     default void end(MetricCollector<Long> trafficCollector) {
         end(trafficCollector.collect());
     }
+
+    /**
+     * 处理开始时调用，返回开始标记。开始标记由调用方保存，因此可以在多个线程中并发使用。
+     * @return 开始标记，处理结束时传给{@link #end(long, long)}。
+     */
+    default long startToken() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 处理结束时调用，并记录流量。
+     * @param startToken {@link #startToken()}返回的开始标记。
+     * @param traffic 本次处理的流量，单位Byte。
+     */
+    default void end(long startToken, long traffic) {
+        mark(System.nanoTime() - startToken, traffic);
+    }
+
+    default void end(long startToken, MetricCollector<Long> trafficCollector) {
+        end(startToken, trafficCollector.collect());
+    }
     /**
      * 记录一次处理。效果等同于一次start() 和 end()。
      * 同 mark(0L);
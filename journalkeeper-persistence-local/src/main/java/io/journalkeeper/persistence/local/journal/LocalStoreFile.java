@@ -63,6 +63,8 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
 
     private MemoryCacheManager bufferPool;
     private final int capacity;
+    // 刷盘时是否需要fsync
+    private final boolean syncOnFlush;
     private long lastAccessTime = System.currentTimeMillis();
 
     // 当前刷盘位置
@@ -76,8 +78,9 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
     private FileChannel fileChannel;
     private RandomAccessFile raf;
 
-    LocalStoreFile(long filePosition, File base, int headerSize, MemoryCacheManager bufferPool, int maxFileDataLength) {
+    LocalStoreFile(long filePosition, File base, int headerSize, MemoryCacheManager bufferPool, int maxFileDataLength, boolean syncOnFlush) {
         this.filePosition = filePosition;
+        this.syncOnFlush = syncOnFlush;
         this.headerSize = headerSize;
         this.bufferPool = bufferPool;
         this.file = new File(base, String.valueOf(filePosition));
@@ -221,24 +224,8 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
 
     @Override
     public ByteBuffer read(int position, int length) throws IOException {
-        touch();
-        long stamp = bufferLock.readLock();
+        long stamp = lockPageForRead();
         try {
-            while (!hasPage()) {
-                long ws = bufferLock.tryConvertToWriteLock(stamp);
-                if (ws != 0L) {
-                    // 升级成写锁成功
-                    stamp = ws;
-                    loadRoUnsafe();
-                } else {
-                    bufferLock.unlockRead(stamp);
-                    stamp = bufferLock.writeLock();
-                }
-            }
-            long rs = bufferLock.tryConvertToReadLock(stamp);
-            if (rs != 0L) {
-                stamp = rs;
-            }
             ByteBuffer byteBuffer = pageBuffer.asReadOnlyBuffer();
             byteBuffer.position(position);
             byteBuffer.limit(writePosition);
@@ -257,7 +244,71 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
     }
 
     @Override
-    public Long readLong(int position) throws IOException{
+    public int read(int position, ByteBuffer dest) throws IOException {
+        long stamp = lockPageForRead();
+        try {
+            int length = Math.min(dest.remaining(), writePosition - position);
+            if (length <= 0) {
+                return 0;
+            }
+            ByteBuffer byteBuffer = pageBuffer.duplicate();
+            byteBuffer.position(position);
+            byteBuffer.limit(position + length);
+            dest.put(byteBuffer);
+            return length;
+        } finally {
+            bufferLock.unlock(stamp);
+        }
+    }
+
+    @Override
+    public int read(int position, int[] lengths, int fromIndex, List<byte[]> dest) throws IOException {
+        // 没有需要读取的数据时直接返回，不加锁也不加载缓存页
+        if (fromIndex >= lengths.length) {
+            return 0;
+        }
+        long stamp = lockPageForRead();
+        try {
+            int count = 0;
+            int i = fromIndex;
+            ByteBuffer byteBuffer = pageBuffer.duplicate();
+            byteBuffer.position(position);
+            while (i < lengths.length && position + lengths[i] <= writePosition) {
+                byte[] bytes = new byte[lengths[i]];
+                byteBuffer.get(bytes);
+                dest.add(bytes);
+                position += lengths[i];
+                count++;
+                i++;
+            }
+            return count;
+        } finally {
+            bufferLock.unlock(stamp);
+        }
+    }
+
+    @Override
+    public int readLongs(int position, long[] dest, int fromIndex) throws IOException {
+        if (fromIndex >= dest.length) {
+            return 0;
+        }
+        long stamp = lockPageForRead();
+        try {
+            int count = Math.min(dest.length - fromIndex, (writePosition - position) / Long.BYTES);
+            for (int i = 0; i < count; i++) {
+                dest[fromIndex + i] = pageBuffer.getLong(position + i * Long.BYTES);
+            }
+            return Math.max(count, 0);
+        } finally {
+            bufferLock.unlock(stamp);
+        }
+    }
+
+    /**
+     * 加读锁，如果没有缓存页，先加载只读缓存页。
+     * @return 读锁的stamp
+     */
+    private long lockPageForRead() throws IOException {
         touch();
         long stamp = bufferLock.readLock();
         try {
@@ -276,6 +327,17 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
             if (rs != 0L) {
                 stamp = rs;
             }
+            return stamp;
+        } catch (Throwable t) {
+            bufferLock.unlock(stamp);
+            throw t;
+        }
+    }
+
+    @Override
+    public Long readLong(int position) throws IOException{
+        long stamp = lockPageForRead();
+        try {
 
             return pageBuffer.getLong(position);
         } finally {
@@ -410,6 +472,10 @@ public class LocalStoreFile implements StoreFile, BufferHolder {
         while (flushBuffer.hasRemaining()) {
             fileChannel.write(flushBuffer);
         }
+        if (syncOnFlush) {
+            // 一次fsync包含上次刷盘之后写入的所有数据；文件第一次刷盘时，同时刷新文件元数据
+            fileChannel.force(flushPosition == 0);
+        }
         flushPosition = flushEnd;
         return flushSize;
     }
@@ -30,6 +30,7 @@ import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -201,6 +202,11 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
                         Config.MAX_DIRTY_SIZE_KEY,
                         String.valueOf(Config.DEFAULT_MAX_DIRTY_SIZE))));
 
+        config.setSyncOnFlush(Boolean.parseBoolean(
+                properties.getProperty(
+                        Config.SYNC_ON_FLUSH_KEY,
+                        String.valueOf(Config.DEFAULT_SYNC_ON_FLUSH))));
+
         return config;
     }
 
@@ -211,7 +217,7 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
             for (File file : files) {
                 filePosition = Long.parseLong(file.getName());
                 if (filePosition >= min || filePosition + file.length() - config.getFileHeaderSize() > min) {
-                    storeFileMap.put(filePosition, new LocalStoreFile(filePosition, base, config.getFileHeaderSize(), bufferPool, config.getFileDataSize()));
+                    storeFileMap.put(filePosition, new LocalStoreFile(filePosition, base, config.getFileHeaderSize(), bufferPool, config.getFileDataSize(), config.isSyncOnFlush()));
                 } else {
                     logger.info("Ignore file {}, cause file position is smaller than given min position {}.", file.getAbsolutePath(), min);
                 }
@@ -331,7 +337,7 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
     }
 
     private StoreFile createStoreFile(long position) {
-        StoreFile storeFile = new LocalStoreFile(position, base, config.getFileHeaderSize(), bufferPool, config.getFileDataSize());
+        StoreFile storeFile = new LocalStoreFile(position, base, config.getFileHeaderSize(), bufferPool, config.getFileDataSize(), config.isSyncOnFlush());
         StoreFile present;
         if ((present = storeFileMap.putIfAbsent(position, storeFile)) != null) {
             storeFile = present;
@@ -355,7 +361,80 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
             return null;
         }
         int relPosition = (int) (position - storeFile.position());
-        return storeFile.read(relPosition, length).array();
+        // 直接读到返回的数组中，不再经过中间的ByteBuffer
+        byte[] bytes = new byte[length];
+        int count = storeFile.read(relPosition, ByteBuffer.wrap(bytes));
+        return count == length ? bytes : Arrays.copyOf(bytes, Math.max(count, 0));
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dest) throws IOException {
+        if (!dest.hasRemaining()) return 0;
+        checkReadPosition(position);
+        int length = 0;
+        while (dest.hasRemaining() && position < max()) {
+            StoreFile storeFile = getStoreFile(position);
+            if (null == storeFile) {
+                throw new PositionUnderflowException(position, min());
+            }
+            int count = storeFile.read((int) (position - storeFile.position()), dest);
+            if (count <= 0) {
+                break;
+            }
+            position += count;
+            length += count;
+        }
+        return length;
+    }
+
+    @Override
+    public List<byte[]> readBatch(long position, int[] lengths) throws IOException {
+        List<byte[]> list = new ArrayList<>(lengths.length);
+        if (lengths.length == 0) return list;
+        checkReadPosition(position);
+        int index = 0;
+        while (index < lengths.length) {
+            StoreFile storeFile = getStoreFile(position);
+            if (null == storeFile) {
+                throw new PositionUnderflowException(position, min());
+            }
+            int relPosition = (int) (position - storeFile.position());
+            int count = storeFile.read(relPosition, lengths, index, list);
+            if (count == 0) {
+                // 当前文件已经读完，继续读下一个文件
+                checkReadPosition(storeFile.position() + storeFile.writePosition());
+                position = storeFile.position() + storeFile.writePosition();
+                continue;
+            }
+            for (int i = index; i < index + count; i++) {
+                position += lengths[i];
+            }
+            index += count;
+        }
+        return list;
+    }
+
+    @Override
+    public long[] readLongs(long position, int count) throws IOException {
+        long[] longs = new long[count];
+        if (count == 0) return longs;
+        checkReadPosition(position);
+        checkReadPosition(position + (long) count * Long.BYTES - 1);
+        int index = 0;
+        while (index < count) {
+            StoreFile storeFile = getStoreFile(position);
+            if (null == storeFile) {
+                throw new PositionUnderflowException(position, min());
+            }
+            int relPosition = (int) (position - storeFile.position());
+            int read = storeFile.readLongs(relPosition, longs, index);
+            if (read <= 0) {
+                throw new CorruptedStoreException(String.format("Read longs failed at position %d, store: %s.", position, base.getAbsolutePath()));
+            }
+            index += read;
+            position += (long) read * Long.BYTES;
+        }
+        return longs;
     }
 
     public Long readLong(long position) throws IOException {
@@ -485,11 +564,13 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
         final static int DEFAULT_CACHED_FILE_CORE_COUNT = 0;
         final static int DEFAULT_CACHED_FILE_MAX_COUNT = 2;
         final static long DEFAULT_MAX_DIRTY_SIZE = 0L;
+        final static boolean DEFAULT_SYNC_ON_FLUSH = true;
         final static String FILE_HEADER_SIZE_KEY = "file_header_size";
         final static String FILE_DATA_SIZE_KEY = "file_data_size";
         final static String CACHED_FILE_CORE_COUNT_KEY = "cached_file_core_count";
         final static String CACHED_FILE_MAX_COUNT_KEY = "cached_file_max_count";
         final static String MAX_DIRTY_SIZE_KEY = "max_dirty_size";
+        final static String SYNC_ON_FLUSH_KEY = "sync_on_flush";
         /**
          * 文件头长度
          */
@@ -513,6 +594,12 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
          */
         private long maxDirtySize;
 
+        /**
+         * 每次刷盘时是否执行fsync，保证flushed()之前的数据在服务器掉电后不会丢失。
+         * 一次刷盘只执行一次fsync，包含上次刷盘之后所有写入的数据。
+         */
+        private boolean syncOnFlush;
+
         int getFileHeaderSize() {
             return fileHeaderSize;
         }
@@ -552,5 +639,13 @@ public class PositioningStore implements JournalPersistence, MonitoredPersistenc
         public void setMaxDirtySize(long maxDirtySize) {
             this.maxDirtySize = maxDirtySize;
         }
+
+        boolean isSyncOnFlush() {
+            return syncOnFlush;
+        }
+
+        void setSyncOnFlush(boolean syncOnFlush) {
+            this.syncOnFlush = syncOnFlush;
+        }
     }
 }
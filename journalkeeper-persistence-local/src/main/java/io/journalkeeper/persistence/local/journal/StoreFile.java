@@ -58,6 +58,36 @@ public interface StoreFile extends Timed {
      */
     ByteBuffer read(int position, int length) throws IOException;
 
+    /**
+     * 从给定的位置读取数据到dest中，直接从缓存页复制，不分配新的内存
+     * @param position 文件内的相对位置
+     * @param dest 存放数据的buffer
+     * @return 实际读取的长度，超出写入位置的部分不读取
+     * @throws IOException 发生IO异常时抛出
+     */
+    int read(int position, ByteBuffer dest) throws IOException;
+
+    /**
+     * 从给定位置开始，依次读取连续存放的多条数据，直到读完所有数据或者读到文件的写入位置。
+     * @param position 文件内的相对位置
+     * @param lengths 每条数据的长度
+     * @param fromIndex 从lengths的这个位置开始读取
+     * @param dest 读出的数据依次添加到这个列表中
+     * @return 读取的数据条数
+     * @throws IOException 发生IO异常时抛出
+     */
+    int read(int position, int[] lengths, int fromIndex, List<byte[]> dest) throws IOException;
+
+    /**
+     * 从给定位置开始，依次读取连续存放的多个long，直到读完或者读到文件的写入位置。
+     * @param position 文件内的相对位置
+     * @param dest 读出的long存放到这个数组中
+     * @param fromIndex 从dest的这个位置开始存放
+     * @return 读取的long数量
+     * @throws IOException 发生IO异常时抛出
+     */
+    int readLongs(int position, long[] dest, int fromIndex) throws IOException;
+
     /**
      * 写入一段ByteBuffer，保证原子性
      * @param buffer 待写入的buffer
@@ -29,10 +29,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 
 /**
@@ -95,6 +99,78 @@ public class PositioningStoreTest {
 
     }
 
+    // 跨多个文件的批量读取
+    @Test
+    public void batchReadTest() throws IOException {
+        try (JournalPersistence store = new PositioningStore()) {
+            Properties properties = new Properties();
+            properties.put("file_data_size", String.valueOf(4 * 1024));
+            store.recover(path, properties);
+
+            int size = 100;
+            int maxLength = 999;
+            long start = store.max();
+            List<byte[]> journals = ByteUtils.createRandomSizeByteList(maxLength, size);
+            int[] lengths = journals.stream().mapToInt(journal -> journal.length).toArray();
+            for (byte[] journal : journals) {
+                store.append(journal);
+            }
+
+            List<byte[]> readJournals = store.readBatch(start, lengths);
+            Assert.assertEquals(size, readJournals.size());
+            for (int i = 0; i < size; i++) {
+                Assert.assertArrayEquals(journals.get(i), readJournals.get(i));
+            }
+            Assert.assertTrue(store.readBatch(start, new int[0]).isEmpty());
+            Assert.assertTrue(store.readBatch(store.max(), new int[0]).isEmpty());
+
+            long[] values = LongStream.range(0, 2000).toArray();
+            try (JournalPersistence longStore = new PositioningStore()) {
+                Path longPath = path.resolve("longs");
+                Files.createDirectories(longPath);
+                longStore.recover(longPath, properties);
+                for (long value : values) {
+                    longStore.append(ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+                }
+                Assert.assertArrayEquals(values, longStore.readLongs(0L, values.length));
+                Assert.assertEquals(0, longStore.readLongs(0L, 0).length);
+                Assert.assertArrayEquals(Arrays.copyOfRange(values, 500, 1500),
+                        longStore.readLongs(500L * Long.BYTES, 1000));
+            }
+        }
+    }
+
+    // 读取到调用方提供的buffer中
+    @Test
+    public void bufferReadTest() throws IOException {
+        try (JournalPersistence store = new PositioningStore()) {
+            Properties properties = new Properties();
+            properties.put("file_data_size", String.valueOf(4 * 1024));
+            store.recover(path, properties);
+
+            List<byte[]> journals = ByteUtils.createRandomSizeByteList(999, 100);
+            for (byte[] journal : journals) {
+                store.append(journal);
+            }
+            byte[] writeBytes = ByteUtils.concatBytes(journals);
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(writeBytes.length);
+            Assert.assertEquals(writeBytes.length, store.read(0L, direct));
+            Assert.assertFalse(direct.hasRemaining());
+            direct.flip();
+            byte[] readBytes = new byte[writeBytes.length];
+            direct.get(readBytes);
+            Assert.assertArrayEquals(writeBytes, readBytes);
+
+            // buffer大于剩余数据时，只读取到store末尾
+            ByteBuffer heap = ByteBuffer.allocate(1024);
+            long position = writeBytes.length - 100;
+            Assert.assertEquals(100, store.read(position, heap));
+            Assert.assertArrayEquals(Arrays.copyOfRange(writeBytes, (int) position, writeBytes.length),
+                    Arrays.copyOf(heap.array(), 100));
+        }
+    }
+
     // recover
     @Test
     public void recoverTest() throws IOException {
@@ -15,7 +15,9 @@ package io.journalkeeper.persistence;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
@@ -104,6 +106,23 @@ public interface JournalPersistence extends Closeable {
      */
     byte[] read(long position, int length) throws IOException;
 
+    /**
+     * 读取数据到给定的ByteBuffer中，读取长度为dest.remaining()，不分配新的内存。
+     * 调用方可以复用dest（例如每个线程复用的header buffer），或者直接读到要返回的数组中，避免中间再复制一次。
+     * @param position 起始位置
+     * @param dest 存放数据的ByteBuffer，读取后position增加实际读取的长度
+     * @return 实际读取的长度
+     * @throws IOException 发生IO异常时抛出
+     */
+    default int read(long position, ByteBuffer dest) throws IOException {
+        byte[] bytes = read(position, dest.remaining());
+        if (null == bytes) {
+            return 0;
+        }
+        dest.put(bytes);
+        return bytes.length;
+    }
+
     /**
      * 读取long
      * @param position 起始位置
@@ -112,6 +131,39 @@ public interface JournalPersistence extends Closeable {
      */
     Long readLong(long position) throws IOException;
 
+    /**
+     * 批量读取连续存放的多条数据，数据可以跨越多个文件，但每一条数据必须在同一个文件中。
+     * 实现应尽量一次定位、一次加锁读取同一个文件内的多条数据。
+     * @param position 第一条数据的起始位置
+     * @param lengths 每条数据的长度
+     * @return 每条数据，顺序与lengths一致
+     * @throws IOException 发生IO异常时抛出
+     */
+    default List<byte[]> readBatch(long position, int[] lengths) throws IOException {
+        List<byte[]> list = new ArrayList<>(lengths.length);
+        if (lengths.length == 0) return list;
+        for (int length : lengths) {
+            list.add(read(position, length));
+            position += length;
+        }
+        return list;
+    }
+
+    /**
+     * 批量读取连续存放的多个long
+     * @param position 第一个long的起始位置
+     * @param count 读取的数量
+     * @return long数组
+     * @throws IOException 发生IO异常时抛出
+     */
+    default long[] readLongs(long position, int count) throws IOException {
+        long[] longs = new long[count];
+        for (int i = 0; i < count; i++) {
+            longs[i] = readLong(position + (long) i * Long.BYTES);
+        }
+        return longs;
+    }
+
     /**
      * 从指定Path恢复Journal，如果没有则创建一个空的。
      * @param path journal存放路径
@@ -48,8 +48,10 @@ import io.journalkeeper.rpc.remoting.transport.TransportClient;
 import io.journalkeeper.rpc.remoting.transport.TransportState;
 import io.journalkeeper.rpc.remoting.transport.exception.TransportException;
 import io.journalkeeper.rpc.utils.CommandSupport;
-import io.journalkeeper.utils.event.EventBus;
+import io.journalkeeper.utils.event.Event;
+import io.journalkeeper.utils.event.EventFilter;
 import io.journalkeeper.utils.event.EventWatcher;
+import io.journalkeeper.utils.event.PullEvent;
 import io.journalkeeper.utils.threads.AsyncLoopThread;
 import io.journalkeeper.utils.threads.ThreadBuilder;
 import org.slf4j.Logger;
@@ -57,9 +59,14 @@ import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 /**
  * 客户端桩
@@ -73,10 +80,17 @@ public class ClientServerRpcStub implements ClientServerRpc {
     protected final InetSocketAddress inetSocketAddress;
     protected final URI uri;
     protected Transport transport;
-    protected EventBus eventBus = null;
+    // 所有监听器共用服务端的一个pull监听，监听的过滤条件是所有监听器过滤条件的并集，
+    // 拉取到事件后再按照每个监听器自己的过滤条件投递。
+    protected final Set<EventWatcher> eventWatchers = ConcurrentHashMap.newKeySet();
+    // 保护pull监听的创建、修改和删除，拉取线程可以被中断
+    protected final ReentrantLock pullWatchLock = new ReentrantLock();
+    protected EventFilter pullWatchFilter = null;
     protected AsyncLoopThread pullEventThread = null;
-    protected long pullWatchId = -1L;
-    protected long ackSequence = -1L;
+    protected volatile long pullWatchId = -1L;
+    protected volatile long ackSequence = -1L;
+    // 已经投递的事件中最大的版本号，服务端的监听丢失后从这个版本号之后重新拉取
+    protected volatile long lastRevision = -1L;
     protected AtomicBoolean lastRequestSuccess = new AtomicBoolean(true);
     protected final int version;
 
@@ -104,8 +118,8 @@ public class ClientServerRpcStub implements ClientServerRpc {
 
             future.whenCompleteAsync((response, exception) -> {
                 if (null != exception) {
-                    // 如果发生异常，
-                    stop();
+                    // 如果发生异常，关闭连接，下次请求时重新建立连接，事件监听保留。
+                    closeTransport();
                     lastRequestSuccess.set(false);
                 } else {
                     lastRequestSuccess.set(true);
@@ -167,8 +181,8 @@ public class ClientServerRpcStub implements ClientServerRpc {
     }
 
     @Override
-    public CompletableFuture<AddPullWatchResponse> addPullWatch() {
-        return sendRequest(null, RpcTypes.ADD_PULL_WATCH_REQUEST);
+    public CompletableFuture<AddPullWatchResponse> addPullWatch(AddPullWatchRequest request) {
+        return sendRequest(request, RpcTypes.ADD_PULL_WATCH_REQUEST);
     }
 
     @Override
@@ -218,29 +232,64 @@ public class ClientServerRpcStub implements ClientServerRpc {
 
     @Override
     public void watch(EventWatcher eventWatcher) {
-        if (null == eventBus) {
-            initPullEvent();
+        if (null == eventWatcher) {
+            return;
+        }
+        pullWatchLock.lock();
+        try {
+            if (eventWatchers.add(eventWatcher)) {
+                try {
+                    updatePullWatch();
+                } catch (RuntimeException e) {
+                    eventWatchers.remove(eventWatcher);
+                    throw e;
+                }
+            }
+        } finally {
+            pullWatchLock.unlock();
         }
-        eventBus.watch(eventWatcher);
     }
 
-    private void initPullEvent() {
+    /**
+     * 按照当前所有监听器的过滤条件创建或者修改服务端的pull监听，调用时需要持有 {@link #pullWatchLock}。
+     */
+    private void updatePullWatch() {
+        List<EventFilter> eventFilters = eventWatchers.stream().map(EventWatcher::eventFilter).collect(Collectors.toList());
+        EventFilter eventFilter = EventFilter.union(eventFilters);
+        if (pullWatchId >= 0 && eventFilter.equals(pullWatchFilter)) {
+            return;
+        }
         try {
-            AddPullWatchResponse addPullWatchResponse = addPullWatch().get();
+            AddPullWatchResponse addPullWatchResponse = addPullWatch(new AddPullWatchRequest(
+                    eventFilter.isAcceptAll() ? null : eventFilter, pullWatchId, pullWatchId >= 0 ? -1L : lastRevision)).get();
+            if (!addPullWatchResponse.success() && pullWatchId >= 0) {
+                // 服务端的监听已经不存在，重新创建
+                logger.warn("Update pull watch {} failed, create a new one. Error: {}.",
+                        pullWatchId, addPullWatchResponse.getError());
+                pullWatchId = -1L;
+                ackSequence = -1L;
+                addPullWatchResponse = addPullWatch(new AddPullWatchRequest(
+                        eventFilter.isAcceptAll() ? null : eventFilter, -1L, lastRevision)).get();
+            }
             if (addPullWatchResponse.success()) {
-                eventBus = new EventBus();
-                this.pullWatchId = addPullWatchResponse.getPullWatchId();
-                this.ackSequence = -1L;
-                long pullInterval = addPullWatchResponse.getPullIntervalMs();
-                pullEventThread = buildPullEventsThread(pullInterval);
-                pullEventThread.start();
+                if (pullWatchId != addPullWatchResponse.getPullWatchId()) {
+                    pullWatchId = addPullWatchResponse.getPullWatchId();
+                    ackSequence = -1L;
+                }
+                pullWatchFilter = eventFilter;
+                if (null == pullEventThread) {
+                    long pullInterval = addPullWatchResponse.getPullIntervalMs();
+                    pullEventThread = buildPullEventsThread(pullInterval);
+                    pullEventThread.start();
+                }
             } else {
                 throw new RpcException(addPullWatchResponse);
             }
+        } catch (RpcException e) {
+            throw e;
         } catch (Throwable t) {
             throw new RpcException(t);
         }
-
     }
 
     private AsyncLoopThread buildPullEventsThread(long pullInterval) {
@@ -253,41 +302,77 @@ public class ClientServerRpcStub implements ClientServerRpc {
                 .build();
     }
 
-    private void pullRemoteEvents() {
-        pullEvents(new PullEventsRequest(pullWatchId, ackSequence))
-                .thenAccept(response -> {
-                    if (response.success()) {
-                        if (null != response.getPullEvents()) {
-                            response.getPullEvents().forEach(pullEvent -> {
-                                eventBus.fireEvent(pullEvent);
-                                ackSequence = pullEvent.getSequence();
-                            });
-                        }
-                    } else {
-                        logger.warn("Pull event error: {}", response.getError());
+    private void pullRemoteEvents() throws Exception {
+        long watchId = pullWatchId;
+        if (watchId < 0) {
+            recreatePullWatch(watchId);
+            return;
+        }
+        PullEventsResponse response = pullEvents(new PullEventsRequest(watchId, ackSequence)).get();
+        if (!response.success()) {
+            logger.warn("Pull event error: {}", response.getError());
+        } else if (null == response.getPullEvents()) {
+            // 服务端的监听已经不存在，可能是超时被删除了，也可能是服务端重启了
+            logger.warn("Pull watch {} not exists, create a new one from revision {}.", watchId, lastRevision);
+            recreatePullWatch(watchId);
+        } else {
+            for (PullEvent pullEvent : response.getPullEvents()) {
+                for (EventWatcher eventWatcher : eventWatchers) {
+                    EventFilter eventFilter = eventWatcher.eventFilter();
+                    if (null == eventFilter || eventFilter.accept(pullEvent)) {
+                        eventWatcher.onEvent(pullEvent);
                     }
-                });
+                }
+                ackSequence = pullEvent.getSequence();
+                String revision = null == pullEvent.getEventData() ? null : pullEvent.getEventData().get(Event.LAST_APPLIED);
+                if (null != revision) {
+                    lastRevision = Math.max(lastRevision, Long.parseLong(revision));
+                }
+            }
+        }
+    }
+
+    private void recreatePullWatch(long lostPullWatchId) throws InterruptedException {
+        pullWatchLock.lockInterruptibly();
+        try {
+            if (pullWatchId == lostPullWatchId && !eventWatchers.isEmpty()) {
+                pullWatchId = -1L;
+                ackSequence = -1L;
+                updatePullWatch();
+            }
+        } finally {
+            pullWatchLock.unlock();
+        }
     }
 
     @Override
     public void unWatch(EventWatcher eventWatcher) {
-        if (null != eventBus) {
-            eventBus.unWatch(eventWatcher);
-            if (!eventBus.hasEventWatchers()) {
+        if (null == eventWatcher) {
+            return;
+        }
+        pullWatchLock.lock();
+        try {
+            if (!eventWatchers.remove(eventWatcher)) {
+                return;
+            }
+            if (eventWatchers.isEmpty()) {
                 destroyPullEvent();
+            } else {
+                try {
+                    updatePullWatch();
+                } catch (Throwable t) {
+                    logger.warn("Update pull watch exception: ", t);
+                }
             }
+        } finally {
+            pullWatchLock.unlock();
         }
-
     }
 
     private void destroyPullEvent() {
-        if (null != eventBus) {
-            eventBus.shutdown();
-            eventBus = null;
-        }
         if (null != pullEventThread) {
             pullEventThread.stop();
-            eventBus = null;
+            pullEventThread = null;
         }
         if (pullWatchId >= 0) {
             try {
@@ -298,11 +383,13 @@ public class ClientServerRpcStub implements ClientServerRpc {
                 }
             } catch (Throwable t) {
                 logger.warn("Remove pull watch exception: ", t);
-            } finally {
-                pullWatchId = -1L;
             }
         }
-
+        eventWatchers.clear();
+        pullWatchFilter = null;
+        pullWatchId = -1L;
+        ackSequence = -1L;
+        lastRevision = -1L;
     }
 
     private synchronized Transport createTransport() {
@@ -322,7 +409,12 @@ public class ClientServerRpcStub implements ClientServerRpc {
 
     @Override
     public void stop() {
-        destroyPullEvent();
+        pullWatchLock.lock();
+        try {
+            destroyPullEvent();
+        } finally {
+            pullWatchLock.unlock();
+        }
         closeTransport();
     }
 }
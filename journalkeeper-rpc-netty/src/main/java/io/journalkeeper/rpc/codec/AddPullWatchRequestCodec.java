@@ -13,13 +13,66 @@
  */
 package io.journalkeeper.rpc.codec;
 
+import io.journalkeeper.rpc.client.AddPullWatchRequest;
+import io.journalkeeper.rpc.header.JournalKeeperHeader;
+import io.journalkeeper.rpc.remoting.serialize.CodecSupport;
 import io.journalkeeper.rpc.remoting.transport.command.Type;
+import io.journalkeeper.utils.event.EventFilter;
+import io.netty.buffer.ByteBuf;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author LiYue
  * Date: 2019-04-22
  */
-public class AddPullWatchRequestCodec extends VoidPayloadCodec implements Type {
+public class AddPullWatchRequestCodec extends GenericPayloadCodec<AddPullWatchRequest> implements Type {
+    @Override
+    protected void encodePayload(JournalKeeperHeader header, AddPullWatchRequest request, ByteBuf buffer) throws Exception {
+        EventFilter eventFilter = request.getEventFilter();
+        CodecSupport.encodeBoolean(buffer, null != eventFilter);
+        if (null != eventFilter) {
+            CodecSupport.encodeCollection(buffer, eventFilter.getEventTypes(),
+                    (obj, buffer1) -> CodecSupport.encodeInt(buffer1, (Integer) obj));
+            encodeStringSetMap(buffer, eventFilter.getDataEquals());
+            encodeStringSetMap(buffer, eventFilter.getDataPrefixes());
+        }
+        CodecSupport.encodeLong(buffer, request.getPullWatchId());
+        CodecSupport.encodeLong(buffer, request.getFromRevision());
+    }
+
+    @Override
+    protected AddPullWatchRequest decodePayload(JournalKeeperHeader header, ByteBuf buffer) throws Exception {
+        // 旧版本的客户端不发送过滤条件，请求体为空
+        if (!buffer.isReadable()) {
+            return new AddPullWatchRequest();
+        }
+        EventFilter eventFilter = null;
+        if (CodecSupport.decodeBoolean(buffer)) {
+            Collection<Integer> eventTypes = CodecSupport.decodeCollection(buffer, CodecSupport::decodeInt);
+            Map<String, Collection<String>> dataEquals = decodeStringSetMap(buffer);
+            Map<String, Collection<String>> dataPrefixes = decodeStringSetMap(buffer);
+            eventFilter = new EventFilter(eventTypes, dataEquals, dataPrefixes);
+        }
+        long pullWatchId = CodecSupport.decodeLong(buffer);
+        long fromRevision = CodecSupport.decodeLong(buffer);
+        return new AddPullWatchRequest(eventFilter, pullWatchId, fromRevision);
+    }
+
+    private static void encodeStringSetMap(ByteBuf buffer, Map<String, Set<String>> map) {
+        CodecSupport.encodeMap(buffer, map,
+                (obj, buffer1) -> CodecSupport.encodeString(buffer1, (String) obj),
+                (obj, buffer1) -> CodecSupport.encodeCollection(buffer1, (Set<?>) obj,
+                        (item, buffer2) -> CodecSupport.encodeString(buffer2, (String) item)));
+    }
+
+    private static Map<String, Collection<String>> decodeStringSetMap(ByteBuf buffer) {
+        return CodecSupport.decodeMap(buffer, CodecSupport::decodeString,
+                buffer1 -> CodecSupport.decodeCollection(buffer1, CodecSupport::decodeString));
+    }
+
     @Override
     public int type() {
         return RpcTypes.ADD_PULL_WATCH_REQUEST;
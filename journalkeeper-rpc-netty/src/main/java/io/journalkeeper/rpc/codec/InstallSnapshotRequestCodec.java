@@ -30,7 +30,12 @@ public class InstallSnapshotRequestCodec extends GenericPayloadCodec<InstallSnap
         CodecSupport.encodeUri(buffer, request.getLeaderId());
         CodecSupport.encodeLong(buffer, request.getLastIncludedIndex());
         CodecSupport.encodeInt(buffer, request.getLastIncludedTerm());
-        CodecSupport.encodeInt(buffer, request.getOffset());
+        if (header.getVersion() > 2) {
+            CodecSupport.encodeLong(buffer, request.getOffset());
+        } else {
+            // 版本2及之前offset是int，超过2GB的快照不能发给旧版本的节点
+            CodecSupport.encodeInt(buffer, Math.toIntExact(request.getOffset()));
+        }
         CodecSupport.encodeBytes(buffer, request.getData());
         CodecSupport.encodeBoolean(buffer, request.isDone());
     }
@@ -42,7 +47,7 @@ public class InstallSnapshotRequestCodec extends GenericPayloadCodec<InstallSnap
                 CodecSupport.decodeUri(buffer),
                 CodecSupport.decodeLong(buffer),
                 CodecSupport.decodeInt(buffer),
-                CodecSupport.decodeInt(buffer),
+                header.getVersion() > 2 ? CodecSupport.decodeLong(buffer) : CodecSupport.decodeInt(buffer),
                 CodecSupport.decodeBytes(buffer),
                 CodecSupport.decodeBoolean(buffer));
     }
@@ -27,7 +27,11 @@ public class JournalKeeperHeader implements Header {
 
     public final static int MAGIC = 0x3f4e93d7;
     private static final AtomicInteger requestIdGenerator = new AtomicInteger(0);
-    public final static int DEFAULT_VERSION = 2;
+    /**
+     * 当前协议版本。版本3：InstallSnapshot请求的offset从int改为long。
+     * 滚动升级时，先在新版本节点上配置protocol.version为旧版本号，所有节点升级后再去掉。
+     */
+    public final static int DEFAULT_VERSION = 3;
     private boolean oneWay;
     private int status;
     private String error;
@@ -26,6 +26,7 @@ import io.journalkeeper.core.api.transaction.UUIDTransactionId;
 import io.journalkeeper.exceptions.IndexOverflowException;
 import io.journalkeeper.exceptions.IndexUnderflowException;
 import io.journalkeeper.exceptions.NotLeaderException;
+import io.journalkeeper.rpc.client.AddPullWatchRequest;
 import io.journalkeeper.rpc.client.AddPullWatchResponse;
 import io.journalkeeper.rpc.client.CheckLeadershipResponse;
 import io.journalkeeper.rpc.client.ClientServerRpc;
@@ -66,6 +67,8 @@ import io.journalkeeper.rpc.server.RequestVoteResponse;
 import io.journalkeeper.rpc.server.ServerRpc;
 import io.journalkeeper.rpc.server.ServerRpcAccessPoint;
 import io.journalkeeper.utils.event.Event;
+import io.journalkeeper.utils.event.EventFilter;
+import io.journalkeeper.utils.event.EventType;
 import io.journalkeeper.utils.event.EventWatcher;
 import io.journalkeeper.utils.event.PullEvent;
 import io.journalkeeper.utils.net.NetworkingUtils;
@@ -437,13 +440,18 @@ public class RpcTest {
         ClientServerRpc clientServerRpc = clientServerRpcAccessPoint.getClintServerRpc(serverRpcMock.serverUri());
         AddPullWatchResponse response;
 
-        when(serverRpcMock.addPullWatch())
+        EventFilter eventFilter = new EventFilter(Collections.singleton(EventType.ON_JOURNAL_CHANGE),
+                Collections.singletonMap("partition", Collections.singleton("3")),
+                Collections.singletonMap("key", Collections.singleton("/services/")));
+
+        when(serverRpcMock.addPullWatch(any(AddPullWatchRequest.class)))
                 .thenReturn(CompletableFuture.supplyAsync(() -> new AddPullWatchResponse(pullWatchId, pullIntervalMs)));
-        response = clientServerRpc.addPullWatch().get();
+        response = clientServerRpc.addPullWatch(new AddPullWatchRequest(eventFilter)).get();
         Assert.assertTrue(response.success());
 
         Assert.assertEquals(pullWatchId, response.getPullWatchId());
         Assert.assertEquals(pullIntervalMs, response.getPullIntervalMs());
+        verify(serverRpcMock).addPullWatch(argThat((AddPullWatchRequest r) -> eventFilter.equals(r.getEventFilter())));
     }
 
     @Test
@@ -517,7 +525,7 @@ public class RpcTest {
                         return new PullEventsResponse(Collections.emptyList());
                     }
                 }));
-        when(serverRpcMock.addPullWatch())
+        when(serverRpcMock.addPullWatch(any(AddPullWatchRequest.class)))
                 .thenReturn(CompletableFuture.supplyAsync(() -> new AddPullWatchResponse(pullWatchId, pullIntervalMs)));
         when(serverRpcMock.removePullWatch(any(RemovePullWatchRequest.class)))
                 .thenReturn(CompletableFuture.supplyAsync(RemovePullWatchResponse::new));
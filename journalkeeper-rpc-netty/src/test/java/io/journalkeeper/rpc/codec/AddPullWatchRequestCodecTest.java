@@ -0,0 +1,72 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.codec;
+
+import io.journalkeeper.rpc.client.AddPullWatchRequest;
+import io.journalkeeper.rpc.header.JournalKeeperHeader;
+import io.journalkeeper.rpc.payload.GenericPayload;
+import io.journalkeeper.rpc.remoting.transport.command.Direction;
+import io.journalkeeper.utils.event.EventFilter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class AddPullWatchRequestCodecTest {
+    private final AddPullWatchRequestCodec codec = new AddPullWatchRequestCodec();
+
+    @Test
+    public void roundTripTest() throws Exception {
+        EventFilter eventFilter = new EventFilter(Arrays.asList(1, 2),
+                Collections.singletonMap("key", Arrays.asList("val1", "val2")),
+                Collections.singletonMap("path", Collections.singleton("/a/")));
+        Assert.assertEquals(eventFilter, roundTrip(new AddPullWatchRequest(eventFilter)).getEventFilter());
+        Assert.assertNull(roundTrip(new AddPullWatchRequest()).getEventFilter());
+
+        AddPullWatchRequest request = roundTrip(new AddPullWatchRequest(eventFilter, 7L, 100L));
+        Assert.assertEquals(eventFilter, request.getEventFilter());
+        Assert.assertEquals(7L, request.getPullWatchId());
+        Assert.assertEquals(100L, request.getFromRevision());
+    }
+
+    @Test
+    public void emptyPayloadTest() throws Exception {
+        // 旧版本客户端发送的请求体为空
+        AddPullWatchRequest request = decode(Unpooled.buffer());
+        Assert.assertNull(request.getEventFilter());
+        Assert.assertEquals(-1L, request.getPullWatchId());
+        Assert.assertEquals(-1L, request.getFromRevision());
+    }
+
+    private AddPullWatchRequest roundTrip(AddPullWatchRequest request) throws Exception {
+        ByteBuf buffer = Unpooled.buffer();
+        codec.encode(new GenericPayload<>(request), buffer, header());
+        AddPullWatchRequest decoded = decode(buffer);
+        Assert.assertEquals(0, buffer.readableBytes());
+        return decoded;
+    }
+
+    @SuppressWarnings("unchecked")
+    private AddPullWatchRequest decode(ByteBuf buffer) throws Exception {
+        return ((GenericPayload<AddPullWatchRequest>) codec.decode(header(), buffer)).getPayload();
+    }
+
+    private JournalKeeperHeader header() {
+        return new JournalKeeperHeader(JournalKeeperHeader.DEFAULT_VERSION, Direction.REQUEST, codec.type(), URI.create("jk://localhost:9999"));
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.codec;
+
+import io.journalkeeper.rpc.header.JournalKeeperHeader;
+import io.journalkeeper.rpc.payload.GenericPayload;
+import io.journalkeeper.rpc.remoting.transport.command.Direction;
+import io.journalkeeper.rpc.server.InstallSnapshotRequest;
+import io.journalkeeper.utils.test.ByteUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URI;
+
+public class InstallSnapshotRequestCodecTest {
+    private final InstallSnapshotRequestCodec codec = new InstallSnapshotRequestCodec();
+
+    @Test
+    public void roundTripTest() throws Exception {
+        // 超过2GB的offset
+        InstallSnapshotRequest request = createRequest(3L * Integer.MAX_VALUE);
+        Assert.assertEquals(request, roundTrip(request, JournalKeeperHeader.DEFAULT_VERSION));
+    }
+
+    @Test
+    public void oldVersionRoundTripTest() throws Exception {
+        InstallSnapshotRequest request = createRequest(1024L);
+        Assert.assertEquals(request, roundTrip(request, 2));
+
+        // 旧版本中offset是int，比新版本少4个字节
+        Assert.assertEquals(encode(request, JournalKeeperHeader.DEFAULT_VERSION).readableBytes() - Integer.BYTES,
+                encode(request, 2).readableBytes());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void oldVersionOffsetOverflowTest() throws Exception {
+        encode(createRequest(Integer.MAX_VALUE + 1L), 2);
+    }
+
+    private InstallSnapshotRequest createRequest(long offset) {
+        return new InstallSnapshotRequest(666, URI.create("jk://localhost:8888"), 1000L, 665,
+                offset, ByteUtils.createFixedSizeBytes(1024), true);
+    }
+
+    private InstallSnapshotRequest roundTrip(InstallSnapshotRequest request, int version) throws Exception {
+        ByteBuf buffer = encode(request, version);
+        @SuppressWarnings("unchecked")
+        GenericPayload<InstallSnapshotRequest> payload =
+                (GenericPayload<InstallSnapshotRequest>) codec.decode(header(version), buffer);
+        Assert.assertEquals(0, buffer.readableBytes());
+        return payload.getPayload();
+    }
+
+    private ByteBuf encode(InstallSnapshotRequest request, int version) throws Exception {
+        ByteBuf buffer = Unpooled.buffer();
+        codec.encode(new GenericPayload<>(request), buffer, header(version));
+        return buffer;
+    }
+
+    private JournalKeeperHeader header(int version) {
+        return new JournalKeeperHeader(version, Direction.REQUEST, codec.type(), URI.create("jk://localhost:9999"));
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.rpc.client;
+
+import io.journalkeeper.utils.event.EventFilter;
+
+/**
+ * RPC 方法
+ * {@link ClientServerRpc#addPullWatch(AddPullWatchRequest)}
+ * 请求参数
+ */
+public class AddPullWatchRequest {
+    private final EventFilter eventFilter;
+    private final long pullWatchId;
+    private final long fromRevision;
+
+    public AddPullWatchRequest() {
+        this(null);
+    }
+
+    public AddPullWatchRequest(EventFilter eventFilter) {
+        this(eventFilter, -1L, -1L);
+    }
+
+    /**
+     * @param eventFilter 事件过滤器
+     * @param pullWatchId 大于等于0时修改这个已有监听的过滤条件，不创建新的监听。
+     * @param fromRevision 大于等于0时从服务端还保留着的、{@link io.journalkeeper.utils.event.Event#LAST_APPLIED}
+     *                     大于这个值的第一个事件开始拉取，用于重新创建丢失的监听。
+     */
+    public AddPullWatchRequest(EventFilter eventFilter, long pullWatchId, long fromRevision) {
+        this.eventFilter = eventFilter;
+        this.pullWatchId = pullWatchId;
+        this.fromRevision = fromRevision;
+    }
+
+    /**
+     * 获取事件过滤器
+     * @return 事件过滤器，为null时不过滤事件。
+     */
+    public EventFilter getEventFilter() {
+        return eventFilter;
+    }
+
+    /**
+     * 需要修改过滤条件的监听ID
+     * @return 监听ID，小于0时创建新的监听。
+     */
+    public long getPullWatchId() {
+        return pullWatchId;
+    }
+
+    /**
+     * 开始拉取的版本号
+     * @return 版本号，小于0时从下一个新事件开始拉取。
+     */
+    public long getFromRevision() {
+        return fromRevision;
+    }
+}
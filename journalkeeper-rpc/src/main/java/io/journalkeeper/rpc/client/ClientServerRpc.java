@@ -95,12 +95,22 @@ public interface ClientServerRpc {
      */
     CompletableFuture<GetServerStatusResponse> getServerStatus();
 
+    /**
+     * 添加pull模式事件监听，不过滤事件。
+     * @see EventBus
+     * @return See {@link AddPullWatchResponse}
+     */
+    default CompletableFuture<AddPullWatchResponse> addPullWatch() {
+        return addPullWatch(new AddPullWatchRequest());
+    }
+
     /**
      * 添加pull模式事件监听。
      * @see EventBus
+     * @param request See {@link AddPullWatchRequest}
      * @return See {@link AddPullWatchResponse}
      */
-    CompletableFuture<AddPullWatchResponse> addPullWatch();
+    CompletableFuture<AddPullWatchResponse> addPullWatch(AddPullWatchRequest request);
 
     /**
      * 删除pull事件监听。
@@ -59,13 +59,13 @@ public class InstallSnapshotRequest {
     // term of lastIncludedIndex
     private final int lastIncludedTerm;
     // byte offset where chunk is positioned in the snapshot file
-    private final int offset;
+    private final long offset;
     // raw bytes of the snapshot chunk, starting at offset
     private final byte[] data;
     // true if this is the last chunk
     private final boolean done;
 
-    public InstallSnapshotRequest(int term, URI leaderId, long lastIncludedIndex, int lastIncludedTerm, int offset, byte[] data, boolean done) {
+    public InstallSnapshotRequest(int term, URI leaderId, long lastIncludedIndex, int lastIncludedTerm, long offset, byte[] data, boolean done) {
         this.term = term;
         this.leaderId = leaderId;
         this.lastIncludedIndex = lastIncludedIndex;
@@ -91,7 +91,7 @@ public class InstallSnapshotRequest {
         return lastIncludedTerm;
     }
 
-    public int getOffset() {
+    public long getOffset() {
         return offset;
     }
 
@@ -18,11 +18,9 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.pool.KryoPool;
 import io.journalkeeper.base.Serializer;
+import io.journalkeeper.utils.buffer.ThreadLocalBuffer;
 import org.apache.commons.lang3.ArrayUtils;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-
 /**
  * KryoSerializer
  * author: gaohaoxiang
@@ -32,6 +30,9 @@ public class KryoSerializer<T> implements Serializer<T> {
 
     private static final int BUFFER_SIZE = 1024 * 5;
 
+    private final ThreadLocalBuffer<Output> outputs =
+            new ThreadLocalBuffer<>(() -> new Output(BUFFER_SIZE, -1), output -> output.getBuffer().length);
+
     private final KryoPool kryoPool;
 
     private Class<T> type;
@@ -54,19 +55,19 @@ public class KryoSerializer<T> implements Serializer<T> {
         }
 
         Kryo kryo = kryoPool.borrow();
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(BUFFER_SIZE);
-        Output output = new Output(outputStream);
-
-        if (type == null) {
-            kryo.writeClassAndObject(output, entry);
-        } else {
-            kryo.writeObject(output, entry);
+        Output output = outputs.get();
+        output.clear();
+        try {
+            if (type == null) {
+                kryo.writeClassAndObject(output, entry);
+            } else {
+                kryo.writeObject(output, entry);
+            }
+            return output.toBytes();
+        } finally {
+            kryoPool.release(kryo);
+            outputs.release(output);
         }
-        kryoPool.release(kryo);
-        output.flush();
-        byte[] result = outputStream.toByteArray();
-        output.close();
-        return result;
     }
 
     @Override
@@ -76,12 +77,10 @@ public class KryoSerializer<T> implements Serializer<T> {
         }
 
         Kryo kryo = kryoPool.borrow();
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-        Input input = new Input(inputStream);
-
-        T result = kryo.readObject(input, type);
-        kryoPool.release(kryo);
-        input.close();
-        return result;
+        try {
+            return kryo.readObject(new Input(bytes), type);
+        } finally {
+            kryoPool.release(kryo);
+        }
     }
 }
\ No newline at end of file
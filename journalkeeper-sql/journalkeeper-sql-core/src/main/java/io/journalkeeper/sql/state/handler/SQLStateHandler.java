@@ -25,7 +25,7 @@ import io.journalkeeper.sql.state.SQLExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
@@ -55,7 +55,7 @@ public class SQLStateHandler {
     }
 
     public WriteResponse handleWrite(WriteRequest request) {
-        List<JMetric> metricList = new LinkedList<>();
+        List<JMetric> metricList = new ArrayList<>();
         if (request.getSqlList() == null) {
             metricList.add(getMetric(request.getSql()));
         } else {
@@ -64,8 +64,9 @@ public class SQLStateHandler {
             }
         }
 
-        for (JMetric metric : metricList) {
-            metric.start();
+        long[] metricTokens = new long[metricList.size()];
+        for (int i = 0; i < metricTokens.length; i++) {
+            metricTokens[i] = metricList.get(i).startToken();
         }
 
         try {
@@ -74,15 +75,15 @@ public class SQLStateHandler {
             logger.error("sql write exception, request: {}", request, e);
             return new WriteResponse(Codes.ERROR.getCode(), e.toString());
         } finally {
-            for (JMetric metric : metricList) {
-                metric.end();
+            for (int i = 0; i < metricTokens.length; i++) {
+                metricList.get(i).end(metricTokens[i], 0L);
             }
         }
     }
 
     public ReadResponse handleRead(ReadRequest request) {
         JMetric metric = getMetric(request.getSql());
-        metric.start();
+        long metricToken = metric.startToken();
 
         try {
             return readHandler.handle(request);
@@ -90,7 +91,7 @@ public class SQLStateHandler {
             logger.error("sql read exception, request: {}", request, e);
             return new ReadResponse(Codes.ERROR.getCode(), e.toString());
         } finally {
-            metric.end();
+            metric.end(metricToken, 0L);
         }
     }
 
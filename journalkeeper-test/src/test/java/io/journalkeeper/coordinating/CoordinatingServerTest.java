@@ -15,25 +15,41 @@ package io.journalkeeper.coordinating;
 
 import io.journalkeeper.coordinating.client.CoordinatingClient;
 import io.journalkeeper.coordinating.client.CoordinatingClientAccessPoint;
+import io.journalkeeper.coordinating.client.CoordinatingEvent;
+import io.journalkeeper.coordinating.client.CoordinatingEventListener;
+import io.journalkeeper.coordinating.client.ScanResult;
+import io.journalkeeper.coordinating.client.WriteBatch;
 import io.journalkeeper.coordinating.server.CoordinatingServer;
 import io.journalkeeper.coordinating.server.CoordinatingServerAccessPoint;
 import io.journalkeeper.coordinating.state.config.CoordinatingConfigs;
+import io.journalkeeper.coordinating.state.domain.StateTypes;
+import io.journalkeeper.coordinating.state.domain.WriteResponse;
 import io.journalkeeper.core.api.RaftServer;
 import io.journalkeeper.utils.test.TestPathUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TestName;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 /**
  * author: gaohaoxiang
@@ -52,10 +68,14 @@ public class CoordinatingServerTest {
     private List<CoordinatingClient> clients = new ArrayList<>();
     private Path base = null;
 
+    @Rule
+    public TestName testName = new TestName();
+
     @Before
     public void before() throws IOException, ExecutionException, InterruptedException, TimeoutException {
 
-        base = TestPathUtils.prepareBaseDir(WORKING_DIR);
+        // 停止Server时不会关闭RocksDB，每个测试使用单独的目录，避免RocksDB的文件锁冲突
+        base = TestPathUtils.prepareBaseDir(WORKING_DIR + "-" + testName.getMethodName());
         List<URI> voters = new ArrayList<>();
 
         for (int i = 0; i < NODES; i++) {
@@ -101,6 +121,138 @@ public class CoordinatingServerTest {
         clients.get(0).waitClusterReady(0L);
     }
 
+    @Test
+    public void scanTest() throws Exception {
+        CoordinatingClient client = clients.get(0);
+        for (int i = 0; i < 10; i++) {
+            client.set(key("key-" + i), key("value-" + i)).get();
+        }
+
+        // 按页遍历[key-2, key-8)
+        List<String> keys = new ArrayList<>();
+        byte[] startKey = key("key-2");
+        ScanResult result;
+        do {
+            result = client.scan(startKey, key("key-8"), 4).get();
+            Assert.assertTrue(result.getKeys().size() <= 4);
+            for (int i = 0; i < result.getKeys().size(); i++) {
+                String scanKey = new String(result.getKeys().get(i));
+                keys.add(scanKey);
+                Assert.assertEquals(scanKey.replace("key", "value"), new String(result.getValues().get(i)));
+            }
+            startKey = result.getNextKey();
+        } while (result.hasMore());
+        Assert.assertEquals(Arrays.asList("key-2", "key-3", "key-4", "key-5", "key-6", "key-7"), keys);
+
+        Assert.assertEquals(10, client.scan(null, null, 100).get().getKeys().size());
+    }
+
+    @Test
+    public void scanPrefixTest() throws Exception {
+        CoordinatingClient client = clients.get(0);
+        for (String key : Arrays.asList("a/1", "a/2", "a/3", "ab", "b/1")) {
+            client.set(key(key), key(key)).get();
+        }
+
+        ScanResult result = client.scanPrefix(key("a/"), 2).get();
+        Assert.assertEquals(Arrays.asList("a/1", "a/2"), toStrings(result.getKeys()));
+        Assert.assertTrue(result.hasMore());
+
+        result = client.scanPrefix(key("a/"), result.getNextKey(), 2).get();
+        Assert.assertEquals(Collections.singletonList("a/3"), toStrings(result.getKeys()));
+        Assert.assertFalse(result.hasMore());
+
+        Assert.assertTrue(client.scanPrefix(key("c/"), 10).get().getKeys().isEmpty());
+    }
+
+    @Test
+    public void batchTest() throws Exception {
+        CoordinatingClient client = clients.get(0);
+        client.set(key("k1"), key("v1")).get();
+        client.set(key("k2"), key("v2")).get();
+
+        WriteResponse response = client.batch(new WriteBatch()
+                .compareAndSet(key("k1"), key("v1"), key("v1-1"))
+                .remove(key("k2"))
+                .set(key("k3"), key("v3"))).get();
+        Assert.assertEquals("true", response.getMsg());
+        Assert.assertArrayEquals(key("v1-1"), client.get(key("k1")).get());
+        Assert.assertNull(client.get(key("k2")).get());
+        Assert.assertArrayEquals(key("v3"), client.get(key("k3")).get());
+
+        // compareAndSet不满足时，批次中所有的操作都不执行
+        response = client.batch(new WriteBatch()
+                .set(key("k4"), key("v4"))
+                .compareAndSet(key("k1"), key("v1"), key("v1-2"))).get();
+        Assert.assertEquals("false", response.getMsg());
+        Assert.assertNull(client.get(key("k4")).get());
+        Assert.assertArrayEquals(key("v1-1"), client.get(key("k1")).get());
+
+        // compareAndSet比较的是批次中之前的操作写入的值
+        response = client.batch(new WriteBatch()
+                .set(key("k3"), key("v3-1"))
+                .compareAndSet(key("k3"), key("v3"), key("v3-2"))).get();
+        Assert.assertEquals("false", response.getMsg());
+        Assert.assertArrayEquals(key("v3"), client.get(key("k3")).get());
+
+        response = client.batch(new WriteBatch()
+                .set(key("k3"), key("v3-1"))
+                .compareAndSet(key("k3"), key("v3-1"), key("v3-2"))).get();
+        Assert.assertEquals("true", response.getMsg());
+        Assert.assertArrayEquals(key("v3-2"), client.get(key("k3")).get());
+    }
+
+    @Test
+    public void watchTest() throws Exception {
+        CoordinatingClient client = clients.get(0);
+        BlockingQueue<CoordinatingEvent> keyEvents = new LinkedBlockingQueue<>();
+        BlockingQueue<CoordinatingEvent> prefixEvents = new LinkedBlockingQueue<>();
+        CoordinatingEventListener keyListener = keyEvents::add;
+        CoordinatingEventListener prefixListener = prefixEvents::add;
+        // 同一个客户端的多个监听共用服务端的一个pull监听，服务端按照key和前缀过滤
+        client.watch(key("svc/a"), keyListener);
+        client.watchPrefix(key("服务/"), prefixListener);
+
+        client.set(key("svc/b"), key("b")).get();
+        client.set(key("svc/a"), key("a")).get();
+        client.set(key("服务/1"), key("值")).get();
+        client.remove(key("svc/a")).get();
+
+        CoordinatingEvent event = keyEvents.poll(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(event);
+        Assert.assertEquals(StateTypes.SET, event.getType());
+        Assert.assertArrayEquals(key("svc/a"), event.getKey());
+        Assert.assertArrayEquals(key("a"), event.getValue());
+        event = keyEvents.poll(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(event);
+        Assert.assertEquals(StateTypes.REMOVE, event.getType());
+
+        event = prefixEvents.poll(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(event);
+        Assert.assertArrayEquals(key("服务/1"), event.getKey());
+        Assert.assertArrayEquals(key("值"), event.getValue());
+        Assert.assertTrue(event.getRevision() >= 0);
+
+        // 取消监听后其它监听不受影响
+        client.unwatch(key("svc/a"), keyListener);
+        client.set(key("svc/a"), key("a")).get();
+        client.set(key("服务/2"), key("2")).get();
+        event = prefixEvents.poll(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(event);
+        Assert.assertArrayEquals(key("服务/2"), event.getKey());
+        Assert.assertTrue(keyEvents.isEmpty());
+        Assert.assertTrue(prefixEvents.isEmpty());
+        client.unwatchPrefix(key("服务/"), prefixListener);
+    }
+
+    private static byte[] key(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> toStrings(List<byte[]> keys) {
+        return keys.stream().map(key -> new String(key, StandardCharsets.UTF_8)).collect(Collectors.toList());
+    }
+
     @Ignore
     @Test
     public void test() {
@@ -0,0 +1,92 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.coordinating;
+
+import io.journalkeeper.coordinating.state.store.rocksdb.RocksDBKVStore;
+import io.journalkeeper.utils.test.TestPathUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RocksDBKVStoreTest {
+    private Path base = null;
+
+    @Before
+    public void before() throws IOException {
+        base = TestPathUtils.prepareBaseDir("RocksDBKVStoreTest");
+    }
+
+    @After
+    public void after() {
+        TestPathUtils.destroyBaseDir(base.toFile());
+    }
+
+    @Test
+    public void checkpointTest() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("rocksdb.options.createIfMissing", "true");
+        RocksDBKVStore kvStore = new RocksDBKVStore(base.resolve("state"), properties);
+        Path checkpointPath = base.resolve("snapshot").resolve("user");
+        try {
+            for (int i = 0; i < 10; i++) {
+                kvStore.set(bytes("key-" + i), bytes("value-" + i));
+            }
+            kvStore.flush();
+            kvStore.set(bytes("key-10"), bytes("value-10"));
+
+            Assert.assertTrue(kvStore.isImmutable(Paths.get("000009.sst")));
+            Assert.assertFalse(kvStore.isImmutable(Paths.get("MANIFEST-000001")));
+            Assert.assertTrue(kvStore.checkpoint(checkpointPath));
+            // 检查点之后的写入不影响检查点
+            kvStore.set(bytes("key-11"), bytes("value-11"));
+        } finally {
+            kvStore.close();
+        }
+
+        // SST文件使用硬链接
+        List<Path> sstFiles;
+        try (Stream<Path> files = Files.list(checkpointPath)) {
+            sstFiles = files.filter(file -> file.toString().endsWith(".sst")).collect(Collectors.toList());
+        }
+        Assert.assertFalse(sstFiles.isEmpty());
+        for (Path sstFile : sstFiles) {
+            Assert.assertTrue(Files.isSameFile(sstFile, base.resolve("state").resolve(sstFile.getFileName())));
+        }
+
+        RocksDBKVStore restored = new RocksDBKVStore(checkpointPath, properties);
+        try {
+            for (int i = 0; i <= 10; i++) {
+                Assert.assertArrayEquals(bytes("value-" + i), restored.get(bytes("key-" + i)));
+            }
+            Assert.assertNull(restored.get(bytes("key-11")));
+        } finally {
+            restored.close();
+        }
+    }
+
+    private static byte[] bytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -21,6 +21,7 @@ import io.journalkeeper.core.api.UpdateRequest;
 import io.journalkeeper.core.api.transaction.TransactionContext;
 import io.journalkeeper.core.entry.DefaultJournalEntryParser;
 import io.journalkeeper.core.entry.JournalEntryParseSupport;
+import io.journalkeeper.exceptions.IndexOverflowException;
 import io.journalkeeper.exceptions.ServerBusyException;
 import io.journalkeeper.rpc.client.UpdateClusterStateRequest;
 import io.journalkeeper.utils.format.Format;
@@ -230,6 +231,65 @@ public class JournalStoreTest {
 
 
     }
+    @Test
+    public void pollTest() throws Exception {
+        JournalStoreServer server = createServers(1, base).get(0);
+        try {
+            JournalStoreClient client = server.createLocalClient();
+            client.waitForClusterReady();
+
+            long index = client.append(0, 1, new byte[]{1}).get();
+
+            // 读到分区末尾时，服务端等待新的日志写入再返回
+            CompletableFuture<List<JournalEntry>> pollFuture = client.poll(0, index + 1, 10);
+            Thread.sleep(100L);
+            Assert.assertFalse(pollFuture.isDone());
+            client.append(0, 1, new byte[]{2}).get();
+            List<JournalEntry> entries = pollFuture.get(1, TimeUnit.SECONDS);
+            Assert.assertEquals(1, entries.size());
+            Assert.assertArrayEquals(new byte[]{2}, entries.get(0).getPayload().getBytes());
+
+            // 等待超时仍没有新的日志，返回空列表
+            Assert.assertTrue(client.poll(0, index + 2, 10).get(5, TimeUnit.SECONDS).isEmpty());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * 开启read_from_replicas，客户端总能从任意节点读到自己写入的日志，读取分区末尾之后的位置返回OVERFLOW
+     */
+    @Test
+    public void readFromReplicasTest() throws Exception {
+        List<JournalStoreServer> servers = createServers(3, base);
+        try {
+            Properties properties = new Properties();
+            properties.setProperty(JournalStoreClient.READ_FROM_REPLICAS_KEY, "true");
+            JournalStoreClient client = new JournalStoreClient(servers.stream().map(JournalStoreServer::serverUri).collect(Collectors.toList()), properties);
+            client.waitForClusterReady();
+
+            for (int i = 0; i < 100; i++) {
+                byte[] payload = new byte[]{(byte) i};
+                long index = client.append(0, 1, payload).get();
+                List<JournalEntry> entries = client.get(0, index, 1).get();
+                Assert.assertEquals(1, entries.size());
+                Assert.assertArrayEquals(payload, entries.get(0).getPayload().getBytes());
+            }
+
+            long maxIndex = client.maxIndices().get().get(0);
+            Assert.assertEquals(100L, maxIndex);
+            Assert.assertTrue(client.get(0, maxIndex, 10).get().isEmpty());
+            try {
+                client.get(0, maxIndex + 1, 10).get();
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IndexOverflowException);
+            }
+        } finally {
+            stopServers(servers);
+        }
+    }
+
     @Ignore
     @Test
     public void writePerformanceTest() throws Exception {
@@ -456,7 +516,7 @@ public class JournalStoreTest {
     public void transactionCommitTest() throws Exception {
         final int nodes = 3;
         final int entrySize = 1024;
-        final int entryCount = 3;
+        final int entryCount = 12;
         final Set<Integer> partitions = Collections.unmodifiableSet(
                 new HashSet<>(Arrays.asList(0, 1, 2, 3, 4))
         );
@@ -514,6 +574,50 @@ public class JournalStoreTest {
 
     }
 
+    /**
+     * 提交的事务日志数量超过一个索引文件的容量（默认16384条），提交时需要拆分成多个请求。
+     */
+    @Test
+    public void largeTransactionCommitTest() throws Exception {
+        final int entrySize = 16;
+        final int entryCount = 20000;
+        final int batchSize = 1000;
+        final int partition = 0;
+
+        List<byte[]> rawEntries = ByteUtils.createFixedSizeByteList(entrySize, entryCount);
+        List<JournalStoreServer> servers = createServers(1, base);
+        JournalStoreClient client = new JournalStoreClient(servers.stream().map(JournalStoreServer::serverUri).collect(Collectors.toList()), new Properties());
+        client.waitForClusterReady();
+
+        TransactionContext transactionContext = client.createTransaction().get();
+        for (int i = 0; i < entryCount; i += batchSize) {
+            List<UpdateRequest> updateRequests = rawEntries.subList(i, Math.min(i + batchSize, entryCount)).stream()
+                    .map(entry -> new UpdateRequest(entry, partition, 1))
+                    .collect(Collectors.toList());
+            client.append(transactionContext.transactionId(), updateRequests, false).get();
+        }
+
+        client.completeTransaction(transactionContext.transactionId(), true).get();
+
+        // 事务日志是异步写入分区的，等待全部写入
+        long deadline = System.currentTimeMillis() + 30000L;
+        while (client.maxIndices().get().get(partition) < entryCount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100L);
+        }
+        Assert.assertEquals(entryCount, (long) client.maxIndices().get().get(partition));
+
+        for (int i = 0; i < entryCount; i += 997) {
+            List<JournalEntry> journalEntries = client.get(partition, i, 1).get();
+            Assert.assertEquals(1, journalEntries.size());
+            Assert.assertArrayEquals(rawEntries.get(i), journalEntries.get(0).getPayload().getBytes());
+        }
+        List<JournalEntry> lastEntries = client.get(partition, entryCount - 1, 1).get();
+        Assert.assertArrayEquals(rawEntries.get(entryCount - 1), lastEntries.get(0).getPayload().getBytes());
+
+        stopServers(servers);
+
+    }
+
     @Test
     public void transactionAbortTest() throws Exception {
         final int nodes = 3;
@@ -567,6 +671,59 @@ public class JournalStoreTest {
     }
 
 
+    @Test
+    public void manyOpeningTransactionsTest() throws Exception {
+        final int nodes = 3;
+        final int entrySize = 128;
+        // 超过初始的事务分区数量
+        final int transactionCount = 40;
+        final int entriesPerTransaction = 2;
+        final Set<Integer> partitions = Collections.unmodifiableSet(
+                new HashSet<>(Arrays.asList(0, 1, 2, 3, 4))
+        );
+
+        List<byte[]> rawEntries = ByteUtils.createFixedSizeByteList(entrySize, transactionCount * entriesPerTransaction);
+        List<JournalStoreServer> servers = createServers(nodes, base, partitions);
+        JournalStoreClient client = new JournalStoreClient(servers.stream().map(JournalStoreServer::serverUri).collect(Collectors.toList()), new Properties());
+        client.waitForClusterReady();
+
+        List<TransactionContext> transactionContexts = new ArrayList<>(transactionCount);
+        for (int i = 0; i < transactionCount; i++) {
+            transactionContexts.add(client.createTransaction(null).get());
+        }
+        Assert.assertEquals(transactionCount, client.getOpeningTransactions().get().size());
+
+        // 每个事务的消息交替写入
+        for (int j = 0; j < entriesPerTransaction; j++) {
+            CompletableFuture[] futures = new CompletableFuture[transactionCount];
+            for (int i = 0; i < transactionCount; i++) {
+                futures[i] = client.append(transactionContexts.get(i).transactionId(),
+                        rawEntries.get(i * entriesPerTransaction + j), i % partitions.size(), 1);
+            }
+            CompletableFuture.allOf(futures).get();
+        }
+
+        for (TransactionContext transactionContext : transactionContexts) {
+            client.completeTransaction(transactionContext.transactionId(), true).get();
+        }
+        Assert.assertTrue(client.getOpeningTransactions().get().isEmpty());
+
+        // 同一个分区中，每个事务的消息按照提交的顺序连续排列
+        for (int partition : partitions) {
+            List<byte[]> expected = new ArrayList<>();
+            for (int i = partition; i < transactionCount; i += partitions.size()) {
+                expected.addAll(rawEntries.subList(i * entriesPerTransaction, (i + 1) * entriesPerTransaction));
+            }
+            List<JournalEntry> journalEntries = client.get(partition, 0L, expected.size()).get();
+            Assert.assertEquals(expected.size(), journalEntries.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertArrayEquals(expected.get(i), journalEntries.get(i).getPayload().getBytes());
+            }
+        }
+
+        stopServers(servers);
+    }
+
     @Test
     public void transactionFailSafeTest() throws Exception {
         final int nodes = 3;
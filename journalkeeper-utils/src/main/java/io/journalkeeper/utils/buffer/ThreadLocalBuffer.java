@@ -0,0 +1,63 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.buffer;
+
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * 线程内复用的缓冲区，用于序列化等需要临时缓冲区的场景，避免每次都分配新的缓冲区。
+ *
+ * 缓冲区会随着写入的数据自动扩容，一次写入了很大的数据之后，
+ * 缓冲区的容量如果超过 {@link #MAX_RETAINED_CAPACITY}，用完就丢弃，
+ * 下次使用时重新创建，避免线程长期持有大块内存。
+ *
+ * @param <T> 缓冲区类型
+ */
+public class ThreadLocalBuffer<T> {
+    /**
+     * 线程内保留的缓冲区的最大容量，单位字节。
+     */
+    public static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private final ThreadLocal<T> buffers;
+    private final ToIntFunction<T> capacity;
+
+    /**
+     * @param factory 创建缓冲区
+     * @param capacity 获取缓冲区当前的容量
+     */
+    public ThreadLocalBuffer(Supplier<T> factory, ToIntFunction<T> capacity) {
+        this.buffers = ThreadLocal.withInitial(factory);
+        this.capacity = capacity;
+    }
+
+    /**
+     * 获取当前线程的缓冲区，用完后需要调用 {@link #release(Object)}。
+     * @return 缓冲区
+     */
+    public T get() {
+        return buffers.get();
+    }
+
+    /**
+     * 用完缓冲区后调用，缓冲区容量超过 {@link #MAX_RETAINED_CAPACITY} 时丢弃。
+     * @param buffer {@link #get()} 返回的缓冲区
+     */
+    public void release(T buffer) {
+        if (capacity.applyAsInt(buffer) > MAX_RETAINED_CAPACITY) {
+            buffers.remove();
+        }
+    }
+}
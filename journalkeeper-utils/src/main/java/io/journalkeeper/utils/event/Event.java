@@ -20,6 +20,10 @@ import java.util.Map;
  * Date: 2019-04-12
  */
 public class Event {
+    /**
+     * 状态变更事件中记录已提交日志索引序号的事件数据key，可以作为事件的版本号。
+     */
+    public static final String LAST_APPLIED = "lastApplied";
     private final int eventType;
     private final Map<String, String> eventData;
 
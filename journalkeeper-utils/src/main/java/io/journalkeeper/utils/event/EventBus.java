@@ -19,15 +19,15 @@ import io.journalkeeper.utils.threads.ThreadBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableMap;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
 
 /**
  * 事件总线，缓存事件，支持推拉2种模型：push和pull。
@@ -38,7 +38,7 @@ import java.util.stream.Collectors;
  * 3. 客户端调用 {@link #unWatch(EventWatcher)} 删除监听器，不再监听事件。
  *
  * pull模式下，客户端需要主动拉取事件，一般用于远程监听。
- * 1. 首先客户端调用 {@link #addPullWatch()} 创建一个监听，返回监听ID；
+ * 1. 首先客户端调用 {@link #addPullWatch(EventFilter)} 创建一个监听，返回监听ID；
  * 2. 客户端调用 {@link #pullIntervalMs()} 获取pull间隔时间；
  * 3. 客户端启动一个定时器，每隔{@link #pullIntervalMs()}时间，调用 {@link #pullEvents(long)}拉取事件；
  * 4. 客户端收到事件后，调用 {@link #ackPullEvents(long, long)}  确认。
@@ -46,14 +46,27 @@ import java.util.stream.Collectors;
  *
  * 注意：客户端需要按照服务端给出的时间间隔拉取事件，如果客户端长时间不来拉取事件，服务端将认为客户端已经宕机，自动取消订阅。
  *
+ * pull模式的事件缓存在一个固定容量的环形缓冲区中，触发事件时无锁写入。
+ * 所有pull监听都确认过的事件会被及时清除；如果某个监听长时间不确认，
+ * 超出容量的最旧的事件将被覆盖，这个监听会丢失这部分事件。
+ * 每次拉取最多返回 {@link #MAX_PULL_EVENTS} 条事件，创建监听时可以指定 {@link EventFilter}，只拉取符合条件的事件，
+ * 过滤条件可以通过 {@link #updatePullWatch(long, EventFilter)} 修改。
+ * 客户端重连后可以调用 {@link #addPullWatch(EventFilter, Predicate)} 从缓冲区中还保留的事件开始重新拉取，
+ * 已经被清除或者覆盖的事件无法找回。
+ *
  * @author LiYue
  * Date: 2019-04-12
  */
 public class EventBus implements Watchable {
+    public static final int DEFAULT_EVENT_LOG_CAPACITY = 16384;
+    public static final int MAX_PULL_EVENTS = 1024;
     private static final Logger logger = LoggerFactory.getLogger(EventBus.class);
-    private final NavigableMap<Long, Event> cachedEvents = new ConcurrentSkipListMap<>();
+    private final AtomicReferenceArray<PullEvent> eventLog;
+    private final int eventLogMask;
     private final AtomicLong watchIdGenerator = new AtomicLong(0L);
     private final AtomicLong nextSequence = new AtomicLong(0L);
+    // 小于这个序号的事件已经从缓冲区中清除
+    private final AtomicLong trimmedSequence = new AtomicLong(0L);
     private final Set<EventWatcher> eventWatchers = ConcurrentHashMap.newKeySet();
     private final Map<Long, PullEventWatcher> pullEventWatchers = new ConcurrentHashMap<>();
     private final long pullEventIntervalMs;
@@ -61,7 +74,21 @@ public class EventBus implements Watchable {
     private final AsyncLoopThread removeTimeoutPullWatchersThread;
     private final Collection<EventInterceptor> interceptors;
 
-    public EventBus(long pullEventIntervalMs) {
+    /**
+     * 构造事件总线
+     * @param pullEventIntervalMs pull模式的拉取时间间隔
+     * @param eventLogCapacity 事件缓冲区容量，会向上取整为2的幂。
+     */
+    public EventBus(long pullEventIntervalMs, int eventLogCapacity) {
+        if (eventLogCapacity <= 0) {
+            throw new IllegalArgumentException("Event log capacity must be positive!");
+        }
+        int capacity = Integer.highestOneBit(eventLogCapacity);
+        if (capacity < eventLogCapacity) {
+            capacity <<= 1;
+        }
+        this.eventLog = new AtomicReferenceArray<>(capacity);
+        this.eventLogMask = capacity - 1;
         this.pullEventIntervalMs = pullEventIntervalMs;
         this.pullEventWatcherTimeout = 5 * pullEventIntervalMs;
         interceptors = ServiceSupport.loadAll(EventInterceptor.class);
@@ -69,6 +96,10 @@ public class EventBus implements Watchable {
         this.removeTimeoutPullWatchersThread.start();
     }
 
+    public EventBus(long pullEventIntervalMs) {
+        this(pullEventIntervalMs, DEFAULT_EVENT_LOG_CAPACITY);
+    }
+
     public EventBus() {
         this(1000L);
     }
@@ -84,14 +115,16 @@ public class EventBus implements Watchable {
     }
 
     private void removeTimeoutPullWatchers() {
-        pullEventWatchers.entrySet().removeIf(entry -> entry.getValue().lastPullTimestamp + pullEventWatcherTimeout < System.currentTimeMillis());
+        if (pullEventWatchers.entrySet().removeIf(entry -> entry.getValue().lastPullTimestamp + pullEventWatcherTimeout < System.currentTimeMillis())) {
+            trim();
+        }
     }
 
     /**
-     * 触发一个事件
+     * 触发一个事件，可以被多个线程并发调用。
      * @param event 事件
      */
-    public synchronized void fireEvent(Event event) {
+    public void fireEvent(Event event) {
         for (EventInterceptor interceptor : interceptors) {
             if (!interceptor.onEvent(event, this)) {
                 logger.info("Event canceled by an interceptor, type: {}, data: {}"
@@ -100,10 +133,16 @@ public class EventBus implements Watchable {
             }
         }
         // 回调Push eventWatchers
-        eventWatchers.forEach(eventWatcher -> eventWatcher.onEvent(event));
+        for (EventWatcher eventWatcher : eventWatchers) {
+            EventFilter eventFilter = eventWatcher.eventFilter();
+            if (null == eventFilter || eventFilter.accept(event)) {
+                eventWatcher.onEvent(event);
+            }
+        }
 
         if (!pullEventWatchers.isEmpty()) {
-            cachedEvents.put(nextSequence.getAndIncrement(), event);
+            long sequence = nextSequence.getAndIncrement();
+            eventLog.set(slot(sequence), new PullEvent(event.getEventType(), sequence, event.getEventData()));
         }
     }
 
@@ -134,17 +173,65 @@ public class EventBus implements Watchable {
      * @return 监听ID
      */
     public long addPullWatch() {
+        return addPullWatch(null);
+    }
+
+    /**
+     * 添加pull模式事件监听，只拉取符合过滤条件的事件。
+     * @param eventFilter 事件过滤器，为null时不过滤。
+     * @return 监听ID
+     */
+    public long addPullWatch(EventFilter eventFilter) {
+        long pullWatchId = watchIdGenerator.getAndIncrement();
+        pullEventWatchers.put(pullWatchId, new PullEventWatcher(nextSequence.get(), eventFilter));
+        return pullWatchId;
+    }
+
+    /**
+     * 添加pull模式事件监听，从缓冲区中第一个满足 {@code startFrom} 条件的事件开始拉取。
+     * 如果缓冲区中没有满足条件的事件，从下一个新事件开始拉取。
+     * 只能找回缓冲区中还保留着的事件，已经被清除或者覆盖的事件无法找回。
+     * @param eventFilter 事件过滤器，为null时不过滤。
+     * @param startFrom 开始拉取的事件需要满足的条件。
+     * @return 监听ID
+     */
+    public synchronized long addPullWatch(EventFilter eventFilter, Predicate<Event> startFrom) {
+        long maxSequence = nextSequence.get();
+        long sequence = Math.max(trimmedSequence.get(), maxSequence - eventLog.length());
+        for (; sequence < maxSequence; sequence++) {
+            PullEvent pullEvent = eventLog.get(slot(sequence));
+            if (null != pullEvent && pullEvent.getSequence() == sequence && startFrom.test(pullEvent)) {
+                break;
+            }
+        }
         long pullWatchId = watchIdGenerator.getAndIncrement();
-        pullEventWatchers.put(pullWatchId, new PullEventWatcher(nextSequence.get()));
+        pullEventWatchers.put(pullWatchId, new PullEventWatcher(sequence, eventFilter));
         return pullWatchId;
     }
 
+    /**
+     * 修改pull事件监听的过滤条件，之后拉取的事件使用新的过滤条件。
+     * @param pullWatchId 监听ID
+     * @param eventFilter 事件过滤器，为null时不过滤。
+     * @return 监听ID存在返回true，否则返回false。
+     */
+    public boolean updatePullWatch(long pullWatchId, EventFilter eventFilter) {
+        PullEventWatcher pullEventWatcher = pullEventWatchers.get(pullWatchId);
+        if (null == pullEventWatcher) {
+            return false;
+        }
+        pullEventWatcher.setEventFilter(eventFilter);
+        return true;
+    }
+
     /**
      * 删除pull事件监听。
      * @param pullWatchId 监听ID
      */
     public void removePullWatch(long pullWatchId) {
-        pullEventWatchers.remove(pullWatchId);
+        if (null != pullEventWatchers.remove(pullWatchId)) {
+            trim();
+        }
     }
 
     /**
@@ -158,25 +245,39 @@ public class EventBus implements Watchable {
     /**
      * 拉取事件
      * @param pullWatchId 监听ID
-     * @return 从上次ack 的序号至今的所有事件，保证事件有序。
+     * @return 从上次ack 的序号至今符合过滤条件的事件，最多 {@link #MAX_PULL_EVENTS} 条，保证事件有序。
      * 如果没有事件返回长度为0的List。
      * 如果监听ID {@code pullWatchId} 不存在，返回null。
      */
     public List<PullEvent> pullEvents(long pullWatchId) {
         PullEventWatcher pullEventWatcher = pullEventWatchers.get(pullWatchId);
-        if (null != pullEventWatcher) {
-            List<PullEvent> pullEvents = cachedEvents.tailMap(pullEventWatcher.sequence.get())
-                    .entrySet().stream()
-                    .map(entry ->
-                            new PullEvent(entry.getValue().getEventType(),
-                                    entry.getKey(),
-                                    entry.getValue().getEventData()
-                            ))
-                    .collect(Collectors.toList());
-            pullEventWatcher.touch();
-            return pullEvents;
+        if (null == pullEventWatcher) {
+            return null;
         }
-        return null;
+        pullEventWatcher.touch();
+        List<PullEvent> pullEvents = new ArrayList<>();
+        long sequence = pullEventWatcher.sequence.get();
+        long maxSequence = nextSequence.get();
+        if (maxSequence - sequence > eventLog.length()) {
+            long oldestSequence = maxSequence - eventLog.length();
+            logger.warn("Pull watch {} is too slow, {} events dropped.", pullWatchId, oldestSequence - sequence);
+            pullEventWatcher.sequence.compareAndSet(sequence, oldestSequence);
+            sequence = oldestSequence;
+        }
+        for (; sequence < maxSequence && pullEvents.size() < MAX_PULL_EVENTS; sequence++) {
+            PullEvent pullEvent = eventLog.get(slot(sequence));
+            if (null == pullEvent || pullEvent.getSequence() != sequence) {
+                // 事件还没有写入或者已经被覆盖，下次再拉取
+                break;
+            }
+            if (pullEventWatcher.accept(pullEvent)) {
+                pullEvents.add(pullEvent);
+            } else if (pullEvents.isEmpty()) {
+                // 之前的事件都已经确认，不符合条件的事件直接跳过，不需要等待客户端确认。
+                pullEventWatcher.sequence.compareAndSet(sequence, sequence + 1);
+            }
+        }
+        return pullEvents;
     }
 
     /**
@@ -186,11 +287,40 @@ public class EventBus implements Watchable {
      */
     public void ackPullEvents(long pullWatchId, long sequence) {
         PullEventWatcher pullEventWatcher = pullEventWatchers.get(pullWatchId);
-        if (null != pullEventWatcher && pullEventWatcher.sequence.get() > sequence) {
-            pullEventWatcher.sequence.set(sequence);
+        if (null != pullEventWatcher) {
+            long nextAckSequence = Math.min(sequence + 1, nextSequence.get());
+            if (pullEventWatcher.sequence.get() < nextAckSequence) {
+                pullEventWatcher.sequence.accumulateAndGet(nextAckSequence, Math::max);
+                trim();
+            }
         }
     }
 
+    /**
+     * 清除所有pull监听都已经确认的事件，释放内存。
+     */
+    private synchronized void trim() {
+        long minSequence = nextSequence.get();
+        for (PullEventWatcher pullEventWatcher : pullEventWatchers.values()) {
+            minSequence = Math.min(minSequence, pullEventWatcher.sequence.get());
+        }
+        long trimmed = trimmedSequence.get();
+        minSequence = Math.max(minSequence, nextSequence.get() - eventLog.length());
+        if (minSequence > trimmed && trimmedSequence.compareAndSet(trimmed, minSequence)) {
+            for (long sequence = Math.max(trimmed, minSequence - eventLog.length()); sequence < minSequence; sequence++) {
+                int slot = slot(sequence);
+                PullEvent pullEvent = eventLog.get(slot);
+                if (null != pullEvent && pullEvent.getSequence() == sequence) {
+                    eventLog.compareAndSet(slot, pullEvent, null);
+                }
+            }
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence & eventLogMask);
+    }
+
     public void shutdown() {
         removeTimeoutPullWatchersThread.stop();
     }
@@ -200,14 +330,27 @@ public class EventBus implements Watchable {
     }
 
     private static class PullEventWatcher {
+        // 下一个需要投递的事件序号，小于这个序号的事件都已经确认
         private final AtomicLong sequence = new AtomicLong(0L);
-        private long lastPullTimestamp = System.currentTimeMillis();
-        PullEventWatcher(long sequence) {
+        private volatile EventFilter eventFilter;
+        private volatile long lastPullTimestamp = System.currentTimeMillis();
+
+        PullEventWatcher(long sequence, EventFilter eventFilter) {
             this.sequence.set(sequence);
+            setEventFilter(eventFilter);
+        }
+
+        void setEventFilter(EventFilter eventFilter) {
+            this.eventFilter = null == eventFilter || eventFilter.isAcceptAll() ? null : eventFilter;
         }
 
         void touch() {
             lastPullTimestamp = System.currentTimeMillis();
         }
+
+        boolean accept(Event event) {
+            EventFilter eventFilter = this.eventFilter;
+            return null == eventFilter || eventFilter.accept(event);
+        }
     }
 }
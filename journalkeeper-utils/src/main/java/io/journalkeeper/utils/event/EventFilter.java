@@ -0,0 +1,208 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.event;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 事件过滤器，在事件总线上按条件筛选事件，只有符合条件的事件才会投递给监听者。
+ * 过滤条件包括：
+ * 1. 事件类型 {@link #getEventTypes()}，为空时不限制事件类型；
+ * 2. 事件数据精确匹配 {@link #getDataEquals()}，事件数据中对应的值等于给定的一组值中的任意一个；
+ * 3. 事件数据前缀匹配 {@link #getDataPrefixes()}，事件数据中对应的值以给定的一组前缀中的任意一个开头。
+ * 同一个事件数据的精确匹配和前缀匹配满足其一即可，不同的事件数据和事件类型必须同时满足，事件才被接受。
+ *
+ * 例如：只监听分区3和分区5的日志变化事件：
+ * <pre>
+ *     new EventFilter(Collections.singleton(EventType.ON_JOURNAL_CHANGE),
+ *         Collections.singletonMap("partition", Arrays.asList("3", "5")), null);
+ * </pre>
+ */
+public class EventFilter {
+    /**
+     * 接受所有事件的过滤器
+     */
+    public static final EventFilter ACCEPT_ALL = new EventFilter(null, null, null);
+
+    private final Set<Integer> eventTypes;
+    private final Map<String, Set<String>> dataEquals;
+    private final Map<String, Set<String>> dataPrefixes;
+
+    /**
+     * 构造过滤器
+     * @param eventTypes 接受的事件类型，null或者为空时接受所有类型。
+     * @param dataEquals 事件数据精确匹配条件，可以为null。
+     * @param dataPrefixes 事件数据前缀匹配条件，可以为null。
+     */
+    public EventFilter(Collection<Integer> eventTypes,
+                       Map<String, ? extends Collection<String>> dataEquals,
+                       Map<String, ? extends Collection<String>> dataPrefixes) {
+        this.eventTypes = null == eventTypes ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(eventTypes));
+        this.dataEquals = copy(dataEquals);
+        this.dataPrefixes = copy(dataPrefixes);
+    }
+
+    private static Map<String, Set<String>> copy(Map<String, ? extends Collection<String>> map) {
+        if (null == map || map.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Set<String>> copy = new HashMap<>(map.size());
+        map.forEach((key, values) -> copy.put(key, Collections.unmodifiableSet(new HashSet<>(values))));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * 只按照事件类型过滤
+     * @param eventTypes 接受的事件类型
+     * @return 过滤器
+     */
+    public static EventFilter ofEventTypes(Integer... eventTypes) {
+        return new EventFilter(Arrays.asList(eventTypes), null, null);
+    }
+
+    /**
+     * 合并多个过滤器，返回的过滤器接受任意一个过滤器接受的事件，可能会接受更多的事件。
+     * 只有所有过滤器都限制了的事件数据才会保留，条件取并集；事件类型也取并集。
+     * 例如多个只限制了"key"的过滤器，合并后的过滤器接受这些key和前缀中的任意一个。
+     * @param filters 过滤器，null表示接受所有事件
+     * @return 合并后的过滤器
+     */
+    public static EventFilter union(Collection<EventFilter> filters) {
+        if (filters.isEmpty() || filters.stream().anyMatch(filter -> null == filter || filter.isAcceptAll())) {
+            return ACCEPT_ALL;
+        }
+        Set<Integer> eventTypes = new HashSet<>();
+        Set<String> dataKeys = null;
+        for (EventFilter filter : filters) {
+            if (null != eventTypes) {
+                if (filter.eventTypes.isEmpty()) {
+                    eventTypes = null;
+                } else {
+                    eventTypes.addAll(filter.eventTypes);
+                }
+            }
+            Set<String> keys = new HashSet<>(filter.dataEquals.keySet());
+            keys.addAll(filter.dataPrefixes.keySet());
+            if (null == dataKeys) {
+                dataKeys = keys;
+            } else {
+                dataKeys.retainAll(keys);
+            }
+        }
+        Map<String, Set<String>> dataEquals = new HashMap<>();
+        Map<String, Set<String>> dataPrefixes = new HashMap<>();
+        for (EventFilter filter : filters) {
+            for (String key : dataKeys) {
+                addAll(dataEquals, key, filter.dataEquals.get(key));
+                addAll(dataPrefixes, key, filter.dataPrefixes.get(key));
+            }
+        }
+        return new EventFilter(eventTypes, dataEquals, dataPrefixes);
+    }
+
+    private static void addAll(Map<String, Set<String>> map, String key, Set<String> values) {
+        if (null != values) {
+            map.computeIfAbsent(key, k -> new HashSet<>()).addAll(values);
+        }
+    }
+
+    /**
+     * 判断事件是否符合过滤条件
+     * @param event 事件
+     * @return 符合条件返回true，否则返回false。
+     */
+    public boolean accept(Event event) {
+        if (!eventTypes.isEmpty() && !eventTypes.contains(event.getEventType())) {
+            return false;
+        }
+        if (dataEquals.isEmpty() && dataPrefixes.isEmpty()) {
+            return true;
+        }
+        Map<String, String> eventData = event.getEventData();
+        if (null == eventData) {
+            return false;
+        }
+        for (Map.Entry<String, Set<String>> entry : dataEquals.entrySet()) {
+            String value = eventData.get(entry.getKey());
+            if (null == value || !entry.getValue().contains(value) && !matchPrefix(entry.getKey(), value)) {
+                return false;
+            }
+        }
+        for (String key : dataPrefixes.keySet()) {
+            if (!dataEquals.containsKey(key) && !matchPrefix(key, eventData.get(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchPrefix(String key, String value) {
+        Set<String> prefixes = dataPrefixes.get(key);
+        if (null == prefixes || null == value) {
+            return false;
+        }
+        for (String prefix : prefixes) {
+            if (value.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isAcceptAll() {
+        return eventTypes.isEmpty() && dataEquals.isEmpty() && dataPrefixes.isEmpty();
+    }
+
+    public Set<Integer> getEventTypes() {
+        return eventTypes;
+    }
+
+    public Map<String, Set<String>> getDataEquals() {
+        return dataEquals;
+    }
+
+    public Map<String, Set<String>> getDataPrefixes() {
+        return dataPrefixes;
+    }
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EventFilter that = (EventFilter) o;
+        return eventTypes.equals(that.eventTypes) &&
+                dataEquals.equals(that.dataEquals) &&
+                dataPrefixes.equals(that.dataPrefixes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventTypes, dataEquals, dataPrefixes);
+    }
+
+    @Override
+    public String toString() {
+        return "EventFilter{" +
+                "eventTypes=" + eventTypes +
+                ", dataEquals=" + dataEquals +
+                ", dataPrefixes=" + dataPrefixes +
+                '}';
+    }
+}
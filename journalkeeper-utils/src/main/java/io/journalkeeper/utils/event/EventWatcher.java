@@ -20,4 +20,13 @@ package io.journalkeeper.utils.event;
  */
 public interface EventWatcher {
     void onEvent(Event event);
+
+    /**
+     * 事件过滤器，只有符合过滤条件的事件才会投递给监听器。
+     * 远程监听时，过滤在服务端完成，不符合条件的事件不会传输到客户端。
+     * @return 事件过滤器，默认返回null，不过滤任何事件。
+     */
+    default EventFilter eventFilter() {
+        return null;
+    }
 }
@@ -46,6 +46,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -93,6 +94,19 @@ public class FileUtils {
     }
 
     public static void dump(Path srcPath, Path destPath) throws IOException {
+        dump(srcPath, destPath, file -> false);
+    }
+
+    /**
+     * 复制srcPath下的所有文件到destPath。
+     * 满足hardLinkFilter的文件创建硬链接代替复制，创建硬链接失败时（例如跨文件系统）仍然复制。
+     * 只有不会被原地修改的文件才能使用硬链接，否则修改会同时影响源文件和目标文件。
+     * @param srcPath 源目录
+     * @param destPath 目标目录
+     * @param hardLinkFilter 判断源文件是否可以使用硬链接
+     * @throws IOException 发生IO异常时抛出
+     */
+    public static void dump(Path srcPath, Path destPath, Predicate<Path> hardLinkFilter) throws IOException {
         List<Path> srcFiles = listAllFiles(srcPath);
 
         List<Path> destFiles = srcFiles.stream()
@@ -106,12 +120,24 @@ public class FileUtils {
             Files.createDirectories(destFile.getParent());
             if(srcFile.toFile().isDirectory()) {
                 Files.createDirectories(destFile);
+            } else if (hardLinkFilter.test(srcFile)) {
+                link(srcFile, destFile);
             } else {
                 Files.copy(srcFile, destFile);
             }
         }
     }
 
+    private static void link(Path srcFile, Path destFile) throws IOException {
+        try {
+            Files.createLink(destFile, srcFile);
+        } catch (UnsupportedOperationException | IOException e) {
+            logger.debug("Create hard link failed, copy instead, src: {}, dest: {}.", srcFile, destFile, e);
+            Files.deleteIfExists(destFile);
+            Files.copy(srcFile, destFile);
+        }
+    }
+
     public static void createIfNotExists(Path path) throws IOException{
         if (!Files.exists(path) &&!path.toFile().createNewFile()) {
             throw new IOException(
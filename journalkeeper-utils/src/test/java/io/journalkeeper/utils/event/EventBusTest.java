@@ -0,0 +1,184 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.event;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class EventBusTest {
+    private EventBus eventBus;
+
+    @Before
+    public void before() {
+        eventBus = new EventBus(1000L, 16);
+    }
+
+    @After
+    public void after() {
+        eventBus.shutdown();
+    }
+
+    @Test
+    public void pullAndAckTest() {
+        long pullWatchId = eventBus.addPullWatch();
+        fireEvents(0, 10);
+
+        List<PullEvent> pullEvents = eventBus.pullEvents(pullWatchId);
+        Assert.assertEquals(10, pullEvents.size());
+        for (int i = 0; i < pullEvents.size(); i++) {
+            Assert.assertEquals(String.valueOf(i), pullEvents.get(i).getEventData().get("key"));
+        }
+
+        // 未确认的事件会被重复拉取
+        Assert.assertEquals(10, eventBus.pullEvents(pullWatchId).size());
+
+        eventBus.ackPullEvents(pullWatchId, pullEvents.get(4).getSequence());
+        pullEvents = eventBus.pullEvents(pullWatchId);
+        Assert.assertEquals(5, pullEvents.size());
+        Assert.assertEquals("5", pullEvents.get(0).getEventData().get("key"));
+
+        eventBus.ackPullEvents(pullWatchId, pullEvents.get(pullEvents.size() - 1).getSequence());
+        Assert.assertTrue(eventBus.pullEvents(pullWatchId).isEmpty());
+        Assert.assertNull(eventBus.pullEvents(pullWatchId + 1));
+    }
+
+    @Test
+    public void overflowTest() {
+        long pullWatchId = eventBus.addPullWatch();
+        fireEvents(0, 40);
+
+        // 超出容量的最旧的事件被覆盖
+        List<PullEvent> pullEvents = eventBus.pullEvents(pullWatchId);
+        Assert.assertEquals(16, pullEvents.size());
+        Assert.assertEquals("24", pullEvents.get(0).getEventData().get("key"));
+        Assert.assertEquals("39", pullEvents.get(15).getEventData().get("key"));
+    }
+
+    @Test
+    public void filterTest() {
+        long pullWatchId = eventBus.addPullWatch(new EventFilter(
+                Collections.singleton(EventType.ON_STATE_CHANGE), null, Collections.singletonMap("key", Collections.singleton("1"))));
+        List<Event> pushedEvents = new ArrayList<>();
+        EventWatcher eventWatcher = new EventWatcher() {
+            @Override
+            public void onEvent(Event event) {
+                pushedEvents.add(event);
+            }
+
+            @Override
+            public EventFilter eventFilter() {
+                return new EventFilter(null, Collections.singletonMap("key", Collections.singleton("3")), null);
+            }
+        };
+        eventBus.watch(eventWatcher);
+        fireEvents(0, 14);
+        eventBus.fireEvent(new Event(EventType.ON_LEADER_CHANGE, Collections.singletonMap("key", "1")));
+
+        Assert.assertEquals(1, pushedEvents.size());
+        Assert.assertEquals("3", pushedEvents.get(0).getEventData().get("key"));
+
+        List<PullEvent> pullEvents = eventBus.pullEvents(pullWatchId);
+        Assert.assertEquals(5, pullEvents.size());
+        Assert.assertEquals("1", pullEvents.get(0).getEventData().get("key"));
+        Assert.assertEquals("13", pullEvents.get(4).getEventData().get("key"));
+
+        eventBus.ackPullEvents(pullWatchId, pullEvents.get(4).getSequence());
+        // 不符合条件的事件不需要确认，不会阻止缓冲区前进
+        fireEvents(200, 240);
+        Assert.assertTrue(eventBus.pullEvents(pullWatchId).isEmpty());
+        fireEvents(1, 2);
+        Assert.assertEquals(1, eventBus.pullEvents(pullWatchId).size());
+    }
+
+    @Test
+    public void multiValueFilterTest() {
+        // 同一个事件数据的多个精确值和多个前缀满足其一即可
+        EventFilter eventFilter = new EventFilter(null,
+                Collections.singletonMap("key", Arrays.asList("3", "5")),
+                Collections.singletonMap("key", Collections.singleton("1")));
+        long pullWatchId = eventBus.addPullWatch(eventFilter);
+        fireEvents(0, 16);
+        List<String> keys = keys(eventBus.pullEvents(pullWatchId));
+        Assert.assertEquals(Arrays.asList("1", "3", "5", "10", "11", "12", "13", "14", "15"), keys);
+    }
+
+    @Test
+    public void unionTest() {
+        EventFilter key3 = new EventFilter(Collections.singleton(EventType.ON_STATE_CHANGE),
+                Collections.singletonMap("key", Collections.singleton("3")), null);
+        EventFilter prefix1 = new EventFilter(Collections.singleton(EventType.ON_STATE_CHANGE),
+                null, Collections.singletonMap("key", Collections.singleton("1")));
+        EventFilter union = EventFilter.union(Arrays.asList(key3, prefix1));
+        Assert.assertEquals(new EventFilter(Collections.singleton(EventType.ON_STATE_CHANGE),
+                Collections.singletonMap("key", Collections.singleton("3")),
+                Collections.singletonMap("key", Collections.singleton("1"))), union);
+
+        // 只有所有过滤器都限制的条件才保留
+        EventFilter leaderChange = EventFilter.ofEventTypes(EventType.ON_LEADER_CHANGE);
+        Assert.assertEquals(EventFilter.ofEventTypes(EventType.ON_STATE_CHANGE, EventType.ON_LEADER_CHANGE),
+                EventFilter.union(Arrays.asList(key3, leaderChange)));
+        Assert.assertTrue(EventFilter.union(Arrays.asList(key3, null)).isAcceptAll());
+        Assert.assertTrue(EventFilter.union(Collections.emptyList()).isAcceptAll());
+    }
+
+    @Test
+    public void updatePullWatchTest() {
+        long pullWatchId = eventBus.addPullWatch(new EventFilter(null,
+                Collections.singletonMap("key", Collections.singleton("1")), null));
+        fireEvents(0, 4);
+        Assert.assertEquals(Collections.singletonList("1"), keys(eventBus.pullEvents(pullWatchId)));
+
+        Assert.assertTrue(eventBus.updatePullWatch(pullWatchId, new EventFilter(null,
+                Collections.singletonMap("key", Arrays.asList("1", "2")), null)));
+        Assert.assertEquals(Arrays.asList("1", "2"), keys(eventBus.pullEvents(pullWatchId)));
+        Assert.assertFalse(eventBus.updatePullWatch(pullWatchId + 1, null));
+    }
+
+    @Test
+    public void replayTest() {
+        long pullWatchId = eventBus.addPullWatch();
+        fireEvents(0, 10);
+        List<PullEvent> pullEvents = eventBus.pullEvents(pullWatchId);
+        eventBus.ackPullEvents(pullWatchId, pullEvents.get(2).getSequence());
+
+        // 从还没有被清除的事件中找到开始的位置，已经清除的事件无法找回
+        long replayWatchId = eventBus.addPullWatch(null, event -> Integer.parseInt(event.getEventData().get("key")) > 1);
+        Assert.assertEquals(Arrays.asList("3", "4", "5", "6", "7", "8", "9"), keys(eventBus.pullEvents(replayWatchId)));
+        replayWatchId = eventBus.addPullWatch(null, event -> Integer.parseInt(event.getEventData().get("key")) > 6);
+        Assert.assertEquals(Arrays.asList("7", "8", "9"), keys(eventBus.pullEvents(replayWatchId)));
+        // 没有符合条件的事件，从下一个新事件开始
+        replayWatchId = eventBus.addPullWatch(null, event -> false);
+        Assert.assertTrue(eventBus.pullEvents(replayWatchId).isEmpty());
+        fireEvents(10, 11);
+        Assert.assertEquals(Collections.singletonList("10"), keys(eventBus.pullEvents(replayWatchId)));
+    }
+
+    private List<String> keys(List<PullEvent> pullEvents) {
+        return pullEvents.stream().map(pullEvent -> pullEvent.getEventData().get("key")).collect(Collectors.toList());
+    }
+
+    private void fireEvents(int from, int to) {
+        for (int i = from; i < to; i++) {
+            eventBus.fireEvent(new Event(EventType.ON_STATE_CHANGE, Collections.singletonMap("key", String.valueOf(i))));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.journalkeeper.utils.files;
+
+import io.journalkeeper.utils.test.TestPathUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FileUtilsTest {
+    private Path base;
+
+    @Before
+    public void before() throws IOException {
+        base = TestPathUtils.prepareBaseDir();
+    }
+
+    @After
+    public void after() {
+        TestPathUtils.destroyBaseDir();
+    }
+
+    @Test
+    public void dumpWithHardLinkTest() throws IOException {
+        Path src = base.resolve("src");
+        Path dest = base.resolve("dest");
+        write(src.resolve("immutable-1"), "immutable");
+        write(src.resolve("mutable"), "v1");
+        write(src.resolve("sub").resolve("immutable-2"), "sub immutable");
+        Files.createDirectories(src.resolve("empty"));
+
+        FileUtils.dump(src, dest, file -> file.getFileName().toString().startsWith("immutable"));
+
+        // 不可变的文件是硬链接，其它文件是复制
+        Assert.assertTrue(Files.isSameFile(src.resolve("immutable-1"), dest.resolve("immutable-1")));
+        Assert.assertTrue(Files.isSameFile(src.resolve("sub").resolve("immutable-2"), dest.resolve("sub").resolve("immutable-2")));
+        Assert.assertFalse(Files.isSameFile(src.resolve("mutable"), dest.resolve("mutable")));
+        Assert.assertTrue(Files.isDirectory(dest.resolve("empty")));
+        Assert.assertEquals("immutable", read(dest.resolve("immutable-1")));
+        Assert.assertEquals("sub immutable", read(dest.resolve("sub").resolve("immutable-2")));
+
+        // 创建硬链接之后源目录的变化不影响目标目录
+        write(src.resolve("mutable"), "v2");
+        write(src.resolve("immutable-3"), "written after dump");
+        Files.delete(src.resolve("immutable-1"));
+        Assert.assertEquals("v1", read(dest.resolve("mutable")));
+        Assert.assertEquals("immutable", read(dest.resolve("immutable-1")));
+        Assert.assertFalse(Files.exists(dest.resolve("immutable-3")));
+    }
+
+    @Test
+    public void dumpWithoutHardLinkTest() throws IOException {
+        Path src = base.resolve("src");
+        Path dest = base.resolve("dest");
+        write(src.resolve("file"), "content");
+
+        FileUtils.dump(src, dest);
+
+        Assert.assertFalse(Files.isSameFile(src.resolve("file"), dest.resolve("file")));
+        Assert.assertEquals("content", read(dest.resolve("file")));
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}